@@ -6,6 +6,7 @@ import cn.nirvana.vMonitor.exceptions.*;
 import cn.nirvana.vMonitor.functional_module.*;
 import cn.nirvana.vMonitor.listener.*;
 import cn.nirvana.vMonitor.loader.*;
+import cn.nirvana.vMonitor.storage.*;
 import cn.nirvana.vMonitor.util.*;
 
 import com.google.inject.Inject;
@@ -28,6 +29,10 @@ import java.sql.SQLException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
 @Plugin(
         id = "v-monitor",
         name = "V-Monitor",
@@ -50,9 +55,20 @@ public class VMonitor {
     private DataLoader dataLoader;
     private FileUtil fileUtil;
     private DatabaseUtil databaseUtil;
+    private StorageBackend storageBackend;
+    private ActivityJournal activityJournal;
+    private ExecutorUtil executorUtil;
+    private PlayerNameIndex playerNameIndex;
+    private MetricsRegistry metricsRegistry;
 
     // 添加 ReportModule 实例
     private ReportModule reportModule;
+    private BroadcastModule broadcastModule;
+    private ServerStatusModule serverStatusModule;
+    private MetricsModule metricsModule;
+    private DatabaseMaintenanceModule databaseMaintenanceModule;
+    private AnalyticsModule analyticsModule;
+    private PlayerActivityListener playerActivityListener;
 
     private MiniMessage miniMessage;
 
@@ -130,18 +146,42 @@ public class VMonitor {
             }
         }
 
+        // 运行指标注册表需要在执行器和数据库之前创建
+        this.metricsRegistry = new MetricsRegistry();
+
+        // 初始化执行模式（虚拟线程需在数据库操作之前就绪）
+        this.executorUtil = new ExecutorUtil(logger, configLoader, metricsRegistry);
+        executorUtil.initialize();
+
         // 2. 初始化数据库
         try {
             // 传入数据目录路径到 DatabaseUtil
-            this.databaseUtil = new DatabaseUtil(logger, configLoader, dataDirectory);
+            this.databaseUtil = new DatabaseUtil(logger, configLoader, metricsRegistry, dataDirectory);
             databaseUtil.initialize();
             logger.info("Database initialized successfully.");
         } catch (SQLException e) {
             logger.error("Failed to initialize database: {}", e.getMessage());
             throw new RuntimeException("Critical database error. Plugin cannot start.", e);
         }
-        this.dataLoader = new DataLoader(logger, databaseUtil);
-        dataLoader.initializeData();
+        this.storageBackend = StorageBackend.create(databaseUtil, logger);
+
+        // 打开活动日志，数据库不可用期间的玩家活动写入日志，恢复后重放
+        if (configLoader.isJournalEnabled() && databaseUtil.getDatabaseType() != DatabaseUtil.DatabaseType.MEMORY) {
+            ActivityJournal journal = new ActivityJournal(dataDirectory.resolve("journal"), logger);
+            try {
+                journal.open();
+                this.activityJournal = journal;
+            } catch (IOException e) {
+                logger.error("Failed to open activity journal, events will be dropped while the database is unavailable: {}",
+                        e.getMessage());
+            }
+        }
+        this.dataLoader = new DataLoader(logger, storageBackend, metricsRegistry, activityJournal);
+        dataLoader.initializeData(configLoader.getSessionRecoveryCredit());
+
+        // 在后台加载玩家名称补全索引，加载完成前补全结果仅包含在线玩家
+        this.playerNameIndex = new PlayerNameIndex(logger, proxyServer, dataLoader);
+        proxyServer.getScheduler().buildTask(this, playerNameIndex::load).schedule();
 
 
         // 3. 构造 langPath 并加载语言文件
@@ -169,34 +209,63 @@ public class VMonitor {
             }
         }
 
+        // 初始化并启动玩家活动广播模块
+        this.broadcastModule = new BroadcastModule(proxyServer, configLoader, languageLoader, this, logger);
+        broadcastModule.start();
+
+        // 初始化并启动后端服务器状态轮询模块
+        this.serverStatusModule = new ServerStatusModule(proxyServer, configLoader, this, logger);
+        serverStatusModule.start();
+
+        // 初始化并启动数据库维护模块
+        this.databaseMaintenanceModule = new DatabaseMaintenanceModule(proxyServer, configLoader, databaseUtil,
+                storageBackend, activityJournal, this, logger);
+        databaseMaintenanceModule.start();
+
+        // 初始化并启动指标导出模块
+        this.metricsModule = new MetricsModule(proxyServer, configLoader, databaseUtil, metricsRegistry, serverStatusModule, logger);
+        metricsModule.start();
+
         // 注册事件监听器
-        proxyServer.getEventManager().register(this, new PlayerActivityListener(proxyServer, configLoader, languageLoader, dataLoader, miniMessage, this, logger));
+        this.playerActivityListener = new PlayerActivityListener(proxyServer, configLoader, dataLoader, executorUtil,
+                broadcastModule, playerNameIndex, this, logger);
+        proxyServer.getEventManager().register(this, playerActivityListener);
+
+        // 初始化并启动分析镜像模块
+        this.analyticsModule = new AnalyticsModule(proxyServer, configLoader, storageBackend, dataLoader, this, dataDirectory, logger);
+        analyticsModule.start();
 
         // 初始化并注册命令
         CommandUtil commandUtil = new CommandUtil(proxyServer.getCommandManager(), logger, pluginContainer);
 
         // 初始化命令模块
+        AsyncCommandUtil asyncCommandUtil = new AsyncCommandUtil(logger, configLoader, languageLoader, executorUtil);
         HelpModule helpModule = new HelpModule(languageLoader, miniMessage);
-        PlayerInfoModule playerInfoModule = new PlayerInfoModule(dataLoader, languageLoader, miniMessage);
-        PlayerSwitchModule playerSwitchModule = new PlayerSwitchModule(dataLoader, languageLoader, miniMessage);
+        PlayerInfoModule playerInfoModule = new PlayerInfoModule(dataLoader, asyncCommandUtil, languageLoader, miniMessage);
+        PlayerSwitchModule playerSwitchModule = new PlayerSwitchModule(dataLoader, asyncCommandUtil, languageLoader, miniMessage);
         PluginListModule pluginListModule = new PluginListModule(proxyServer, languageLoader, miniMessage);
         PluginInfoModule pluginInfoModule = new PluginInfoModule(proxyServer, languageLoader, miniMessage);
         ServerListModule serverListModule = new ServerListModule(proxyServer, configLoader, languageLoader, miniMessage);
-        ServerInfoModule serverInfoModule = new ServerInfoModule(proxyServer, languageLoader, miniMessage, configLoader, this);
+        ServerInfoModule serverInfoModule = new ServerInfoModule(proxyServer, languageLoader, miniMessage, configLoader, serverStatusModule, this);
         ReloadModule reloadModule = new ReloadModule(configLoader, languageLoader, miniMessage);
+        DebugModule debugModule = new DebugModule(languageLoader, miniMessage, metricsRegistry, databaseUtil);
+        DataTransferModule dataTransferModule = new DataTransferModule(languageLoader, executorUtil, storageBackend,
+                analyticsModule, dataDirectory, logger);
 
         // 注册命令
         new CoreCommand(languageLoader, miniMessage, commandUtil, helpModule);
         new HelpCommand(commandUtil, helpModule);
-        new PlayerCommand(commandUtil, languageLoader, miniMessage, playerInfoModule, helpModule, dataLoader, playerSwitchModule);
+        new PlayerCommand(commandUtil, languageLoader, miniMessage, playerInfoModule, helpModule, configLoader, playerNameIndex, playerSwitchModule);
         new PluginCommand(commandUtil, proxyServer, languageLoader, miniMessage, pluginListModule, pluginInfoModule, helpModule);
         new ServerCommand(commandUtil, proxyServer, languageLoader, miniMessage, serverListModule, serverInfoModule, configLoader, helpModule, this);
         new ReloadCommand(commandUtil, reloadModule);
         new VersionCommand(commandUtil, new VersionModule(languageLoader, miniMessage));
+        new DebugCommand(commandUtil, languageLoader, debugModule);
+        new DataCommand(commandUtil, languageLoader, dataTransferModule);
         commandUtil.registerAllCommands();
 
         // 初始化并启动报表模块
-        this.reportModule = new ReportModule(logger, configLoader, dataLoader, dataDirectory);
+        this.reportModule = new ReportModule(logger, configLoader, dataLoader, analyticsModule, executorUtil, metricsRegistry, dataDirectory);
         reportModule.start();
 
         logger.info("V-Monitor plugin enabled!");
@@ -207,12 +276,70 @@ public class VMonitor {
     public void onProxyShutdown(ProxyShutdownEvent event) {
         // 在关服时执行数据保存操作，确保所有玩家数据和统计信息都已持久化
         logger.info("V-Monitor plugin is shutting down...");
+        long shutdownStart = System.nanoTime();
+
+        // 1. 停止接收玩家活动事件，取出所有进行中的会话
+        Map<UUID, Long> openSessions = Map.of();
+        if (playerActivityListener != null) {
+            proxyServer.getEventManager().unregisterListener(this, playerActivityListener);
+            openSessions = playerActivityListener.closeSessions();
+        }
+
+        // 停止指标导出
+        if (metricsModule != null) {
+            metricsModule.stop();
+        }
+
+        // 停止广播模块
+        if (broadcastModule != null) {
+            broadcastModule.stop();
+        }
+
+        // 停止服务器状态轮询
+        if (serverStatusModule != null) {
+            serverStatusModule.stop();
+        }
 
         // 停止报表模块
         if (reportModule != null) {
             reportModule.stop();
         }
 
+        // 停止分析镜像同步并关闭分析库
+        if (analyticsModule != null) {
+            analyticsModule.stop();
+        }
+
+        // 停止数据库维护任务
+        if (databaseMaintenanceModule != null) {
+            databaseMaintenanceModule.stop();
+        }
+
+        // 2. 在截止时间内等待已排队的玩家数据写入，会话结算在它们之后执行，避免与之前的游戏时间更新交错
+        if (executorUtil != null) {
+            executorUtil.shutdown(configLoader.getShutdownTimeout(), TimeUnit.SECONDS);
+        }
+
+        // 3. 在一个事务中结算所有进行中的会话，再批量写入服务器停留记录
+        if (dataLoader != null && !openSessions.isEmpty()) {
+            long flushStart = System.nanoTime();
+            int flushed = dataLoader.flushPlayTime(openSessions);
+            logger.info("Flushed play time for {} of {} open sessions in {} ms", flushed, openSessions.size(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - flushStart));
+        }
+        if (dataLoader != null) {
+            int sessions = dataLoader.flushServerSessions();
+            if (sessions > 0) {
+                logger.info("Flushed {} server sessions", sessions);
+            }
+        }
+
+        // 关闭活动日志，未重放的事件在下次启动时重放
+        if (activityJournal != null) {
+            activityJournal.close();
+        }
+
+        // 4. SQLite 写入线程提交剩余写入后关闭连接池
         if (databaseUtil != null) {
             databaseUtil.close();
             logger.info("Database connection closed.");
@@ -220,7 +347,7 @@ public class VMonitor {
             logger.warn("DatabaseUtil was not initialized.");
         }
 
-        logger.info("V-Monitor plugin disabled.");
+        logger.info("V-Monitor plugin disabled in {} ms.", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - shutdownStart));
     }
 
     // 提供一些公共访问器
@@ -236,6 +363,10 @@ public class VMonitor {
         return dataLoader;
     }
 
+    public ExecutorUtil getExecutorUtil() {
+        return executorUtil;
+    }
+
     public Logger getLogger() {
         return logger;
     }
@@ -248,6 +379,10 @@ public class VMonitor {
         return miniMessage;
     }
 
+    public MetricsRegistry getMetricsRegistry() {
+        return metricsRegistry;
+    }
+
     // 添加 ReportModule 的访问器
     public ReportModule getReportModule() {
         return reportModule;
@@ -0,0 +1,67 @@
+package cn.nirvana.vMonitor.command;
+
+import cn.nirvana.vMonitor.command_module.DataTransferModule;
+import cn.nirvana.vMonitor.loader.LanguageLoader;
+import cn.nirvana.vMonitor.util.CommandUtil;
+
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.builder.RequiredArgumentBuilder;
+
+import com.velocitypowered.api.command.CommandSource;
+
+import static com.mojang.brigadier.arguments.StringArgumentType.word;
+import static com.mojang.brigadier.Command.SINGLE_SUCCESS;
+
+public class DataCommand {
+    private final CommandUtil commandUtil;
+    private final LanguageLoader languageLoader;
+    private final DataTransferModule dataTransferModule;
+
+    public DataCommand(CommandUtil commandUtil, LanguageLoader languageLoader, DataTransferModule dataTransferModule) {
+        this.commandUtil = commandUtil;
+        this.languageLoader = languageLoader;
+        this.dataTransferModule = dataTransferModule;
+        registerDataCommand();
+    }
+
+    private void registerDataCommand() {
+        commandUtil.registerSubCommand(root -> {
+            root.then(LiteralArgumentBuilder.<CommandSource>literal("data")
+                    .requires(source -> source.hasPermission("vmonitor.admin"))
+                    .executes(context -> {
+                        context.getSource().sendMessage(languageLoader.render("commands.data.usage.export"));
+                        context.getSource().sendMessage(languageLoader.render("commands.data.usage.import"));
+                        return SINGLE_SUCCESS;
+                    })
+                    .then(LiteralArgumentBuilder.<CommandSource>literal("export")
+                            .executes(context -> {
+                                dataTransferModule.executeExport(context.getSource());
+                                return SINGLE_SUCCESS;
+                            })
+                    )
+                    .then(LiteralArgumentBuilder.<CommandSource>literal("import")
+                            .executes(context -> {
+                                context.getSource().sendMessage(languageLoader.render("commands.data.usage.import"));
+                                return SINGLE_SUCCESS;
+                            })
+                            .then(RequiredArgumentBuilder.<CommandSource, String>argument("file", word())
+                                    .suggests((context, builder) -> {
+                                        String remaining = builder.getRemaining().toLowerCase();
+                                        for (String fileName : dataTransferModule.listExportFiles()) {
+                                            if (fileName.toLowerCase().startsWith(remaining)) {
+                                                builder.suggest(fileName);
+                                            }
+                                        }
+                                        return builder.buildFuture();
+                                    })
+                                    .executes(context -> {
+                                        String fileName = context.getArgument("file", String.class);
+                                        dataTransferModule.executeImport(context.getSource(), fileName);
+                                        return SINGLE_SUCCESS;
+                                    })
+                            )
+                    )
+            );
+        });
+    }
+}
@@ -0,0 +1,49 @@
+package cn.nirvana.vMonitor.command;
+
+import cn.nirvana.vMonitor.command_module.DebugModule;
+import cn.nirvana.vMonitor.loader.LanguageLoader;
+import cn.nirvana.vMonitor.util.CommandUtil;
+
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+
+import com.velocitypowered.api.command.CommandSource;
+
+import static com.mojang.brigadier.Command.SINGLE_SUCCESS;
+
+public class DebugCommand {
+    private final CommandUtil commandUtil;
+    private final LanguageLoader languageLoader;
+    private final DebugModule debugModule;
+
+    public DebugCommand(CommandUtil commandUtil, LanguageLoader languageLoader, DebugModule debugModule) {
+        this.commandUtil = commandUtil;
+        this.languageLoader = languageLoader;
+        this.debugModule = debugModule;
+        registerDebugCommand();
+    }
+
+    private void registerDebugCommand() {
+        commandUtil.registerSubCommand(root -> {
+            root.then(LiteralArgumentBuilder.<CommandSource>literal("debug")
+                    .requires(source -> source.hasPermission("vmonitor.admin"))
+                    .executes(context -> {
+                        context.getSource().sendMessage(languageLoader.render("commands.debug.usage.queries"));
+                        context.getSource().sendMessage(languageLoader.render("commands.debug.usage.pool"));
+                        return SINGLE_SUCCESS;
+                    })
+                    .then(LiteralArgumentBuilder.<CommandSource>literal("queries")
+                            .executes(context -> {
+                                debugModule.executeQueries(context.getSource());
+                                return SINGLE_SUCCESS;
+                            })
+                    )
+                    .then(LiteralArgumentBuilder.<CommandSource>literal("pool")
+                            .executes(context -> {
+                                debugModule.executePool(context.getSource());
+                                return SINGLE_SUCCESS;
+                            })
+                    )
+            );
+        });
+    }
+}
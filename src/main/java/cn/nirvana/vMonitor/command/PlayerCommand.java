@@ -1,11 +1,12 @@
 package cn.nirvana.vMonitor.command;
 
-import cn.nirvana.vMonitor.loader.DataLoader;
+import cn.nirvana.vMonitor.loader.ConfigLoader;
 import cn.nirvana.vMonitor.loader.LanguageLoader;
 import cn.nirvana.vMonitor.command_module.HelpModule;
 import cn.nirvana.vMonitor.command_module.PlayerInfoModule;
 import cn.nirvana.vMonitor.command_module.PlayerSwitchModule;
 import cn.nirvana.vMonitor.util.CommandUtil;
+import cn.nirvana.vMonitor.util.PlayerNameIndex;
 
 import com.mojang.brigadier.builder.LiteralArgumentBuilder;
 import com.mojang.brigadier.builder.RequiredArgumentBuilder;
@@ -19,7 +20,6 @@ import com.velocitypowered.api.command.CommandSource;
 import net.kyori.adventure.text.minimessage.MiniMessage;
 
 import java.util.concurrent.CompletableFuture;
-import java.util.List;
 
 import static com.mojang.brigadier.arguments.StringArgumentType.word;
 import static com.mojang.brigadier.Command.SINGLE_SUCCESS;
@@ -30,19 +30,22 @@ public class PlayerCommand {
     private final MiniMessage miniMessage;
     private final PlayerInfoModule playerInfoModule;
     private final HelpModule helpModule;
-    private final DataLoader dataLoader;
+    private final ConfigLoader configLoader;
+    private final PlayerNameIndex playerNameIndex;
     private final PlayerSwitchModule playerSwitchModule; // 新增
 
     public PlayerCommand(CommandUtil commandUtil, LanguageLoader languageLoader,
                          MiniMessage miniMessage, PlayerInfoModule playerInfoModule,
-                         HelpModule helpModule, DataLoader dataLoader,
+                         HelpModule helpModule, ConfigLoader configLoader,
+                         PlayerNameIndex playerNameIndex,
                          PlayerSwitchModule playerSwitchModule) { // 新增参数
         this.commandUtil = commandUtil;
         this.languageLoader = languageLoader;
         this.miniMessage = miniMessage;
         this.playerInfoModule = playerInfoModule;
         this.helpModule = helpModule;
-        this.dataLoader = dataLoader;
+        this.configLoader = configLoader;
+        this.playerNameIndex = playerNameIndex;
         this.playerSwitchModule = playerSwitchModule; // 新增
         registerPlayerCommand();
     }
@@ -57,12 +60,11 @@ public class PlayerCommand {
                     })
                     .then(LiteralArgumentBuilder.<CommandSource>literal("info")
                             .executes(context -> {
-                                String usage = languageLoader.getMessage("commands.player.usage.info");
-                                context.getSource().sendMessage(miniMessage.deserialize(usage));
+                                context.getSource().sendMessage(languageLoader.render("commands.player.usage.info"));
                                 return SINGLE_SUCCESS;
                             })
                             .then(RequiredArgumentBuilder.<CommandSource, String>argument("player", word())
-                                    .suggests(new PlayerNameSuggestionProvider(dataLoader))
+                                    .suggests(new PlayerNameSuggestionProvider(configLoader, playerNameIndex))
                                     .executes(context -> {
                                         String playerName = context.getArgument("player", String.class);
                                         playerInfoModule.executePlayerInfo(context.getSource(), playerName);
@@ -73,12 +75,11 @@ public class PlayerCommand {
                     // 新增 switch 子命令
                     .then(LiteralArgumentBuilder.<CommandSource>literal("switch")
                             .executes(context -> {
-                                String usage = languageLoader.getMessage("commands.player.usage.switch");
-                                context.getSource().sendMessage(miniMessage.deserialize(usage));
+                                context.getSource().sendMessage(languageLoader.render("commands.player.usage.switch"));
                                 return SINGLE_SUCCESS;
                             })
                             .then(RequiredArgumentBuilder.<CommandSource, String>argument("player", word())
-                                    .suggests(new PlayerNameSuggestionProvider(dataLoader))
+                                    .suggests(new PlayerNameSuggestionProvider(configLoader, playerNameIndex))
                                     .executes(context -> {
                                         String playerName = context.getArgument("player", String.class);
                                         playerSwitchModule.executePlayerSwitch(context.getSource(), playerName);
@@ -92,22 +93,20 @@ public class PlayerCommand {
 
     // 玩家名称自动补全提供者
     static class PlayerNameSuggestionProvider implements SuggestionProvider<CommandSource> {
-        private final DataLoader dataLoader;
+        private final ConfigLoader configLoader;
+        private final PlayerNameIndex playerNameIndex;
 
-        public PlayerNameSuggestionProvider(DataLoader dataLoader) {
-            this.dataLoader = dataLoader;
+        public PlayerNameSuggestionProvider(ConfigLoader configLoader, PlayerNameIndex playerNameIndex) {
+            this.configLoader = configLoader;
+            this.playerNameIndex = playerNameIndex;
         }
 
         @Override
         public CompletableFuture<Suggestions> getSuggestions(CommandContext<CommandSource> context, SuggestionsBuilder builder) {
-            String remaining = builder.getRemaining().toLowerCase();
-            List<String> playerNames = dataLoader.getAllPlayerNames();
-            for (String playerName : playerNames) {
-                if (playerName.toLowerCase().startsWith(remaining)) {
-                    builder.suggest(playerName);
-                }
+            // 从内存中的前缀索引查找，在线玩家优先，数量受配置限制
+            for (String playerName : playerNameIndex.suggest(builder.getRemaining(), configLoader.getPlayerSuggestionLimit())) {
+                builder.suggest(playerName);
             }
-
             return builder.buildFuture();
         }
     }
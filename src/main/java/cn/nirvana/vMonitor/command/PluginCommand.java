@@ -64,8 +64,7 @@ public class PluginCommand {
                             // 修改此处：不直接执行 executePluginInfoAll
                             .executes(context -> {
                                 // 提示用法
-                                String usage = languageLoader.getMessage("commands.plugin.usage.info");
-                                context.getSource().sendMessage(miniMessage.deserialize(usage));
+                                context.getSource().sendMessage(languageLoader.render("commands.plugin.usage.info"));
                                 return SINGLE_SUCCESS;
                             })
                             .then(RequiredArgumentBuilder.<CommandSource, String>argument("plugin_id", word())
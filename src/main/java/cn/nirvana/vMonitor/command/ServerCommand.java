@@ -62,8 +62,7 @@ public class ServerCommand {
                             // 修改此处：不直接执行 executeListAll
                             .executes(context -> {
                                 // 提示用法
-                                String usage = languageLoader.getMessage("commands.server.usage.list");
-                                context.getSource().sendMessage(miniMessage.deserialize(usage));
+                                context.getSource().sendMessage(languageLoader.render("commands.server.usage.list"));
                                 return SINGLE_SUCCESS;
                             })
                             .then(RequiredArgumentBuilder.<CommandSource, String>argument("server_name", word())
@@ -81,8 +80,7 @@ public class ServerCommand {
                     )
                     .then(LiteralArgumentBuilder.<CommandSource>literal("info")
                             .executes(context -> {
-                                String usage = languageLoader.getMessage("commands.server.usage.info");
-                                context.getSource().sendMessage(miniMessage.deserialize(usage));
+                                context.getSource().sendMessage(languageLoader.render("commands.server.usage.info"));
                                 return SINGLE_SUCCESS;
                             })
                             .then(RequiredArgumentBuilder.<CommandSource, String>argument("server_name", word())
@@ -0,0 +1,171 @@
+package cn.nirvana.vMonitor.command_module;
+
+import cn.nirvana.vMonitor.functional_module.AnalyticsModule;
+import cn.nirvana.vMonitor.loader.LanguageLoader;
+import cn.nirvana.vMonitor.storage.DataTransfer;
+import cn.nirvana.vMonitor.storage.JdbcStorageBackend;
+import cn.nirvana.vMonitor.storage.StorageBackend;
+import cn.nirvana.vMonitor.util.ExecutorUtil;
+
+import com.velocitypowered.api.command.CommandSource;
+
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+
+import org.slf4j.Logger;
+
+import java.io.IOException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.sql.SQLException;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * 数据导入导出命令模块
+ * 导出文件保存在数据目录的 exports 文件夹中，导入只接受该文件夹中的文件。
+ * 导入导出耗时较长，在执行器上后台运行，同一时间只允许一个任务，完成后通知命令发送者
+ */
+public class DataTransferModule {
+    private static final String EXPORT_DIRECTORY = "exports";
+    private static final String EXPORT_SUFFIX = ".ndjson.gz";
+    private static final DateTimeFormatter FILE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final LanguageLoader languageLoader;
+    private final ExecutorUtil executorUtil;
+    private final AnalyticsModule analyticsModule;
+    private final Path exportDirectory;
+    private final Logger logger;
+    // 内存存储后端没有表，不支持导入导出，此时为 null
+    private final DataTransfer dataTransfer;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public DataTransferModule(LanguageLoader languageLoader, ExecutorUtil executorUtil, StorageBackend storageBackend,
+                              AnalyticsModule analyticsModule, Path dataDirectory, Logger logger) {
+        this.languageLoader = languageLoader;
+        this.executorUtil = executorUtil;
+        this.analyticsModule = analyticsModule;
+        this.exportDirectory = dataDirectory.resolve(EXPORT_DIRECTORY).normalize();
+        this.logger = logger;
+        this.dataTransfer = storageBackend instanceof JdbcStorageBackend
+                ? new DataTransfer((JdbcStorageBackend) storageBackend, logger) : null;
+    }
+
+    /**
+     * 导出全部数据到 exports 文件夹中以当前时间命名的文件
+     * @param source 命令发送者
+     */
+    public void executeExport(CommandSource source) {
+        if (!tryStart(source)) {
+            return;
+        }
+        String fileName = "v-monitor-" + LocalDateTime.now().format(FILE_TIME_FORMATTER) + EXPORT_SUFFIX;
+        source.sendMessage(languageLoader.render("commands.data.export.started",
+                Placeholder.unparsed("file", fileName)));
+        executorUtil.newThread("DataExportThread", () -> {
+            try {
+                long start = System.nanoTime();
+                Files.createDirectories(exportDirectory);
+                long rows = dataTransfer.exportTo(exportDirectory.resolve(fileName));
+                String seconds = formatSeconds(System.nanoTime() - start);
+                logger.info("Exported {} rows to {} in {} s", rows, fileName, seconds);
+                source.sendMessage(languageLoader.render("commands.data.export.success",
+                        Placeholder.unparsed("file", fileName),
+                        Placeholder.unparsed("rows", String.valueOf(rows)),
+                        Placeholder.unparsed("seconds", seconds)));
+            } catch (IOException | SQLException | RuntimeException e) {
+                logger.error("Failed to export data: {}", e.getMessage());
+                source.sendMessage(languageLoader.render("commands.data.export.failed",
+                        Placeholder.unparsed("error", String.valueOf(e.getMessage()))));
+            } finally {
+                running.set(false);
+            }
+        }).start();
+    }
+
+    /**
+     * 从 exports 文件夹中的文件导入数据，只允许导入到没有玩家数据的数据库
+     * @param source   命令发送者
+     * @param fileName 导出文件名
+     */
+    public void executeImport(CommandSource source, String fileName) {
+        Path file = exportDirectory.resolve(fileName).normalize();
+        if (!file.startsWith(exportDirectory) || !Files.isRegularFile(file)) {
+            source.sendMessage(languageLoader.render("commands.data.import.not_found",
+                    Placeholder.unparsed("file", fileName)));
+            return;
+        }
+        if (!tryStart(source)) {
+            return;
+        }
+        source.sendMessage(languageLoader.render("commands.data.import.started",
+                Placeholder.unparsed("file", fileName)));
+        executorUtil.newThread("DataImportThread", () -> {
+            try {
+                if (!dataTransfer.isEmpty()) {
+                    source.sendMessage(languageLoader.render("commands.data.import.not_empty"));
+                    return;
+                }
+                long start = System.nanoTime();
+                long rows = dataTransfer.importFrom(file);
+                String seconds = formatSeconds(System.nanoTime() - start);
+                logger.info("Imported {} rows from {} in {} s", rows, fileName, seconds);
+                analyticsModule.rebuild();
+                source.sendMessage(languageLoader.render("commands.data.import.success",
+                        Placeholder.unparsed("file", fileName),
+                        Placeholder.unparsed("rows", String.valueOf(rows)),
+                        Placeholder.unparsed("seconds", seconds)));
+            } catch (IOException | SQLException | RuntimeException e) {
+                logger.error("Failed to import data: {}", e.getMessage());
+                source.sendMessage(languageLoader.render("commands.data.import.failed",
+                        Placeholder.unparsed("error", String.valueOf(e.getMessage()))));
+            } finally {
+                running.set(false);
+            }
+        }).start();
+    }
+
+    /**
+     * @return exports 文件夹中的导出文件名，用于命令补全
+     */
+    public List<String> listExportFiles() {
+        List<String> fileNames = new ArrayList<>();
+        if (!Files.isDirectory(exportDirectory)) {
+            return fileNames;
+        }
+        try (Stream<Path> files = Files.list(exportDirectory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(EXPORT_SUFFIX))
+                    .sorted()
+                    .forEach(fileNames::add);
+        } catch (IOException e) {
+            logger.error("Failed to list export files: {}", e.getMessage());
+        }
+        return fileNames;
+    }
+
+    private boolean tryStart(CommandSource source) {
+        if (dataTransfer == null) {
+            source.sendMessage(languageLoader.render("commands.data.unsupported"));
+            return false;
+        }
+        if (!running.compareAndSet(false, true)) {
+            source.sendMessage(languageLoader.render("commands.data.busy"));
+            return false;
+        }
+        return true;
+    }
+
+    private String formatSeconds(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1_000_000_000.0);
+    }
+}
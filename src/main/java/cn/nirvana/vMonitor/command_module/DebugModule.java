@@ -0,0 +1,110 @@
+package cn.nirvana.vMonitor.command_module;
+
+import cn.nirvana.vMonitor.loader.LanguageLoader;
+import cn.nirvana.vMonitor.loader.MessageTemplate;
+import cn.nirvana.vMonitor.util.DatabaseUtil;
+import cn.nirvana.vMonitor.util.LatencyHistogram;
+import cn.nirvana.vMonitor.util.MetricsRegistry;
+
+import com.velocitypowered.api.command.CommandSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.JoinConfiguration;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+public class DebugModule {
+    private final LanguageLoader languageLoader;
+    private final MiniMessage miniMessage;
+    private final MetricsRegistry metricsRegistry;
+    private final DatabaseUtil databaseUtil;
+
+    public DebugModule(LanguageLoader languageLoader, MiniMessage miniMessage, MetricsRegistry metricsRegistry,
+                       DatabaseUtil databaseUtil) {
+        this.languageLoader = languageLoader;
+        this.miniMessage = miniMessage;
+        this.metricsRegistry = metricsRegistry;
+        this.databaseUtil = databaseUtil;
+    }
+
+    /**
+     * 显示各数据库查询的 p50/p99 耗时、失败次数与慢查询次数，按 p99 从高到低排列
+     * @param source 命令发送者
+     */
+    public void executeQueries(CommandSource source) {
+        List<Map.Entry<String, MetricsRegistry.QueryStats>> entries = new ArrayList<>(metricsRegistry.getAllQueryStats().entrySet());
+        entries.removeIf(entry -> entry.getValue().getLatency().getCount() == 0);
+        if (entries.isEmpty()) {
+            source.sendMessage(languageLoader.render("commands.debug.queries.no_data"));
+            return;
+        }
+        entries.sort(Comparator.comparingLong(
+                (Map.Entry<String, MetricsRegistry.QueryStats> entry) -> entry.getValue().getLatency().getQuantileMicros(0.99)).reversed());
+
+        MessageTemplate lineFormat = languageLoader.getLineTemplate("commands.debug.queries.line_format");
+        List<Component> lines = new ArrayList<>();
+        for (Map.Entry<String, MetricsRegistry.QueryStats> entry : entries) {
+            MetricsRegistry.QueryStats stats = entry.getValue();
+            LatencyHistogram latency = stats.getLatency();
+            lines.add(lineFormat.render(
+                    Placeholder.unparsed("query", entry.getKey()),
+                    Placeholder.unparsed("count", String.valueOf(latency.getCount())),
+                    Placeholder.unparsed("p50", formatMillis(latency.getQuantileMicros(0.5))),
+                    Placeholder.unparsed("p99", formatMillis(latency.getQuantileMicros(0.99))),
+                    Placeholder.unparsed("errors", String.valueOf(stats.getErrors())),
+                    Placeholder.unparsed("slow", String.valueOf(stats.getSlowQueries()))));
+        }
+
+        source.sendMessage(languageLoader.render("commands.debug.queries.format",
+                Placeholder.component("query_list", Component.join(JoinConfiguration.newlines(), lines))));
+    }
+
+    /**
+     * 显示各数据库连接池的连接使用情况、等待线程数、使用率、连接获取等待时间与超时次数
+     * @param source 命令发送者
+     */
+    public void executePool(CommandSource source) {
+        MessageTemplate lineFormat = languageLoader.getLineTemplate("commands.debug.pool.line_format");
+        List<Component> lines = new ArrayList<>();
+        for (Map.Entry<String, HikariDataSource> entry : databaseUtil.getPools().entrySet()) {
+            HikariDataSource dataSource = entry.getValue();
+            HikariPoolMXBean pool = dataSource.isClosed() ? null : dataSource.getHikariPoolMXBean();
+            if (pool == null) {
+                continue;
+            }
+            int maximumPoolSize = dataSource.getMaximumPoolSize();
+            int active = pool.getActiveConnections();
+            LatencyHistogram acquireWait = metricsRegistry.getPoolMetrics(entry.getKey()).getAcquireWait();
+            lines.add(lineFormat.render(
+                    Placeholder.unparsed("pool", entry.getKey()),
+                    Placeholder.unparsed("active", String.valueOf(active)),
+                    Placeholder.unparsed("idle", String.valueOf(pool.getIdleConnections())),
+                    Placeholder.unparsed("max", String.valueOf(maximumPoolSize)),
+                    Placeholder.unparsed("waiting", String.valueOf(pool.getThreadsAwaitingConnection())),
+                    Placeholder.unparsed("utilisation", String.valueOf(maximumPoolSize > 0 ? active * 100 / maximumPoolSize : 0)),
+                    Placeholder.unparsed("wait_p50", formatMillis(acquireWait.getQuantileMicros(0.5))),
+                    Placeholder.unparsed("wait_p99", formatMillis(acquireWait.getQuantileMicros(0.99))),
+                    Placeholder.unparsed("timeouts", String.valueOf(metricsRegistry.getPoolMetrics(entry.getKey()).getTimeouts()))));
+        }
+        if (lines.isEmpty()) {
+            source.sendMessage(languageLoader.render("commands.debug.pool.no_data"));
+            return;
+        }
+
+        source.sendMessage(languageLoader.render("commands.debug.pool.format",
+                Placeholder.component("pool_list", Component.join(JoinConfiguration.newlines(), lines))));
+    }
+
+    private String formatMillis(long micros) {
+        return String.format(Locale.ROOT, "%.2f", micros / 1000.0);
+    }
+}
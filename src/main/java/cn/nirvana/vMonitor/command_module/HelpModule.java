@@ -20,9 +20,9 @@ public class HelpModule {
      * @param source 命令发送者
      */
     public void executeHelp(CommandSource source) {
-        String helpMessage = languageLoader.getMessage("commands.help.all_format");
-        if (helpMessage != null && !helpMessage.isEmpty() && !helpMessage.startsWith("<red>Missing Language Key:")) {
-            source.sendMessage(miniMessage.deserialize(helpMessage));
+        String helpKey = "commands.help.all_format";
+        if (languageLoader.hasMessage(helpKey)) {
+            source.sendMessage(languageLoader.render(helpKey));
         } else {
             source.sendMessage(miniMessage.deserialize("<red>No help message configured or key 'commands.help.all_format' is missing in the language file.</red>"));
         }
@@ -33,9 +33,9 @@ public class HelpModule {
      * @param source 命令发送者
      */
     public void executePluginHelp(CommandSource source) {
-        String helpMessage = languageLoader.getMessage("commands.help.plugin_format");
-        if (helpMessage != null && !helpMessage.isEmpty() && !helpMessage.startsWith("<red>Missing Language Key:")) {
-            source.sendMessage(miniMessage.deserialize(helpMessage));
+        String helpKey = "commands.help.plugin_format";
+        if (languageLoader.hasMessage(helpKey)) {
+            source.sendMessage(languageLoader.render(helpKey));
         } else {
             source.sendMessage(miniMessage.deserialize("<red>No plugin help message configured or key 'commands.help.plugin_format' is missing in the language file.</red>"));
         }
@@ -46,9 +46,9 @@ public class HelpModule {
      * @param source 命令发送者
      */
     public void executeServerHelp(CommandSource source) {
-        String helpMessage = languageLoader.getMessage("commands.help.server_format");
-         if (helpMessage != null && !helpMessage.isEmpty() && !helpMessage.startsWith("<red>Missing Language Key:")) {
-             source.sendMessage(miniMessage.deserialize(helpMessage));
+        String helpKey = "commands.help.server_format";
+         if (languageLoader.hasMessage(helpKey)) {
+             source.sendMessage(languageLoader.render(helpKey));
          } else {
              source.sendMessage(miniMessage.deserialize("<red>No server help message configured or key 'commands.help.server_format' is missing in the language file.</red>"));
          }
@@ -59,9 +59,9 @@ public class HelpModule {
      * @param source 命令发送者
      */
     public void executePlayerHelp(CommandSource source) {
-        String helpMessage = languageLoader.getMessage("commands.help.player_format");
-        if (helpMessage != null && !helpMessage.isEmpty() && !helpMessage.startsWith("<red>Missing Language Key:")) {
-            source.sendMessage(miniMessage.deserialize(helpMessage));
+        String helpKey = "commands.help.player_format";
+        if (languageLoader.hasMessage(helpKey)) {
+            source.sendMessage(languageLoader.render(helpKey));
         } else {
             source.sendMessage(miniMessage.deserialize("<red>No player help message configured or key 'commands.help.player_format' is missing in the language file.</red>"));
         }
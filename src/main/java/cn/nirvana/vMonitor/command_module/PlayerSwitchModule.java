@@ -2,82 +2,85 @@ package cn.nirvana.vMonitor.command_module;
 
 import cn.nirvana.vMonitor.loader.DataLoader;
 import cn.nirvana.vMonitor.loader.LanguageLoader;
+import cn.nirvana.vMonitor.loader.MessageTemplate;
+import cn.nirvana.vMonitor.util.AsyncCommandUtil;
 import cn.nirvana.vMonitor.util.TimeUtil;
 
 import com.velocitypowered.api.command.CommandSource;
 
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.JoinConfiguration;
 import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
 
-import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 public class PlayerSwitchModule {
     private final DataLoader dataLoader;
+    private final AsyncCommandUtil asyncCommandUtil;
     private final LanguageLoader languageLoader;
     private final MiniMessage miniMessage;
 
-    public PlayerSwitchModule(DataLoader dataLoader, LanguageLoader languageLoader, MiniMessage miniMessage) {
+    public PlayerSwitchModule(DataLoader dataLoader, AsyncCommandUtil asyncCommandUtil, LanguageLoader languageLoader, MiniMessage miniMessage) {
         this.dataLoader = dataLoader;
+        this.asyncCommandUtil = asyncCommandUtil;
         this.languageLoader = languageLoader;
         this.miniMessage = miniMessage;
     }
 
     public void executePlayerSwitch(CommandSource source, String playerName) {
-        // 查找玩家数据
-        DataLoader.PlayerData playerData = dataLoader.getPlayerDataByName(playerName);
+        // 查找玩家数据并逐条读取切换日志（在命令线程之外异步执行，受每个发送者的并发上限和超时限制）
+        asyncCommandUtil.run(source, () -> loadSwitchLog(playerName),
+                switchLog -> renderPlayerSwitch(source, playerName, switchLog));
+    }
 
-        // 如果未找到玩家数据
+    /**
+     * 玩家数据与渲染好的切换日志条目
+     */
+    private record SwitchLog(DataLoader.PlayerData playerData, List<Component> entries) {
+    }
+
+    /**
+     * 查找玩家并按时间顺序逐条读取服务器路径，每条路径读取后直接渲染为日志条目，不保留中间结果
+     */
+    private SwitchLog loadSwitchLog(String playerName) {
+        DataLoader.PlayerData playerData = dataLoader.getPlayerDataByName(playerName);
         if (playerData == null) {
-            String notFoundMessage = languageLoader.getMessage("commands.player.not_found")
-                    .replace("{player}", playerName);
-            source.sendMessage(miniMessage.deserialize(notFoundMessage));
-            return;
+            return null;
         }
 
-        // 获取语言文件中的玩家切换日志格式
-        String switchLogHeader = languageLoader.getMessage("commands.player.switch.header");
-        String switchLogEntryFormat = languageLoader.getMessage("commands.player.switch.entry_format");
-        String noSwitchLogsMessage = languageLoader.getMessage("commands.player.switch.no_logs");
-        String switchLogFormat = languageLoader.getMessage("commands.player.switch.format");
-
-        // 构建切换日志内容
-        StringBuilder switchLogBuilder = new StringBuilder();
-        boolean hasLogs = false;
-
-        // 遍历玩家的所有服务器路径日志
-        for (Map.Entry<String, List<DataLoader.ServerPathData>> entry : playerData.dailyServerPaths.entrySet()) {
-            List<DataLoader.ServerPathData> paths = entry.getValue();
-
-            if (!paths.isEmpty()) {
-                hasLogs = true;
-                for (DataLoader.ServerPathData path : paths) {
-                    // 将时间转换为 ISO8601 标准格式
-                    String iso8601Time = TimeUtil.DateTimeConverter.fromTimestamp(
-                            path.time.atZone(ZoneId.systemDefault()).toEpochSecond());
-
-                    // 只替换新的 ISO8601 格式占位符
-                    String entryMessage = switchLogEntryFormat
-                            .replace("{iso8601_time}", iso8601Time)
-                            .replace("{from}", path.from)
-                            .replace("{to}", path.to);
+        // 获取语言文件中的玩家切换日志条目模板
+        MessageTemplate switchLogEntryFormat = languageLoader.getLineTemplate("commands.player.switch.entry_format");
+        List<Component> switchLogEntries = new ArrayList<>();
+        dataLoader.forEachPlayerServerPath(playerData.uuid, (uuid, time, fromServer, toServer) ->
+                switchLogEntries.add(switchLogEntryFormat.render(
+                        // 将时间转换为 ISO8601 标准格式
+                        Placeholder.unparsed("iso8601_time", TimeUtil.DateTimeConverter.fromTimestamp(time)),
+                        Placeholder.unparsed("from", fromServer),
+                        Placeholder.unparsed("to", toServer))));
+        return new SwitchLog(playerData, switchLogEntries);
+    }
 
-                    switchLogBuilder.append(entryMessage).append("\n");
-                }
-            }
+    /**
+     * 发送玩家服务器切换日志
+     */
+    private void renderPlayerSwitch(CommandSource source, String playerName, SwitchLog switchLog) {
+        // 如果未找到玩家数据
+        if (switchLog == null) {
+            source.sendMessage(languageLoader.render("commands.player.not_found",
+                    Placeholder.unparsed("player", playerName)));
+            return;
         }
 
         // 如果没有日志记录
-        if (!hasLogs) {
-            switchLogBuilder.append(noSwitchLogsMessage);
-        }
+        Component switchLogComponent = switchLog.entries().isEmpty()
+                ? languageLoader.render("commands.player.switch.no_logs")
+                : Component.join(JoinConfiguration.newlines(), switchLog.entries());
 
         // 使用 format 模板格式化最终输出
-        String finalMessage = switchLogFormat
-                .replace("{player_name}", playerData.username)
-                .replace("{switch_log}", switchLogBuilder.toString().trim());
-
-        source.sendMessage(miniMessage.deserialize(finalMessage));
+        source.sendMessage(languageLoader.render("commands.player.switch.format",
+                Placeholder.unparsed("player_name", switchLog.playerData().username),
+                Placeholder.component("switch_log", switchLogComponent)));
     }
 }
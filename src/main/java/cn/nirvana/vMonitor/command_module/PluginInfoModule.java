@@ -1,16 +1,23 @@
 package cn.nirvana.vMonitor.command_module;
 
 import cn.nirvana.vMonitor.loader.LanguageLoader;
+import cn.nirvana.vMonitor.loader.MessageTemplate;
 
 import com.velocitypowered.api.command.CommandSource;
 import com.velocitypowered.api.plugin.PluginContainer;
 import com.velocitypowered.api.plugin.PluginDescription;
 import com.velocitypowered.api.proxy.ProxyServer;
 
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.JoinConfiguration;
 import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -31,72 +38,61 @@ public class PluginInfoModule {
                 .collect(Collectors.toList());
 
         if (plugins.isEmpty()) {
-            source.sendMessage(miniMessage.deserialize(languageLoader.getMessage("commands.plugin.empty_list")));
+            source.sendMessage(languageLoader.render("commands.plugin.empty_list"));
             return;
         }
 
-        StringBuilder pluginInfoList = new StringBuilder();
+        List<Component> pluginInfoList = new ArrayList<>();
 
-        // 获取插件信息格式字符串
-        String pluginInfoFormat = languageLoader.getMessage("commands.plugin.info.format");
-
-        // 获取 all_header
-        String allPluginsHeader = languageLoader.getMessage("commands.plugin.info.all_header");
+        // 获取插件信息格式模板
+        MessageTemplate pluginInfoFormat = languageLoader.getLineTemplate("commands.plugin.info.format");
 
         for (PluginContainer plugin : plugins) {
-            PluginDescription description = plugin.getDescription();
-
-            String id = description.getId();
-            String name = description.getName().orElse(id);
-            String version = description.getVersion().orElse(languageLoader.getMessage("commands.plugin.info.no_version"));
-            String url = description.getUrl().orElse(languageLoader.getMessage("commands.plugin.info.no_url"));
-            String desc = description.getDescription().orElse(languageLoader.getMessage("commands.plugin.info.no_description"));
-            String authors = String.join(", ", description.getAuthors());
-            if (authors.isEmpty()) {
-                authors = languageLoader.getMessage("commands.plugin.info.no_authors");
-            }
-
-            String pluginEntry = pluginInfoFormat
-                    .replace("{id}", id)
-                    .replace("{name}", name)
-                    .replace("{version}", version)
-                    .replace("{url}", url)
-                    .replace("{description}", desc)
-                    .replace("{authors}", authors);
-
-            pluginInfoList.append(miniMessage.serialize(miniMessage.deserialize(pluginEntry))).append("\n");
+            pluginInfoList.add(renderPluginInfo(pluginInfoFormat, plugin.getDescription()));
         }
 
-        String finalMessage = allPluginsHeader
-                .replace("{plugin_list}", pluginInfoList.toString().trim());
-
-        source.sendMessage(miniMessage.deserialize(finalMessage));
+        // 各插件条目之间保留一个空行
+        Component pluginList = Component.join(
+                JoinConfiguration.separator(Component.newline().append(Component.newline())), pluginInfoList);
+        source.sendMessage(languageLoader.render("commands.plugin.info.all_header",
+                Placeholder.component("plugin_list", pluginList)));
     }
 
     public void executePluginInfoSingle(CommandSource source, String pluginId) {
         // 解决 'ProxyServer' 中无法解析 'getPluginContainer' 的问题
         Optional<PluginContainer> plugin = proxyServer.getPluginManager().getPlugin(pluginId); // 使用 getPluginManager().getPlugin(id)
         if (plugin.isPresent()) {
-            PluginDescription description = plugin.get().getDescription();
-            String id = description.getId();
-            String name = description.getName().orElse(id);
-            String version = description.getVersion().orElse(languageLoader.getMessage("commands.plugin.info.no_version"));
-            String url = description.getUrl().orElse(languageLoader.getMessage("commands.plugin.info.no_url"));
-            String desc = description.getDescription().orElse(languageLoader.getMessage("commands.plugin.info.no_description"));
-            String authors = String.join(", ", description.getAuthors());
-            if (authors.isEmpty()) {
-                authors = languageLoader.getMessage("commands.plugin.info.no_authors");
-            }
-            String infoMessage = languageLoader.getMessage("commands.plugin.info.format")
-                    .replace("{id}", id)
-                    .replace("{name}", name)
-                    .replace("{version}", version)
-                    .replace("{url}", url)
-                    .replace("{description}", desc)
-                    .replace("{authors}", authors);
-            source.sendMessage(miniMessage.deserialize(infoMessage));
+            MessageTemplate pluginInfoFormat = languageLoader.getTemplate("commands.plugin.info.format");
+            source.sendMessage(renderPluginInfo(pluginInfoFormat, plugin.get().getDescription()));
         } else {
-            source.sendMessage(miniMessage.deserialize(languageLoader.getMessage("commands.plugin.not_found").replace("{plugin}", pluginId)));
+            source.sendMessage(languageLoader.render("commands.plugin.not_found",
+                    Placeholder.unparsed("plugin", pluginId)));
+        }
+    }
+
+    /**
+     * 使用插件描述信息渲染插件信息模板，缺失的字段使用语言文件中的默认提示
+     */
+    private Component renderPluginInfo(MessageTemplate format, PluginDescription description) {
+        String id = description.getId();
+        String name = description.getName().orElse(id);
+        String authors = String.join(", ", description.getAuthors());
+        // URL 同时出现在点击事件参数中，需要按文本替换
+        Map<String, String> inlineValues = Map.of("url", description.getUrl().orElse(""));
+
+        return format.render(inlineValues,
+                Placeholder.unparsed("id", id),
+                Placeholder.unparsed("name", name),
+                optionalPlaceholder("version", description.getVersion().orElse(null), "commands.plugin.info.no_version"),
+                optionalPlaceholder("url", description.getUrl().orElse(null), "commands.plugin.info.no_url"),
+                optionalPlaceholder("description", description.getDescription().orElse(null), "commands.plugin.info.no_description"),
+                optionalPlaceholder("authors", authors.isEmpty() ? null : authors, "commands.plugin.info.no_authors"));
+    }
+
+    private TagResolver optionalPlaceholder(String name, String value, String fallbackKey) {
+        if (value == null) {
+            return Placeholder.component(name, languageLoader.render(fallbackKey));
         }
+        return Placeholder.unparsed(name, value);
     }
-}
\ No newline at end of file
+}
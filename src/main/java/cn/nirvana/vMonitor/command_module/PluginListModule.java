@@ -1,6 +1,7 @@
 package cn.nirvana.vMonitor.command_module;
 
 import cn.nirvana.vMonitor.loader.LanguageLoader;
+import cn.nirvana.vMonitor.loader.MessageTemplate;
 
 import com.velocitypowered.api.command.CommandSource;
 import com.velocitypowered.api.plugin.PluginContainer;
@@ -8,10 +9,14 @@ import com.velocitypowered.api.plugin.PluginDescription;
 import com.velocitypowered.api.proxy.ProxyServer;
 
 import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.JoinConfiguration;
 import net.kyori.adventure.text.event.ClickEvent;
 import net.kyori.adventure.text.event.HoverEvent;
 import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
 
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -34,45 +39,45 @@ public class PluginListModule {
                 .collect(Collectors.toList());
 
         if (plugins.isEmpty()) {
-            source.sendMessage(miniMessage.deserialize(languageLoader.getMessage("commands.plugin.empty_list")));
+            source.sendMessage(languageLoader.render("commands.plugin.empty_list"));
             return;
         }
 
-        StringBuilder pluginEntries = new StringBuilder();
-        // 获取语言文件中的格式字符串
-        String pluginListFormat = languageLoader.getMessage("commands.plugin.list.format");
-        String pluginLineFormat = languageLoader.getMessage("commands.plugin.list.plugin_line");
-        String pluginListHoverFormat = languageLoader.getMessage("commands.plugin.list.hover_format");
+        List<Component> pluginEntries = new ArrayList<>();
+        // 获取语言文件中的格式模板
+        MessageTemplate pluginLineFormat = languageLoader.getLineTemplate("commands.plugin.list.plugin_line");
+        MessageTemplate pluginListHoverFormat = languageLoader.getTemplate("commands.plugin.list.hover_format");
 
         for (PluginContainer plugin : plugins) {
             PluginDescription description = plugin.getDescription();
             String id = description.getId();
             String name = description.getName().orElse(id);
-            String version = description.getVersion().orElse(languageLoader.getMessage("commands.plugin.list.no_veesion"));
-            String url = description.getUrl().orElse(languageLoader.getMessage("commands.plugin.list.no_url"));
-            String descriptionText = description.getDescription().orElse(languageLoader.getMessage("commands.plugin.list.no_description"));
             String authors = String.join(", ", description.getAuthors());
-            if (authors.isEmpty()) {
-                authors = languageLoader.getMessage("commands.plugin.list.no_authors");
-            }
-            String entryLine = pluginLineFormat
-                    .replace("{plugin_name}", name)
-                    .replace("{plugin_version}", version);
-            String filledHoverText = pluginListHoverFormat
-                    .replace("{id}", id)
-                    .replace("{name}", name)
-                    .replace("{version}", version)
-                    .replace("{url}", url)
-                    .replace("{description}", descriptionText)
-                    .replace("{authors}", authors);
-            Component finalEntryComponent = miniMessage.deserialize(entryLine)
-                    .hoverEvent(HoverEvent.showText(miniMessage.deserialize(filledHoverText)))
+            TagResolver version = optionalPlaceholder("version", description.getVersion().orElse(null), "commands.plugin.list.no_version");
+
+            Component hoverText = pluginListHoverFormat.render(
+                    Placeholder.unparsed("id", id),
+                    Placeholder.unparsed("name", name),
+                    version,
+                    optionalPlaceholder("url", description.getUrl().orElse(null), "commands.plugin.list.no_url"),
+                    optionalPlaceholder("description", description.getDescription().orElse(null), "commands.plugin.list.no_description"),
+                    optionalPlaceholder("authors", authors.isEmpty() ? null : authors, "commands.plugin.list.no_authors"));
+            Component finalEntryComponent = pluginLineFormat.render(
+                            Placeholder.unparsed("plugin_name", name),
+                            optionalPlaceholder("plugin_version", description.getVersion().orElse(null), "commands.plugin.list.no_version"))
+                    .hoverEvent(HoverEvent.showText(hoverText))
                     .clickEvent(ClickEvent.runCommand("/vmonitor plugin info " + id));
-            pluginEntries.append(miniMessage.serialize(finalEntryComponent)).append("\n");
+            pluginEntries.add(finalEntryComponent);
+        }
+        source.sendMessage(languageLoader.render("commands.plugin.list.format",
+                Placeholder.unparsed("count", String.valueOf(plugins.size())),
+                Placeholder.component("plugin_list", Component.join(JoinConfiguration.newlines(), pluginEntries))));
+    }
+
+    private TagResolver optionalPlaceholder(String name, String value, String fallbackKey) {
+        if (value == null) {
+            return Placeholder.component(name, languageLoader.render(fallbackKey));
         }
-        String finalMessage = pluginListFormat
-                .replace("{count}", String.valueOf(plugins.size()))
-                .replace("{plugin_list}", pluginEntries.toString().trim());
-        source.sendMessage(miniMessage.deserialize(finalMessage));
+        return Placeholder.unparsed(name, value);
     }
-}
\ No newline at end of file
+}
@@ -47,7 +47,7 @@ public class ReloadModule {
         }
 
         if (configReloaded && langReloaded) {
-            source.sendMessage(miniMessage.deserialize(languageLoader.getMessage("global.reload_success")));
+            source.sendMessage(languageLoader.render("global.reload_success"));
         } else {
             source.sendMessage(miniMessage.deserialize("<red>Reload completed with errors. Check console for details.</red>"));
         }
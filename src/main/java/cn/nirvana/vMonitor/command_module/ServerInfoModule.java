@@ -1,40 +1,46 @@
 package cn.nirvana.vMonitor.command_module;
 
 import cn.nirvana.vMonitor.VMonitor;
+import cn.nirvana.vMonitor.functional_module.ServerStatusModule;
 import cn.nirvana.vMonitor.loader.ConfigLoader;
 import cn.nirvana.vMonitor.loader.LanguageLoader;
 import cn.nirvana.vMonitor.loader.DataLoader;
+import cn.nirvana.vMonitor.loader.MessageTemplate;
 import cn.nirvana.vMonitor.util.TimeUtil;
 
 import com.velocitypowered.api.command.CommandSource;
 import com.velocitypowered.api.proxy.ProxyServer;
 import com.velocitypowered.api.proxy.server.RegisteredServer;
-import com.velocitypowered.api.proxy.server.ServerPing;
 
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.JoinConfiguration;
 import net.kyori.adventure.text.minimessage.MiniMessage;
-import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.TimeUnit;
 
 public class ServerInfoModule {
     private final ProxyServer proxyServer;
     private final LanguageLoader languageLoader;
     private final MiniMessage miniMessage;
     private final ConfigLoader configLoader;
+    private final ServerStatusModule serverStatusModule;
     private final VMonitor plugin;
 
-    public ServerInfoModule(ProxyServer proxyServer, LanguageLoader languageLoader, MiniMessage miniMessage, ConfigLoader configLoader, VMonitor plugin) {
+    public ServerInfoModule(ProxyServer proxyServer, LanguageLoader languageLoader, MiniMessage miniMessage, ConfigLoader configLoader,
+                            ServerStatusModule serverStatusModule, VMonitor plugin) {
         this.proxyServer = proxyServer;
         this.languageLoader = languageLoader;
         this.miniMessage = miniMessage;
         this.configLoader = configLoader;
+        this.serverStatusModule = serverStatusModule;
         this.plugin = plugin;
     }
 
@@ -43,105 +49,124 @@ public class ServerInfoModule {
         if (serverOptional.isPresent()) {
             RegisteredServer server = serverOptional.get();
             String serverDisplayName = configLoader.getServerDisplayName(server.getServerInfo().getName());
-
-            server.ping()
-                    .thenAccept(ping -> {
-                        String onlinePlayers = String.valueOf(ping.getPlayers().map(ServerPing.Players::getOnline).orElse(0));
-                        String maxPlayers = String.valueOf(ping.getPlayers().map(ServerPing.Players::getMax).orElse(0));
-                        String status = languageLoader.getMessage("commands.server.info.status_online");
-                        String motd = PlainTextComponentSerializer.plainText().serialize(ping.getDescriptionComponent());
-
-
-                        String infoMessage = languageLoader.getMessage("commands.server.info.specific_format")
-                                .replace("{server_name}", serverNameArg)
-                                .replace("{server_display_name}", serverDisplayName)
-                                .replace("{version}", Optional.ofNullable(ping.getVersion())
-                                        .map(ServerPing.Version::getName)
-                                        .orElse(languageLoader.getMessage("commands.server.info.no_version")))
-                                .replace("{status}", status)
-                                .replace("{online_players}", onlinePlayers)
-                                .replace("{motd}", motd);
-                        source.sendMessage(miniMessage.deserialize(infoMessage));
-                    })
-                    .exceptionally(throwable -> {
-                        String infoMessage = languageLoader.getMessage("commands.server.info.specific_format")
-                                .replace("{server_name}", serverNameArg)
-                                .replace("{server_display_name}", serverDisplayName)
-                                .replace("{version}", languageLoader.getMessage("commands.server.info.no_version"))
-                                .replace("{status}", languageLoader.getMessage("commands.server.info.status_offline"))
-                                .replace("{online_players}", languageLoader.getMessage("commands.server.info.no_players"))
-                                .replace("{motd}", languageLoader.getMessage("commands.server.info.no_motd"));
-                        source.sendMessage(miniMessage.deserialize(infoMessage));
-                        return null;
-                    });
+            MessageTemplate specificFormat = languageLoader.getTemplate("commands.server.info.specific_format");
+
+            // 优先使用后台轮询的状态缓存，尚未轮询到的服务器立即 ping 一次
+            serverStatusModule.getOrRefresh(server).thenAccept(status -> {
+                Optional<ServerStatusModule.HistorySummary> summary =
+                        serverStatusModule.getHistorySummary(server.getServerInfo().getName());
+                Component availability = summary.<Component>map(this::renderAvailability)
+                        .orElseGet(() -> languageLoader.render("global.unknown_info"));
+                if (status.online) {
+                    Component version = status.version != null
+                            ? Component.text(status.version)
+                            : languageLoader.render("commands.server.info.no_version");
+                    source.sendMessage(specificFormat.render(
+                            Placeholder.unparsed("server_name", serverNameArg),
+                            Placeholder.parsed("server_display_name", serverDisplayName),
+                            Placeholder.component("version", version),
+                            Placeholder.component("status", languageLoader.render("commands.server.info.status_online")),
+                            Placeholder.unparsed("online_players", String.valueOf(status.onlinePlayers)),
+                            Placeholder.component("latency", renderLatency(status, summary)),
+                            Placeholder.component("availability", availability),
+                            Placeholder.unparsed("motd", status.motd != null ? status.motd : "")));
+                } else {
+                    source.sendMessage(specificFormat.render(
+                            Placeholder.unparsed("server_name", serverNameArg),
+                            Placeholder.parsed("server_display_name", serverDisplayName),
+                            Placeholder.component("version", languageLoader.render("commands.server.info.no_version")),
+                            Placeholder.component("status", languageLoader.render("commands.server.info.status_offline")),
+                            Placeholder.component("online_players", languageLoader.render("commands.server.info.no_players")),
+                            Placeholder.component("latency", languageLoader.render("global.unknown_info")),
+                            Placeholder.component("availability", availability),
+                            Placeholder.component("motd", languageLoader.render("commands.server.info.no_motd"))));
+                }
+            });
         } else {
-            source.sendMessage(miniMessage.deserialize(languageLoader.getMessage("commands.server.info.not_found").replace("{server}", serverNameArg)));
+            source.sendMessage(languageLoader.render("commands.server.info.not_found",
+                    Placeholder.unparsed("server", serverNameArg)));
         }
     }
 
+    /**
+     * 渲染当前延迟以及最近样本的平均、最高延迟
+     */
+    private Component renderLatency(ServerStatusModule.ServerStatus status, Optional<ServerStatusModule.HistorySummary> summary) {
+        long avgLatency = summary.map(s -> s.avgLatencyMillis).filter(latency -> latency >= 0).orElse(status.latencyMillis);
+        long maxLatency = summary.map(s -> s.maxLatencyMillis).filter(latency -> latency >= 0).orElse(status.latencyMillis);
+        return languageLoader.render("commands.server.info.latency_format",
+                Placeholder.unparsed("latency", String.valueOf(status.latencyMillis)),
+                Placeholder.unparsed("avg_latency", String.valueOf(avgLatency)),
+                Placeholder.unparsed("max_latency", String.valueOf(maxLatency)));
+    }
+
+    /**
+     * 渲染最近样本的可用率及其覆盖的时间范围
+     */
+    private Component renderAvailability(ServerStatusModule.HistorySummary summary) {
+        long minutes = Math.max(1L, TimeUnit.MILLISECONDS.toMinutes(summary.windowMillis));
+        return languageLoader.render("commands.server.info.availability_format",
+                Placeholder.unparsed("availability", String.valueOf(summary.availability)),
+                Placeholder.unparsed("minutes", String.valueOf(minutes)));
+    }
+
     public void executeInfoAll(CommandSource source) {
-        List<RegisteredServer> servers = proxyServer.getAllServers().stream().toList();
+        // 按服务器名称排序，保证输出顺序稳定
+        List<RegisteredServer> servers = serverStatusModule.getSortedServers();
 
         if (servers.isEmpty()) {
-            source.sendMessage(miniMessage.deserialize(languageLoader.getMessage("commands.server.info.no_servers")));
+            source.sendMessage(languageLoader.render("commands.server.info.no_servers"));
             return;
         }
 
-        StringBuilder serverStatusList = new StringBuilder();
-        AtomicInteger totalOnlinePlayers = new AtomicInteger(0);
-        AtomicInteger runningServersCount = new AtomicInteger(0);
-        AtomicInteger offlineServersCount = new AtomicInteger(0);
-
-        String serverStatusFormat = languageLoader.getMessage("commands.server.info.server_status_list_format");
-
-        // 解决：未检查的赋值警告
-        @SuppressWarnings("unchecked")
-        CompletableFuture<Void>[] futures = servers.stream()
-                .map(server -> server.ping()
-                        .thenAccept(ping -> {
-                            String serverDisplayName = configLoader.getServerDisplayName(server.getServerInfo().getName());
-                            totalOnlinePlayers.addAndGet(ping.getPlayers().map(ServerPing.Players::getOnline).orElse(0));
-                            runningServersCount.incrementAndGet();
-
-                            String onlinePlayers = String.valueOf(ping.getPlayers().map(ServerPing.Players::getOnline).orElse(0));
-                            String maxPlayers = String.valueOf(ping.getPlayers().map(ServerPing.Players::getMax).orElse(0));
-                            String status = languageLoader.getMessage("commands.server.info.status_online");
-
-                            String currentServerLine = serverStatusFormat
-                                    .replace("{server_name}", server.getServerInfo().getName())
-                                    .replace("{server_display_name}", serverDisplayName)
-                                    .replace("{status}", status)
-                                    .replace("{online_players}", onlinePlayers);
-
-                            serverStatusList.append(miniMessage.serialize(miniMessage.deserialize(currentServerLine))).append("\n");
-                        })
-                        .exceptionally(throwable -> {
-                            String serverDisplayName = configLoader.getServerDisplayName(server.getServerInfo().getName());
-                            offlineServersCount.incrementAndGet();
-                            String currentServerLine = serverStatusFormat
-                                    .replace("{server_name}", server.getServerInfo().getName())
-                                    .replace("{server_display_name}", serverDisplayName)
-                                    .replace("{status}", languageLoader.getMessage("commands.server.info.status_offline"))
-                                    .replace("{online_players}", languageLoader.getMessage("commands.server.info.no_players"));
-                            serverStatusList.append(miniMessage.serialize(miniMessage.deserialize(currentServerLine))).append("\n");
-                            return null;
-                        })
-                ).toArray(CompletableFuture[]::new);
-
-        CompletableFuture.allOf(futures)
-                .thenRun(() -> {
+        MessageTemplate serverStatusFormat = languageLoader.getLineTemplate("commands.server.info.server_status_list_format");
+
+        // 状态行直接从状态缓存渲染，尚未轮询到的服务器按离线显示
+        List<Component> serverStatusLines = new ArrayList<>();
+        int totalOnlinePlayers = 0;
+        int runningServersCount = 0;
+        int offlineServersCount = 0;
+        for (RegisteredServer server : servers) {
+            String serverName = server.getServerInfo().getName();
+            String serverDisplayName = configLoader.getServerDisplayName(serverName);
+            Optional<ServerStatusModule.ServerStatus> status = serverStatusModule.getStatus(serverName);
+
+            if (status.isPresent() && status.get().online) {
+                totalOnlinePlayers += status.get().onlinePlayers;
+                runningServersCount++;
+                serverStatusLines.add(serverStatusFormat.render(
+                        Placeholder.unparsed("server_name", serverName),
+                        Placeholder.parsed("server_display_name", serverDisplayName),
+                        Placeholder.component("status", languageLoader.render("commands.server.info.status_online")),
+                        Placeholder.unparsed("online_players", String.valueOf(status.get().onlinePlayers))));
+            } else {
+                offlineServersCount++;
+                serverStatusLines.add(serverStatusFormat.render(
+                        Placeholder.unparsed("server_name", serverName),
+                        Placeholder.parsed("server_display_name", serverDisplayName),
+                        Placeholder.component("status", languageLoader.render("commands.server.info.status_offline")),
+                        Placeholder.component("online_players", languageLoader.render("commands.server.info.no_players"))));
+            }
+        }
+
+        int finalTotalOnlinePlayers = totalOnlinePlayers;
+        int finalRunningServersCount = runningServersCount;
+        int finalOfflineServersCount = offlineServersCount;
+
+        // 开服时间查询通过执行器分发，避免在 ping 回调线程上执行阻塞的数据库查询
+        plugin.getExecutorUtil().submit(() -> plugin.getPlayerDataLoader().getServerInfo())
+                .thenAccept(serverInfo -> {
                     String proxyVersion = proxyServer.getVersion().getVersion();
 
                     // 获取开服时间和运行时间
-                    String serverStartTime = "Unknown";
-                    String serverUptime = languageLoader.getMessage("global.unknown_info");
+                    Component serverStartTime = Component.text("Unknown");
+                    Component serverUptime = languageLoader.render("global.unknown_info");
 
                     try {
                         // 从DataLoader获取开服时间
-                        DataLoader.ServerInfoData serverInfo = plugin.getPlayerDataLoader().getServerInfo();
                         String bootTime = serverInfo.startupTime;
                         if (bootTime != null && !bootTime.isEmpty()) {
-                            serverStartTime = bootTime;
+                            serverStartTime = Component.text(bootTime);
 
                             // 直接使用 TimeUtil.DateConverter 来处理日期字符串
                             try {
@@ -162,39 +187,38 @@ public class ServerInfoModule {
                                     long uptimeDays = java.time.temporal.ChronoUnit.DAYS.between(bootDateTime, currentDateTime);
 
                                     if (uptimeDays <= 0) {
-                                        serverUptime = languageLoader.getMessage("commands.server.info.uptime_same_day");
+                                        serverUptime = languageLoader.render("commands.server.info.uptime_same_day");
                                     } else {
-                                        serverUptime = languageLoader.getMessage("commands.server.info.uptime_days")
-                                                .replace("{days}", String.valueOf(uptimeDays));
+                                        serverUptime = languageLoader.render("commands.server.info.uptime_days",
+                                                Placeholder.unparsed("days", String.valueOf(uptimeDays)));
                                     }
                                 } else {
-                                    serverUptime = languageLoader.getMessage("commands.server.info.uptime_same_day");
+                                    serverUptime = languageLoader.render("commands.server.info.uptime_same_day");
                                 }
                             } catch (Exception e) {
                                 // 如果计算运行时间出现异常，使用默认值
-                                serverUptime = languageLoader.getMessage("global.unknown_info");
+                                serverUptime = languageLoader.render("global.unknown_info");
                             }
                         }
                     } catch (Exception e) {
                         // 如果出现任何异常，使用默认值
-                        serverStartTime = languageLoader.getMessage("global.unknown_info");
-                        serverUptime = languageLoader.getMessage("global.unknown_info");
+                        serverStartTime = languageLoader.render("global.unknown_info");
+                        serverUptime = languageLoader.render("global.unknown_info");
                     }
 
                     // 从配置文件获取服务器名称
                     String serverName = configLoader.getServerName();
 
-                    String allFormat = languageLoader.getMessage("commands.server.info.all_format")
-                            .replace("{proxy_version}", proxyVersion)
-                            .replace("{total_player}", String.valueOf(totalOnlinePlayers.get()))
-                            .replace("{server_count}", String.valueOf(servers.size()))
-                            .replace("{online_servers}", String.valueOf(runningServersCount.get()))
-                            .replace("{offline_servers}", String.valueOf(offlineServersCount.get()))
-                            .replace("{server_status_list}", serverStatusList.toString().trim())
-                            .replace("{server_start_time}", serverStartTime)
-                            .replace("{server_uptime}", serverUptime)
-                            .replace("{server_name}", serverName); // 添加服务器名称替换
-                    source.sendMessage(miniMessage.deserialize(allFormat));
+                    source.sendMessage(languageLoader.render("commands.server.info.all_format",
+                            Placeholder.unparsed("proxy_version", proxyVersion),
+                            Placeholder.unparsed("total_player", String.valueOf(finalTotalOnlinePlayers)),
+                            Placeholder.unparsed("server_count", String.valueOf(servers.size())),
+                            Placeholder.unparsed("online_servers", String.valueOf(finalRunningServersCount)),
+                            Placeholder.unparsed("offline_servers", String.valueOf(finalOfflineServersCount)),
+                            Placeholder.component("server_status_list", Component.join(JoinConfiguration.newlines(), serverStatusLines)),
+                            Placeholder.component("server_start_time", serverStartTime),
+                            Placeholder.component("server_uptime", serverUptime),
+                            Placeholder.parsed("server_name", serverName)));
                 });
 
     }
@@ -2,16 +2,23 @@ package cn.nirvana.vMonitor.command_module;
 
 import cn.nirvana.vMonitor.loader.ConfigLoader;
 import cn.nirvana.vMonitor.loader.LanguageLoader;
+import cn.nirvana.vMonitor.loader.MessageTemplate;
 
 import com.velocitypowered.api.command.CommandSource;
 import com.velocitypowered.api.proxy.Player;
 import com.velocitypowered.api.proxy.ProxyServer;
 import com.velocitypowered.api.proxy.server.RegisteredServer;
 
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.JoinConfiguration;
+import net.kyori.adventure.text.format.NamedTextColor;
 import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -31,41 +38,41 @@ public class ServerListModule {
     public void executeListAll(CommandSource source) {
         Collection<RegisteredServer> servers = proxyServer.getAllServers();
         if (servers.isEmpty()) {
-            source.sendMessage(miniMessage.deserialize(languageLoader.getMessage("commands.server.list.no_servers")));
+            source.sendMessage(languageLoader.render("commands.server.list.no_servers"));
             return;
         }
 
-        StringBuilder serverListContent = new StringBuilder();
+        List<Component> serverListContent = new ArrayList<>();
         int totalPlayers = 0;
-        String lineFormat = languageLoader.getMessage("commands.server.list.all_line_format");
+        MessageTemplate lineFormat = languageLoader.getLineTemplate("commands.server.list.all_line_format");
 
         for (RegisteredServer server : servers) {
             String serverDisplayName = configLoader.getServerDisplayName(server.getServerInfo().getName());
             Collection<Player> players = server.getPlayersConnected();
             totalPlayers += players.size();
 
-            String playersListContent;
+            Component playersListContent;
             if (players.isEmpty()) {
-                playersListContent = languageLoader.getMessage("commands.server.list.no_players");
+                playersListContent = languageLoader.render("commands.server.list.no_players");
             } else {
-                playersListContent = players.stream()
+                playersListContent = Component.text(players.stream()
                         .sorted(Comparator.comparing(Player::getUsername))
                         .map(Player::getUsername)
-                        .collect(Collectors.joining(", "));
+                        .collect(Collectors.joining(", ")));
             }
 
-            serverListContent.append(lineFormat
-                    .replace("{server_display_name}", serverDisplayName)
-                    .replace("{online_players}", String.valueOf(players.size()))
-                    .replace("{players_list}", playersListContent)
-            ).append("\n");
+            serverListContent.add(lineFormat.render(
+                    Placeholder.parsed("server_display_name", serverDisplayName),
+                    Placeholder.unparsed("online_players", String.valueOf(players.size())),
+                    Placeholder.component("players_list", playersListContent)));
         }
 
-        String allFormat = languageLoader.getMessage("commands.server.list.all_format")
-                .replace("{online_players_count}", String.valueOf(totalPlayers))
-                .replace("{all_players_list}", serverListContent.toString().trim());
-
-        source.sendMessage(miniMessage.deserialize(allFormat));
+        // 各服务器条目之间保留一个空行
+        Component allPlayersList = Component.join(
+                JoinConfiguration.separator(Component.newline().append(Component.newline())), serverListContent);
+        source.sendMessage(languageLoader.render("commands.server.list.all_format",
+                Placeholder.unparsed("online_players_count", String.valueOf(totalPlayers)),
+                Placeholder.component("all_players_list", allPlayersList)));
     }
 
     public void executeListPlayersOnServer(CommandSource source, String serverNameArg) {
@@ -75,23 +82,24 @@ public class ServerListModule {
             String serverDisplayName = configLoader.getServerDisplayName(server.getServerInfo().getName());
             Collection<Player> players = server.getPlayersConnected();
 
-            String specificPlayersListContent;
+            Component specificPlayersListContent;
             if (players.isEmpty()) {
-                specificPlayersListContent = "<red>" + languageLoader.getMessage("commands.server.list.no_players") + "</red>";
+                specificPlayersListContent = Component.text().color(NamedTextColor.RED)
+                        .append(languageLoader.render("commands.server.list.no_players")).build();
             } else {
-                specificPlayersListContent = "<green>" + players.stream()
+                specificPlayersListContent = Component.text(players.stream()
                         .sorted(Comparator.comparing(Player::getUsername))
                         .map(Player::getUsername)
-                        .collect(Collectors.joining(", ")) + "</green>";
+                        .collect(Collectors.joining(", ")), NamedTextColor.GREEN);
             }
-            String specificFormat = languageLoader.getMessage("commands.server.list.specific_format")
-                    .replace("{server_display_name}", serverDisplayName)
-                    .replace("{online_players_number}", String.valueOf(players.size()))
-                    .replace("{specific_players_list}", specificPlayersListContent);
-            source.sendMessage(miniMessage.deserialize(specificFormat));
+            source.sendMessage(languageLoader.render("commands.server.list.specific_format",
+                    Placeholder.parsed("server_display_name", serverDisplayName),
+                    Placeholder.unparsed("online_players_number", String.valueOf(players.size())),
+                    Placeholder.component("specific_players_list", specificPlayersListContent)));
 
         } else {
-            source.sendMessage(miniMessage.deserialize(languageLoader.getMessage("commands.server.not_found").replace("{server}", serverNameArg)));
+            source.sendMessage(languageLoader.render("commands.server.not_found",
+                    Placeholder.unparsed("server", serverNameArg)));
         }
     }
-}
\ No newline at end of file
+}
@@ -6,6 +6,7 @@ import cn.nirvana.vMonitor.loader.LanguageLoader;
 import com.velocitypowered.api.command.CommandSource;
 
 import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
 
 public class VersionModule {
     private final LanguageLoader languageLoader;
@@ -17,8 +18,7 @@ public class VersionModule {
     }
 
     public void executeVersion(CommandSource source) {
-        String versionMessage = languageLoader.getMessage("commands.version.format");
-        versionMessage = versionMessage.replace("{plugin_version}", BuildConstants.VERSION);
-        source.sendMessage(miniMessage.deserialize(versionMessage));
+        source.sendMessage(languageLoader.render("commands.version.format",
+                Placeholder.unparsed("plugin_version", BuildConstants.VERSION)));
     }
 }
\ No newline at end of file
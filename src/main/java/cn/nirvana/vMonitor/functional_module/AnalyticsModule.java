@@ -0,0 +1,233 @@
+package cn.nirvana.vMonitor.functional_module;
+
+import cn.nirvana.vMonitor.loader.ConfigLoader;
+import cn.nirvana.vMonitor.loader.DataLoader;
+import cn.nirvana.vMonitor.storage.AnalyticsStore;
+import cn.nirvana.vMonitor.storage.StorageBackend;
+import cn.nirvana.vMonitor.VMonitor;
+
+import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.scheduler.ScheduledTask;
+
+import org.slf4j.Logger;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.SQLException;
+
+import java.time.LocalDate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分析镜像模块
+ * 启用后定期把已结束日期的服务器路径和会话镜像到嵌入式 DuckDB 分析库，报表中扫描量大的聚合（时段分布、星期分布、
+ * 服务器分布、热门服务器）在分析库中执行，不再占用存储后端的连接。
+ * 跨越午夜的会话和活动日志重放补写了数据的已结束日期在同步和查询前重新复制。
+ * DuckDB 驱动体积较大，不随插件打包，启动时从配置的 jar 文件加载；分析库不可用或查询失败时回退到存储后端
+ */
+public class AnalyticsModule {
+    private static final String DRIVER_CLASS = "org.duckdb.DuckDBDriver";
+
+    private final ProxyServer proxyServer;
+    private final ConfigLoader configLoader;
+    private final StorageBackend storageBackend;
+    private final DataLoader dataLoader;
+    private final VMonitor plugin;
+    private final Path dataDirectory;
+    private final Logger logger;
+
+    private volatile AnalyticsStore store;
+    private ScheduledTask syncTask;
+
+    public AnalyticsModule(ProxyServer proxyServer, ConfigLoader configLoader, StorageBackend storageBackend,
+                           DataLoader dataLoader, VMonitor plugin, Path dataDirectory, Logger logger) {
+        this.proxyServer = proxyServer;
+        this.configLoader = configLoader;
+        this.storageBackend = storageBackend;
+        this.dataLoader = dataLoader;
+        this.plugin = plugin;
+        this.dataDirectory = dataDirectory;
+        this.logger = logger;
+    }
+
+    /**
+     * 打开分析库并启动同步任务，首次同步立即执行
+     */
+    public void start() {
+        if (!configLoader.isAnalyticsEnabled()) {
+            return;
+        }
+
+        Path path = dataDirectory.resolve(configLoader.getAnalyticsPath());
+        try {
+            store = new AnalyticsStore(logger, storageBackend, openConnection(path));
+        } catch (SQLException | ReflectiveOperationException e) {
+            logger.error("Failed to open analytics store, reports will query the database directly: {}", e.getMessage());
+            return;
+        }
+
+        long syncInterval = configLoader.getAnalyticsSyncInterval();
+        syncTask = proxyServer.getScheduler().buildTask(plugin, this::sync)
+                .repeat(syncInterval, TimeUnit.MINUTES)
+                .schedule();
+        logger.info("Analytics mirror opened at {}, syncing every {} min", path, syncInterval);
+    }
+
+    /**
+     * 停止同步任务并关闭分析库
+     */
+    public void stop() {
+        if (syncTask != null) {
+            syncTask.cancel();
+            syncTask = null;
+        }
+        AnalyticsStore current = store;
+        store = null;
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    /**
+     * 清空分析库并立即重新同步，存储后端导入数据后调用；未启用分析镜像时不执行任何操作
+     */
+    public void rebuild() {
+        AnalyticsStore current = store;
+        if (current == null) {
+            return;
+        }
+        try {
+            current.reset();
+        } catch (SQLException e) {
+            logger.error("Failed to reset analytics mirror: {}", e.getMessage());
+            return;
+        }
+        sync();
+    }
+
+    /**
+     * 加载 DuckDB 驱动并打开分析库，驱动不在类路径中时先将配置的 jar 文件加入插件类路径
+     */
+    private Connection openConnection(Path path) throws SQLException, ReflectiveOperationException {
+        Class<?> driverClass;
+        try {
+            driverClass = Class.forName(DRIVER_CLASS, true, getClass().getClassLoader());
+        } catch (ClassNotFoundException e) {
+            Path driverJar = dataDirectory.resolve(configLoader.getAnalyticsDriverJar());
+            if (!Files.isRegularFile(driverJar)) {
+                throw new ClassNotFoundException("DuckDB driver not found at " + driverJar);
+            }
+            proxyServer.getPluginManager().addToClasspath(plugin, driverJar);
+            driverClass = Class.forName(DRIVER_CLASS, true, getClass().getClassLoader());
+        }
+
+        Driver driver = (Driver) driverClass.getDeclaredConstructor().newInstance();
+        Connection connection = driver.connect("jdbc:duckdb:" + path.toAbsolutePath(), new Properties());
+        if (connection == null) {
+            throw new SQLException("DuckDB driver rejected path " + path);
+        }
+        return connection;
+    }
+
+    private void sync() {
+        AnalyticsStore current = store;
+        if (current == null) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            collectBackfilledDays(current);
+            int copied = current.sync(LocalDate.now());
+            if (copied > 0) {
+                logger.info("Mirrored {} server paths and sessions into the analytics store through {} in {} ms", copied,
+                        current.getMirroredThrough(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        } catch (SQLException e) {
+            logger.error("Failed to sync analytics mirror: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 将补写了数据的已结束日期交给分析库重新复制
+     */
+    private void collectBackfilledDays(AnalyticsStore current) {
+        Set<LocalDate> days = dataLoader.drainBackfilledDays();
+        if (!days.isEmpty()) {
+            current.invalidate(days);
+        }
+    }
+
+    // 报表统计，分析库不可用时回退到 DataLoader
+
+    public Map<Integer, Integer> getHourlyPlayerDistribution(LocalDate startDate, LocalDate endDate) {
+        AnalyticsStore current = store;
+        if (current != null) {
+            try {
+                collectBackfilledDays(current);
+                Map<Integer, Integer> hourlyData = new LinkedHashMap<>();
+                for (int i = 0; i < 24; i++) {
+                    hourlyData.put(i, 0);
+                }
+                hourlyData.putAll(current.getHourlyDistribution(startDate, endDate));
+                return hourlyData;
+            } catch (SQLException e) {
+                logger.error("Failed to get hourly player distribution from analytics store: {}", e.getMessage());
+            }
+        }
+        return dataLoader.getHourlyPlayerDistribution(startDate, endDate);
+    }
+
+    public Map<Integer, Integer> getWeeklyPlayerDistribution(LocalDate startDate, LocalDate endDate) {
+        AnalyticsStore current = store;
+        if (current != null) {
+            try {
+                collectBackfilledDays(current);
+                Map<Integer, Integer> weeklyData = new LinkedHashMap<>();
+                for (int i = 1; i <= 7; i++) {
+                    weeklyData.put(i, 0);
+                }
+                weeklyData.putAll(current.getWeeklyDistribution(startDate, endDate));
+                return weeklyData;
+            } catch (SQLException e) {
+                logger.error("Failed to get weekly player distribution from analytics store: {}", e.getMessage());
+            }
+        }
+        return dataLoader.getWeeklyPlayerDistribution(startDate, endDate);
+    }
+
+    public Map<String, Integer> getServerDistribution(LocalDate startDate, LocalDate endDate) {
+        AnalyticsStore current = store;
+        if (current != null) {
+            try {
+                collectBackfilledDays(current);
+                return current.getServerDistribution(startDate, endDate);
+            } catch (SQLException e) {
+                logger.error("Failed to get server distribution from analytics store: {}", e.getMessage());
+            }
+        }
+        return dataLoader.getServerDistribution(startDate, endDate);
+    }
+
+    public List<DataLoader.PopularServer> getPopularServers(int limit, LocalDate startDate, LocalDate endDate) {
+        AnalyticsStore current = store;
+        if (current != null) {
+            try {
+                collectBackfilledDays(current);
+                return current.getPopularServers(limit, startDate, endDate);
+            } catch (SQLException e) {
+                logger.error("Failed to get popular servers from analytics store: {}", e.getMessage());
+            }
+        }
+        return dataLoader.getPopularServers(limit, startDate, endDate);
+    }
+
+}
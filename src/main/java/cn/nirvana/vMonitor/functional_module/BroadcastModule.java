@@ -0,0 +1,235 @@
+package cn.nirvana.vMonitor.functional_module;
+
+import cn.nirvana.vMonitor.loader.ConfigLoader;
+import cn.nirvana.vMonitor.loader.LanguageLoader;
+import cn.nirvana.vMonitor.loader.MessageTemplate;
+import cn.nirvana.vMonitor.VMonitor;
+
+import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.scheduler.ScheduledTask;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 玩家活动广播模块
+ * 将一个窗口内的加入、离开、切换事件合并后统一发送，事件过多时改为汇总消息，并限制每个窗口的消息数量
+ */
+public class BroadcastModule {
+    private final ProxyServer proxyServer;
+    private final ConfigLoader configLoader;
+    private final LanguageLoader languageLoader;
+    private final VMonitor plugin;
+    private final Logger logger;
+
+    // 等待下一次合并发送的事件
+    private final Queue<ActivityEvent> pendingEvents = new ConcurrentLinkedQueue<>();
+
+    private ScheduledTask flushTask;
+
+    public BroadcastModule(ProxyServer proxyServer, ConfigLoader configLoader, LanguageLoader languageLoader,
+                           VMonitor plugin, Logger logger) {
+        this.proxyServer = proxyServer;
+        this.configLoader = configLoader;
+        this.languageLoader = languageLoader;
+        this.plugin = plugin;
+        this.logger = logger;
+    }
+
+    /**
+     * 启动广播模块，按合并窗口周期性发送消息
+     */
+    public void start() {
+        long window = configLoader.getBroadcastCoalesceWindow();
+        flushTask = proxyServer.getScheduler().buildTask(plugin, this::flush)
+                .delay(window, TimeUnit.MILLISECONDS)
+                .repeat(window, TimeUnit.MILLISECONDS)
+                .schedule();
+        logger.info("Broadcast module started with a coalesce window of {} ms", window);
+    }
+
+    /**
+     * 停止广播模块，并发送剩余的事件
+     */
+    public void stop() {
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+        flush();
+    }
+
+    /**
+     * 提交一个玩家活动事件，事件会在下一个合并窗口结束时发送
+     *
+     * @param type       活动类型
+     * @param playerName 玩家名称
+     * @param fromServer 玩家来自的服务器显示名称 (可选)
+     * @param toServer   玩家前往的服务器显示名称 (可选)
+     */
+    public void enqueue(ActivityType type, String playerName, String fromServer, String toServer) {
+        pendingEvents.add(new ActivityEvent(type, playerName, fromServer, toServer));
+    }
+
+    /**
+     * 取出当前窗口内的所有事件，合并后发送
+     */
+    private void flush() {
+        List<ActivityEvent> batch = new ArrayList<>();
+        ActivityEvent event;
+        while ((event = pendingEvents.poll()) != null) {
+            batch.add(event);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            for (Component message : buildMessages(batch)) {
+                proxyServer.sendMessage(message);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to broadcast player activity messages: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 根据汇总阈值和消息上限构建本窗口需要发送的消息
+     *
+     * @param batch 本窗口内的事件（按发生顺序）
+     * @return 需要发送的消息列表
+     */
+    private List<Component> buildMessages(List<ActivityEvent> batch) {
+        Map<ActivityType, Integer> counts = new EnumMap<>(ActivityType.class);
+        for (ActivityEvent event : batch) {
+            counts.merge(event.type, 1, Integer::sum);
+        }
+
+        // 同类事件达到阈值时使用汇总消息
+        int threshold = configLoader.getBroadcastSummaryThreshold();
+        Set<ActivityType> summarized = EnumSet.noneOf(ActivityType.class);
+        for (Map.Entry<ActivityType, Integer> entry : counts.entrySet()) {
+            if (entry.getValue() >= threshold) {
+                summarized.add(entry.getKey());
+            }
+        }
+
+        // 超出消息上限时，从事件最多的类型开始依次改为汇总消息
+        // 上限至少为本窗口的事件类型数量，保证每种类型至少能发送一条汇总消息，不会有事件被丢弃
+        int maxMessages = Math.max(configLoader.getBroadcastMaxMessagesPerWindow(), counts.size());
+        while (countMessages(counts, summarized) > maxMessages && summarized.size() < counts.size()) {
+            ActivityType largest = null;
+            for (Map.Entry<ActivityType, Integer> entry : counts.entrySet()) {
+                if (!summarized.contains(entry.getKey())
+                        && (largest == null || entry.getValue() > counts.get(largest))) {
+                    largest = entry.getKey();
+                }
+            }
+            summarized.add(largest);
+        }
+
+        List<Component> messages = new ArrayList<>();
+        Set<ActivityType> summaryEmitted = EnumSet.noneOf(ActivityType.class);
+        for (ActivityEvent event : batch) {
+            if (messages.size() >= maxMessages) {
+                break;
+            }
+            Component message;
+            if (summarized.contains(event.type)) {
+                // 汇总消息放在该类型第一次出现的位置
+                if (!summaryEmitted.add(event.type)) {
+                    continue;
+                }
+                message = renderSummary(event.type, counts.get(event.type));
+            } else {
+                message = renderSingle(event);
+            }
+            if (message != null) {
+                messages.add(message);
+            }
+        }
+        return messages;
+    }
+
+    private int countMessages(Map<ActivityType, Integer> counts, Set<ActivityType> summarized) {
+        int total = 0;
+        for (Map.Entry<ActivityType, Integer> entry : counts.entrySet()) {
+            total += summarized.contains(entry.getKey()) ? 1 : entry.getValue();
+        }
+        return total;
+    }
+
+    private Component renderSingle(ActivityEvent event) {
+        MessageTemplate template = getActivityTemplate(event.type.messageKey);
+        if (template == null) {
+            return null;
+        }
+        // 服务器显示名称来自配置文件，允许包含 MiniMessage 格式
+        return template.render(
+                Placeholder.unparsed("player", event.playerName),
+                Placeholder.parsed("from", event.fromServer != null ? event.fromServer : ""),
+                Placeholder.parsed("to", event.toServer != null ? event.toServer : ""));
+    }
+
+    private Component renderSummary(ActivityType type, int count) {
+        MessageTemplate template = getActivityTemplate(type.summaryKey);
+        if (template == null) {
+            return null;
+        }
+        return template.render(Placeholder.unparsed("count", String.valueOf(count)));
+    }
+
+    private MessageTemplate getActivityTemplate(String messageKey) {
+        // 检查消息是否存在且未缺失
+        if (!languageLoader.hasMessage(messageKey) || languageLoader.getMessage(messageKey).isEmpty()) {
+            logger.warn("Language key '{}' is missing or malformed for player activity message. " +
+                    "Check your language files. Message won't be sent.", messageKey);
+            return null;
+        }
+        return languageLoader.getTemplate(messageKey);
+    }
+
+    /**
+     * 玩家活动类型
+     */
+    public enum ActivityType {
+        FIRST_JOIN("player_activity.first_join", "player_activity.summary.first_join"),
+        JOIN("player_activity.join", "player_activity.summary.join"),
+        QUIT("player_activity.quit", "player_activity.summary.quit"),
+        SWITCH("player_activity.switch", "player_activity.summary.switch");
+
+        private final String messageKey;
+        private final String summaryKey;
+
+        ActivityType(String messageKey, String summaryKey) {
+            this.messageKey = messageKey;
+            this.summaryKey = summaryKey;
+        }
+    }
+
+    private static final class ActivityEvent {
+        private final ActivityType type;
+        private final String playerName;
+        private final String fromServer;
+        private final String toServer;
+
+        private ActivityEvent(ActivityType type, String playerName, String fromServer, String toServer) {
+            this.type = type;
+            this.playerName = playerName;
+            this.fromServer = fromServer;
+            this.toServer = toServer;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package cn.nirvana.vMonitor.functional_module;
+
+import cn.nirvana.vMonitor.loader.ConfigLoader;
+import cn.nirvana.vMonitor.storage.ActivityJournal;
+import cn.nirvana.vMonitor.storage.StorageBackend;
+import cn.nirvana.vMonitor.util.DatabaseUtil;
+import cn.nirvana.vMonitor.VMonitor;
+
+import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.scheduler.ScheduledTask;
+
+import org.slf4j.Logger;
+
+import java.io.IOException;
+
+import java.sql.SQLException;
+
+import java.time.YearMonth;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 数据库维护模块
+ * 定期维护服务器路径的按月分区：提前建立当前和下个月的分区，超过保留期的月份汇总后整体删除；
+ * 启用活动日志时定期将数据库不可用期间记录的玩家活动重放到数据库。
+ * 使用 SQLite 时还会定期执行 WAL 检查点，限制 WAL 文件的大小，并定期执行 PRAGMA optimize 更新查询统计信息；
+ * 维护操作由 SQLite 写入线程在写入事务之间执行
+ */
+public class DatabaseMaintenanceModule {
+    // 分区维护间隔（分钟），月份切换前下个月的分区早已建立，间隔只影响过期分区删除的及时程度
+    private static final long PARTITION_INTERVAL_MINUTES = 60L;
+
+    private final ProxyServer proxyServer;
+    private final ConfigLoader configLoader;
+    private final DatabaseUtil databaseUtil;
+    private final StorageBackend storageBackend;
+    // 活动日志，未启用时为 null
+    private final ActivityJournal journal;
+    private final VMonitor plugin;
+    private final Logger logger;
+
+    private ScheduledTask partitionTask;
+    private ScheduledTask journalTask;
+    private ScheduledTask checkpointTask;
+    private ScheduledTask optimizeTask;
+
+    public DatabaseMaintenanceModule(ProxyServer proxyServer, ConfigLoader configLoader, DatabaseUtil databaseUtil,
+                                     StorageBackend storageBackend, ActivityJournal journal, VMonitor plugin,
+                                     Logger logger) {
+        this.proxyServer = proxyServer;
+        this.configLoader = configLoader;
+        this.databaseUtil = databaseUtil;
+        this.storageBackend = storageBackend;
+        this.journal = journal;
+        this.plugin = plugin;
+        this.logger = logger;
+    }
+
+    /**
+     * 启动维护任务
+     * 首次分区维护在启动时同步执行，保证玩家活动监听器注册前当前月份的分区已经存在
+     */
+    public void start() {
+        maintainPartitions();
+        partitionTask = proxyServer.getScheduler().buildTask(plugin, this::maintainPartitions)
+                .delay(PARTITION_INTERVAL_MINUTES, TimeUnit.MINUTES)
+                .repeat(PARTITION_INTERVAL_MINUTES, TimeUnit.MINUTES)
+                .schedule();
+
+        if (journal != null) {
+            // 上次运行遗留的事件在启动后立即开始重放
+            journalTask = proxyServer.getScheduler().buildTask(plugin, this::replayJournal)
+                    .repeat(configLoader.getJournalReplayInterval(), TimeUnit.SECONDS)
+                    .schedule();
+        }
+
+        if (databaseUtil.getDatabaseType() != DatabaseUtil.DatabaseType.SQLITE) {
+            return;
+        }
+
+        long checkpointInterval = configLoader.getSQLiteCheckpointInterval();
+        checkpointTask = proxyServer.getScheduler().buildTask(plugin, databaseUtil::checkpoint)
+                .delay(checkpointInterval, TimeUnit.SECONDS)
+                .repeat(checkpointInterval, TimeUnit.SECONDS)
+                .schedule();
+
+        long optimizeInterval = configLoader.getSQLiteOptimizeInterval();
+        optimizeTask = proxyServer.getScheduler().buildTask(plugin, databaseUtil::optimize)
+                .delay(optimizeInterval, TimeUnit.MINUTES)
+                .repeat(optimizeInterval, TimeUnit.MINUTES)
+                .schedule();
+        logger.info("SQLite maintenance started: WAL checkpoint every {} s, optimize every {} min",
+                checkpointInterval, optimizeInterval);
+    }
+
+    /**
+     * 停止维护任务
+     */
+    public void stop() {
+        if (partitionTask != null) {
+            partitionTask.cancel();
+            partitionTask = null;
+        }
+        if (journalTask != null) {
+            journalTask.cancel();
+            journalTask = null;
+        }
+        if (checkpointTask != null) {
+            checkpointTask.cancel();
+            checkpointTask = null;
+        }
+        if (optimizeTask != null) {
+            optimizeTask.cancel();
+            optimizeTask = null;
+        }
+    }
+
+    private void maintainPartitions() {
+        YearMonth currentMonth = YearMonth.now();
+        int retentionMonths = configLoader.getServerPathRetentionMonths();
+        YearMonth retainFrom = retentionMonths > 0 ? currentMonth.minusMonths(retentionMonths) : null;
+        try {
+            int dropped = storageBackend.maintainServerPathPartitions(currentMonth, retainFrom);
+            if (dropped > 0) {
+                logger.info("Rolled up and dropped {} server path partitions older than {}", dropped, retainFrom);
+            }
+        } catch (SQLException e) {
+            logger.error("Failed to maintain server path partitions: {}", e.getMessage());
+        }
+    }
+
+    private void replayJournal() {
+        if (!journal.isPending()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            int replayed = journal.replay(storageBackend);
+            logger.info("Replayed {} journaled activity events in {} ms", replayed,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (SQLException e) {
+            logger.warn("Database still unavailable, activity journal replay will be retried: {}", e.getMessage());
+        } catch (IOException e) {
+            logger.error("Failed to replay activity journal: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package cn.nirvana.vMonitor.functional_module;
+
+import cn.nirvana.vMonitor.loader.ConfigLoader;
+import cn.nirvana.vMonitor.util.DatabaseUtil;
+import cn.nirvana.vMonitor.util.LatencyHistogram;
+import cn.nirvana.vMonitor.util.MetricsRegistry;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.proxy.server.RegisteredServer;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 指标导出模块
+ * 在配置的本机端口上通过 JDK 内置 HTTP 服务以 Prometheus 文本格式导出插件指标，
+ * 每次抓取只读取内存中的计数器和代理的在线状态，不访问数据库
+ */
+public class MetricsModule {
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    // 直方图导出的桶边界为 2^7 到 2^24 微秒（约 0.128 毫秒到 16.8 秒）
+    private static final int MIN_BUCKET_EXPONENT = 7;
+    private static final int MAX_BUCKET_EXPONENT = 24;
+
+    private final ProxyServer proxyServer;
+    private final ConfigLoader configLoader;
+    private final DatabaseUtil databaseUtil;
+    private final MetricsRegistry metricsRegistry;
+    private final ServerStatusModule serverStatusModule;
+    private final Logger logger;
+
+    private HttpServer httpServer;
+    private ExecutorService httpExecutor;
+
+    public MetricsModule(ProxyServer proxyServer, ConfigLoader configLoader, DatabaseUtil databaseUtil,
+                         MetricsRegistry metricsRegistry, ServerStatusModule serverStatusModule, Logger logger) {
+        this.proxyServer = proxyServer;
+        this.configLoader = configLoader;
+        this.databaseUtil = databaseUtil;
+        this.metricsRegistry = metricsRegistry;
+        this.serverStatusModule = serverStatusModule;
+        this.logger = logger;
+    }
+
+    /**
+     * 启动指标导出服务
+     */
+    public void start() {
+        if (!configLoader.isMetricsEnabled()) {
+            logger.info("Metrics exporter is disabled in configuration.");
+            return;
+        }
+
+        String address = configLoader.getMetricsBindAddress();
+        int port = configLoader.getMetricsPort();
+        try {
+            httpServer = HttpServer.create(new InetSocketAddress(address, port), 0);
+        } catch (IOException e) {
+            logger.error("Failed to start metrics exporter on {}:{}: {}", address, port, e.getMessage());
+            return;
+        }
+
+        // 抓取请求由单个守护线程处理，不占用代理的事件线程
+        httpExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "V-Monitor-Metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        httpServer.setExecutor(httpExecutor);
+        httpServer.createContext("/metrics", this::handleScrape);
+        httpServer.start();
+        logger.info("Metrics exporter listening on http://{}:{}/metrics", address, port);
+    }
+
+    /**
+     * 停止指标导出服务
+     */
+    public void stop() {
+        if (httpServer != null) {
+            httpServer.stop(0);
+            httpServer = null;
+        }
+        if (httpExecutor != null) {
+            httpExecutor.shutdownNow();
+            httpExecutor = null;
+        }
+    }
+
+    private void handleScrape(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equalsIgnoreCase(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = render().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Failed to render metrics: {}", e.getMessage());
+            exchange.sendResponseHeaders(500, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * 渲染所有指标
+     */
+    private String render() {
+        StringBuilder sb = new StringBuilder(4096);
+
+        // 在线人数
+        header(sb, "vmonitor_online_players", "gauge", "Players currently connected to the proxy.");
+        sample(sb, "vmonitor_online_players", null, proxyServer.getPlayerCount());
+
+        Map<String, RegisteredServer> servers = new TreeMap<>();
+        for (RegisteredServer server : proxyServer.getAllServers()) {
+            servers.put(server.getServerInfo().getName(), server);
+        }
+
+        header(sb, "vmonitor_backend_online_players", "gauge", "Players currently connected to each backend server.");
+        servers.forEach((name, server) ->
+                sample(sb, "vmonitor_backend_online_players", serverLabel(name), server.getPlayersConnected().size()));
+
+        // 后端服务器状态（来自状态轮询缓存）
+        header(sb, "vmonitor_backend_up", "gauge", "Whether the last status poll of the backend server succeeded.");
+        servers.keySet().forEach(name -> sample(sb, "vmonitor_backend_up", serverLabel(name),
+                serverStatusModule.getStatus(name).map(status -> status.online ? 1 : 0).orElse(0)));
+
+        header(sb, "vmonitor_backend_ping_seconds", "gauge", "Round-trip time of the last successful status ping.");
+        servers.keySet().forEach(name -> {
+            Optional<ServerStatusModule.ServerStatus> status = serverStatusModule.getStatus(name);
+            if (status.isPresent() && status.get().online) {
+                sample(sb, "vmonitor_backend_ping_seconds", serverLabel(name), status.get().latencyMillis / 1000.0);
+            }
+        });
+
+        // 峰值
+        header(sb, "vmonitor_peak_online_players", "gauge", "Highest number of players online at once, including history.");
+        sample(sb, "vmonitor_peak_online_players", null, metricsRegistry.getPeakOnline());
+
+        header(sb, "vmonitor_backend_peak_online_players", "gauge", "Highest number of players on each backend server since the proxy started.");
+        new TreeMap<>(metricsRegistry.getBackendPeakOnline()).forEach((name, peak) ->
+                sample(sb, "vmonitor_backend_peak_online_players", serverLabel(name), peak.get()));
+
+        // 数据库任务
+        header(sb, "vmonitor_database_pending_tasks", "gauge", "Database write tasks submitted but not yet finished.");
+        sample(sb, "vmonitor_database_pending_tasks", null, metricsRegistry.getPendingDatabaseTasks());
+
+        header(sb, "vmonitor_database_task_errors_total", "counter", "Database tasks that failed with an exception.");
+        sample(sb, "vmonitor_database_task_errors_total", null, metricsRegistry.getDatabaseTaskErrors());
+
+        header(sb, "vmonitor_database_task_duration_seconds", "histogram", "Time spent running database tasks.");
+        histogram(sb, "vmonitor_database_task_duration_seconds", null, metricsRegistry.getDatabaseTaskLatency());
+
+        // SQLite 组提交
+        if (databaseUtil.getDatabaseType() == DatabaseUtil.DatabaseType.SQLITE) {
+            header(sb, "vmonitor_sqlite_pending_writes", "gauge", "Writes queued for the SQLite writer thread.");
+            sample(sb, "vmonitor_sqlite_pending_writes", null, metricsRegistry.getPendingWrites());
+
+            header(sb, "vmonitor_sqlite_write_batches_total", "counter", "Transactions committed by the SQLite writer thread.");
+            sample(sb, "vmonitor_sqlite_write_batches_total", null, metricsRegistry.getWriteBatches());
+
+            header(sb, "vmonitor_sqlite_write_batch_writes_total", "counter", "Writes committed by the SQLite writer thread, across all transactions.");
+            sample(sb, "vmonitor_sqlite_write_batch_writes_total", null, metricsRegistry.getWriteBatchTasks());
+
+            header(sb, "vmonitor_sqlite_write_batch_duration_seconds", "histogram", "Time spent running and committing each SQLite write transaction.");
+            histogram(sb, "vmonitor_sqlite_write_batch_duration_seconds", null, metricsRegistry.getWriteBatchLatency());
+
+            header(sb, "vmonitor_sqlite_wal_bytes", "gauge", "Current size of the SQLite write-ahead log file.");
+            sample(sb, "vmonitor_sqlite_wal_bytes", null, databaseUtil.getWalSize());
+
+            header(sb, "vmonitor_sqlite_checkpoints_total", "counter", "WAL checkpoints run by the maintenance scheduler, by mode.");
+            new TreeMap<>(metricsRegistry.getCheckpoints()).forEach((mode, count) ->
+                    sample(sb, "vmonitor_sqlite_checkpoints_total", "mode=\"" + mode + "\"", count.sum()));
+        }
+
+        // 各查询的耗时、失败与慢查询次数
+        Map<String, MetricsRegistry.QueryStats> queryStats = new TreeMap<>(metricsRegistry.getAllQueryStats());
+        header(sb, "vmonitor_query_duration_seconds", "histogram", "Time spent executing statements of each DataLoader query.");
+        queryStats.forEach((name, stats) ->
+                histogram(sb, "vmonitor_query_duration_seconds", queryLabel(name), stats.getLatency()));
+
+        header(sb, "vmonitor_query_errors_total", "counter", "Statements of each DataLoader query that failed.");
+        queryStats.forEach((name, stats) -> sample(sb, "vmonitor_query_errors_total", queryLabel(name), stats.getErrors()));
+
+        header(sb, "vmonitor_slow_queries_total", "counter", "Statements of each DataLoader query slower than the configured threshold.");
+        queryStats.forEach((name, stats) -> sample(sb, "vmonitor_slow_queries_total", queryLabel(name), stats.getSlowQueries()));
+
+        // 连接池
+        Map<String, HikariDataSource> pools = new TreeMap<>(databaseUtil.getPools());
+        pools.values().removeIf(HikariDataSource::isClosed);
+        header(sb, "vmonitor_hikari_connections", "gauge", "Connections in each database pool by state.");
+        pools.forEach((name, dataSource) -> {
+            HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+            if (pool != null) {
+                sample(sb, "vmonitor_hikari_connections", poolLabel(name) + ",state=\"active\"", pool.getActiveConnections());
+                sample(sb, "vmonitor_hikari_connections", poolLabel(name) + ",state=\"idle\"", pool.getIdleConnections());
+                sample(sb, "vmonitor_hikari_connections", poolLabel(name) + ",state=\"total\"", pool.getTotalConnections());
+            }
+        });
+
+        header(sb, "vmonitor_hikari_connections_max", "gauge", "Maximum size of each database pool.");
+        pools.forEach((name, dataSource) ->
+                sample(sb, "vmonitor_hikari_connections_max", poolLabel(name), dataSource.getMaximumPoolSize()));
+
+        header(sb, "vmonitor_hikari_threads_awaiting_connection", "gauge", "Threads waiting for a connection from each database pool.");
+        pools.forEach((name, dataSource) -> {
+            HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+            if (pool != null) {
+                sample(sb, "vmonitor_hikari_threads_awaiting_connection", poolLabel(name), pool.getThreadsAwaitingConnection());
+            }
+        });
+
+        Map<String, MetricsRegistry.PoolMetrics> poolMetrics = new TreeMap<>(metricsRegistry.getAllPoolMetrics());
+        header(sb, "vmonitor_hikari_acquire_seconds", "histogram", "Time spent waiting to borrow a connection from each database pool.");
+        poolMetrics.forEach((name, stats) ->
+                histogram(sb, "vmonitor_hikari_acquire_seconds", poolLabel(name), stats.getAcquireWait()));
+
+        header(sb, "vmonitor_hikari_usage_seconds", "histogram", "Time each borrowed connection was held before being returned.");
+        poolMetrics.forEach((name, stats) ->
+                histogram(sb, "vmonitor_hikari_usage_seconds", poolLabel(name), stats.getUsage()));
+
+        header(sb, "vmonitor_hikari_timeouts_total", "counter", "Connection requests that timed out waiting for each database pool.");
+        poolMetrics.forEach((name, stats) -> sample(sb, "vmonitor_hikari_timeouts_total", poolLabel(name), stats.getTimeouts()));
+
+        // 报告生成
+        header(sb, "vmonitor_report_duration_seconds", "histogram", "Time spent generating the HTML report.");
+        histogram(sb, "vmonitor_report_duration_seconds", null, metricsRegistry.getReportDuration());
+
+        return sb.toString();
+    }
+
+    private void header(StringBuilder sb, String name, String type, String help) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private void sample(StringBuilder sb, String name, String labels, double value) {
+        sb.append(name);
+        if (labels != null) {
+            sb.append('{').append(labels).append('}');
+        }
+        sb.append(' ');
+        if (value == Math.rint(value) && !Double.isInfinite(value)) {
+            sb.append((long) value);
+        } else {
+            sb.append(value);
+        }
+        sb.append('\n');
+    }
+
+    /**
+     * 以累计桶的形式导出直方图，桶边界取 2 的幂微秒，与直方图内部的桶边界对齐
+     */
+    private void histogram(StringBuilder sb, String name, String labels, LatencyHistogram histogram) {
+        String prefix = labels != null ? labels + "," : "";
+        for (int exponent = MIN_BUCKET_EXPONENT; exponent <= MAX_BUCKET_EXPONENT; exponent++) {
+            double le = (1L << exponent) / 1_000_000.0;
+            sample(sb, name + "_bucket", prefix + "le=\"" + le + "\"", histogram.countBelowPowerOfTwo(exponent));
+        }
+        // 总数同样由桶累加得到，避免并发记录时累计桶的数量超过总数
+        long count = histogram.countBelowPowerOfTwo(Long.SIZE);
+        sample(sb, name + "_bucket", prefix + "le=\"+Inf\"", count);
+        sample(sb, name + "_sum", labels, histogram.getSumMicros() / 1_000_000.0);
+        sample(sb, name + "_count", labels, count);
+    }
+
+    private String serverLabel(String serverName) {
+        return "server=\"" + escapeLabel(serverName) + "\"";
+    }
+
+    private String queryLabel(String queryName) {
+        return "query=\"" + escapeLabel(queryName) + "\"";
+    }
+
+    private String poolLabel(String poolName) {
+        return "pool=\"" + escapeLabel(poolName) + "\"";
+    }
+
+    private String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
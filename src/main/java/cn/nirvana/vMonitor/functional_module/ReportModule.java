@@ -2,6 +2,8 @@ package cn.nirvana.vMonitor.functional_module;
 
 import cn.nirvana.vMonitor.loader.ConfigLoader;
 import cn.nirvana.vMonitor.loader.DataLoader;
+import cn.nirvana.vMonitor.util.ExecutorUtil;
+import cn.nirvana.vMonitor.util.MetricsRegistry;
 
 import org.slf4j.Logger;
 
@@ -26,6 +28,9 @@ public class ReportModule {
     private final Logger logger;
     private final ConfigLoader configLoader;
     private final DataLoader dataLoader;
+    private final AnalyticsModule analyticsModule;
+    private final ExecutorUtil executorUtil;
+    private final MetricsRegistry metricsRegistry;
     private final Path dataDirectory;
 
     private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
@@ -34,10 +39,14 @@ public class ReportModule {
     private Thread reportGenerationTask;
     private volatile boolean running = false;
 
-    public ReportModule(Logger logger, ConfigLoader configLoader, DataLoader dataLoader, Path dataDirectory) {
+    public ReportModule(Logger logger, ConfigLoader configLoader, DataLoader dataLoader, AnalyticsModule analyticsModule,
+                        ExecutorUtil executorUtil, MetricsRegistry metricsRegistry, Path dataDirectory) {
         this.logger = logger;
         this.configLoader = configLoader;
         this.dataLoader = dataLoader;
+        this.analyticsModule = analyticsModule;
+        this.executorUtil = executorUtil;
+        this.metricsRegistry = metricsRegistry;
         this.dataDirectory = dataDirectory;
     }
 
@@ -52,10 +61,8 @@ public class ReportModule {
 
         running = true;
 
-        // 启动报表生成任务
-        reportGenerationTask = new Thread(this::scheduleReportGeneration);
-        reportGenerationTask.setName("ReportGenerationThread");
-        reportGenerationTask.setDaemon(true);
+        // 启动报表生成任务（启用虚拟线程时调度线程也是虚拟线程）
+        reportGenerationTask = executorUtil.newThread("ReportGenerationThread", this::scheduleReportGeneration);
         reportGenerationTask.start();
 
         logger.info("Report module started successfully.");
@@ -96,8 +103,11 @@ public class ReportModule {
                     break;
                 }
 
-                // 生成报表
-                generateReport();
+                // 生成报表（通过执行器分发，与其他数据库任务共享并发上限）
+                executorUtil.submit(() -> {
+                    generateReport();
+                    return null;
+                }).join();
 
                 // 如果启用了自动清理，则执行清理
                 if (configLoader.isAutoCleanReport()) {
@@ -135,6 +145,7 @@ public class ReportModule {
      * 生成报表
      */
     public void generateReport() {
+        long start = System.nanoTime();
         try {
             logger.info("Starting report generation...");
 
@@ -168,6 +179,8 @@ public class ReportModule {
             logger.info("Report generated successfully at: {}", reportPath.toAbsolutePath());
         } catch (Exception e) {
             logger.error("Failed to generate report: ", e);
+        } finally {
+            metricsRegistry.getReportDuration().record(System.nanoTime() - start);
         }
     }
 
@@ -260,15 +273,15 @@ public class ReportModule {
             jsonData.add("dauData", dauData);
 
             // 5. 玩家上线时间段分布（按小时）
-            Map<Integer, Integer> hourlyDistribution = dataLoader.getHourlyPlayerDistribution(startDate, endDate);
+            Map<Integer, Integer> hourlyDistribution = analyticsModule.getHourlyPlayerDistribution(startDate, endDate);
             jsonData.add("hourlyDistribution", gson.toJsonTree(hourlyDistribution));
 
             // 6. 玩家登录星期分布
-            Map<Integer, Integer> weeklyDistribution = dataLoader.getWeeklyPlayerDistribution(startDate, endDate);
+            Map<Integer, Integer> weeklyDistribution = analyticsModule.getWeeklyPlayerDistribution(startDate, endDate);
             jsonData.add("weeklyDistribution", gson.toJsonTree(weeklyDistribution));
 
             // 7. 服务器分布数据
-            Map<String, Integer> serverDistribution = dataLoader.getServerDistribution(startDate, endDate);
+            Map<String, Integer> serverDistribution = analyticsModule.getServerDistribution(startDate, endDate);
             jsonData.add("serverDistribution", gson.toJsonTree(serverDistribution));
 
             // 8. 最长在线时间的玩家TOP列表
@@ -280,9 +293,13 @@ public class ReportModule {
             jsonData.add("topPlayerDays", gson.toJsonTree(topPlayerDays));
 
             // 10. 最受欢迎的服务器列表
-            List<DataLoader.PopularServer> popularServers = dataLoader.getPopularServers(3, startDate, endDate);
+            List<DataLoader.PopularServer> popularServers = analyticsModule.getPopularServers(3, startDate, endDate);
             jsonData.add("popularServers", gson.toJsonTree(popularServers));
 
+            // 11. 后端服务器延迟与可用性
+            List<DataLoader.ServerHealth> serverHealth = dataLoader.getServerHealth(startDate, endDate);
+            jsonData.add("serverHealth", gson.toJsonTree(serverHealth));
+
             // 将JSON数据注入模板
             template = template.replace("{{report_data}}", gson.toJson(jsonData));
 
@@ -0,0 +1,348 @@
+package cn.nirvana.vMonitor.functional_module;
+
+import cn.nirvana.vMonitor.loader.ConfigLoader;
+import cn.nirvana.vMonitor.loader.DataLoader.ServerLatencyRecord;
+import cn.nirvana.vMonitor.util.TimeUtil;
+import cn.nirvana.vMonitor.VMonitor;
+
+import com.velocitypowered.api.proxy.ProxyServer;
+import com.velocitypowered.api.proxy.server.RegisteredServer;
+import com.velocitypowered.api.proxy.server.ServerPing;
+import com.velocitypowered.api.scheduler.ScheduledTask;
+
+import net.kyori.adventure.text.serializer.plain.PlainTextComponentSerializer;
+
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 后端服务器状态轮询模块
+ * 按配置的间隔在后台 ping 所有后端服务器，每个服务器的 ping 带有随机抖动以避免同时发出；
+ * 服务器信息命令直接从状态缓存渲染
+ * 每次 ping 的延迟、在线状态和玩家数量记录在每个服务器的环形缓冲区中，并定期降采样写入数据库
+ */
+public class ServerStatusModule {
+    private final ProxyServer proxyServer;
+    private final ConfigLoader configLoader;
+    private final VMonitor plugin;
+    private final Logger logger;
+
+    // 服务器名称 -> 最近一次轮询得到的状态
+    private final Map<String, ServerStatus> statuses = new ConcurrentHashMap<>();
+    // 服务器名称 -> 最近的 ping 样本
+    private final Map<String, StatusHistory> histories = new ConcurrentHashMap<>();
+
+    private ScheduledTask pollTask;
+    private ScheduledTask flushTask;
+    private volatile boolean running;
+
+    public ServerStatusModule(ProxyServer proxyServer, ConfigLoader configLoader, VMonitor plugin, Logger logger) {
+        this.proxyServer = proxyServer;
+        this.configLoader = configLoader;
+        this.plugin = plugin;
+        this.logger = logger;
+    }
+
+    /**
+     * 启动后台轮询
+     */
+    public void start() {
+        running = true;
+        long interval = configLoader.getStatusPollInterval();
+        pollTask = proxyServer.getScheduler().buildTask(plugin, this::pollAll)
+                .repeat(interval, TimeUnit.SECONDS)
+                .schedule();
+        long flushInterval = configLoader.getStatusHistoryFlushInterval();
+        flushTask = proxyServer.getScheduler().buildTask(plugin, this::flushHistory)
+                .delay(flushInterval, TimeUnit.MINUTES)
+                .repeat(flushInterval, TimeUnit.MINUTES)
+                .schedule();
+        logger.info("Server status polling started with an interval of {} s", interval);
+    }
+
+    /**
+     * 停止后台轮询，并将尚未写入的样本写入数据库
+     */
+    public void stop() {
+        running = false;
+        if (pollTask != null) {
+            pollTask.cancel();
+            pollTask = null;
+        }
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+        flushHistory();
+    }
+
+    /**
+     * 获取服务器的缓存状态
+     *
+     * @param serverName 服务器名称
+     * @return 缓存状态，尚未轮询过时为空
+     */
+    public Optional<ServerStatus> getStatus(String serverName) {
+        return Optional.ofNullable(statuses.get(serverName));
+    }
+
+    /**
+     * 获取服务器最近样本的延迟与可用率汇总
+     *
+     * @param serverName 服务器名称
+     * @return 汇总结果，尚未记录样本时为空
+     */
+    public Optional<HistorySummary> getHistorySummary(String serverName) {
+        StatusHistory history = histories.get(serverName);
+        return history != null ? history.summarize() : Optional.empty();
+    }
+
+    /**
+     * 获取服务器状态，缓存中没有时立即 ping 一次
+     *
+     * @param server 服务器
+     * @return 服务器状态
+     */
+    public CompletableFuture<ServerStatus> getOrRefresh(RegisteredServer server) {
+        ServerStatus status = statuses.get(server.getServerInfo().getName());
+        if (status != null) {
+            return CompletableFuture.completedFuture(status);
+        }
+        return refresh(server);
+    }
+
+    /**
+     * 按服务器名称排序返回所有已注册服务器
+     *
+     * @return 排序后的服务器列表
+     */
+    public List<RegisteredServer> getSortedServers() {
+        return proxyServer.getAllServers().stream()
+                .sorted(Comparator.comparing(server -> server.getServerInfo().getName()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 为所有服务器安排一次带随机抖动的 ping，并移除已注销服务器的状态
+     */
+    private void pollAll() {
+        long jitterMillis = TimeUnit.SECONDS.toMillis(configLoader.getStatusPollJitter());
+        Set<String> registered = new HashSet<>();
+
+        for (RegisteredServer server : proxyServer.getAllServers()) {
+            registered.add(server.getServerInfo().getName());
+            long delay = jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis) : 0L;
+            proxyServer.getScheduler().buildTask(plugin, () -> {
+                if (running) {
+                    refresh(server);
+                }
+            }).delay(delay, TimeUnit.MILLISECONDS).schedule();
+        }
+
+        statuses.keySet().retainAll(registered);
+    }
+
+    /**
+     * ping 单个服务器并更新缓存
+     */
+    private CompletableFuture<ServerStatus> refresh(RegisteredServer server) {
+        String serverName = server.getServerInfo().getName();
+        long start = System.nanoTime();
+
+        return server.ping()
+                .orTimeout(configLoader.getStatusPollTimeout(), TimeUnit.MILLISECONDS)
+                .thenApply(ping -> ServerStatus.online(ping, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)))
+                .exceptionally(throwable -> ServerStatus.offline())
+                .thenApply(status -> {
+                    ServerStatus previous = statuses.put(serverName, status);
+                    boolean wentOffline = previous != null && previous.online && !status.online;
+                    if (previous != null && previous.online != status.online) {
+                        logger.info("Backend server {} is now {}", serverName, status.online ? "online" : "offline");
+                    }
+                    histories.computeIfAbsent(serverName, name -> new StatusHistory(configLoader.getStatusHistorySize()))
+                            .record(status, wentOffline);
+                    return status;
+                });
+    }
+
+    /**
+     * 将每个服务器自上次写入以来的样本降采样为一条记录并写入数据库，同时清理已注销服务器的样本
+     */
+    private void flushHistory() {
+        long now = TimeUtil.SystemTime.getCurrentTimestamp();
+        Set<String> registered = new HashSet<>();
+        for (RegisteredServer server : proxyServer.getAllServers()) {
+            registered.add(server.getServerInfo().getName());
+        }
+
+        List<ServerLatencyRecord> records = new ArrayList<>();
+        histories.forEach((serverName, history) -> {
+            ServerLatencyRecord record = history.drain(serverName, now);
+            if (record != null) {
+                records.add(record);
+            }
+        });
+        histories.keySet().retainAll(registered);
+
+        if (!records.isEmpty()) {
+            plugin.getExecutorUtil().execute(() -> plugin.getPlayerDataLoader().insertServerLatencyHistory(records));
+        }
+    }
+
+    /**
+     * 后端服务器的状态快照
+     */
+    public static class ServerStatus {
+        public final boolean online;
+        public final int onlinePlayers;
+        public final int maxPlayers;
+        public final String version;
+        public final String motd;
+        public final long latencyMillis;
+        public final long updatedAt;
+
+        private ServerStatus(boolean online, int onlinePlayers, int maxPlayers, String version, String motd, long latencyMillis) {
+            this.online = online;
+            this.onlinePlayers = onlinePlayers;
+            this.maxPlayers = maxPlayers;
+            this.version = version;
+            this.motd = motd;
+            this.latencyMillis = latencyMillis;
+            this.updatedAt = System.currentTimeMillis();
+        }
+
+        private static ServerStatus online(ServerPing ping, long latencyMillis) {
+            return new ServerStatus(true,
+                    ping.getPlayers().map(ServerPing.Players::getOnline).orElse(0),
+                    ping.getPlayers().map(ServerPing.Players::getMax).orElse(0),
+                    Optional.ofNullable(ping.getVersion()).map(ServerPing.Version::getName).orElse(null),
+                    PlainTextComponentSerializer.plainText().serialize(ping.getDescriptionComponent()),
+                    latencyMillis);
+        }
+
+        private static ServerStatus offline() {
+            return new ServerStatus(false, 0, 0, null, null, -1L);
+        }
+    }
+
+    /**
+     * 最近样本的延迟与可用率汇总
+     */
+    public static class HistorySummary {
+        public final int samples;
+        public final double availability; // 百分比
+        public final long avgLatencyMillis; // 仅统计在线样本，无在线样本时为 -1
+        public final long maxLatencyMillis;
+        public final long windowMillis; // 最早样本到最新样本的时间跨度
+
+        private HistorySummary(int samples, double availability, long avgLatencyMillis, long maxLatencyMillis, long windowMillis) {
+            this.samples = samples;
+            this.availability = availability;
+            this.avgLatencyMillis = avgLatencyMillis;
+            this.maxLatencyMillis = maxLatencyMillis;
+            this.windowMillis = windowMillis;
+        }
+    }
+
+    /**
+     * 单个服务器的 ping 样本
+     * 环形缓冲区保存最近固定数量的样本供命令查询，另外累计自上次写入数据库以来的统计值供降采样使用
+     */
+    private static class StatusHistory {
+        private final long[] times;
+        private final long[] latencies; // 离线样本为 -1
+        private int head;
+        private int size;
+
+        private int pendingSamples;
+        private int pendingOnline;
+        private long pendingLatencySum;
+        private long pendingMaxLatency = -1L;
+        private long pendingPlayerSum;
+        private int pendingOutages;
+
+        private StatusHistory(int capacity) {
+            this.times = new long[capacity];
+            this.latencies = new long[capacity];
+        }
+
+        private synchronized void record(ServerStatus status, boolean wentOffline) {
+            times[head] = status.updatedAt;
+            latencies[head] = status.online ? status.latencyMillis : -1L;
+            head = (head + 1) % times.length;
+            if (size < times.length) {
+                size++;
+            }
+
+            pendingSamples++;
+            if (status.online) {
+                pendingOnline++;
+                pendingLatencySum += status.latencyMillis;
+                pendingMaxLatency = Math.max(pendingMaxLatency, status.latencyMillis);
+                pendingPlayerSum += status.onlinePlayers;
+            }
+            if (wentOffline) {
+                pendingOutages++;
+            }
+        }
+
+        private synchronized Optional<HistorySummary> summarize() {
+            if (size == 0) {
+                return Optional.empty();
+            }
+            int online = 0;
+            long latencySum = 0L;
+            long maxLatency = -1L;
+            long oldest = Long.MAX_VALUE;
+            long newest = Long.MIN_VALUE;
+            for (int i = 0; i < size; i++) {
+                long latency = latencies[i];
+                oldest = Math.min(oldest, times[i]);
+                newest = Math.max(newest, times[i]);
+                if (latency >= 0) {
+                    online++;
+                    latencySum += latency;
+                    maxLatency = Math.max(maxLatency, latency);
+                }
+            }
+            double availability = Math.round(online * 1000.0 / size) / 10.0;
+            return Optional.of(new HistorySummary(size, availability,
+                    online > 0 ? latencySum / online : -1L, maxLatency, newest - oldest));
+        }
+
+        private synchronized ServerLatencyRecord drain(String serverName, long time) {
+            if (pendingSamples == 0) {
+                return null;
+            }
+            ServerLatencyRecord record = new ServerLatencyRecord();
+            record.time = time;
+            record.serverName = serverName;
+            record.samples = pendingSamples;
+            record.onlineSamples = pendingOnline;
+            record.avgLatency = pendingOnline > 0 ? (int) (pendingLatencySum / pendingOnline) : -1;
+            record.maxLatency = (int) pendingMaxLatency;
+            record.avgPlayers = pendingOnline > 0 ? (int) (pendingPlayerSum / pendingOnline) : 0;
+            record.outages = pendingOutages;
+
+            pendingSamples = 0;
+            pendingOnline = 0;
+            pendingLatencySum = 0L;
+            pendingMaxLatency = -1L;
+            pendingPlayerSum = 0L;
+            pendingOutages = 0;
+            return record;
+        }
+    }
+}
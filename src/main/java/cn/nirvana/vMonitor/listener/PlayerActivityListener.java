@@ -1,8 +1,12 @@
 package cn.nirvana.vMonitor.listener;
 
+import cn.nirvana.vMonitor.functional_module.BroadcastModule;
+import cn.nirvana.vMonitor.functional_module.BroadcastModule.ActivityType;
 import cn.nirvana.vMonitor.loader.ConfigLoader;
 import cn.nirvana.vMonitor.loader.DataLoader;
-import cn.nirvana.vMonitor.loader.LanguageLoader;
+import cn.nirvana.vMonitor.util.ExecutorUtil;
+import cn.nirvana.vMonitor.util.PlayerNameIndex;
+import cn.nirvana.vMonitor.util.TimeUtil;
 import cn.nirvana.vMonitor.VMonitor;
 
 import com.velocitypowered.api.event.Subscribe;
@@ -12,15 +16,14 @@ import com.velocitypowered.api.event.player.ServerConnectedEvent;
 import com.velocitypowered.api.proxy.Player;
 import com.velocitypowered.api.proxy.ProxyServer;
 import com.velocitypowered.api.proxy.server.RegisteredServer;
-
-import net.kyori.adventure.text.minimessage.MiniMessage;
-import net.kyori.adventure.text.Component;
+import com.velocitypowered.api.scheduler.ScheduledTask;
 
 import org.slf4j.Logger;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
 
+import java.util.HashMap;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import java.util.Optional;
@@ -31,25 +34,33 @@ import java.util.concurrent.locks.ReentrantLock;
 public class PlayerActivityListener {
     private final ProxyServer proxyServer;
     private final ConfigLoader configLoader;
-    private final LanguageLoader languageLoader;
     private final DataLoader dataLoader;
-    private final MiniMessage miniMessage;
+    private final ExecutorUtil executorUtil;
+    private final BroadcastModule broadcastModule;
+    private final PlayerNameIndex playerNameIndex;
     private final VMonitor plugin;
     private final Logger logger;
     private final Map<UUID, LocalDateTime> playerLoginTimes; // 存储玩家登录时间
     private final Map<UUID, String> playerCurrentServers; //存储玩家当前所在的服务器名称
+    private final Map<UUID, ServerStint> playerServerStints = new ConcurrentHashMap<>(); // 存储玩家进入当前服务器的时间
 
     // 为每个玩家添加锁，防止并发更新冲突
     private final Map<UUID, ReentrantLock> playerLocks = new ConcurrentHashMap<>();
 
+    private ScheduledTask playTimeTask;
+    // 关闭后不再处理任何事件，剩余会话由 closeSessions 一次性结算
+    private volatile boolean closed;
+
     public PlayerActivityListener(ProxyServer proxyServer, ConfigLoader configLoader,
-                                  LanguageLoader languageLoader, DataLoader dataLoader,
-                                  MiniMessage miniMessage, VMonitor plugin, Logger logger) {
+                                  DataLoader dataLoader, ExecutorUtil executorUtil,
+                                  BroadcastModule broadcastModule, PlayerNameIndex playerNameIndex,
+                                  VMonitor plugin, Logger logger) {
         this.proxyServer = proxyServer;
         this.configLoader = configLoader;
-        this.languageLoader = languageLoader;
         this.dataLoader = dataLoader;
-        this.miniMessage = miniMessage;
+        this.executorUtil = executorUtil;
+        this.broadcastModule = broadcastModule;
+        this.playerNameIndex = playerNameIndex;
         this.plugin = plugin;
         this.logger = logger;
         this.playerLoginTimes = new ConcurrentHashMap<>();
@@ -66,20 +77,24 @@ public class PlayerActivityListener {
      */
     @Subscribe
     public void onPlayerLogin(LoginEvent event) {
+        if (closed) {
+            return;
+        }
         Player player = event.getPlayer();
         UUID uuid = player.getUniqueId();
         String playerName = player.getUsername();
 
-        // 检查是否为首次登录
-        boolean isFirstLogin = dataLoader.getPlayerData(uuid) == null;
+        // 新玩家或改名后的玩家立即进入补全索引
+        playerNameIndex.put(uuid, playerName);
 
-        // 根据是否首次登录发送不同消息
-        String messageKey = isFirstLogin ? "player_activity.first_join" : "player_activity.join";
+        // 首次登录检查需要查询数据库，与该玩家后续的数据写入保持顺序
+        executorUtil.executeOrdered(uuid, () -> {
+            // 检查是否为首次登录
+            boolean isFirstLogin = dataLoader.getPlayerData(uuid) == null;
 
-        // 添加500ms延迟后发送消息
-        plugin.getProxyServer().getScheduler().buildTask(plugin, () -> {
-            sendPlayerActivityMessage(playerName, messageKey, null, null);
-        }).delay(500, TimeUnit.MILLISECONDS).schedule();
+            // 根据是否首次登录发送不同消息，消息由广播模块在合并窗口结束时统一发送
+            broadcastModule.enqueue(isFirstLogin ? ActivityType.FIRST_JOIN : ActivityType.JOIN, playerName, null, null);
+        });
     }
 
     /**
@@ -89,6 +104,9 @@ public class PlayerActivityListener {
      */
     @Subscribe
     public void onServerConnected(ServerConnectedEvent event) {
+        if (closed) {
+            return;
+        }
         Player player = event.getPlayer();
         UUID uuid = player.getUniqueId();
         String playerName = player.getUsername();
@@ -100,23 +118,36 @@ public class PlayerActivityListener {
         // 记录玩家当前连接的服务器
         playerCurrentServers.put(uuid, serverName);
 
-        // 更新玩家数据（确保传递玩家名）
-        dataLoader.updatePlayerOnLogin(uuid, playerName);
+        // 结束玩家在上一个服务器的停留，开始记录在新服务器的停留
+        long now = TimeUtil.SystemTime.getCurrentTimestamp();
+        ServerStint previousStint = playerServerStints.put(uuid, new ServerStint(serverName, now));
+        if (previousStint != null) {
+            dataLoader.recordServerSession(uuid, previousStint.serverName(), previousStint.startTime(), now);
+        }
 
-        // 更新历史峰值在线人数
+        // 在事件线程上采集在线人数，数据库写入交给执行器
         int currentOnlineCount = proxyServer.getPlayerCount();
-        dataLoader.updateHistoricalPeakOnline(currentOnlineCount);
-
-        // 更新子服务器峰值在线人数
         int serverOnlineCount = event.getServer().getPlayersConnected().size() + 1; // +1是因为玩家即将连接
-        dataLoader.updateSubServerPeakOnline(serverName, serverOnlineCount);
+        boolean firstConnection = !event.getPreviousServer().isPresent();
 
-        // 处理玩家首次连接的情况
-        Optional<RegisteredServer> previousServer = event.getPreviousServer();
-        if (!previousServer.isPresent()) {
-            // 如果没有前一个服务器，说明是首次连接，需要记录路径（from_server 为 "external"）
-            dataLoader.updatePlayerServerLogin(uuid, "external", serverName);
-        }
+        executorUtil.executeOrdered(uuid, () -> {
+            // 更新玩家数据（确保传递玩家名）
+            dataLoader.updatePlayerOnLogin(uuid, playerName);
+
+            // 更新历史峰值在线人数
+            dataLoader.updateHistoricalPeakOnline(currentOnlineCount);
+
+            // 更新子服务器峰值在线人数
+            dataLoader.updateSubServerPeakOnline(serverName, serverOnlineCount);
+
+            // 处理玩家首次连接的情况
+            if (firstConnection) {
+                // 如果没有前一个服务器，说明是首次连接，需要记录路径（from_server 为 "external"）
+                dataLoader.updatePlayerServerLogin(uuid, "external", serverName);
+                // 记录会话开始，插件异常退出时下次启动据此补计游戏时间
+                dataLoader.startSession(uuid);
+            }
+        });
     }
 
 
@@ -131,13 +162,11 @@ public class PlayerActivityListener {
         UUID uuid = player.getUniqueId();
         String playerName = player.getUsername();
 
-        // 使用配置的显示名称来发送消息，并添加500ms延迟
+        // 使用配置的显示名称来发送消息
         String disconnectedServerName = playerCurrentServers.get(uuid);
         String displayServerName = disconnectedServerName != null ? configLoader.getServerDisplayName(disconnectedServerName) : null;
 
-        plugin.getProxyServer().getScheduler().buildTask(plugin, () -> {
-            sendPlayerActivityMessage(playerName, "player_activity.quit", displayServerName, null);
-        }).delay(500, TimeUnit.MILLISECONDS).schedule();
+        broadcastModule.enqueue(ActivityType.QUIT, playerName, displayServerName, null);
     }
 
     /**
@@ -147,13 +176,21 @@ public class PlayerActivityListener {
      */
     @Subscribe
     public void onServerDisconnected(DisconnectEvent event) {
+        if (closed) {
+            return;
+        }
         Player player = event.getPlayer();
         UUID uuid = player.getUniqueId();
-        String playerName = player.getUsername();
         LocalDateTime loginTime = playerLoginTimes.remove(uuid); // 获取并移除登录时间
 
-        // 获取玩家最后所在的服务器名称，并从 Map 中移除
-        String disconnectedServerName = playerCurrentServers.remove(uuid);
+        // 从 Map 中移除玩家最后所在的服务器
+        playerCurrentServers.remove(uuid);
+
+        // 结束玩家在最后所在服务器的停留
+        ServerStint stint = playerServerStints.remove(uuid);
+        if (stint != null) {
+            dataLoader.recordServerSession(uuid, stint.serverName(), stint.startTime(), TimeUtil.SystemTime.getCurrentTimestamp());
+        }
 
         // 移除玩家锁
         playerLocks.remove(uuid);
@@ -163,11 +200,14 @@ public class PlayerActivityListener {
             sessionDuration = Duration.between(loginTime, LocalDateTime.now());
         }
 
-        dataLoader.updatePlayerOnQuit(uuid, playerName, disconnectedServerName, sessionDuration);
-
-        // 更新历史峰值在线人数（玩家退出后）
+        Duration finalSessionDuration = sessionDuration;
         int currentOnlineCount = proxyServer.getPlayerCount();
-        dataLoader.updateHistoricalPeakOnline(currentOnlineCount);
+        executorUtil.executeOrdered(uuid, () -> {
+            dataLoader.updatePlayerOnQuit(uuid, finalSessionDuration);
+
+            // 更新历史峰值在线人数（玩家退出后）
+            dataLoader.updateHistoricalPeakOnline(currentOnlineCount);
+        });
     }
 
     /**
@@ -185,12 +225,9 @@ public class PlayerActivityListener {
         Optional<RegisteredServer> previousServer = event.getPreviousServer();
         if (previousServer.isPresent()) {
             // 只有在玩家切换服务器时才发送切换消息
-            // 添加500ms延迟后发送消息
-            plugin.getProxyServer().getScheduler().buildTask(plugin, () -> {
-                sendPlayerActivityMessage(playerName, "player_activity.switch",
-                        configLoader.getServerDisplayName(previousServer.get().getServerInfo().getName()),
-                        configLoader.getServerDisplayName(serverName));
-            }).delay(500, TimeUnit.MILLISECONDS).schedule();
+            broadcastModule.enqueue(ActivityType.SWITCH, playerName,
+                    configLoader.getServerDisplayName(previousServer.get().getServerInfo().getName()),
+                    configLoader.getServerDisplayName(serverName));
         }
     }
 
@@ -201,6 +238,9 @@ public class PlayerActivityListener {
      */
     @Subscribe
     public void onServerSwitchConnected(ServerConnectedEvent event) {
+        if (closed) {
+            return;
+        }
         Player player = event.getPlayer();
         UUID uuid = player.getUniqueId();
         String playerName = player.getUsername();
@@ -217,15 +257,18 @@ public class PlayerActivityListener {
 
                 // 更新服务器登录数据（明确指定 from_server）
                 String fromServer = previousServer.get().getServerInfo().getName();
-                dataLoader.updatePlayerServerLogin(uuid, fromServer, serverName);
-
-                // 更新历史峰值在线人数
                 int currentOnlineCount = proxyServer.getPlayerCount();
-                dataLoader.updateHistoricalPeakOnline(currentOnlineCount);
-
-                // 更新子服务器峰值在线人数
                 int serverOnlineCount = event.getServer().getPlayersConnected().size();
-                dataLoader.updateSubServerPeakOnline(serverName, serverOnlineCount);
+
+                executorUtil.executeOrdered(uuid, () -> {
+                    dataLoader.updatePlayerServerLogin(uuid, fromServer, serverName);
+
+                    // 更新历史峰值在线人数
+                    dataLoader.updateHistoricalPeakOnline(currentOnlineCount);
+
+                    // 更新子服务器峰值在线人数
+                    dataLoader.updateSubServerPeakOnline(serverName, serverOnlineCount);
+                });
             } finally {
                 lock.unlock();
             }
@@ -236,16 +279,52 @@ public class PlayerActivityListener {
      * 启动定时更新任务
      */
     private void startPeriodicPlayTimeUpdate() {
-        plugin.getProxyServer().getScheduler().buildTask(plugin, this::updateAllPlayersPlayTime)
+        playTimeTask = plugin.getProxyServer().getScheduler().buildTask(plugin, this::updateAllPlayersPlayTime)
                 .delay(2, TimeUnit.MINUTES)
                 .repeat(2, TimeUnit.MINUTES)
                 .schedule();
     }
 
+    /**
+     * 停止处理事件和定时更新，结束所有进行中的会话
+     * 会话从登录时间表中取出，与同时到达的断开连接事件不会重复结算；各玩家在当前服务器的停留同时结束，
+     * 交给 DataLoader 等待 flushServerSessions 写入
+     *
+     * @return 玩家 UUID 到自上次结算以来的游戏时间（秒）
+     */
+    public Map<UUID, Long> closeSessions() {
+        closed = true;
+        if (playTimeTask != null) {
+            playTimeTask.cancel();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Map<UUID, Long> sessions = new HashMap<>();
+        for (UUID uuid : playerLoginTimes.keySet()) {
+            LocalDateTime sessionStart = playerLoginTimes.remove(uuid);
+            if (sessionStart != null) {
+                sessions.put(uuid, Duration.between(sessionStart, now).getSeconds());
+            }
+        }
+        playerCurrentServers.clear();
+
+        long endTime = TimeUtil.SystemTime.getCurrentTimestamp();
+        for (UUID uuid : playerServerStints.keySet()) {
+            ServerStint stint = playerServerStints.remove(uuid);
+            if (stint != null) {
+                dataLoader.recordServerSession(uuid, stint.serverName(), stint.startTime(), endTime);
+            }
+        }
+        return sessions;
+    }
+
     /**
      * 更新所有在线玩家的游戏时间
      */
     private void updateAllPlayersPlayTime() {
+        if (closed) {
+            return;
+        }
         try {
             for (Player player : plugin.getProxyServer().getAllPlayers()) {
                 UUID uuid = player.getUniqueId();
@@ -262,6 +341,9 @@ public class PlayerActivityListener {
         } catch (Exception e) {
             logger.error("Failed to update periodic play time: {}", e.getMessage());
         }
+
+        // 批量写入这段时间内结束的服务器停留记录
+        executorUtil.execute(dataLoader::flushServerSessions);
     }
 
     /**
@@ -272,41 +354,20 @@ public class PlayerActivityListener {
     private void updatePlayerSessionTime(UUID uuid) {
         LocalDateTime sessionStart = playerLoginTimes.get(uuid);
         if (sessionStart != null) {
-            Duration sessionDuration = Duration.between(sessionStart, LocalDateTime.now());
-            dataLoader.incrementPlayerPlayTime(uuid, sessionDuration);
-            // 重置会话开始时间为当前时间
-            playerLoginTimes.put(uuid, LocalDateTime.now());
+            LocalDateTime now = LocalDateTime.now();
+            Duration sessionDuration = Duration.between(sessionStart, now);
+            // 重置会话开始时间为当前时间，会话已在断开连接或关闭时结算则不再重复计入
+            if (playerLoginTimes.replace(uuid, sessionStart, now)) {
+                executorUtil.executeOrdered(uuid, () -> dataLoader.incrementPlayerPlayTime(uuid, sessionDuration));
+            }
         }
     }
 
     /**
-     * 发送玩家活动消息到代理服。
+     * 玩家在一个服务器上的停留
      *
-     * @param playerName 玩家名称
-     * @param messageKey 语言文件中的消息键
-     * @param fromServer 玩家来自的服务器显示名称 (可选)
-     * @param toServer   玩家前往的服务器显示名称 (可选)
+     * @param startTime 进入服务器的时间，UNIX 时间戳（秒）
      */
-    private void sendPlayerActivityMessage(String playerName, String messageKey, String fromServer, String toServer) {
-        // 调度任务以避免在事件线程中执行耗时操作，同时允许Velocity处理其他事件。
-        // 此处的lambda表达式包含多条语句和局部变量引用，不适合直接替换为方法引用。
-        plugin.getProxyServer().getScheduler().buildTask(plugin, () -> {
-            String message = languageLoader.getMessage(messageKey);
-            // 检查消息是否存在且未缺失
-            if (message != null && !message.isEmpty() && !message.startsWith("<red>Missing Language Key:")) {
-                String formattedMessage = message.replace("{player}", playerName);
-                if (fromServer != null) {
-                    formattedMessage = formattedMessage.replace("{from}", fromServer);
-                }
-                if (toServer != null) {
-                    formattedMessage = formattedMessage.replace("{to}", toServer);
-                }
-                Component component = miniMessage.deserialize(formattedMessage);
-                proxyServer.sendMessage(component);
-            } else {
-                logger.warn("Language key '{}' is missing or malformed for player activity message. " +
-                        "Check your language files. Message won't be sent.", messageKey);
-            }
-        }).schedule();
+    private record ServerStint(String serverName, long startTime) {
     }
 }
@@ -13,7 +13,6 @@ import java.io.InputStreamReader;
 import java.nio.file.Path;
 import java.nio.charset.StandardCharsets;
 
-import java.util.HashMap;
 import java.util.Map;
 
 public class ConfigLoader {
@@ -21,8 +20,8 @@ public class ConfigLoader {
     private final Path dataDirectory;
     private final String configFileName = "config.yml";
 
-    private Map<String, Object> config;
-    private Map<String, String> serverDisplayNames = new HashMap<>();
+    // 当前生效的配置快照，重载时整体替换
+    private volatile ConfigSnapshot snapshot = ConfigSnapshot.EMPTY;
 
     public ConfigLoader(Logger logger, Path dataDirectory) {
         this.logger = logger;
@@ -35,8 +34,10 @@ public class ConfigLoader {
      */
     public void loadConfig(InputStreamReader reader) {
         Yaml yaml = new Yaml(new Constructor(new LoaderOptions()));
-        this.config = yaml.load(reader);
-        loadServerDisplayNames();
+        Map<String, Object> config = yaml.load(reader);
+        ConfigSnapshot loaded = ConfigSnapshot.from(config);
+        this.snapshot = loaded;
+        logger.debug("Loaded server display names: {}", loaded.serverDisplayNames());
     }
 
 
@@ -58,99 +59,37 @@ public class ConfigLoader {
         return dataDirectory.resolve(configFileName);
     }
 
-    private void loadServerDisplayNames() {
-        serverDisplayNames.clear(); // 清空旧数据
-        Map<String, Object> aliasesSection = getTable("server-info.aliases");
-        if (aliasesSection != null) {
-            for (Map.Entry<String, Object> entry : aliasesSection.entrySet()) {
-                String serverKey = entry.getKey();
-                Object displayNameValue = entry.getValue();
-
-                // 直接使用值作为显示名称，因为配置格式是 key: "value"
-                if (displayNameValue instanceof String) {
-                    String displayName = (String) displayNameValue;
-                    if (!displayName.isEmpty()) {
-                        serverDisplayNames.put(serverKey, displayName);
-                    }
-                }
-            }
-        }
-        logger.debug("Loaded server display names: {}", serverDisplayNames);
-    }
-
-    private Object getNestedValue(String key) {
-        String[] parts = key.split("\\.");
-        Object current = this.config;
-        for (String part : parts) {
-            if (current instanceof Map) {
-                current = ((Map<?, ?>) current).get(part);
-                if (current == null) {
-                    return null;
-                }
-            } else {
-                return null;
-            }
-        }
-        return current;
+    /**
+     * 获取当前配置快照，需要同时读取多个配置项时使用同一份快照可以保证一致性。
+     * @return 当前配置快照
+     */
+    public ConfigSnapshot getSnapshot() {
+        return snapshot;
     }
 
     public String getServerDisplayName(String serverName) {
-        return serverDisplayNames.getOrDefault(serverName, serverName);
+        return snapshot.getServerDisplayName(serverName);
     }
 
     public String getString(String key) {
-        if (config == null) {
-            return null;
-        }
-        Object value = getNestedValue(key);
-        if (value instanceof String) {
-            return (String) value;
-        }
-        return null;
+        return ConfigSnapshot.string(snapshot.values(), key);
     }
 
     public boolean getBoolean(String key) {
-        if (config == null) {
-            return false;
-        }
-        Object value = getNestedValue(key);
-        if (value instanceof Boolean) {
-            return (boolean) value;
-        }
-        return false;
+        return ConfigSnapshot.bool(snapshot.values(), key);
     }
 
     public int getInt(String key) {
-        if (config == null) {
-            return 0;
-        }
-        Object value = getNestedValue(key);
-        if (value instanceof Integer) {
-            return (int) value;
-        }
-        return 0;
+        return ConfigSnapshot.integer(snapshot.values(), key);
     }
 
     public long getLong(String key) {
-        if (config == null) {
-            return 0L;
-        }
-        Object value = getNestedValue(key);
-        if (value instanceof Integer) {
-            return (int) value;
-        }
-        if (value instanceof Long) {
-            return (long) value;
-        }
-        return 0L;
+        return ConfigSnapshot.longValue(snapshot.values(), key);
     }
 
     @SuppressWarnings("unchecked")
     public Map<String, Object> getTable(String key) {
-        if (config == null) {
-            return null;
-        }
-        Object value = getNestedValue(key);
+        Object value = snapshot.values().get(key);
         if (value instanceof Map) {
             return (Map<String, Object>) value;
         }
@@ -158,93 +97,285 @@ public class ConfigLoader {
     }
 
     public String getLanguageKey() {
-        return getString("plugin-basic.language.default");
+        return snapshot.languageKey();
     }
 
     public String getServerName() {
-        return getString("server-info.name");
+        return snapshot.serverName();
+    }
+
+    // 服务器状态轮询相关配置获取方法
+
+    public long getStatusPollInterval() {
+        return snapshot.statusPollInterval();
+    }
+
+    public long getStatusPollJitter() {
+        return snapshot.statusPollJitter();
+    }
+
+    public long getStatusPollTimeout() {
+        return snapshot.statusPollTimeout();
+    }
+
+    public int getStatusHistorySize() {
+        return snapshot.statusHistorySize();
+    }
+
+    public long getStatusHistoryFlushInterval() {
+        return snapshot.statusHistoryFlushInterval();
     }
 
     // 数据库相关配置获取方法
 
     public String getDatabaseType() {
-        return getString("plugin-basic.data-storage.type");
+        return snapshot.databaseType();
     }
 
     public String getSQLitePath() {
-        return getString("plugin-basic.data-storage.sqlite.path");
+        return snapshot.sqlitePath();
+    }
+
+    public int getSQLiteReadPoolSize() {
+        return snapshot.sqliteReadPoolSize();
+    }
+
+    public int getSQLiteWriteBatchSize() {
+        return snapshot.sqliteWriteBatchSize();
+    }
+
+    public long getSQLiteMmapSize() {
+        return snapshot.sqliteMmapSize();
+    }
+
+    public long getSQLiteCacheSize() {
+        return snapshot.sqliteCacheSize();
+    }
+
+    public String getSQLiteTempStore() {
+        return snapshot.sqliteTempStore();
+    }
+
+    public int getSQLitePageSize() {
+        return snapshot.sqlitePageSize();
+    }
+
+    public int getSQLiteBusyTimeout() {
+        return snapshot.sqliteBusyTimeout();
+    }
+
+    public long getSQLiteCheckpointInterval() {
+        return snapshot.sqliteCheckpointInterval();
+    }
+
+    public long getSQLiteCheckpointTruncateThreshold() {
+        return snapshot.sqliteCheckpointTruncateThreshold();
+    }
+
+    public long getSQLiteOptimizeInterval() {
+        return snapshot.sqliteOptimizeInterval();
     }
 
     public String getMySQLHost() {
-        return getString("plugin-basic.data-storage.mysql.host");
+        return snapshot.mysqlHost();
     }
 
     public int getMySQLPort() {
-        return getInt("plugin-basic.data-storage.mysql.port");
+        return snapshot.mysqlPort();
     }
 
     public String getMySQLDatabase() {
-        return getString("plugin-basic.data-storage.mysql.database");
+        return snapshot.mysqlDatabase();
     }
 
     public String getMySQLUsername() {
-        return getString("plugin-basic.data-storage.mysql.username");
+        return snapshot.mysqlUsername();
     }
 
     public String getMySQLPassword() {
-        return getString("plugin-basic.data-storage.mysql.password");
+        return snapshot.mysqlPassword();
     }
 
-    @SuppressWarnings("unchecked")
     public Map<String, String> getMySQLParameters() {
-        Map<String, Object> parametersSection = getTable("plugin-basic.data-storage.mysql.parameters");
-        if (parametersSection != null) {
-            Map<String, String> parameters = new HashMap<>();
-            for (Map.Entry<String, Object> entry : parametersSection.entrySet()) {
-                parameters.put(entry.getKey(), String.valueOf(entry.getValue()));
-            }
-            return parameters;
-        }
-        return new HashMap<>();
+        return snapshot.mysqlParameters();
+    }
+
+    // PostgreSQL 配置获取方法
+    public String getPostgreSQLHost() {
+        return snapshot.postgresqlHost();
+    }
+
+    public int getPostgreSQLPort() {
+        return snapshot.postgresqlPort();
+    }
+
+    public String getPostgreSQLDatabase() {
+        return snapshot.postgresqlDatabase();
+    }
+
+    public String getPostgreSQLUsername() {
+        return snapshot.postgresqlUsername();
+    }
+
+    public String getPostgreSQLPassword() {
+        return snapshot.postgresqlPassword();
+    }
+
+    public Map<String, String> getPostgreSQLParameters() {
+        return snapshot.postgresqlParameters();
     }
 
     // HikariCP 配置获取方法
     public int getHikariMaximumPoolSize() {
-        return getInt("plugin-basic.data-storage.hikari.maximum-pool-size");
+        return snapshot.hikariMaximumPoolSize();
     }
 
     public int getHikariMinimumIdle() {
-        return getInt("plugin-basic.data-storage.hikari.minimum-idle");
+        return snapshot.hikariMinimumIdle();
     }
 
     public long getHikariConnectionTimeout() {
-        return getLong("plugin-basic.data-storage.hikari.connection-timeout");
+        return snapshot.hikariConnectionTimeout();
     }
 
     public long getHikariIdleTimeout() {
-        return getLong("plugin-basic.data-storage.hikari.idle-timeout");
+        return snapshot.hikariIdleTimeout();
     }
 
     public long getHikariMaxLifetime() {
-        return getLong("plugin-basic.data-storage.hikari.max-lifetime");
+        return snapshot.hikariMaxLifetime();
+    }
+
+    /**
+     * 获取数据库可同时使用的连接总数
+     * SQLite 为读取连接数加上单个写入连接，MySQL 与 PostgreSQL 为 HikariCP 最大连接数
+     *
+     * @return 连接总数
+     */
+    public int getDatabasePoolSize() {
+        if ("sqlite".equalsIgnoreCase(getDatabaseType())) {
+            return getSQLiteReadPoolSize() + 1;
+        }
+        int size = getHikariMaximumPoolSize();
+        return size > 0 ? size : 10;
+    }
+
+    public long getSlowQueryThreshold() {
+        return snapshot.slowQueryThreshold();
+    }
+
+    public int getFetchSize() {
+        return snapshot.fetchSize();
+    }
+
+    public long getShutdownTimeout() {
+        return snapshot.shutdownTimeout();
+    }
+
+    public long getSessionRecoveryCredit() {
+        return snapshot.sessionRecoveryCredit();
+    }
+
+    // 数据保留相关配置获取方法
+
+    public int getServerPathRetentionMonths() {
+        return snapshot.serverPathRetentionMonths();
+    }
+
+    // 活动日志相关配置获取方法
+
+    public boolean isJournalEnabled() {
+        return snapshot.journalEnabled();
+    }
+
+    public long getJournalReplayInterval() {
+        return snapshot.journalReplayInterval();
+    }
+
+    // 分析镜像相关配置获取方法
+
+    public boolean isAnalyticsEnabled() {
+        return snapshot.analyticsEnabled();
+    }
+
+    public String getAnalyticsPath() {
+        return snapshot.analyticsPath();
+    }
+
+    public String getAnalyticsDriverJar() {
+        return snapshot.analyticsDriverJar();
+    }
+
+    public long getAnalyticsSyncInterval() {
+        return snapshot.analyticsSyncInterval();
+    }
+
+    // 执行模式相关配置获取方法
+
+    public boolean isVirtualThreadsEnabled() {
+        return snapshot.virtualThreadsEnabled();
+    }
+
+    // 命令补全相关配置获取方法
+
+    public int getPlayerSuggestionLimit() {
+        return snapshot.playerSuggestionLimit();
+    }
+
+    // 命令执行相关配置获取方法
+
+    public int getCommandMaxConcurrentPerSource() {
+        return snapshot.commandMaxConcurrentPerSource();
+    }
+
+    public long getCommandTimeout() {
+        return snapshot.commandTimeout();
+    }
+
+    // 玩家活动广播相关配置获取方法
+
+    public long getBroadcastCoalesceWindow() {
+        return snapshot.broadcastCoalesceWindow();
+    }
+
+    public int getBroadcastSummaryThreshold() {
+        return snapshot.broadcastSummaryThreshold();
+    }
+
+    public int getBroadcastMaxMessagesPerWindow() {
+        return snapshot.broadcastMaxMessagesPerWindow();
     }
 
     // 报告设置相关配置获取方法
 
     public boolean isReportEnabled() {
-        return getBoolean("report.enabled");
+        return snapshot.reportEnabled();
     }
 
     public boolean isAutoCleanReport() {
-        return getBoolean("report.auto-clean-report");
+        return snapshot.autoCleanReport();
     }
 
     public String getReportOutputDirectory() {
-        return getString("report.output-directory");
+        return snapshot.reportOutputDirectory();
     }
 
     public String getReportScheduleTime() {
-        return getString("report.schedule-time");
+        return snapshot.reportScheduleTime();
+    }
+
+    // 指标导出相关配置获取方法
+
+    public boolean isMetricsEnabled() {
+        return snapshot.metricsEnabled();
+    }
+
+    public String getMetricsBindAddress() {
+        return snapshot.metricsBindAddress();
+    }
+
+    public int getMetricsPort() {
+        return snapshot.metricsPort();
     }
 
     public static class ConfigLoadException extends RuntimeException {
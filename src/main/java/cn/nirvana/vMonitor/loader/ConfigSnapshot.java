@@ -0,0 +1,269 @@
+package cn.nirvana.vMonitor.loader;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 配置文件的不可变快照
+ * 配置在加载时一次性展开为 "a.b.c" 形式的扁平键值表，常用配置项解析为带类型的字段；
+ * 重载时整体替换快照，读取方始终看到一份完整一致的配置
+ */
+public record ConfigSnapshot(
+        Map<String, Object> values,
+        String languageKey,
+        String serverName,
+        Map<String, String> serverDisplayNames,
+        long statusPollInterval,
+        long statusPollJitter,
+        long statusPollTimeout,
+        int statusHistorySize,
+        long statusHistoryFlushInterval,
+        String databaseType,
+        String sqlitePath,
+        int sqliteReadPoolSize,
+        int sqliteWriteBatchSize,
+        long sqliteMmapSize,
+        long sqliteCacheSize,
+        String sqliteTempStore,
+        int sqlitePageSize,
+        int sqliteBusyTimeout,
+        long sqliteCheckpointInterval,
+        long sqliteCheckpointTruncateThreshold,
+        long sqliteOptimizeInterval,
+        String mysqlHost,
+        int mysqlPort,
+        String mysqlDatabase,
+        String mysqlUsername,
+        String mysqlPassword,
+        Map<String, String> mysqlParameters,
+        String postgresqlHost,
+        int postgresqlPort,
+        String postgresqlDatabase,
+        String postgresqlUsername,
+        String postgresqlPassword,
+        Map<String, String> postgresqlParameters,
+        int hikariMaximumPoolSize,
+        int hikariMinimumIdle,
+        long hikariConnectionTimeout,
+        long hikariIdleTimeout,
+        long hikariMaxLifetime,
+        long slowQueryThreshold,
+        int fetchSize,
+        long shutdownTimeout,
+        long sessionRecoveryCredit,
+        int serverPathRetentionMonths,
+        boolean journalEnabled,
+        long journalReplayInterval,
+        boolean analyticsEnabled,
+        String analyticsPath,
+        String analyticsDriverJar,
+        long analyticsSyncInterval,
+        boolean virtualThreadsEnabled,
+        int playerSuggestionLimit,
+        int commandMaxConcurrentPerSource,
+        long commandTimeout,
+        long broadcastCoalesceWindow,
+        int broadcastSummaryThreshold,
+        int broadcastMaxMessagesPerWindow,
+        boolean reportEnabled,
+        boolean autoCleanReport,
+        String reportOutputDirectory,
+        String reportScheduleTime,
+        boolean metricsEnabled,
+        String metricsBindAddress,
+        int metricsPort) {
+
+    public static final ConfigSnapshot EMPTY = from(null);
+
+    /**
+     * 从 YAML 解析得到的配置树构建快照
+     *
+     * @param tree 配置树，可以为 null
+     * @return 配置快照
+     */
+    public static ConfigSnapshot from(Map<String, Object> tree) {
+        Map<String, Object> values = new HashMap<>();
+        if (tree != null) {
+            flatten("", tree, values);
+        }
+        values = Collections.unmodifiableMap(values);
+
+        // 页大小必须是 512 到 65536 之间的 2 的幂
+        int sqlitePageSize = integer(values, "plugin-basic.data-storage.sqlite.tuning.page-size");
+        if (sqlitePageSize < 512 || sqlitePageSize > 65536 || Integer.bitCount(sqlitePageSize) != 1) {
+            sqlitePageSize = 4096;
+        }
+        // 报告统计最近 30 天的路径，至少保留 2 个完整月份
+        int retentionMonths = integer(values, "plugin-basic.data-storage.retention.server-path-months");
+        int metricsPort = integer(values, "metrics.port");
+
+        return new ConfigSnapshot(
+                values,
+                string(values, "plugin-basic.language.default"),
+                string(values, "server-info.name"),
+                stringTable(values, "server-info.aliases", true),
+                positiveOrDefault(longValue(values, "server-info.status-poll.interval"), 30L),
+                Math.max(longValue(values, "server-info.status-poll.jitter"), 0L),
+                positiveOrDefault(longValue(values, "server-info.status-poll.timeout"), 3000L),
+                (int) positiveOrDefault(integer(values, "server-info.status-poll.history-size"), 120),
+                positiveOrDefault(longValue(values, "server-info.status-poll.history-flush-interval"), 5L),
+                string(values, "plugin-basic.data-storage.type"),
+                string(values, "plugin-basic.data-storage.sqlite.path"),
+                (int) positiveOrDefault(integer(values, "plugin-basic.data-storage.sqlite.read-pool-size"), 4),
+                (int) positiveOrDefault(integer(values, "plugin-basic.data-storage.sqlite.write-batch-size"), 128),
+                positiveOrDefault(longValue(values, "plugin-basic.data-storage.sqlite.tuning.mmap-size"), 268435456L),
+                positiveOrDefault(longValue(values, "plugin-basic.data-storage.sqlite.tuning.cache-size"), 65536L),
+                tempStore(string(values, "plugin-basic.data-storage.sqlite.tuning.temp-store")),
+                sqlitePageSize,
+                (int) positiveOrDefault(integer(values, "plugin-basic.data-storage.sqlite.tuning.busy-timeout"), 5000),
+                positiveOrDefault(longValue(values, "plugin-basic.data-storage.sqlite.checkpoint.interval"), 60L),
+                positiveOrDefault(longValue(values, "plugin-basic.data-storage.sqlite.checkpoint.truncate-threshold"), 64L),
+                positiveOrDefault(longValue(values, "plugin-basic.data-storage.sqlite.optimize-interval"), 60L),
+                string(values, "plugin-basic.data-storage.mysql.host"),
+                integer(values, "plugin-basic.data-storage.mysql.port"),
+                string(values, "plugin-basic.data-storage.mysql.database"),
+                string(values, "plugin-basic.data-storage.mysql.username"),
+                string(values, "plugin-basic.data-storage.mysql.password"),
+                stringTable(values, "plugin-basic.data-storage.mysql.parameters", false),
+                stringOrDefault(values, "plugin-basic.data-storage.postgresql.host", "localhost"),
+                (int) positiveOrDefault(integer(values, "plugin-basic.data-storage.postgresql.port"), 5432),
+                stringOrDefault(values, "plugin-basic.data-storage.postgresql.database", "v_monitor"),
+                string(values, "plugin-basic.data-storage.postgresql.username"),
+                string(values, "plugin-basic.data-storage.postgresql.password"),
+                stringTable(values, "plugin-basic.data-storage.postgresql.parameters", false),
+                integer(values, "plugin-basic.data-storage.hikari.maximum-pool-size"),
+                integer(values, "plugin-basic.data-storage.hikari.minimum-idle"),
+                longValue(values, "plugin-basic.data-storage.hikari.connection-timeout"),
+                longValue(values, "plugin-basic.data-storage.hikari.idle-timeout"),
+                longValue(values, "plugin-basic.data-storage.hikari.max-lifetime"),
+                positiveOrDefault(longValue(values, "plugin-basic.data-storage.slow-query-threshold"), 200L),
+                (int) positiveOrDefault(integer(values, "plugin-basic.data-storage.fetch-size"), 1000),
+                positiveOrDefault(longValue(values, "plugin-basic.data-storage.shutdown-timeout"), 10L),
+                // 0 表示不补计游戏时间，只有未配置时才使用默认值
+                values.containsKey("plugin-basic.data-storage.session-recovery-credit")
+                        ? Math.max(longValue(values, "plugin-basic.data-storage.session-recovery-credit"), 0L) : 60L,
+                retentionMonths > 0 ? Math.max(retentionMonths, 2) : 0,
+                // 旧版本配置文件中没有该项，默认启用
+                !Boolean.FALSE.equals(values.get("plugin-basic.data-storage.journal.enabled")),
+                positiveOrDefault(longValue(values, "plugin-basic.data-storage.journal.replay-interval"), 30L),
+                bool(values, "plugin-basic.data-storage.analytics.enabled"),
+                nonEmptyOrDefault(string(values, "plugin-basic.data-storage.analytics.path"), "analytics.duckdb"),
+                nonEmptyOrDefault(string(values, "plugin-basic.data-storage.analytics.driver-jar"), "libs/duckdb_jdbc.jar"),
+                positiveOrDefault(longValue(values, "plugin-basic.data-storage.analytics.sync-interval"), 60L),
+                bool(values, "plugin-basic.execution.virtual-threads"),
+                (int) positiveOrDefault(integer(values, "plugin-basic.completion.max-player-suggestions"), 50),
+                (int) positiveOrDefault(integer(values, "plugin-basic.commands.max-concurrent-per-source"), 2),
+                positiveOrDefault(longValue(values, "plugin-basic.commands.timeout"), 5000L),
+                positiveOrDefault(longValue(values, "broadcast.coalesce-window"), 500L),
+                (int) positiveOrDefault(integer(values, "broadcast.summary-threshold"), 5),
+                (int) positiveOrDefault(integer(values, "broadcast.max-messages-per-window"), 8),
+                bool(values, "report.enabled"),
+                bool(values, "report.auto-clean-report"),
+                string(values, "report.output-directory"),
+                string(values, "report.schedule-time"),
+                bool(values, "metrics.enabled"),
+                nonEmptyOrDefault(string(values, "metrics.bind-address"), "127.0.0.1"),
+                metricsPort > 0 && metricsPort <= 65535 ? metricsPort : 9225);
+    }
+
+    /**
+     * 获取服务器显示名称，未配置别名时返回服务器名称本身
+     */
+    public String getServerDisplayName(String serverName) {
+        return serverDisplayNames.getOrDefault(serverName, serverName);
+    }
+
+    /**
+     * 将嵌套的配置树展开，每一层的 Map 也以其完整路径保留，便于按表读取
+     */
+    private static void flatten(String prefix, Map<?, ?> node, Map<String, Object> values) {
+        for (Map.Entry<?, ?> entry : node.entrySet()) {
+            String key = prefix + entry.getKey();
+            Object value = entry.getValue();
+            if (value instanceof Map) {
+                values.put(key, Collections.unmodifiableMap(new LinkedHashMap<>((Map<?, ?>) value)));
+                flatten(key + ".", (Map<?, ?>) value, values);
+            } else if (value != null) {
+                values.put(key, value);
+            }
+        }
+    }
+
+    static String string(Map<String, Object> values, String key) {
+        Object value = values.get(key);
+        return value instanceof String ? (String) value : null;
+    }
+
+    static boolean bool(Map<String, Object> values, String key) {
+        Object value = values.get(key);
+        return value instanceof Boolean && (Boolean) value;
+    }
+
+    static int integer(Map<String, Object> values, String key) {
+        Object value = values.get(key);
+        return value instanceof Integer ? (Integer) value : 0;
+    }
+
+    static long longValue(Map<String, Object> values, String key) {
+        Object value = values.get(key);
+        if (value instanceof Integer) {
+            return (Integer) value;
+        }
+        if (value instanceof Long) {
+            return (Long) value;
+        }
+        return 0L;
+    }
+
+    private static long positiveOrDefault(long value, long defaultValue) {
+        return value > 0 ? value : defaultValue;
+    }
+
+    private static String stringOrDefault(Map<String, Object> values, String key, String defaultValue) {
+        String value = string(values, key);
+        return value != null ? value : defaultValue;
+    }
+
+    private static String nonEmptyOrDefault(String value, String defaultValue) {
+        return value != null && !value.isEmpty() ? value : defaultValue;
+    }
+
+    /**
+     * SQLite temp_store 只接受 DEFAULT、FILE 与 MEMORY，其他取值使用 MEMORY
+     */
+    private static String tempStore(String value) {
+        if (value == null) {
+            return "MEMORY";
+        }
+        switch (value.toUpperCase(Locale.ROOT)) {
+            case "DEFAULT":
+            case "FILE":
+                return value.toUpperCase(Locale.ROOT);
+            default:
+                return "MEMORY";
+        }
+    }
+
+    private static Map<String, String> stringTable(Map<String, Object> values, String key, boolean skipEmpty) {
+        Object section = values.get(key);
+        if (!(section instanceof Map)) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> table = new LinkedHashMap<>();
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) section).entrySet()) {
+            Object value = entry.getValue();
+            if (skipEmpty) {
+                // 别名配置格式为 key: "value"，只接受非空字符串
+                if (value instanceof String && !((String) value).isEmpty()) {
+                    table.put(String.valueOf(entry.getKey()), (String) value);
+                }
+            } else {
+                table.put(String.valueOf(entry.getKey()), String.valueOf(value));
+            }
+        }
+        return Collections.unmodifiableMap(table);
+    }
+}
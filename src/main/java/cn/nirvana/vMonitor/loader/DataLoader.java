@@ -1,78 +1,91 @@
 package cn.nirvana.vMonitor.loader;
 
-import cn.nirvana.vMonitor.util.DatabaseUtil;
+import cn.nirvana.vMonitor.storage.ActivityEvent;
+import cn.nirvana.vMonitor.storage.ActivityJournal;
+import cn.nirvana.vMonitor.storage.StorageBackend;
+import cn.nirvana.vMonitor.util.MetricsRegistry;
 import cn.nirvana.vMonitor.util.TimeUtil;
 
 import org.slf4j.Logger;
 
-import java.sql.*;
+import java.io.IOException;
+
+import java.sql.SQLException;
 
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.ZoneId;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
 
 public class DataLoader {
     private final Logger logger;
-    private final DatabaseUtil databaseUtil;
-
-    public DataLoader(Logger logger, DatabaseUtil databaseUtil) {
+    private final StorageBackend storageBackend;
+    private final MetricsRegistry metricsRegistry;
+    // 活动日志，未启用时为 null
+    private final ActivityJournal journal;
+
+    // 玩家名称到 UUID 的 LRU 缓存，键为小写名称
+    private static final int NAME_CACHE_SIZE = 1024;
+    private final Map<String, UUID> nameCache = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, UUID> eldest) {
+            return size() > NAME_CACHE_SIZE;
+        }
+    };
+
+    public DataLoader(Logger logger, StorageBackend storageBackend, MetricsRegistry metricsRegistry,
+                      ActivityJournal journal) {
         this.logger = logger;
-        this.databaseUtil = databaseUtil;
+        this.storageBackend = storageBackend;
+        this.metricsRegistry = metricsRegistry;
+        this.journal = journal;
     }
 
     /**
-     * 初始化数据库中的基础数据
+     * 初始化数据库中的基础数据，并结算上次运行未正常结束的会话
+     *
+     * @param sessionRecoveryCredit 每个遗留会话最多计入的游戏时间（秒）
      */
-    public void initializeData() {
+    public void initializeData(long sessionRecoveryCredit) {
         try {
-            // 初始化 server_info 表
-            initializeServerInfo();
+            // 初始化服务器信息
+            storageBackend.initializeServerInfo(TimeUtil.SystemTime.getCurrentTimestamp());
         } catch (SQLException e) {
             logger.error("Failed to initialize data: {}", e.getMessage());
         }
+        recoverOpenSessions(sessionRecoveryCredit);
+
+        // 以历史峰值作为内存峰值指标的初始值，之后只在内存中比较
+        metricsRegistry.observeOnline(getHistoricalPeakOnline());
     }
 
     /**
-     * 初始化服务器信息
-     *
-     * @throws SQLException SQL执行异常
+     * 结算上次运行遗留的会话
+     * 先重放活动日志，使会话记录反映崩溃前最后一次写入的结算时间；日志无法重放时保留会话记录，等下次启动再结算。
+     * 重放前先建立本月与下个月的服务器路径分区，此时分区维护任务还没有运行
      */
-    private void initializeServerInfo() throws SQLException {
-        try (Connection connection = databaseUtil.getConnection()) {
-            // 检查记录是否存在
-            boolean hasRecord = false;
-            try (PreparedStatement statement = connection.prepareStatement(
-                    "SELECT COUNT(*) FROM server_info")) {
-
-                ResultSet rs = statement.executeQuery();
-                rs.next();
-                hasRecord = rs.getInt(1) > 0;
+    private void recoverOpenSessions(long maxCreditSeconds) {
+        try {
+            if (journal != null && journal.isPending()) {
+                storageBackend.maintainServerPathPartitions(YearMonth.now(), null);
+                int replayed = journal.replay(storageBackend);
+                logger.info("Replayed {} journaled activity events before recovering open sessions", replayed);
             }
-
-            // 如果没有记录，则插入初始记录
-            if (!hasRecord) {
-                String insertSQL;
-                if (databaseUtil.getDatabaseType() == DatabaseUtil.DatabaseType.SQLITE) {
-                    insertSQL = "INSERT INTO server_info (startup_time, last_report_generation_time) VALUES (?, NULL)";
-                } else {
-                    // MySQL可以使用IGNORE来避免重复插入
-                    insertSQL = "INSERT IGNORE INTO server_info (startup_time, last_report_generation_time) VALUES (?, NULL)";
-                }
-
-                try (PreparedStatement insertStatement = connection.prepareStatement(insertSQL)) {
-                    long currentTime = TimeUtil.SystemTime.getCurrentTimestamp();
-                    // 使用DateConverter处理日期格式 (yyyy-mm-dd)
-                    String dateStr = TimeUtil.DateConverter.fromTimestamp(currentTime);
-                    insertStatement.setString(1, dateStr);
-                    // 不需要设置第二个参数，SQL中已经写了NULL
-                    insertStatement.executeUpdate();
-                }
+            int recovered = storageBackend.recoverOpenSessions(TimeUtil.SystemTime.getCurrentTimestamp(), maxCreditSeconds);
+            if (recovered > 0) {
+                logger.info("Recovered {} sessions left open by an unclean shutdown, crediting at most {} seconds each",
+                        recovered, maxCreditSeconds);
             }
+        } catch (SQLException | IOException e) {
+            logger.error("Failed to recover open sessions: {}", e.getMessage());
         }
     }
 
@@ -80,16 +93,10 @@ public class DataLoader {
      * 更新最后报表生成时间
      */
     public void updateLastReportGenerationTime() {
-        try (Connection connection = databaseUtil.getConnection();
-             PreparedStatement statement = connection.prepareStatement(
-                     "UPDATE server_info SET last_report_generation_time = ?")) {
-
-            long currentTime = TimeUtil.SystemTime.getCurrentTimestamp();
-            String dateStr = TimeUtil.DateConverter.fromTimestamp(currentTime);
-            statement.setString(1, dateStr);
-            statement.executeUpdate();
-
-            logger.info("Updated last report generation time to: {}", dateStr);
+        long currentTime = TimeUtil.SystemTime.getCurrentTimestamp();
+        try {
+            storageBackend.updateLastReportGenerationTime(currentTime);
+            logger.info("Updated last report generation time to: {}", TimeUtil.DateConverter.fromTimestamp(currentTime));
         } catch (SQLException e) {
             logger.error("Failed to update last report generation time: {}", e.getMessage());
         }
@@ -101,13 +108,10 @@ public class DataLoader {
      * @return 最后报表生成时间，如果未生成过报表则返回null
      */
     public String getLastReportGenerationTime() {
-        try (Connection connection = databaseUtil.getConnection();
-             PreparedStatement statement = connection.prepareStatement(
-                     "SELECT last_report_generation_time FROM server_info LIMIT 1")) {
-
-            ResultSet rs = statement.executeQuery();
-            if (rs.next()) {
-                return rs.getString("last_report_generation_time");
+        try {
+            ServerInfoData serverInfo = storageBackend.getServerInfo();
+            if (serverInfo != null) {
+                return serverInfo.lastReportGenerationTime;
             }
         } catch (SQLException e) {
             logger.error("Failed to get last report generation time: {}", e.getMessage());
@@ -121,24 +125,15 @@ public class DataLoader {
      * @return 服务器信息数据
      */
     public ServerInfoData getServerInfo() {
-        ServerInfoData serverInfo = new ServerInfoData();
-        try (Connection connection = databaseUtil.getConnection();
-             PreparedStatement statement = connection.prepareStatement(
-                     "SELECT startup_time, last_report_generation_time FROM server_info LIMIT 1")) {
-
-            ResultSet rs = statement.executeQuery();
-            if (rs.next()) {
-                // 使用 TimeUtil 转换时间
-                String startupTimeStr = rs.getString("startup_time");
-                String lastReportTimeStr = rs.getString("last_report_generation_time");
-
-                serverInfo.startupTime = startupTimeStr;
-                serverInfo.lastReportGenerationTime = lastReportTimeStr;
+        try {
+            ServerInfoData serverInfo = storageBackend.getServerInfo();
+            if (serverInfo != null) {
+                return serverInfo;
             }
         } catch (SQLException e) {
             logger.error("Failed to get server info: {}", e.getMessage());
         }
-        return serverInfo;
+        return new ServerInfoData();
     }
 
     // 在 ServerInfoData 类中添加构造函数
@@ -160,36 +155,8 @@ public class DataLoader {
      * @return 玩家数据，如果不存在则返回null
      */
     public PlayerData getPlayerData(UUID uuid) {
-        try (Connection connection = databaseUtil.getConnection();
-             PreparedStatement statement = connection.prepareStatement(
-                     "SELECT id, uuid, username, first_join_time, last_login_time, play_time FROM player_data WHERE uuid = ?")) {
-
-            statement.setString(1, uuid.toString());
-            ResultSet rs = statement.executeQuery();
-
-            if (rs.next()) {
-                PlayerData playerData = new PlayerData();
-                playerData.id = rs.getInt("id");
-                playerData.uuid = UUID.fromString(rs.getString("uuid"));
-                playerData.username = rs.getString("username");
-
-                // 使用 TimeUtil 转换时间
-                String firstJoinTimeStr = rs.getString("first_join_time");
-                String lastLoginTimeStr = rs.getString("last_login_time");
-                long firstJoinTimestamp = TimeUtil.DateTimeConverter.toTimestamp(firstJoinTimeStr);
-                long lastLoginTimestamp = TimeUtil.DateTimeConverter.toTimestamp(lastLoginTimeStr);
-                playerData.firstJoinTime = LocalDateTime.ofInstant(java.time.Instant.ofEpochSecond(firstJoinTimestamp), ZoneId.systemDefault());
-                playerData.lastLoginTime = LocalDateTime.ofInstant(java.time.Instant.ofEpochSecond(lastLoginTimestamp), ZoneId.systemDefault());
-
-                // 处理 play_time (HH:mm:ss 格式)
-                String playTimeStr = rs.getString("play_time");
-                playerData.playTime = TimeUtil.TimePeriodConverter.toSeconds(playTimeStr);
-
-                // 加载玩家的服务器路径数据
-                loadPlayerServerPaths(playerData, connection);
-
-                return playerData;
-            }
+        try {
+            return storageBackend.getPlayerData(uuid);
         } catch (SQLException e) {
             logger.error("Failed to get player data for UUID {}: {}", uuid, e.getMessage());
         }
@@ -197,22 +164,35 @@ public class DataLoader {
     }
 
     /**
-     * 根据玩家名称获取玩家数据
+     * 根据玩家名称获取玩家数据（不区分大小写）
+     * 最近查询过的名称会缓存对应的 UUID，缓存命中时直接按 UUID 查询
      *
      * @param playerName 玩家名称
      * @return 玩家数据，如果不存在则返回null
      */
     public PlayerData getPlayerDataByName(String playerName) {
-        try (Connection connection = databaseUtil.getConnection();
-             PreparedStatement statement = connection.prepareStatement(
-                     "SELECT uuid FROM player_data WHERE username = ?")) {
+        String usernameLower = playerName.toLowerCase(Locale.ROOT);
 
-            statement.setString(1, playerName);
-            ResultSet rs = statement.executeQuery();
+        UUID cachedUuid;
+        synchronized (nameCache) {
+            cachedUuid = nameCache.get(usernameLower);
+        }
+        if (cachedUuid != null) {
+            PlayerData playerData = getPlayerData(cachedUuid);
+            // 玩家可能已经改名，名称不再匹配时丢弃缓存重新查询
+            if (playerData != null && usernameLower.equals(playerData.username.toLowerCase(Locale.ROOT))) {
+                return playerData;
+            }
+            synchronized (nameCache) {
+                nameCache.remove(usernameLower, cachedUuid);
+            }
+        }
 
-            if (rs.next()) {
-                String uuidStr = rs.getString("uuid");
-                return getPlayerData(UUID.fromString(uuidStr));
+        try {
+            PlayerData playerData = storageBackend.getPlayerDataByName(usernameLower);
+            if (playerData != null) {
+                cachePlayerName(playerData.username, playerData.uuid);
+                return playerData;
             }
         } catch (SQLException e) {
             logger.error("Failed to get player data by name '{}': {}", playerName, e.getMessage());
@@ -221,161 +201,42 @@ public class DataLoader {
     }
 
     /**
-     * 获取所有玩家名称列表
-     *
-     * @return 玩家名称列表
+     * 记录玩家名称与 UUID 的对应关系
      */
-    public List<String> getAllPlayerNames() {
-        List<String> playerNames = new ArrayList<>();
-        try (Connection connection = databaseUtil.getConnection();
-             PreparedStatement statement = connection.prepareStatement(
-                     "SELECT username FROM player_data")) {
-
-            ResultSet rs = statement.executeQuery();
-            while (rs.next()) {
-                playerNames.add(rs.getString("username"));
-            }
-        } catch (SQLException e) {
-            logger.error("Failed to get all player names: {}", e.getMessage());
+    private void cachePlayerName(String playerName, UUID uuid) {
+        synchronized (nameCache) {
+            nameCache.put(playerName.toLowerCase(Locale.ROOT), uuid);
         }
-        return playerNames;
     }
 
     /**
-     * 加载玩家的服务器路径数据
+     * 逐条读取所有玩家的 UUID 和名称，避免一次性构建完整列表
      *
-     * @param playerData 玩家数据对象
-     * @param connection 数据库连接
-     * @throws SQLException SQL执行异常
+     * @param consumer 接收 UUID 和玩家名称
      */
-    private void loadPlayerServerPaths(PlayerData playerData, Connection connection) throws SQLException {
-        playerData.dailyServerPaths = new ConcurrentHashMap<>();
-
-        try (PreparedStatement statement = connection.prepareStatement(
-                "SELECT time, from_server, to_server FROM player_daily_server_paths WHERE uuid = ? ORDER BY time")) {
-
-            statement.setString(1, playerData.uuid.toString());
-            ResultSet rs = statement.executeQuery();
-
-            while (rs.next()) {
-                ServerPathData pathData = new ServerPathData();
-
-                // 使用 TimeUtil 转换时间
-                String timeStr = rs.getString("time");
-                long timestamp = TimeUtil.DateTimeConverter.toTimestamp(timeStr);
-                pathData.time = LocalDateTime.ofInstant(java.time.Instant.ofEpochSecond(timestamp), ZoneId.systemDefault());
-
-                pathData.from = rs.getString("from_server");
-                pathData.to = rs.getString("to_server");
-
-                // 按日期分组存储路径数据
-                LocalDate date = pathData.time.toLocalDate();
-                String dateStr = date.toString();
-
-                playerData.dailyServerPaths.computeIfAbsent(dateStr, k -> new ArrayList<>()).add(pathData);
-            }
-        }
-    }
-
-    /**
-     * 创建玩家数据
-     *
-     * @param uuid 玩家UUID
-     * @param playerName 玩家名称
-     */
-    public void createPlayerData(UUID uuid, String playerName) {
-        try (Connection connection = databaseUtil.getConnection()) {
-            connection.setAutoCommit(false);
-
-            try {
-                // 插入玩家数据
-                try (PreparedStatement statement = connection.prepareStatement(
-                        "INSERT INTO player_data (uuid, username, first_join_time, last_login_time, play_time) VALUES (?, ?, ?, ?, ?)")) {
-
-                    long currentTime = TimeUtil.SystemTime.getCurrentTimestamp();
-                    String dateTimeStr = TimeUtil.DateTimeConverter.fromTimestamp(currentTime);
-                    String playTimeStr = TimeUtil.TimePeriodConverter.fromSeconds(0); // 初始化为00:00:00
-
-                    statement.setString(1, uuid.toString());
-                    statement.setString(2, playerName);
-                    statement.setString(3, dateTimeStr);
-                    statement.setString(4, dateTimeStr);
-                    statement.setString(5, playTimeStr);
-
-                    statement.executeUpdate();
-                }
-
-                // 记录新玩家信息（传递玩家名）
-                recordNewPlayer(uuid, playerName, connection);
-
-                connection.commit();
-                logger.info("Created new player data for {}: {}", playerName, uuid);
-            } catch (SQLException e) {
-                connection.rollback();
-                logger.error("Failed to create player data for {}: {}", playerName, e.getMessage());
-                throw e;
-            }
+    public void forEachPlayerName(BiConsumer<UUID, String> consumer) {
+        try {
+            storageBackend.forEachPlayerName(consumer);
         } catch (SQLException e) {
-            logger.error("Failed to create player data for {}: {}", playerName, e.getMessage());
+            logger.error("Failed to load player names: {}", e.getMessage());
         }
     }
 
-
     /**
-     * 记录新玩家信息
+     * 按时间顺序逐条读取一名玩家的服务器路径，不把全部路径加载到内存
      *
-     * @param uuid 玩家UUID
-     * @param playerName 玩家名称
-     * @param connection 数据库连接
-     * @throws SQLException SQL执行异常
+     * @param uuid    玩家UUID
+     * @param visitor 接收每条路径
+     * @return 读取是否成功，失败时 visitor 可能已经收到部分路径
      */
-    private void recordNewPlayer(UUID uuid, String playerName, Connection connection) throws SQLException {
-        // 更新 daily_new_players 表
-        int overall = 1;
-        long currentTime = TimeUtil.SystemTime.getCurrentTimestamp();
-        String dateStr = TimeUtil.DateConverter.fromTimestamp(currentTime);
-
-        try (PreparedStatement selectStatement = connection.prepareStatement(
-                "SELECT overall FROM daily_new_players WHERE time = ?")) {
-
-            selectStatement.setString(1, dateStr);
-            ResultSet rs = selectStatement.executeQuery();
-
-            if (rs.next()) {
-                overall = rs.getInt("overall") + 1;
-                try (PreparedStatement updateStatement = connection.prepareStatement(
-                        "UPDATE daily_new_players SET overall = ? WHERE time = ?")) {
-
-                    updateStatement.setInt(1, overall);
-                    updateStatement.setString(2, dateStr);
-                    updateStatement.executeUpdate();
-                }
-            } else {
-                try (PreparedStatement insertStatement = connection.prepareStatement(
-                        "INSERT INTO daily_new_players (time, overall) VALUES (?, ?)")) {
-
-                    insertStatement.setString(1, dateStr);
-                    insertStatement.setInt(2, overall);
-                    insertStatement.executeUpdate();
-                }
-            }
-        }
-
-        // 插入 daily_new_players_info 记录
-        String insertSQL;
-        if (databaseUtil.getDatabaseType() == DatabaseUtil.DatabaseType.SQLITE) {
-            insertSQL = "INSERT OR IGNORE INTO daily_new_players_info (time, uuid, original_username) VALUES (?, ?, ?)";
-        } else {
-            insertSQL = "INSERT IGNORE INTO daily_new_players_info (time, uuid, original_username) VALUES (?, ?, ?)";
-        }
-
-        try (PreparedStatement statement = connection.prepareStatement(insertSQL)) {
-            String dateTimeStr = TimeUtil.DateTimeConverter.fromTimestamp(currentTime);
-            statement.setString(1, dateTimeStr);
-            statement.setString(2, uuid.toString());
-            statement.setString(3, playerName);
-            statement.executeUpdate();
+    public boolean forEachPlayerServerPath(UUID uuid, StorageBackend.ServerPathVisitor visitor) {
+        try {
+            storageBackend.forEachPlayerServerPath(uuid, visitor);
+            return true;
+        } catch (SQLException e) {
+            logger.error("Failed to load server paths for UUID {}: {}", uuid, e.getMessage());
         }
+        return false;
     }
 
     /**
@@ -397,6 +258,11 @@ public class DataLoader {
     // 为每个玩家维护一个锁
     private final Map<UUID, ReentrantLock> playerUpdateLocks = new ConcurrentHashMap<>();
 
+    // 已结束、等待批量写入的服务器停留记录
+    private final Queue<PlayerSession> pendingServerSessions = new ConcurrentLinkedQueue<>();
+    // 写入时开始日期已经结束的停留记录所在的本地日期，由分析镜像取走后重新复制
+    private final Set<LocalDate> backfilledDays = ConcurrentHashMap.newKeySet();
+
     private ReentrantLock getPlayerLock(UUID uuid) {
         return playerUpdateLocks.computeIfAbsent(uuid, k -> new ReentrantLock());
     }
@@ -408,26 +274,137 @@ public class DataLoader {
      * @param sessionDuration 会话时长
      */
     private void updatePlayerPlayTimeInternal(UUID uuid, Duration sessionDuration) {
-        try (Connection connection = databaseUtil.getConnection()) {
-            // 获取当前游戏时间
-            PlayerData playerData = getPlayerData(uuid);
-            if (playerData != null) {
-                // 计算新的游戏时间
-                long newPlayTimeSeconds = playerData.playTime + sessionDuration.getSeconds();
-                String newPlayTimeStr = TimeUtil.TimePeriodConverter.fromSeconds(newPlayTimeSeconds);
+        record(new ActivityEvent.PlayTime(uuid, sessionDuration.getSeconds(),
+                TimeUtil.SystemTime.getCurrentTimestamp(), false));
+    }
+
+    /**
+     * 记录玩家开始一个会话，插件异常退出后下次启动时据此结算游戏时间
+     *
+     * @param uuid 玩家UUID
+     */
+    public void startSession(UUID uuid) {
+        record(new ActivityEvent.SessionStart(uuid, TimeUtil.SystemTime.getCurrentTimestamp()));
+    }
+
+    /**
+     * 在一次写入中结算多名玩家的游戏时间并结束他们的会话，关闭插件时结算所有进行中的会话
+     * 数据库无法访问或活动日志中还有未重放的事件时，逐名玩家写入活动日志，下次启动后重放
+     *
+     * @param secondsByPlayer 玩家 UUID 到需要累加的秒数
+     * @return 写入数据库或活动日志的玩家数量
+     */
+    public int flushPlayTime(Map<UUID, Long> secondsByPlayer) {
+        if (secondsByPlayer.isEmpty()) {
+            return 0;
+        }
+        if (journal == null || !journal.isPending()) {
+            try {
+                return storageBackend.closeSessions(secondsByPlayer);
+            } catch (SQLException e) {
+                if (journal == null || !ActivityJournal.isUnavailable(e)) {
+                    logger.error("Failed to flush play time for {} players: {}", secondsByPlayer.size(), e.getMessage());
+                    return 0;
+                }
+                logger.warn("Database unavailable, journaling play time for {} players: {}", secondsByPlayer.size(), e.getMessage());
+            }
+        }
 
-                try (PreparedStatement statement = connection.prepareStatement(
-                        "UPDATE player_data SET play_time = ? WHERE uuid = ?")) {
+        int journaled = 0;
+        long now = TimeUtil.SystemTime.getCurrentTimestamp();
+        for (Map.Entry<UUID, Long> entry : secondsByPlayer.entrySet()) {
+            ActivityEvent event = new ActivityEvent.PlayTime(entry.getKey(), entry.getValue(), now, true);
+            try {
+                journal.append(event);
+                journaled++;
+            } catch (IOException e) {
+                logger.error("Failed to append {} to the activity journal: {}", event, e.getMessage());
+            }
+        }
+        return journaled;
+    }
 
-                    statement.setString(1, newPlayTimeStr);
-                    statement.setString(2, uuid.toString());
+    /**
+     * 记录玩家在一个子服务器上结束的停留，等待下次 flushServerSessions 时批量写入
+     *
+     * @param uuid 玩家UUID
+     * @param serverName 服务器名称
+     * @param startTime 进入服务器的时间，UNIX 时间戳（秒）
+     * @param endTime 离开服务器的时间，UNIX 时间戳（秒）
+     */
+    public void recordServerSession(UUID uuid, String serverName, long startTime, long endTime) {
+        PlayerSession session = new PlayerSession();
+        session.uuid = uuid;
+        session.serverName = serverName;
+        session.startTime = startTime;
+        session.duration = Math.max(0L, endTime - startTime);
+        pendingServerSessions.add(session);
+    }
 
-                    statement.executeUpdate();
+    /**
+     * 在一次写入中追加所有等待写入的服务器停留记录
+     * 数据库无法访问或活动日志中还有未重放的事件时，逐条写入活动日志，恢复后重放
+     *
+     * @return 写入数据库或活动日志的记录数量
+     */
+    public int flushServerSessions() {
+        List<PlayerSession> sessions = new ArrayList<>();
+        PlayerSession session;
+        while ((session = pendingServerSessions.poll()) != null) {
+            sessions.add(session);
+        }
+        if (sessions.isEmpty()) {
+            return 0;
+        }
+        if (journal == null || !journal.isPending()) {
+            try {
+                storageBackend.insertPlayerSessions(sessions);
+                LocalDate today = LocalDate.now();
+                for (PlayerSession written : sessions) {
+                    LocalDate day = LocalDate.ofInstant(Instant.ofEpochSecond(written.startTime), ZoneId.systemDefault());
+                    if (day.isBefore(today)) {
+                        backfilledDays.add(day);
+                    }
                 }
+                return sessions.size();
+            } catch (SQLException e) {
+                if (journal == null || !ActivityJournal.isUnavailable(e)) {
+                    logger.error("Failed to write {} server sessions: {}", sessions.size(), e.getMessage());
+                    return 0;
+                }
+                logger.warn("Database unavailable, journaling {} server sessions: {}", sessions.size(), e.getMessage());
+            }
+        }
+
+        int journaled = 0;
+        for (PlayerSession pending : sessions) {
+            ActivityEvent event = new ActivityEvent.ServerSession(pending.uuid, pending.serverName,
+                    pending.startTime, pending.duration);
+            try {
+                journal.append(event);
+                journaled++;
+            } catch (IOException e) {
+                logger.error("Failed to append {} to the activity journal: {}", event, e.getMessage());
             }
-        } catch (SQLException e) {
-            logger.error("Failed to update player play time for UUID {}: {}", uuid, e.getMessage());
         }
+        return journaled;
+    }
+
+    /**
+     * 取走自上次调用以来补写了数据的已结束日期：跨越午夜的停留记录在第二天写入，活动日志重放写入的路径与会话晚于发生日期写入
+     *
+     * @return 本地日期集合，没有时返回空集合
+     */
+    public Set<LocalDate> drainBackfilledDays() {
+        Set<LocalDate> days = new HashSet<>();
+        for (Iterator<LocalDate> iterator = backfilledDays.iterator(); iterator.hasNext(); ) {
+            days.add(iterator.next());
+            iterator.remove();
+        }
+        if (journal != null) {
+            days.addAll(journal.drainReplayedDays());
+        }
+        return days;
     }
 
     /**
@@ -450,32 +427,8 @@ public class DataLoader {
      * 内部方法：玩家登录时更新数据
      */
     private void updatePlayerOnLoginInternal(UUID uuid, String playerName) {
-        try (Connection connection = databaseUtil.getConnection()) {
-            PlayerData playerData = getPlayerData(uuid);
-
-            if (playerData == null) {
-                logger.info("Creating new player data for {} ({})", playerName, uuid);
-                createPlayerData(uuid, playerName);
-            } else {
-                try (PreparedStatement statement = connection.prepareStatement(
-                        "UPDATE player_data SET username = ?, last_login_time = ? WHERE uuid = ?")) {
-
-                    long currentTime = TimeUtil.SystemTime.getCurrentTimestamp();
-                    String dateTimeStr = TimeUtil.DateTimeConverter.fromTimestamp(currentTime);
-
-                    statement.setString(1, playerName);
-                    statement.setString(2, dateTimeStr);
-                    statement.setString(3, uuid.toString());
-
-                    int updatedRows = statement.executeUpdate();
-                    if (updatedRows > 0) {
-                        logger.debug("Updated login time for player {}: {}", playerName, uuid);
-                    }
-                }
-            }
-        } catch (SQLException e) {
-            logger.error("Failed to update player login for {}: {}", playerName, e.getMessage());
-        }
+        // 已有玩家更新登录时间，新玩家创建玩家数据
+        record(new ActivityEvent.Login(uuid, playerName, TimeUtil.SystemTime.getCurrentTimestamp()));
     }
 
 
@@ -483,15 +436,13 @@ public class DataLoader {
      * 玩家退出时更新数据（线程安全）
      *
      * @param uuid 玩家UUID
-     * @param playerName 玩家名称
-     * @param disconnectedFromServer 断开连接的服务器
      * @param sessionDuration 会话时长
      */
-    public void updatePlayerOnQuit(UUID uuid, String playerName, String disconnectedFromServer, Duration sessionDuration) {
+    public void updatePlayerOnQuit(UUID uuid, Duration sessionDuration) {
         ReentrantLock lock = getPlayerLock(uuid);
         lock.lock();
         try {
-            updatePlayerOnQuitInternal(uuid, playerName, disconnectedFromServer, sessionDuration);
+            updatePlayerOnQuitInternal(uuid, sessionDuration);
         } finally {
             lock.unlock();
             // 玩家退出时移除锁
@@ -502,30 +453,9 @@ public class DataLoader {
     /**
      * 内部方法：玩家退出时更新数据
      */
-    private void updatePlayerOnQuitInternal(UUID uuid, String playerName, String disconnectedFromServer, Duration sessionDuration) {
-        try (Connection connection = databaseUtil.getConnection()) {
-            PlayerData playerData = getPlayerData(uuid);
-
-            if (playerData == null) {
-                logger.warn("Attempted to update quit for unknown player: {}. Skipping.", uuid);
-                return;
-            }
-
-            // 计算新的游戏时间
-            long newPlayTimeSeconds = playerData.playTime + sessionDuration.getSeconds();
-            String newPlayTimeStr = TimeUtil.TimePeriodConverter.fromSeconds(newPlayTimeSeconds);
-
-            try (PreparedStatement statement = connection.prepareStatement(
-                    "UPDATE player_data SET play_time = ? WHERE uuid = ?")) {
-
-                statement.setString(1, newPlayTimeStr);
-                statement.setString(2, uuid.toString());
-
-                statement.executeUpdate();
-            }
-        } catch (SQLException e) {
-            logger.error("Failed to update player quit for {}: {}", playerName, e.getMessage());
-        }
+    private void updatePlayerOnQuitInternal(UUID uuid, Duration sessionDuration) {
+        record(new ActivityEvent.PlayTime(uuid, sessionDuration.getSeconds(),
+                TimeUtil.SystemTime.getCurrentTimestamp(), true));
     }
 
     /**
@@ -549,59 +479,7 @@ public class DataLoader {
      * 内部方法：玩家登录服务器时更新数据
      */
     private void updatePlayerServerLoginInternal(UUID uuid, String fromServer, String toServer) {
-        try (Connection connection = databaseUtil.getConnection()) {
-            PlayerData playerData = getPlayerData(uuid);
-
-            if (playerData == null) {
-                logger.warn("Attempted to update server login for unknown player: {}. Please ensure player data is created.", uuid);
-                return;
-            }
-
-            String insertSQL;
-            if (databaseUtil.getDatabaseType() == DatabaseUtil.DatabaseType.SQLITE) {
-                insertSQL = "INSERT OR IGNORE INTO player_daily_server_paths (time, uuid, from_server, to_server) VALUES (?, ?, ?, ?)";
-            } else {
-                insertSQL = "INSERT IGNORE INTO player_daily_server_paths (time, uuid, from_server, to_server) VALUES (?, ?, ?, ?)";
-            }
-
-            try (PreparedStatement statement = connection.prepareStatement(insertSQL)) {
-                long currentTime = TimeUtil.SystemTime.getCurrentTimestamp();
-                String dateTimeStr = TimeUtil.DateTimeConverter.fromTimestamp(currentTime);
-
-                statement.setString(1, dateTimeStr);
-                statement.setString(2, uuid.toString());
-                statement.setString(3, fromServer);  // 直接使用传入的来源服务器名
-                statement.setString(4, toServer);    // 直接使用传入的目标服务器名
-
-                statement.executeUpdate();
-            }
-        } catch (SQLException e) {
-            logger.error("Failed to update player server login from {} to {}: {}", fromServer, toServer, e.getMessage());
-        }
-    }
-
-
-    /**
-     * 获取玩家最后登录的服务器
-     *
-     * @param connection 数据库连接
-     * @param uuid 玩家UUID
-     * @return 最后登录的服务器名称
-     * @throws SQLException SQL执行异常
-     */
-    private String getLastServerForPlayer(Connection connection, UUID uuid) throws SQLException {
-        try (PreparedStatement statement = connection.prepareStatement(
-                "SELECT to_server FROM player_daily_server_paths WHERE uuid = ? ORDER BY time DESC LIMIT 1")) {
-
-            statement.setString(1, uuid.toString());
-            ResultSet rs = statement.executeQuery();
-
-            if (rs.next()) {
-                return rs.getString("to_server");
-            }
-
-            return null;
-        }
+        record(new ActivityEvent.ServerPath(uuid, TimeUtil.SystemTime.getCurrentTimestamp(), fromServer, toServer));
     }
 
     /**
@@ -610,144 +488,50 @@ public class DataLoader {
      * @param currentOnlineCount 当前在线人数
      */
     public void updateHistoricalPeakOnline(int currentOnlineCount) {
-        try (Connection connection = databaseUtil.getConnection()) {
-            connection.setAutoCommit(false);
-
-            try {
-                long currentTime = TimeUtil.SystemTime.getCurrentTimestamp();
-                String dateStr = TimeUtil.DateConverter.fromTimestamp(currentTime);
-
-                // 更新当日峰值
-                updateDailyPeakOnline(connection, dateStr, currentOnlineCount);
-
-                // 更新历史峰值
-                updateHistoricalPeak(connection, currentOnlineCount);
-
-                connection.commit();
-            } catch (SQLException e) {
-                connection.rollback();
-                throw e;
-            }
-        } catch (SQLException e) {
-            logger.error("Failed to update historical peak online: {}", e.getMessage());
-        }
+        metricsRegistry.observeOnline(currentOnlineCount);
+        // 同时更新当日峰值和历史峰值
+        record(new ActivityEvent.PeakOnline(LocalDate.now(), currentOnlineCount));
     }
 
     /**
-     * 更新当日峰值在线人数
+     * 更新子服务器峰值在线人数
      *
-     * @param connection 数据库连接
-     * @param dateStr 日期字符串 (yyyy-mm-dd)
+     * @param serverName 服务器名称
      * @param currentOnlineCount 当前在线人数
-     * @throws SQLException SQL执行异常
      */
-    private void updateDailyPeakOnline(Connection connection, String dateStr, int currentOnlineCount) throws SQLException {
-        try (PreparedStatement selectStatement = connection.prepareStatement(
-                "SELECT overall FROM daily_peak_online WHERE time = ?")) {
-
-            selectStatement.setString(1, dateStr);
-            ResultSet rs = selectStatement.executeQuery();
-
-            if (rs.next()) {
-                int existingPeak = rs.getInt("overall");
-                if (currentOnlineCount > existingPeak) {
-                    try (PreparedStatement updateStatement = connection.prepareStatement(
-                            "UPDATE daily_peak_online SET overall = ? WHERE time = ?")) {
-
-                        updateStatement.setInt(1, currentOnlineCount);
-                        updateStatement.setString(2, dateStr);
-                        updateStatement.executeUpdate();
-                    }
-                }
-            } else {
-                try (PreparedStatement insertStatement = connection.prepareStatement(
-                        "INSERT INTO daily_peak_online (time, overall) VALUES (?, ?)")) {
-
-                    insertStatement.setString(1, dateStr);
-                    insertStatement.setInt(2, currentOnlineCount);
-                    insertStatement.executeUpdate();
-                }
-            }
-        }
+    public void updateSubServerPeakOnline(String serverName, int currentOnlineCount) {
+        metricsRegistry.observeBackendOnline(serverName, currentOnlineCount);
+        record(new ActivityEvent.SubServerPeakOnline(LocalDate.now(), serverName, currentOnlineCount));
     }
 
     /**
-     * 更新历史峰值在线人数
+     * 写入玩家活动事件
+     * 活动日志中还有未重放的事件时追加到日志末尾；数据库无法访问时写入日志，等待恢复后重放
      *
-     * @param connection 数据库连接
-     * @param currentOnlineCount 当前在线人数
-     * @throws SQLException SQL执行异常
+     * @param event 活动事件
      */
-    private void updateHistoricalPeak(Connection connection, int currentOnlineCount) throws SQLException {
-        try (PreparedStatement selectStatement = connection.prepareStatement(
-                "SELECT historical_peak_online FROM server_tracking LIMIT 1");
-             PreparedStatement updateStatement = connection.prepareStatement(
-                     "UPDATE server_tracking SET historical_peak_online = ?")) {
-
-            ResultSet rs = selectStatement.executeQuery();
-
-            if (rs.next()) {
-                int existingPeak = rs.getInt("historical_peak_online");
-                if (currentOnlineCount > existingPeak) {
-                    updateStatement.setInt(1, currentOnlineCount);
-                    updateStatement.executeUpdate();
-                }
-            } else {
-                // 如果没有记录，则插入新记录
-                try (PreparedStatement insertStatement = connection.prepareStatement(
-                        "INSERT INTO server_tracking (historical_peak_online) VALUES (?)")) {
-
-                    insertStatement.setInt(1, currentOnlineCount);
-                    insertStatement.executeUpdate();
-                }
+    private void record(ActivityEvent event) {
+        try {
+            if (journal != null && journal.appendIfPending(event)) {
+                return;
             }
+        } catch (IOException e) {
+            logger.error("Failed to append {} to the activity journal: {}", event, e.getMessage());
         }
-    }
 
-    /**
-     * 更新子服务器峰值在线人数
-     *
-     * @param serverName 服务器名称
-     * @param currentOnlineCount 当前在线人数
-     */
-    public void updateSubServerPeakOnline(String serverName, int currentOnlineCount) {
-        try (Connection connection = databaseUtil.getConnection()) {
-            long currentTime = TimeUtil.SystemTime.getCurrentTimestamp();
-            String dateStr = TimeUtil.DateConverter.fromTimestamp(currentTime);
-
-            try (PreparedStatement selectStatement = connection.prepareStatement(
-                    "SELECT peak_online FROM sub_server_peak_online WHERE time = ? AND server_name = ?")) {
-
-                selectStatement.setString(1, dateStr);
-                selectStatement.setString(2, serverName);
-
-                ResultSet rs = selectStatement.executeQuery();
-
-                if (rs.next()) {
-                    int existingPeak = rs.getInt("peak_online");
-                    if (currentOnlineCount > existingPeak) {
-                        try (PreparedStatement updateStatement = connection.prepareStatement(
-                                "UPDATE sub_server_peak_online SET peak_online = ? WHERE time = ? AND server_name = ?")) {
-
-                            updateStatement.setInt(1, currentOnlineCount);
-                            updateStatement.setString(2, dateStr);
-                            updateStatement.setString(3, serverName);
-                            updateStatement.executeUpdate();
-                        }
-                    }
-                } else {
-                    try (PreparedStatement insertStatement = connection.prepareStatement(
-                            "INSERT INTO sub_server_peak_online (time, server_name, peak_online) VALUES (?, ?, ?)")) {
-
-                        insertStatement.setString(1, dateStr);
-                        insertStatement.setString(2, serverName);
-                        insertStatement.setInt(3, currentOnlineCount);
-                        insertStatement.executeUpdate();
-                    }
+        try {
+            event.apply(storageBackend, logger);
+        } catch (SQLException e) {
+            if (journal != null && ActivityJournal.isUnavailable(e)) {
+                try {
+                    journal.append(event);
+                    logger.warn("Database unavailable, journaled {} for replay: {}", event, e.getMessage());
+                    return;
+                } catch (IOException journalException) {
+                    logger.error("Failed to append {} to the activity journal: {}", event, journalException.getMessage());
                 }
             }
-        } catch (SQLException e) {
-            logger.error("Failed to update sub server peak online for {}: {}", serverName, e.getMessage());
+            logger.error("Failed to write {}: {}", event, e.getMessage());
         }
     }
 
@@ -759,22 +543,12 @@ public class DataLoader {
      * @return 日期到在线人数的映射
      */
     public Map<String, Integer> getDailyPeakOnlinePlayers(LocalDate startDate, LocalDate endDate) {
-        Map<String, Integer> result = new LinkedHashMap<>();
-        try (Connection connection = databaseUtil.getConnection();
-             PreparedStatement statement = connection.prepareStatement(
-                     "SELECT time, overall FROM daily_peak_online WHERE time BETWEEN ? AND ? ORDER BY time")) {
-
-            statement.setString(1, startDate.toString());
-            statement.setString(2, endDate.toString());
-
-            ResultSet rs = statement.executeQuery();
-            while (rs.next()) {
-                result.put(rs.getString("time"), rs.getInt("overall"));
-            }
+        try {
+            return storageBackend.getDailyPeakOnline(startDate, endDate);
         } catch (SQLException e) {
             logger.error("Failed to get daily peak online players: {}", e.getMessage());
         }
-        return result;
+        return new LinkedHashMap<>();
     }
 
     /**
@@ -783,14 +557,8 @@ public class DataLoader {
      * @return 玩家总数
      */
     public int getTotalPlayerCount() {
-        try (Connection connection = databaseUtil.getConnection();
-             PreparedStatement statement = connection.prepareStatement(
-                     "SELECT COUNT(*) FROM player_data")) {
-
-            ResultSet rs = statement.executeQuery();
-            if (rs.next()) {
-                return rs.getInt(1);
-            }
+        try {
+            return storageBackend.getTotalPlayerCount();
         } catch (SQLException e) {
             logger.error("Failed to get total player count: {}", e.getMessage());
         }
@@ -805,17 +573,8 @@ public class DataLoader {
      * @return 新玩家总数
      */
     public int getNewPlayerCount(LocalDate startDate, LocalDate endDate) {
-        try (Connection connection = databaseUtil.getConnection();
-             PreparedStatement statement = connection.prepareStatement(
-                     "SELECT SUM(overall) FROM daily_new_players WHERE time BETWEEN ? AND ?")) {
-
-            statement.setString(1, startDate.toString());
-            statement.setString(2, endDate.toString());
-
-            ResultSet rs = statement.executeQuery();
-            if (rs.next()) {
-                return rs.getInt(1);
-            }
+        try {
+            return storageBackend.getNewPlayerCount(startDate, endDate);
         } catch (SQLException e) {
             logger.error("Failed to get new player count: {}", e.getMessage());
         }
@@ -823,27 +582,14 @@ public class DataLoader {
     }
 
     /**
-     * 获取核心玩家数量（登录天数超过指定阈值的玩家）
+     * 获取核心玩家数量（累计游戏时间超过指定天数的玩家）
      *
      * @param daysThreshold 天数阈值
      * @return 核心玩家数量
      */
     public int getCorePlayerCount(int daysThreshold) {
-        try (Connection connection = databaseUtil.getConnection()) {
-            // 这里需要根据实际业务逻辑实现
-            // 简化实现：假设我们统计登录次数超过阈值的玩家
-            try (PreparedStatement statement = connection.prepareStatement(
-                    "SELECT COUNT(*) FROM player_data WHERE play_time > ?")) {
-
-                // 假设阈值为15天，转换为秒数
-                int secondsThreshold = daysThreshold * 24 * 60 * 60;
-                statement.setString(1, TimeUtil.TimePeriodConverter.fromSeconds(secondsThreshold));
-
-                ResultSet rs = statement.executeQuery();
-                if (rs.next()) {
-                    return rs.getInt(1);
-                }
-            }
+        try {
+            return storageBackend.countPlayersWithPlayTimeOver(daysThreshold * 24L * 60 * 60);
         } catch (SQLException e) {
             logger.error("Failed to get core player count: {}", e.getMessage());
         }
@@ -857,20 +603,8 @@ public class DataLoader {
      * @return 流失风险玩家数量
      */
     public int getAtRiskPlayerCount(int daysThreshold) {
-        try (Connection connection = databaseUtil.getConnection()) {
-            LocalDate cutoffDate = LocalDate.now().minusDays(daysThreshold);
-            String cutoffDateTime = cutoffDate.atStartOfDay().toString();
-
-            try (PreparedStatement statement = connection.prepareStatement(
-                    "SELECT COUNT(*) FROM player_data WHERE last_login_time < ?")) {
-
-                statement.setString(1, cutoffDateTime);
-
-                ResultSet rs = statement.executeQuery();
-                if (rs.next()) {
-                    return rs.getInt(1);
-                }
-            }
+        try {
+            return storageBackend.countPlayersLastLoginBefore(LocalDate.now().minusDays(daysThreshold));
         } catch (SQLException e) {
             logger.error("Failed to get at-risk player count: {}", e.getMessage());
         }
@@ -885,17 +619,8 @@ public class DataLoader {
      * @return 平均DAU
      */
     public double getAverageDAU(LocalDate startDate, LocalDate endDate) {
-        try (Connection connection = databaseUtil.getConnection();
-             PreparedStatement statement = connection.prepareStatement(
-                     "SELECT AVG(overall) FROM daily_peak_online WHERE time BETWEEN ? AND ?")) {
-
-            statement.setString(1, startDate.toString());
-            statement.setString(2, endDate.toString());
-
-            ResultSet rs = statement.executeQuery();
-            if (rs.next()) {
-                return rs.getDouble(1);
-            }
+        try {
+            return storageBackend.getAverageDailyPeak(startDate, endDate);
         } catch (SQLException e) {
             logger.error("Failed to get average DAU: {}", e.getMessage());
         }
@@ -908,14 +633,8 @@ public class DataLoader {
      * @return 历史峰值在线人数
      */
     public int getHistoricalPeakOnline() {
-        try (Connection connection = databaseUtil.getConnection();
-             PreparedStatement statement = connection.prepareStatement(
-                     "SELECT historical_peak_online FROM server_tracking LIMIT 1")) {
-
-            ResultSet rs = statement.executeQuery();
-            if (rs.next()) {
-                return rs.getInt("historical_peak_online");
-            }
+        try {
+            return storageBackend.getHistoricalPeakOnline();
         } catch (SQLException e) {
             logger.error("Failed to get historical peak online: {}", e.getMessage());
         }
@@ -937,27 +656,8 @@ public class DataLoader {
             hourlyData.put(i, 0);
         }
 
-        try (Connection connection = databaseUtil.getConnection()) {
-            String sql;
-            if (databaseUtil.getDatabaseType() == DatabaseUtil.DatabaseType.SQLITE) {
-                sql = "SELECT strftime('%H', time) as hour, COUNT(*) as count FROM player_daily_server_paths " +
-                        "WHERE date(time) BETWEEN ? AND ? GROUP BY hour";
-            } else {
-                sql = "SELECT HOUR(time) as hour, COUNT(*) as count FROM player_daily_server_paths " +
-                        "WHERE DATE(time) BETWEEN ? AND ? GROUP BY hour";
-            }
-
-            try (PreparedStatement statement = connection.prepareStatement(sql)) {
-                statement.setString(1, startDate.toString());
-                statement.setString(2, endDate.toString());
-
-                ResultSet rs = statement.executeQuery();
-                while (rs.next()) {
-                    int hour = Integer.parseInt(rs.getString("hour"));
-                    int count = rs.getInt("count");
-                    hourlyData.put(hour, count);
-                }
-            }
+        try {
+            hourlyData.putAll(storageBackend.getHourlyDistribution(startDate, endDate));
         } catch (SQLException e) {
             logger.error("Failed to get hourly player distribution: {}", e.getMessage());
         }
@@ -979,32 +679,8 @@ public class DataLoader {
             weeklyData.put(i, 0);
         }
 
-        try (Connection connection = databaseUtil.getConnection()) {
-            String sql;
-            if (databaseUtil.getDatabaseType() == DatabaseUtil.DatabaseType.SQLITE) {
-                sql = "SELECT strftime('%w', time) as day, COUNT(*) as count FROM player_daily_server_paths " +
-                        "WHERE date(time) BETWEEN ? AND ? GROUP BY day";
-            } else {
-                sql = "SELECT DAYOFWEEK(time) as day, COUNT(*) as count FROM player_daily_server_paths " +
-                        "WHERE DATE(time) BETWEEN ? AND ? GROUP BY day";
-            }
-
-            try (PreparedStatement statement = connection.prepareStatement(sql)) {
-                statement.setString(1, startDate.toString());
-                statement.setString(2, endDate.toString());
-
-                ResultSet rs = statement.executeQuery();
-                while (rs.next()) {
-                    int day = Integer.parseInt(rs.getString("day"));
-                    // 转换为1-7（周一到周日）
-                    int adjustedDay = day == 0 ? 7 : (day == 1 ? 7 : day - 1);
-                    if (databaseUtil.getDatabaseType() == DatabaseUtil.DatabaseType.MYSQL) {
-                        adjustedDay = day == 1 ? 7 : day - 1;
-                    }
-                    int count = rs.getInt("count");
-                    weeklyData.put(adjustedDay, count);
-                }
-            }
+        try {
+            weeklyData.putAll(storageBackend.getWeeklyDistribution(startDate, endDate));
         } catch (SQLException e) {
             logger.error("Failed to get weekly player distribution: {}", e.getMessage());
         }
@@ -1019,26 +695,12 @@ public class DataLoader {
      * @return 服务器名称到玩家数量的映射
      */
     public Map<String, Integer> getServerDistribution(LocalDate startDate, LocalDate endDate) {
-        Map<String, Integer> serverData = new LinkedHashMap<>();
-
-        try (Connection connection = databaseUtil.getConnection();
-             PreparedStatement statement = connection.prepareStatement(
-                     "SELECT to_server, COUNT(DISTINCT uuid) as player_count FROM player_daily_server_paths " +
-                             "WHERE date(time) BETWEEN ? AND ? GROUP BY to_server ORDER BY player_count DESC")) {
-
-            statement.setString(1, startDate.toString());
-            statement.setString(2, endDate.toString());
-
-            ResultSet rs = statement.executeQuery();
-            while (rs.next()) {
-                String server = rs.getString("to_server");
-                int count = rs.getInt("player_count");
-                serverData.put(server, count);
-            }
+        try {
+            return storageBackend.getServerDistribution(startDate, endDate);
         } catch (SQLException e) {
             logger.error("Failed to get server distribution: {}", e.getMessage());
         }
-        return serverData;
+        return new LinkedHashMap<>();
     }
 
     /**
@@ -1048,25 +710,12 @@ public class DataLoader {
      * @return 玩家列表
      */
     public List<TopPlayerByPlayTime> getTopPlayersByPlayTime(int limit) {
-        List<TopPlayerByPlayTime> topPlayers = new ArrayList<>();
-
-        try (Connection connection = databaseUtil.getConnection();
-             PreparedStatement statement = connection.prepareStatement(
-                     "SELECT username, play_time FROM player_data ORDER BY play_time DESC LIMIT ?")) {
-
-            statement.setInt(1, limit);
-
-            ResultSet rs = statement.executeQuery();
-            while (rs.next()) {
-                TopPlayerByPlayTime player = new TopPlayerByPlayTime();
-                player.username = rs.getString("username");
-                player.playTime = rs.getString("play_time");
-                topPlayers.add(player);
-            }
+        try {
+            return storageBackend.getTopPlayersByPlayTime(limit);
         } catch (SQLException e) {
             logger.error("Failed to get top players by play time: {}", e.getMessage());
         }
-        return topPlayers;
+        return new ArrayList<>();
     }
 
     /**
@@ -1078,25 +727,12 @@ public class DataLoader {
      * @return 日期到玩家数量的映射
      */
     public Map<String, Integer> getTopPlayerDays(int limit, LocalDate startDate, LocalDate endDate) {
-        Map<String, Integer> topDays = new LinkedHashMap<>();
-
-        try (Connection connection = databaseUtil.getConnection();
-             PreparedStatement statement = connection.prepareStatement(
-                     "SELECT time, overall FROM daily_peak_online WHERE time BETWEEN ? AND ? " +
-                             "ORDER BY overall DESC LIMIT ?")) {
-
-            statement.setString(1, startDate.toString());
-            statement.setString(2, endDate.toString());
-            statement.setInt(3, limit);
-
-            ResultSet rs = statement.executeQuery();
-            while (rs.next()) {
-                topDays.put(rs.getString("time"), rs.getInt("overall"));
-            }
+        try {
+            return storageBackend.getTopPlayerDays(limit, startDate, endDate);
         } catch (SQLException e) {
             logger.error("Failed to get top player days: {}", e.getMessage());
         }
-        return topDays;
+        return new LinkedHashMap<>();
     }
 
     /**
@@ -1108,37 +744,44 @@ public class DataLoader {
      * @return 服务器信息列表
      */
     public List<PopularServer> getPopularServers(int limit, LocalDate startDate, LocalDate endDate) {
-        List<PopularServer> popularServers = new ArrayList<>();
-
-        try (Connection connection = databaseUtil.getConnection();
-             PreparedStatement statement = connection.prepareStatement(
-                     "SELECT to_server, COUNT(DISTINCT uuid) as player_count, " +
-                             "AVG(CAST(SUBSTR(play_time, 1, 2) AS INTEGER) * 3600 + " +
-                             "CAST(SUBSTR(play_time, 4, 2) AS INTEGER) * 60 + " +
-                             "CAST(SUBSTR(play_time, 7, 2) AS INTEGER)) as avg_seconds " +
-                             "FROM player_daily_server_paths psp " +
-                             "JOIN player_data pd ON psp.uuid = pd.uuid " +
-                             "WHERE date(psp.time) BETWEEN ? AND ? " +
-                             "GROUP BY to_server " +
-                             "ORDER BY player_count DESC LIMIT ?")) {
-
-            statement.setString(1, startDate.toString());
-            statement.setString(2, endDate.toString());
-            statement.setInt(3, limit);
-
-            ResultSet rs = statement.executeQuery();
-            while (rs.next()) {
-                PopularServer server = new PopularServer();
-                server.serverName = rs.getString("to_server");
-                server.playerCount = rs.getInt("player_count");
-                // 将秒数转换为分钟
-                server.avgPlayTimeMinutes = rs.getInt("avg_seconds") / 60;
-                popularServers.add(server);
-            }
+        try {
+            return storageBackend.getPopularServers(limit, startDate, endDate);
         } catch (SQLException e) {
             logger.error("Failed to get popular servers: {}", e.getMessage());
         }
-        return popularServers;
+        return new ArrayList<>();
+    }
+
+    /**
+     * 批量写入降采样后的服务器延迟与可用性记录
+     *
+     * @param records 延迟记录
+     */
+    public void insertServerLatencyHistory(List<ServerLatencyRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        try {
+            storageBackend.insertServerLatencyHistory(records);
+        } catch (SQLException e) {
+            logger.error("Failed to insert server latency history: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 获取指定日期范围内每个服务器的延迟与可用性汇总
+     *
+     * @param startDate 开始日期
+     * @param endDate 结束日期
+     * @return 服务器健康状况列表，按服务器名称排序
+     */
+    public List<ServerHealth> getServerHealth(LocalDate startDate, LocalDate endDate) {
+        try {
+            return storageBackend.getServerHealth(startDate, endDate);
+        } catch (SQLException e) {
+            logger.error("Failed to get server health: {}", e.getMessage());
+        }
+        return new ArrayList<>();
     }
 
     // 数据类定义
@@ -1149,7 +792,6 @@ public class DataLoader {
         public LocalDateTime firstJoinTime;
         public LocalDateTime lastLoginTime;
         public long playTime; // 以秒为单位存储
-        public Map<String, List<ServerPathData>> dailyServerPaths;
 
         public PlayerData() {
             this.uuid = UUID.randomUUID();
@@ -1158,19 +800,6 @@ public class DataLoader {
             this.firstJoinTime = now;
             this.lastLoginTime = now;
             this.playTime = 0;
-            this.dailyServerPaths = new ConcurrentHashMap<>();
-        }
-    }
-
-    public static class ServerPathData {
-        public LocalDateTime time;
-        public String from;
-        public String to;
-
-        public ServerPathData() {
-            this.time = LocalDateTime.now();
-            this.from = "";
-            this.to = "";
         }
     }
 
@@ -1184,4 +813,47 @@ public class DataLoader {
         public int playerCount;
         public int avgPlayTimeMinutes;
     }
+
+    public static class ServerLatencyRecord {
+        public long time; // 降采样窗口结束时间，以秒为单位的时间戳
+        public String serverName;
+        public int samples;
+        public int onlineSamples;
+        public int avgLatency; // 毫秒，无在线样本时为 -1
+        public int maxLatency;
+        public int avgPlayers;
+        public int outages;
+    }
+
+    public static class PlayerSession {
+        public UUID uuid;
+        public String serverName;
+        public long startTime; // 进入服务器的时间，以秒为单位的时间戳
+        public long duration; // 停留时长（秒）
+    }
+
+    public static class ServerHealth {
+        public String serverName;
+        public double availability; // 百分比
+        public int avgLatency; // 毫秒，无在线样本时为 -1
+        public int maxLatency;
+        public int outages;
+
+        /**
+         * 由累计的样本数量计算服务器健康状况
+         *
+         * @param latencySum 在线样本的延迟总和（毫秒）
+         */
+        public static ServerHealth of(String serverName, long samples, long onlineSamples, long latencySum,
+                                      int maxLatency, int outages) {
+            ServerHealth health = new ServerHealth();
+            health.serverName = serverName;
+            // 保留一位小数的可用率百分比
+            health.availability = samples > 0 ? Math.round(onlineSamples * 1000.0 / samples) / 10.0 : 0.0;
+            health.avgLatency = onlineSamples > 0 ? (int) (latencySum / onlineSamples) : -1;
+            health.maxLatency = maxLatency;
+            health.outages = outages;
+            return health;
+        }
+    }
 }
@@ -1,5 +1,9 @@
 package cn.nirvana.vMonitor.loader;
 
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
+
 import org.slf4j.Logger;
 
 import org.yaml.snakeyaml.Yaml;
@@ -13,16 +17,21 @@ import java.io.InputStreamReader;
 import java.nio.file.Path;
 import java.nio.charset.StandardCharsets;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class LanguageLoader {
     private final Logger logger;
     private final Path dataDirectory;
     private final ConfigLoader configLoader;
+    private final MiniMessage miniMessage = MiniMessage.miniMessage();
     private final String langFolderName = "lang";
 
-    private Map<String, Object> language;
+    // 当前生效的语言数据，重载时整体替换
+    private volatile CompiledLanguage language = CompiledLanguage.EMPTY;
 
     public LanguageLoader(Logger logger, Path dataDirectory, ConfigLoader configLoader) {
         this.logger = logger;
@@ -32,11 +41,27 @@ public class LanguageLoader {
 
     /**
      * 使用已打开的 reader 加载语言文件。
+     * 加载时将嵌套的键展开为 "a.b.c" 形式，并预编译所有消息模板。
      * @param reader 已打开的 InputStreamReader
      */
     public void loadLanguage(InputStreamReader reader) {
         Yaml yaml = new Yaml(new Constructor(new LoaderOptions()));
-        this.language = yaml.load(reader);
+        Map<String, Object> tree = yaml.load(reader);
+
+        Map<String, String> messages = new HashMap<>();
+        if (tree != null) {
+            flatten("", tree, messages);
+        }
+
+        Map<String, MessageTemplate> templates = new HashMap<>(messages.size() * 2);
+        for (Map.Entry<String, String> entry : messages.entrySet()) {
+            try {
+                templates.put(entry.getKey(), MessageTemplate.compile(miniMessage, entry.getValue()));
+            } catch (Exception e) {
+                logger.error("Failed to compile language key '{}': {}", entry.getKey(), e.getMessage());
+            }
+        }
+        this.language = new CompiledLanguage(Collections.unmodifiableMap(messages), Collections.unmodifiableMap(templates));
     }
 
     /**
@@ -59,41 +84,87 @@ public class LanguageLoader {
     }
 
     /**
-     * 获取嵌套键值。
+     * 将嵌套的语言树展开为扁平的键值表。
      */
-    private Object getNestedValue(String key) {
-        String[] parts = key.split("\\.");
-        Object current = this.language;
-        for (String part : parts) {
-            if (current instanceof Map) {
-                current = ((Map<?, ?>) current).get(part);
-                if (current == null) {
-                    return null;
-                }
-            } else {
-                return null;
+    private void flatten(String prefix, Map<?, ?> node, Map<String, String> messages) {
+        for (Map.Entry<?, ?> entry : node.entrySet()) {
+            String key = prefix + entry.getKey();
+            Object value = entry.getValue();
+            if (value instanceof Map) {
+                flatten(key + ".", (Map<?, ?>) value, messages);
+            } else if (value instanceof List) {
+                messages.put(key, "<red>Language key '" + key + "' is a list, expected a string.</red>");
+            } else if (value != null) {
+                messages.put(key, value.toString());
             }
         }
-        return current;
     }
 
     /**
      * 获取语言键对应的消息。
      */
     public String getMessage(String key) {
-        if (language == null || language.isEmpty()) {
+        CompiledLanguage current = this.language;
+        if (current.messages.isEmpty()) {
             return "<red>Internal Error: Language not loaded or empty for key: " + key + "</red>";
         }
-        Object value = getNestedValue(key);
+        String value = current.messages.get(key);
         if (value == null) {
             return "<red>Missing Language Key: " + key + "</red>";
         }
-        if (value instanceof String) {
-            return (String) value;
+        return value;
+    }
+
+    /**
+     * 判断语言键是否存在。
+     */
+    public boolean hasMessage(String key) {
+        return language.messages.containsKey(key);
+    }
+
+    /**
+     * 获取语言键对应的预编译模板，缺失的键返回提示模板。
+     */
+    public MessageTemplate getTemplate(String key) {
+        MessageTemplate template = language.templates.get(key);
+        if (template == null) {
+            return MessageTemplate.compile(miniMessage, getMessage(key));
+        }
+        return template;
+    }
+
+    /**
+     * 获取去掉首尾空白的模板，用于拼接列表中的单个条目。
+     */
+    public MessageTemplate getLineTemplate(String key) {
+        CompiledLanguage current = this.language;
+        String value = current.messages.get(key);
+        if (value == null) {
+            return getTemplate(key);
         }
-        if (value instanceof List) {
-            return "<red>Language key '" + key + "' is a list, expected a string.</red>";
+        return current.lineTemplates.computeIfAbsent(key, k -> MessageTemplate.compile(miniMessage, value.trim()));
+    }
+
+    /**
+     * 渲染语言键对应的消息。
+     */
+    public Component render(String key, TagResolver... resolvers) {
+        return getTemplate(key).render(resolvers);
+    }
+
+    /**
+     * 已编译的语言数据
+     */
+    private static final class CompiledLanguage {
+        private static final CompiledLanguage EMPTY = new CompiledLanguage(Collections.emptyMap(), Collections.emptyMap());
+
+        private final Map<String, String> messages;
+        private final Map<String, MessageTemplate> templates;
+        private final Map<String, MessageTemplate> lineTemplates = new ConcurrentHashMap<>();
+
+        private CompiledLanguage(Map<String, String> messages, Map<String, MessageTemplate> templates) {
+            this.messages = messages;
+            this.templates = templates;
         }
-        return value.toString();
     }
 }
@@ -0,0 +1,211 @@
+package cn.nirvana.vMonitor.loader;
+
+import net.kyori.adventure.text.Component;
+import net.kyori.adventure.text.TextReplacementConfig;
+import net.kyori.adventure.text.minimessage.MiniMessage;
+import net.kyori.adventure.text.minimessage.tag.Tag;
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+import net.kyori.adventure.text.minimessage.tag.resolver.TagResolver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 预编译的消息模板
+ * 语言文件中的 {name} 占位符在加载时被转换为 MiniMessage 的 &lt;name&gt; 标签，整个模板只解析一次：
+ * 占位符先解析为标记文本，渲染时在组件树中把标记替换为 TagResolver 提供的取值，不再重新解析模板。
+ * 只有标签参数中的占位符（例如 &lt;click:open_url:{url}&gt;）需要在渲染时按文本替换后重新解析
+ */
+public final class MessageTemplate {
+    private static final Pattern PLACEHOLDER_PATTERN = Pattern.compile("\\{([a-z0-9_]+)}");
+    // 占位符标记使用私用区字符，不会与语言文件中的文本冲突
+    private static final char MARKER_START = '\uE000';
+    private static final char MARKER_END = '\uE001';
+    private static final Pattern MARKER_PATTERN = Pattern.compile(MARKER_START + "(\\d+)" + MARKER_END);
+
+    private final MiniMessage miniMessage;
+    private final String raw;
+    private final String compiled;
+    // 标记序号对应的占位符名称
+    private final List<String> placeholders;
+    private final Set<String> inlinePlaceholders;
+    // 预解析的组件，占位符位置为标记文本
+    private final Component component;
+
+    private MessageTemplate(MiniMessage miniMessage, String raw, String compiled, List<String> placeholders,
+                            Set<String> inlinePlaceholders, Component component) {
+        this.miniMessage = miniMessage;
+        this.raw = raw;
+        this.compiled = compiled;
+        this.placeholders = placeholders;
+        this.inlinePlaceholders = inlinePlaceholders;
+        this.component = component;
+    }
+
+    /**
+     * 编译消息模板
+     *
+     * @param miniMessage MiniMessage 实例
+     * @param raw         语言文件中的原始消息
+     * @return 编译后的模板
+     */
+    public static MessageTemplate compile(MiniMessage miniMessage, String raw) {
+        StringBuilder compiled = new StringBuilder(raw.length());
+        List<String> placeholders = new ArrayList<>();
+        Set<String> inlinePlaceholders = new HashSet<>();
+
+        Matcher matcher = PLACEHOLDER_PATTERN.matcher(raw);
+        int last = 0;
+        while (matcher.find()) {
+            String name = matcher.group(1);
+            compiled.append(raw, last, matcher.start());
+            if (isInsideTag(raw, matcher.start())) {
+                // 位于标签参数中的占位符（例如 <click:open_url:{url}>）无法使用标签替换，保留为文本替换
+                inlinePlaceholders.add(name);
+                compiled.append(matcher.group());
+            } else {
+                if (!placeholders.contains(name)) {
+                    placeholders.add(name);
+                }
+                compiled.append('<').append(name).append('>');
+            }
+            last = matcher.end();
+        }
+        compiled.append(raw, last, raw.length());
+
+        String compiledString = compiled.toString();
+        Component component = null;
+        if (inlinePlaceholders.isEmpty()) {
+            List<TagResolver> markers = new ArrayList<>(placeholders.size());
+            for (int i = 0; i < placeholders.size(); i++) {
+                markers.add(Placeholder.unparsed(placeholders.get(i), MARKER_START + Integer.toString(i) + MARKER_END));
+            }
+            component = miniMessage.deserialize(compiledString, TagResolver.resolver(markers));
+        }
+        return new MessageTemplate(miniMessage, raw, compiledString, Collections.unmodifiableList(placeholders),
+                Collections.unmodifiableSet(inlinePlaceholders), component);
+    }
+
+    /**
+     * 使用标签解析器渲染模板
+     *
+     * @param resolvers 占位符解析器，例如 Placeholder.unparsed("player", name)
+     * @return 渲染后的组件
+     */
+    public Component render(TagResolver... resolvers) {
+        if (component == null) {
+            return miniMessage.deserialize(compiled, resolvers);
+        }
+        return substitute(resolvers);
+    }
+
+    /**
+     * 渲染含有标签内占位符的模板
+     *
+     * @param inlineValues 标签内占位符的取值（按文本替换）
+     * @param resolvers    其余占位符的解析器
+     * @return 渲染后的组件
+     */
+    public Component render(Map<String, String> inlineValues, TagResolver... resolvers) {
+        if (component != null) {
+            return substitute(resolvers);
+        }
+        String input = compiled;
+        for (String name : inlinePlaceholders) {
+            String value = inlineValues.get(name);
+            if (value != null) {
+                // 去掉可能破坏标签结构的字符
+                input = input.replace("{" + name + "}", value.replace(">", "").replace("<", "").replace("'", ""));
+            }
+        }
+        return miniMessage.deserialize(input, resolvers);
+    }
+
+    /**
+     * 将预解析组件中的占位符标记替换为解析器提供的取值
+     * Placeholder.component / unparsed 的取值直接使用其组件，只有 Placeholder.parsed 的取值需要解析；
+     * 未提供取值的占位符与直接解析模板时一样保留为 &lt;name&gt; 文本
+     */
+    private Component substitute(TagResolver... resolvers) {
+        if (placeholders.isEmpty()) {
+            return component;
+        }
+        TagResolver resolver = TagResolver.resolver(resolvers);
+        Component[] values = new Component[placeholders.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = resolveValue(placeholders.get(i), resolver, resolvers);
+        }
+        return component.replaceText(TextReplacementConfig.builder()
+                .match(MARKER_PATTERN)
+                .replacement((match, builder) -> values[Integer.parseInt(match.group(1))])
+                .build());
+    }
+
+    /**
+     * 按解析器顺序查找占位符的取值，与 MiniMessage 一样由第一个匹配的解析器决定
+     */
+    private Component resolveValue(String name, TagResolver resolver, TagResolver... resolvers) {
+        for (TagResolver candidate : resolvers) {
+            if (candidate instanceof TagResolver.Single single) {
+                if (!single.key().equals(name)) {
+                    continue;
+                }
+                Tag tag = single.tag();
+                if (tag instanceof Tag.Inserting inserting) {
+                    return inserting.value();
+                }
+                if (tag instanceof Tag.PreProcess preProcess) {
+                    return miniMessage.deserialize(preProcess.value(), resolver);
+                }
+            } else if (!candidate.has(name)) {
+                continue;
+            }
+            // 无法直接取得组件的解析器，按标签解析
+            return miniMessage.deserialize("<" + name + ">", resolver);
+        }
+        // 未提供取值的占位符保留为标签文本
+        return Component.text("<" + name + ">");
+    }
+
+    /**
+     * 获取语言文件中的原始消息
+     *
+     * @return 原始消息
+     */
+    public String raw() {
+        return raw;
+    }
+
+    /**
+     * 是否为不含占位符的静态模板
+     *
+     * @return 静态模板返回 true
+     */
+    public boolean isStatic() {
+        return component != null && placeholders.isEmpty();
+    }
+
+    /**
+     * 判断指定位置是否位于一个未闭合的 MiniMessage 标签内部
+     */
+    private static boolean isInsideTag(String raw, int index) {
+        boolean inTag = false;
+        for (int i = 0; i < index; i++) {
+            char c = raw.charAt(i);
+            if (c == '\\') {
+                i++; // 跳过转义字符
+            } else if (c == '<') {
+                inTag = true;
+            } else if (c == '>') {
+                inTag = false;
+            }
+        }
+        return inTag;
+    }
+}
@@ -0,0 +1,265 @@
+package cn.nirvana.vMonitor.storage;
+
+import cn.nirvana.vMonitor.loader.DataLoader.PlayerSession;
+
+import org.slf4j.Logger;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import java.sql.SQLException;
+
+import java.time.LocalDate;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 玩家活动产生的一次数据写入
+ * 事件携带发生时间，数据库不可用时写入活动日志，恢复后按原顺序重放，重放结果与实时写入相同
+ */
+public sealed interface ActivityEvent {
+
+    /**
+     * 将事件写入存储后端
+     *
+     * @throws SQLException 写入失败
+     */
+    void apply(StorageBackend backend, Logger logger) throws SQLException;
+
+    /**
+     * 序列化事件内容，不包含类型标记
+     */
+    void writeTo(DataOutput out) throws IOException;
+
+    /**
+     * @return 序列化时使用的类型标记
+     */
+    byte type();
+
+    /**
+     * 读取 writeTo 写入的事件内容
+     *
+     * @param type 类型标记
+     * @throws IOException 内容不完整或类型未知
+     */
+    static ActivityEvent read(byte type, DataInput in) throws IOException {
+        return switch (type) {
+            case Login.TYPE -> new Login(readUuid(in), in.readUTF(), in.readLong());
+            case PlayTime.TYPE -> new PlayTime(readUuid(in), in.readLong(), in.readLong(), in.readBoolean());
+            case ServerPath.TYPE -> new ServerPath(readUuid(in), in.readLong(), in.readUTF(), in.readUTF());
+            case PeakOnline.TYPE -> new PeakOnline(LocalDate.ofEpochDay(in.readLong()), in.readInt());
+            case SubServerPeakOnline.TYPE ->
+                    new SubServerPeakOnline(LocalDate.ofEpochDay(in.readLong()), in.readUTF(), in.readInt());
+            case SessionStart.TYPE -> new SessionStart(readUuid(in), in.readLong());
+            case ServerSession.TYPE -> new ServerSession(readUuid(in), in.readUTF(), in.readLong(), in.readLong());
+            default -> throw new IOException("Unknown activity event type " + type);
+        };
+    }
+
+    private static UUID readUuid(DataInput in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    private static void writeUuid(DataOutput out, UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    /**
+     * 玩家登录，已有玩家更新名称和最后登录时间，新玩家创建玩家数据
+     *
+     * @param time UNIX 时间戳（秒）
+     */
+    record Login(UUID uuid, String playerName, long time) implements ActivityEvent {
+        static final byte TYPE = 1;
+
+        @Override
+        public void apply(StorageBackend backend, Logger logger) throws SQLException {
+            if (backend.updatePlayerLogin(uuid, playerName, time)) {
+                logger.debug("Updated login time for player {}: {}", playerName, uuid);
+                return;
+            }
+            backend.createPlayer(uuid, playerName, time);
+            logger.info("Created new player data for {}: {}", playerName, uuid);
+        }
+
+        @Override
+        public void writeTo(DataOutput out) throws IOException {
+            writeUuid(out, uuid);
+            out.writeUTF(playerName);
+            out.writeLong(time);
+        }
+
+        @Override
+        public byte type() {
+            return TYPE;
+        }
+    }
+
+    /**
+     * 累加玩家游戏时间并推进会话的结算时间，结束会话时删除会话记录
+     *
+     * @param time UNIX 时间戳（秒）
+     */
+    record PlayTime(UUID uuid, long seconds, long time, boolean endSession) implements ActivityEvent {
+        static final byte TYPE = 2;
+
+        @Override
+        public void apply(StorageBackend backend, Logger logger) throws SQLException {
+            if (!backend.addSessionPlayTime(uuid, seconds, time, endSession)) {
+                logger.warn("Attempted to update play time for unknown player: {}. Skipping.", uuid);
+            }
+        }
+
+        @Override
+        public void writeTo(DataOutput out) throws IOException {
+            writeUuid(out, uuid);
+            out.writeLong(seconds);
+            out.writeLong(time);
+            out.writeBoolean(endSession);
+        }
+
+        @Override
+        public byte type() {
+            return TYPE;
+        }
+    }
+
+    /**
+     * 玩家进入服务器的路径
+     *
+     * @param time UNIX 时间戳（秒）
+     */
+    record ServerPath(UUID uuid, long time, String fromServer, String toServer) implements ActivityEvent {
+        static final byte TYPE = 3;
+
+        @Override
+        public void apply(StorageBackend backend, Logger logger) throws SQLException {
+            if (backend.getPlayerData(uuid) == null) {
+                logger.warn("Attempted to update server login for unknown player: {}. Please ensure player data is created.", uuid);
+                return;
+            }
+            backend.insertServerPath(uuid, time, fromServer, toServer);
+        }
+
+        @Override
+        public void writeTo(DataOutput out) throws IOException {
+            writeUuid(out, uuid);
+            out.writeLong(time);
+            out.writeUTF(fromServer);
+            out.writeUTF(toServer);
+        }
+
+        @Override
+        public byte type() {
+            return TYPE;
+        }
+    }
+
+    /**
+     * 代理在线人数，同时更新当日峰值和历史峰值
+     */
+    record PeakOnline(LocalDate date, int onlineCount) implements ActivityEvent {
+        static final byte TYPE = 4;
+
+        @Override
+        public void apply(StorageBackend backend, Logger logger) throws SQLException {
+            backend.updatePeakOnline(date, onlineCount);
+        }
+
+        @Override
+        public void writeTo(DataOutput out) throws IOException {
+            out.writeLong(date.toEpochDay());
+            out.writeInt(onlineCount);
+        }
+
+        @Override
+        public byte type() {
+            return TYPE;
+        }
+    }
+
+    /**
+     * 子服务器在线人数，更新该服务器的当日峰值
+     */
+    record SubServerPeakOnline(LocalDate date, String serverName, int onlineCount) implements ActivityEvent {
+        static final byte TYPE = 5;
+
+        @Override
+        public void apply(StorageBackend backend, Logger logger) throws SQLException {
+            backend.updateSubServerPeakOnline(date, serverName, onlineCount);
+        }
+
+        @Override
+        public void writeTo(DataOutput out) throws IOException {
+            out.writeLong(date.toEpochDay());
+            out.writeUTF(serverName);
+            out.writeInt(onlineCount);
+        }
+
+        @Override
+        public byte type() {
+            return TYPE;
+        }
+    }
+
+    /**
+     * 玩家开始一个会话
+     *
+     * @param time UNIX 时间戳（秒）
+     */
+    record SessionStart(UUID uuid, long time) implements ActivityEvent {
+        static final byte TYPE = 6;
+
+        @Override
+        public void apply(StorageBackend backend, Logger logger) throws SQLException {
+            backend.openSession(uuid, time);
+        }
+
+        @Override
+        public void writeTo(DataOutput out) throws IOException {
+            writeUuid(out, uuid);
+            out.writeLong(time);
+        }
+
+        @Override
+        public byte type() {
+            return TYPE;
+        }
+    }
+
+    /**
+     * 玩家在一个子服务器上连续停留的一段时间
+     *
+     * @param startTime 进入服务器的时间，UNIX 时间戳（秒）
+     * @param duration  停留时长（秒）
+     */
+    record ServerSession(UUID uuid, String serverName, long startTime, long duration) implements ActivityEvent {
+        static final byte TYPE = 7;
+
+        @Override
+        public void apply(StorageBackend backend, Logger logger) throws SQLException {
+            PlayerSession session = new PlayerSession();
+            session.uuid = uuid;
+            session.serverName = serverName;
+            session.startTime = startTime;
+            session.duration = duration;
+            backend.insertPlayerSessions(List.of(session));
+        }
+
+        @Override
+        public void writeTo(DataOutput out) throws IOException {
+            writeUuid(out, uuid);
+            out.writeUTF(serverName);
+            out.writeLong(startTime);
+            out.writeLong(duration);
+        }
+
+        @Override
+        public byte type() {
+            return TYPE;
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package cn.nirvana.vMonitor.storage;
+
+import org.slf4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * 活动日志
+ * 数据库不可用时，玩家活动事件追加写入数据目录下的日志段文件，数据库恢复后按写入顺序重放。
+ * 日志中还有未重放的事件时，新事件同样追加到日志末尾，保证同一玩家的事件按发生顺序写入数据库。
+ * 每条记录由长度、CRC32 校验值和事件内容组成，进程崩溃导致的不完整记录在读取时丢弃；
+ * 重放进度在每个事件写入数据库后记录到 replay.pos 并强制写入磁盘，重启后从中断的位置继续。
+ * 进度与数据库写入不在同一个事务中，两者之间崩溃时最后一个事件会再次重放：
+ * 游戏时间结算按会话的结算时间去重，会话仍在进行时重复的结算会被跳过；
+ * 结束会话的结算删除了会话记录，无法去重，这一个事件仍可能重复计入
+ */
+public class ActivityJournal {
+    private static final Pattern SEGMENT_NAME = Pattern.compile("journal-(\\d{16})\\.log");
+    // 记录头：内容长度（int）与 CRC32 校验值（int）
+    private static final int HEADER_SIZE = 8;
+    // 单条记录内容的长度上限，超过时视为损坏
+    private static final int MAX_RECORD_SIZE = 64 * 1024;
+    // 活动段超过该大小时切换到新段
+    private static final long SEGMENT_SIZE = 8L * 1024 * 1024;
+
+    private final Path directory;
+    private final Path positionFile;
+    private final Logger logger;
+
+    // 已关闭、等待重放的段，按序号升序
+    private final TreeMap<Long, Path> closedSegments = new TreeMap<>();
+    private FileChannel activeChannel;
+    private long activeSequence;
+    private long nextSequence;
+    // 日志中是否还有未重放的事件
+    private boolean pending;
+
+    // 重放进度：正在重放的段序号与已重放的字节偏移
+    private final Object replayLock = new Object();
+    private long replaySequence = -1;
+    private long replayOffset;
+    // 重放写入的服务器路径与会话所在的本地日期，由分析镜像取走后重新复制这些日期
+    private final Set<LocalDate> replayedDays = new HashSet<>();
+
+    public ActivityJournal(Path directory, Logger logger) {
+        this.directory = directory;
+        this.positionFile = directory.resolve("replay.pos");
+        this.logger = logger;
+    }
+
+    /**
+     * 创建日志目录，加载上次运行遗留的日志段和重放进度
+     *
+     * @throws IOException 目录无法创建或读取
+     */
+    public synchronized void open() throws IOException {
+        Files.createDirectories(directory);
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "journal-*.log")) {
+            for (Path path : stream) {
+                Matcher matcher = SEGMENT_NAME.matcher(path.getFileName().toString());
+                if (matcher.matches()) {
+                    closedSegments.put(Long.parseLong(matcher.group(1)), path);
+                }
+            }
+        }
+        nextSequence = closedSegments.isEmpty() ? 1 : closedSegments.lastKey() + 1;
+        pending = !closedSegments.isEmpty();
+
+        if (Files.isRegularFile(positionFile)) {
+            try (DataInputStream in = new DataInputStream(Files.newInputStream(positionFile))) {
+                replaySequence = in.readLong();
+                replayOffset = in.readLong();
+            } catch (EOFException e) {
+                logger.warn("Ignoring incomplete journal replay position, the interrupted segment will be replayed from the start");
+            }
+        }
+        if (pending) {
+            logger.info("Found {} activity journal segments waiting to be replayed", closedSegments.size());
+        }
+    }
+
+    /**
+     * @return 日志中是否还有未重放的事件
+     */
+    public synchronized boolean isPending() {
+        return pending;
+    }
+
+    /**
+     * 取走自上次调用以来重放写入了服务器路径或会话的本地日期
+     *
+     * @return 日期集合，没有时返回空集合
+     */
+    public synchronized Set<LocalDate> drainReplayedDays() {
+        Set<LocalDate> days = new HashSet<>(replayedDays);
+        replayedDays.clear();
+        return days;
+    }
+
+    /**
+     * 日志中还有未重放的事件时将事件追加到日志，保证它在之前的事件之后写入数据库
+     *
+     * @return 事件是否已追加到日志；日志为空时返回 false，事件应直接写入数据库
+     * @throws IOException 写入日志文件失败
+     */
+    public synchronized boolean appendIfPending(ActivityEvent event) throws IOException {
+        if (!pending) {
+            return false;
+        }
+        append(event);
+        return true;
+    }
+
+    /**
+     * 追加事件并强制写入磁盘
+     *
+     * @throws IOException 写入日志文件失败
+     */
+    public synchronized void append(ActivityEvent event) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(content)) {
+            out.writeByte(event.type());
+            event.writeTo(out);
+        }
+        byte[] bytes = content.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + bytes.length);
+        buffer.putInt(bytes.length).putInt((int) crc.getValue()).put(bytes).flip();
+
+        if (activeChannel == null) {
+            activeSequence = nextSequence++;
+            activeChannel = FileChannel.open(segmentPath(activeSequence),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        while (buffer.hasRemaining()) {
+            activeChannel.write(buffer);
+        }
+        activeChannel.force(false);
+        pending = true;
+
+        if (activeChannel.size() >= SEGMENT_SIZE) {
+            closeActiveSegment();
+        }
+    }
+
+    /**
+     * 按写入顺序重放日志中的全部事件，重放期间追加的事件在同一次调用中继续重放
+     * 数据库仍然不可用时停止重放，进度保留到下次调用；其他写入失败的事件记录日志后跳过
+     *
+     * @param backend 存储后端
+     * @return 本次重放的事件数量
+     * @throws SQLException 数据库仍然不可用
+     * @throws IOException  读取日志文件失败
+     */
+    public int replay(StorageBackend backend) throws SQLException, IOException {
+        synchronized (replayLock) {
+            int replayed = 0;
+            while (true) {
+                List<Path> segments;
+                List<Long> sequences;
+                synchronized (this) {
+                    if (activeChannel != null) {
+                        closeActiveSegment();
+                    }
+                    if (closedSegments.isEmpty()) {
+                        pending = false;
+                        Files.deleteIfExists(positionFile);
+                        return replayed;
+                    }
+                    segments = new ArrayList<>(closedSegments.values());
+                    sequences = new ArrayList<>(closedSegments.keySet());
+                }
+                for (int i = 0; i < segments.size(); i++) {
+                    replayed += replaySegment(sequences.get(i), segments.get(i), backend);
+                    Files.delete(segments.get(i));
+                    synchronized (this) {
+                        closedSegments.remove(sequences.get(i));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 重放一个日志段，从记录的重放进度处开始
+     */
+    private int replaySegment(long sequence, Path segment, StorageBackend backend) throws SQLException, IOException {
+        int replayed = 0;
+        long offset = sequence == replaySequence ? replayOffset : 0L;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ);
+             FileChannel position = FileChannel.open(positionFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            ByteBuffer positionBuffer = ByteBuffer.allocate(16);
+            long size = channel.size();
+            while (offset + HEADER_SIZE <= size) {
+                header.clear();
+                channel.read(header, offset);
+                header.flip();
+                int length = header.getInt();
+                int checksum = header.getInt();
+                if (length <= 0 || length > MAX_RECORD_SIZE || offset + HEADER_SIZE + length > size) {
+                    logger.warn("Discarding incomplete record at offset {} of journal segment {}", offset, segment.getFileName());
+                    break;
+                }
+
+                ByteBuffer content = ByteBuffer.allocate(length);
+                channel.read(content, offset + HEADER_SIZE);
+                CRC32 crc = new CRC32();
+                crc.update(content.array());
+                if ((int) crc.getValue() != checksum) {
+                    logger.warn("Discarding corrupted record at offset {} of journal segment {}", offset, segment.getFileName());
+                    break;
+                }
+
+                ActivityEvent event;
+                try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(content.array()))) {
+                    event = ActivityEvent.read(in.readByte(), in);
+                }
+                try {
+                    event.apply(backend, logger);
+                    replayed++;
+                    if (event instanceof ActivityEvent.ServerPath path) {
+                        recordReplayedDay(path.time());
+                    } else if (event instanceof ActivityEvent.ServerSession session) {
+                        recordReplayedDay(session.startTime());
+                    }
+                } catch (SQLException e) {
+                    if (isUnavailable(e)) {
+                        throw e;
+                    }
+                    logger.error("Failed to replay journaled {}: {}", event, e.getMessage());
+                }
+
+                offset += HEADER_SIZE + length;
+                replaySequence = sequence;
+                replayOffset = offset;
+                positionBuffer.clear();
+                positionBuffer.putLong(sequence).putLong(offset).flip();
+                position.write(positionBuffer, 0);
+                position.force(false);
+            }
+        }
+        return replayed;
+    }
+
+    /**
+     * 关闭日志文件，未重放的事件保留到下次启动
+     */
+    public synchronized void close() {
+        if (activeChannel == null) {
+            return;
+        }
+        try {
+            closeActiveSegment();
+        } catch (IOException e) {
+            logger.error("Failed to close activity journal: {}", e.getMessage());
+        }
+    }
+
+    private synchronized void recordReplayedDay(long time) {
+        replayedDays.add(LocalDate.ofInstant(Instant.ofEpochSecond(time), ZoneId.systemDefault()));
+    }
+
+    private void closeActiveSegment() throws IOException {
+        FileChannel channel = activeChannel;
+        activeChannel = null;
+        channel.close();
+        closedSegments.put(activeSequence, segmentPath(activeSequence));
+    }
+
+    private Path segmentPath(long sequence) {
+        return directory.resolve(String.format("journal-%016d.log", sequence));
+    }
+
+    /**
+     * 判断写入失败是否因为数据库暂时无法访问（连接失败、连接池超时、连接已关闭），这类失败的事件应写入日志等待重放
+     */
+    public static boolean isUnavailable(SQLException e) {
+        if (e instanceof SQLTransientException || e instanceof SQLRecoverableException
+                || e instanceof SQLNonTransientConnectionException) {
+            return true;
+        }
+        // SQLSTATE 08 类为连接异常
+        String sqlState = e.getSQLState();
+        return sqlState != null && sqlState.startsWith("08");
+    }
+}
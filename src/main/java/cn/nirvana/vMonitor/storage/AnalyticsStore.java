@@ -0,0 +1,415 @@
+package cn.nirvana.vMonitor.storage;
+
+import cn.nirvana.vMonitor.loader.DataLoader.PopularServer;
+
+import org.slf4j.Logger;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 嵌入式分析库（DuckDB）中的服务器路径与会话镜像
+ * 已结束的日期从存储后端增量复制到分析库，之后只有补写了路径或会话的日期会被标记并重新复制；
+ * 查询范围包含当天等未结束的日期时，这部分数据在查询前从存储后端重新加载。日期、小时和星期在写入时按本地时区计算，查询只做列式扫描和聚合。
+ * 所有方法在同一个连接上串行执行
+ */
+public class AnalyticsStore {
+    private static final int BATCH_SIZE = 10000;
+    // 按 day 列镜像的表
+    private static final String[] MIRRORED_TABLES = {"server_paths", "player_sessions"};
+    // 未结束日期的数据在该时间内重复查询时不再重新加载，同一份报表的多个查询只加载一次
+    private static final long TAIL_REFRESH_INTERVAL_MILLIS = 60_000L;
+
+    private final Logger logger;
+    private final StorageBackend source;
+    private final Connection connection;
+
+    // 已镜像的最后一个完整日期，null 表示尚未镜像
+    private LocalDate mirroredThrough;
+    // 当前已加载的未结束日期的截止日期与加载时间
+    private LocalDate tailThrough;
+    private long tailLoadedAt;
+    // 镜像之后存储后端又补写了数据、需要重新复制的日期
+    private final TreeSet<LocalDate> staleDays = new TreeSet<>();
+
+    public AnalyticsStore(Logger logger, StorageBackend source, Connection connection) throws SQLException {
+        this.logger = logger;
+        this.source = source;
+        this.connection = connection;
+        boolean sessionsMirrored = tableExists("player_sessions");
+        initializeTables();
+        this.mirroredThrough = loadMirroredThrough();
+        if (!sessionsMirrored && mirroredThrough != null) {
+            // 旧版本的分析库只镜像了服务器路径，补齐已镜像日期的会话
+            LocalDate through = mirroredThrough;
+            int copied = inTransaction(() -> copySessions(LocalDate.EPOCH, through));
+            logger.info("Mirrored {} player sessions into the existing analytics store through {}", copied, through);
+        }
+    }
+
+    private boolean tableExists(String table) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT COUNT(*) FROM information_schema.tables WHERE table_name = ?")) {
+            statement.setString(1, table);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getInt(1) > 0;
+            }
+        }
+    }
+
+    private void initializeTables() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            // server_paths 表 - 服务器路径镜像，day/hour/weekday 为本地日期、小时（0-23）和星期（1=周一，7=周日）
+            statement.execute("CREATE TABLE IF NOT EXISTS server_paths (" +
+                    "day DATE NOT NULL, " +
+                    "hour TINYINT NOT NULL, " +
+                    "weekday TINYINT NOT NULL, " +
+                    "uuid VARCHAR NOT NULL, " +
+                    "from_server VARCHAR, " +
+                    "to_server VARCHAR NOT NULL" +
+                    ")");
+            // player_sessions 表 - 会话镜像，day 为进入服务器时的本地日期
+            statement.execute("CREATE TABLE IF NOT EXISTS player_sessions (" +
+                    "day DATE NOT NULL, " +
+                    "uuid VARCHAR NOT NULL, " +
+                    "server_name VARCHAR NOT NULL, " +
+                    "duration BIGINT NOT NULL" +
+                    ")");
+            // mirror_state 表 - 已镜像的最后一个完整日期
+            statement.execute("CREATE TABLE IF NOT EXISTS mirror_state (" +
+                    "mirrored_through DATE NOT NULL" +
+                    ")");
+        }
+    }
+
+    private LocalDate loadMirroredThrough() throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT MAX(mirrored_through) FROM mirror_state")) {
+            if (rs.next()) {
+                Date date = rs.getDate(1);
+                return date != null ? date.toLocalDate() : null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 将 today 之前所有尚未镜像的日期复制到分析库
+     *
+     * @param today 当前日期，当天及之后的数据不会被镜像
+     * @return 本次复制的路径与会话记录数
+     * @throws SQLException 读取存储后端或写入分析库失败，失败时分析库保持原状
+     */
+    public synchronized int sync(LocalDate today) throws SQLException {
+        LocalDate through = today.minusDays(1);
+        int copied = refreshStaleDays();
+        if (mirroredThrough == null || mirroredThrough.isBefore(through)) {
+            LocalDate start = mirroredThrough == null ? LocalDate.EPOCH : mirroredThrough.plusDays(1);
+            copied += inTransaction(() -> {
+                deleteAfter(mirroredThrough);
+                int count = copyPaths(start, through) + copySessions(start, through);
+                try (Statement statement = connection.createStatement()) {
+                    statement.executeUpdate("DELETE FROM mirror_state");
+                }
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "INSERT INTO mirror_state (mirrored_through) VALUES (?)")) {
+                    statement.setDate(1, Date.valueOf(through));
+                    statement.executeUpdate();
+                }
+                return count;
+            });
+            mirroredThrough = through;
+            tailThrough = null;
+        }
+        return copied;
+    }
+
+    /**
+     * 清空分析库中的镜像数据，下次同步时从头复制，用于存储后端的历史数据被整体替换之后
+     */
+    public synchronized void reset() throws SQLException {
+        inTransaction(() -> {
+            deleteAfter(null);
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("DELETE FROM mirror_state");
+            }
+            return 0;
+        });
+        mirroredThrough = null;
+        tailThrough = null;
+        staleDays.clear();
+    }
+
+    /**
+     * 标记存储后端补写了数据的日期，下次同步或查询前重新复制这些日期
+     *
+     * @param days 需要重新复制的本地日期
+     */
+    public synchronized void invalidate(Collection<LocalDate> days) {
+        staleDays.addAll(days);
+        tailThrough = null;
+    }
+
+    /**
+     * @return 已镜像的最后一个完整日期，尚未镜像时返回 null
+     */
+    public synchronized LocalDate getMirroredThrough() {
+        return mirroredThrough;
+    }
+
+    // 报表统计，结果格式与 StorageBackend 中的同名方法一致
+
+    public synchronized Map<Integer, Integer> getHourlyDistribution(LocalDate startDate, LocalDate endDate) throws SQLException {
+        Map<Integer, Integer> result = new TreeMap<>();
+        prepareRange(endDate);
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT hour, COUNT(*) FROM server_paths WHERE day BETWEEN ? AND ? GROUP BY hour")) {
+            bindDates(statement, startDate, endDate);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    result.put(rs.getInt(1), rs.getInt(2));
+                }
+            }
+        }
+        return result;
+    }
+
+    public synchronized Map<Integer, Integer> getWeeklyDistribution(LocalDate startDate, LocalDate endDate) throws SQLException {
+        Map<Integer, Integer> result = new TreeMap<>();
+        prepareRange(endDate);
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT weekday, COUNT(*) FROM server_paths WHERE day BETWEEN ? AND ? GROUP BY weekday")) {
+            bindDates(statement, startDate, endDate);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    result.put(rs.getInt(1), rs.getInt(2));
+                }
+            }
+        }
+        return result;
+    }
+
+    public synchronized Map<String, Integer> getServerDistribution(LocalDate startDate, LocalDate endDate) throws SQLException {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        prepareRange(endDate);
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT to_server, COUNT(DISTINCT uuid) AS player_count FROM server_paths " +
+                        "WHERE day BETWEEN ? AND ? GROUP BY to_server ORDER BY player_count DESC")) {
+            bindDates(statement, startDate, endDate);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    result.put(rs.getString(1), rs.getInt(2));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 热门服务器，玩家数量来自服务器路径，平均游戏时间为开始于日期范围内的会话中每名玩家的平均停留时间
+     */
+    public synchronized List<PopularServer> getPopularServers(int limit, LocalDate startDate, LocalDate endDate) throws SQLException {
+        List<PopularServer> result = new ArrayList<>();
+        prepareRange(endDate);
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT p.to_server, p.player_count, s.total_seconds, s.session_players FROM (" +
+                        "SELECT to_server, COUNT(DISTINCT uuid) AS player_count FROM server_paths " +
+                        "WHERE day BETWEEN ? AND ? GROUP BY to_server) p " +
+                        "LEFT JOIN (" +
+                        "SELECT server_name, SUM(duration) AS total_seconds, COUNT(DISTINCT uuid) AS session_players " +
+                        "FROM player_sessions WHERE day BETWEEN ? AND ? GROUP BY server_name) s " +
+                        "ON s.server_name = p.to_server " +
+                        "ORDER BY p.player_count DESC LIMIT ?")) {
+            bindDates(statement, startDate, endDate);
+            statement.setDate(3, Date.valueOf(startDate));
+            statement.setDate(4, Date.valueOf(endDate));
+            statement.setInt(5, limit);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    PopularServer server = new PopularServer();
+                    server.serverName = rs.getString(1);
+                    server.playerCount = rs.getInt(2);
+                    long sessionPlayers = rs.getLong(4);
+                    // 将秒数转换为分钟
+                    server.avgPlayTimeMinutes = sessionPlayers > 0 ? (int) (rs.getLong(3) / sessionPlayers / 60) : 0;
+                    result.add(server);
+                }
+            }
+        }
+        return result;
+    }
+
+    public synchronized void close() {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            logger.error("Failed to close analytics store: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 查询范围超出已镜像的日期时，从存储后端重新加载未结束日期的数据
+     */
+    private void prepareRange(LocalDate endDate) throws SQLException {
+        if (mirroredThrough == null) {
+            throw new SQLException("Analytics mirror has not been synchronized yet");
+        }
+        refreshStaleDays();
+        if (!endDate.isAfter(mirroredThrough)) {
+            return;
+        }
+        if (endDate.equals(tailThrough) && System.currentTimeMillis() - tailLoadedAt < TAIL_REFRESH_INTERVAL_MILLIS) {
+            return;
+        }
+        LocalDate start = mirroredThrough.plusDays(1);
+        inTransaction(() -> {
+            deleteAfter(mirroredThrough);
+            return copyPaths(start, endDate) + copySessions(start, endDate);
+        });
+        tailThrough = endDate;
+        tailLoadedAt = System.currentTimeMillis();
+    }
+
+    /**
+     * 重新复制已镜像范围内被标记的日期，未镜像的日期由同步或未结束日期的加载复制
+     *
+     * @return 复制的记录数
+     */
+    private int refreshStaleDays() throws SQLException {
+        if (staleDays.isEmpty()) {
+            return 0;
+        }
+        if (mirroredThrough == null) {
+            staleDays.clear();
+            return 0;
+        }
+        int copied = inTransaction(() -> {
+            int count = 0;
+            for (LocalDate day : staleDays.headSet(mirroredThrough, true)) {
+                for (String table : MIRRORED_TABLES) {
+                    try (PreparedStatement statement = connection.prepareStatement("DELETE FROM " + table + " WHERE day = ?")) {
+                        statement.setDate(1, Date.valueOf(day));
+                        statement.executeUpdate();
+                    }
+                }
+                count += copyPaths(day, day) + copySessions(day, day);
+            }
+            return count;
+        });
+        staleDays.clear();
+        return copied;
+    }
+
+    /**
+     * 删除指定日期之后的数据，date 为 null 时删除全部数据
+     */
+    private void deleteAfter(LocalDate date) throws SQLException {
+        for (String table : MIRRORED_TABLES) {
+            if (date == null) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.executeUpdate("DELETE FROM " + table);
+                }
+                continue;
+            }
+            try (PreparedStatement statement = connection.prepareStatement("DELETE FROM " + table + " WHERE day > ?")) {
+                statement.setDate(1, Date.valueOf(date));
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * 从存储后端复制日期范围内的路径记录
+     *
+     * @return 复制的记录数
+     */
+    private int copyPaths(LocalDate startDate, LocalDate endDate) throws SQLException {
+        int[] copied = new int[1];
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO server_paths (day, hour, weekday, uuid, from_server, to_server) VALUES (?, ?, ?, ?, ?, ?)")) {
+            source.forEachServerPath(startDate, endDate, (uuid, time, fromServer, toServer) -> {
+                LocalDateTime localTime = LocalDateTime.ofInstant(Instant.ofEpochSecond(time), ZoneId.systemDefault());
+                statement.setDate(1, Date.valueOf(localTime.toLocalDate()));
+                statement.setInt(2, localTime.getHour());
+                statement.setInt(3, localTime.getDayOfWeek().getValue());
+                statement.setString(4, uuid.toString());
+                statement.setString(5, fromServer);
+                statement.setString(6, toServer);
+                statement.addBatch();
+                if (++copied[0] % BATCH_SIZE == 0) {
+                    statement.executeBatch();
+                }
+            });
+            statement.executeBatch();
+        }
+        return copied[0];
+    }
+
+    /**
+     * 从存储后端复制开始于日期范围内的会话
+     *
+     * @return 复制的记录数
+     */
+    private int copySessions(LocalDate startDate, LocalDate endDate) throws SQLException {
+        int[] copied = new int[1];
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO player_sessions (day, uuid, server_name, duration) VALUES (?, ?, ?, ?)")) {
+            source.forEachPlayerSession(startDate, endDate, (uuid, serverName, startTime, duration) -> {
+                statement.setDate(1, Date.valueOf(LocalDate.ofInstant(Instant.ofEpochSecond(startTime), ZoneId.systemDefault())));
+                statement.setString(2, uuid.toString());
+                statement.setString(3, serverName);
+                statement.setLong(4, duration);
+                statement.addBatch();
+                if (++copied[0] % BATCH_SIZE == 0) {
+                    statement.executeBatch();
+                }
+            });
+            statement.executeBatch();
+        }
+        return copied[0];
+    }
+
+    private void bindDates(PreparedStatement statement, LocalDate startDate, LocalDate endDate) throws SQLException {
+        statement.setDate(1, Date.valueOf(startDate));
+        statement.setDate(2, Date.valueOf(endDate));
+    }
+
+    /**
+     * 在一个事务中执行操作，失败时回滚
+     */
+    private int inTransaction(Work work) throws SQLException {
+        connection.setAutoCommit(false);
+        try {
+            int result = work.run();
+            connection.commit();
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Work {
+        int run() throws SQLException;
+    }
+}
@@ -0,0 +1,425 @@
+package cn.nirvana.vMonitor.storage;
+
+import cn.nirvana.vMonitor.util.TimeUtil;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+import org.slf4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+
+import java.time.YearMonth;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 数据导入导出
+ * 导出文件为 gzip 压缩的 NDJSON：第一行为文件头，之后每张表先写一行表头（表名与列名），再逐行写入数组形式的记录。
+ * 时间列导出为 UNIX 时间戳（秒），游戏时间导出为秒数，导入时按目标数据库的格式写入，因此可以在不同数据库之间迁移。
+ * 导出使用游标逐批读取，导入按批提交，内存占用与表的大小无关
+ */
+public class DataTransfer {
+    public static final String FORMAT = "v-monitor-export";
+    public static final int VERSION = 1;
+    private static final int BATCH_SIZE = 1000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private enum ColumnType {
+        TEXT,
+        INTEGER,
+        // yyyy-MM-dd 格式的日期
+        DATE,
+        // 导出为 UNIX 时间戳（秒）
+        TIMESTAMP,
+        // 游戏时间，导出为秒数
+        DURATION
+    }
+
+    private record Column(String name, ColumnType type) {
+    }
+
+    /**
+     * @param replace 只有一行的表，导入前清空目标表中启动时创建的记录
+     */
+    private record Table(String name, boolean replace, List<Column> columns) {
+    }
+
+    // 导出顺序即导入顺序，不导出自增 id，导入时由目标数据库重新生成
+    private static final List<Table> TABLES = List.of(
+            new Table("server_info", true, List.of(
+                    new Column("startup_time", ColumnType.DATE),
+                    new Column("last_report_generation_time", ColumnType.DATE))),
+            new Table("server_tracking", true, List.of(
+                    new Column("historical_peak_online", ColumnType.INTEGER))),
+            new Table("daily_peak_online", false, List.of(
+                    new Column("time", ColumnType.DATE),
+                    new Column("overall", ColumnType.INTEGER))),
+            new Table("sub_server_peak_online", false, List.of(
+                    new Column("time", ColumnType.DATE),
+                    new Column("server_name", ColumnType.TEXT),
+                    new Column("peak_online", ColumnType.INTEGER))),
+            new Table("daily_new_players", false, List.of(
+                    new Column("time", ColumnType.DATE),
+                    new Column("overall", ColumnType.INTEGER))),
+            new Table("daily_new_players_info", false, List.of(
+                    new Column("time", ColumnType.TIMESTAMP),
+                    new Column("uuid", ColumnType.TEXT),
+                    new Column("original_username", ColumnType.TEXT))),
+            new Table("player_data", false, List.of(
+                    new Column("uuid", ColumnType.TEXT),
+                    new Column("username", ColumnType.TEXT),
+                    new Column("username_lower", ColumnType.TEXT),
+                    new Column("first_join_time", ColumnType.TIMESTAMP),
+                    new Column("last_login_time", ColumnType.TIMESTAMP),
+                    new Column("play_time", ColumnType.DURATION))),
+            new Table(JdbcStorageBackend.SERVER_PATHS, false, List.of(
+                    new Column("time", ColumnType.TIMESTAMP),
+                    new Column("uuid", ColumnType.TEXT),
+                    new Column("from_server", ColumnType.TEXT),
+                    new Column("to_server", ColumnType.TEXT))),
+            new Table("server_path_rollup", false, List.of(
+                    new Column("time", ColumnType.DATE),
+                    new Column("hour", ColumnType.INTEGER),
+                    new Column("to_server", ColumnType.TEXT),
+                    new Column("switches", ColumnType.INTEGER),
+                    new Column("players", ColumnType.INTEGER))),
+            new Table("player_sessions", false, List.of(
+                    new Column("uuid", ColumnType.TEXT),
+                    new Column("server_name", ColumnType.TEXT),
+                    new Column("start_time", ColumnType.INTEGER),
+                    new Column("duration", ColumnType.INTEGER))),
+            new Table("server_latency_history", false, List.of(
+                    new Column("time", ColumnType.TIMESTAMP),
+                    new Column("server_name", ColumnType.TEXT),
+                    new Column("samples", ColumnType.INTEGER),
+                    new Column("online_samples", ColumnType.INTEGER),
+                    new Column("avg_latency", ColumnType.INTEGER),
+                    new Column("max_latency", ColumnType.INTEGER),
+                    new Column("avg_players", ColumnType.INTEGER),
+                    new Column("outages", ColumnType.INTEGER)))
+    );
+
+    private final JdbcStorageBackend backend;
+    private final Logger logger;
+
+    public DataTransfer(JdbcStorageBackend backend, Logger logger) {
+        this.backend = backend;
+        this.logger = logger;
+    }
+
+    /**
+     * @return 目标数据库中没有玩家数据时返回 true，只允许向空数据库导入
+     */
+    public boolean isEmpty() throws SQLException {
+        return backend.getTotalPlayerCount() == 0;
+    }
+
+    /**
+     * 导出所有表到文件，先写入同目录下的临时文件，完成后再替换目标文件
+     *
+     * @return 导出的记录数
+     */
+    public long exportTo(Path file) throws IOException, SQLException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        long rows = 0;
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(temp), BUFFER_SIZE), StandardCharsets.UTF_8))) {
+            JsonObject header = new JsonObject();
+            header.addProperty("format", FORMAT);
+            header.addProperty("version", VERSION);
+            header.addProperty("exported_at", TimeUtil.DateTimeConverter.fromTimestamp(System.currentTimeMillis() / 1000L));
+            writeLine(writer, header);
+            for (Table table : TABLES) {
+                rows += exportTable(writer, table);
+            }
+        } catch (IOException | SQLException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return rows;
+    }
+
+    private long exportTable(Writer writer, Table table) throws IOException, SQLException {
+        JsonObject tableHeader = new JsonObject();
+        tableHeader.addProperty("table", table.name());
+        JsonArray columnNames = new JsonArray();
+        List<String> selectList = new ArrayList<>();
+        for (Column column : table.columns()) {
+            columnNames.add(column.name());
+            selectList.add(column.type() == ColumnType.DURATION
+                    ? backend.playTimeSecondsExpression(column.name()) + " AS " + column.name()
+                    : column.name());
+        }
+        tableHeader.add("columns", columnNames);
+        writeLine(writer, tableHeader);
+
+        long rows = 0;
+        try (Connection connection = backend.databaseUtil.getConnection("exportData");
+             PreparedStatement statement = backend.prepareStreaming(connection,
+                     "SELECT " + String.join(", ", selectList) + " FROM " + table.name());
+             ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                JsonArray row = new JsonArray(table.columns().size());
+                for (Column column : table.columns()) {
+                    row.add(readValue(rs, column));
+                }
+                writeLine(writer, row);
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    private JsonElement readValue(ResultSet rs, Column column) throws SQLException {
+        switch (column.type()) {
+            case INTEGER:
+            case DURATION: {
+                long value = rs.getLong(column.name());
+                return rs.wasNull() ? null : new JsonPrimitive(value);
+            }
+            case TIMESTAMP: {
+                if (rs.getString(column.name()) == null) {
+                    return null;
+                }
+                return new JsonPrimitive(backend.readTimestamp(rs, column.name()));
+            }
+            default: {
+                String value = rs.getString(column.name());
+                return value == null ? null : new JsonPrimitive(value);
+            }
+        }
+    }
+
+    /**
+     * 从文件导入所有表，未知的表和列被忽略，缺少的列写入 null
+     *
+     * @return 导入的记录数，与已有记录唯一键冲突而被忽略的记录也计算在内
+     */
+    public long importFrom(Path file) throws IOException, SQLException {
+        long rows = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file), BUFFER_SIZE), StandardCharsets.UTF_8))) {
+            readHeader(reader.readLine());
+
+            Table table = null;
+            int[] mapping = null;
+            List<JsonArray> batch = new ArrayList<>(BATCH_SIZE);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                JsonElement element = parse(line);
+                if (element.isJsonObject()) {
+                    rows += flush(table, mapping, batch);
+                    JsonObject tableHeader = element.getAsJsonObject();
+                    String name = tableHeader.get("table").getAsString();
+                    table = findTable(name);
+                    if (table == null) {
+                        logger.warn("Skipping unknown table '{}' in {}", name, file.getFileName());
+                        continue;
+                    }
+                    mapping = mapColumns(table, tableHeader.getAsJsonArray("columns"));
+                    if (table.replace()) {
+                        clearTable(table);
+                    }
+                } else if (table != null) {
+                    batch.add(element.getAsJsonArray());
+                    if (batch.size() == BATCH_SIZE) {
+                        rows += flush(table, mapping, batch);
+                    }
+                }
+            }
+            rows += flush(table, mapping, batch);
+        }
+        return rows;
+    }
+
+    private void readHeader(String line) throws IOException {
+        if (line == null) {
+            throw new IOException("Export file is empty");
+        }
+        JsonElement header = parse(line);
+        if (!header.isJsonObject() || !header.getAsJsonObject().has("format")
+                || !FORMAT.equals(header.getAsJsonObject().get("format").getAsString())) {
+            throw new IOException("Not a V-Monitor export file");
+        }
+        int version = header.getAsJsonObject().get("version").getAsInt();
+        if (version > VERSION) {
+            throw new IOException("Unsupported export file version " + version);
+        }
+    }
+
+    private JsonElement parse(String line) throws IOException {
+        try {
+            return JsonParser.parseString(line);
+        } catch (JsonParseException e) {
+            throw new IOException("Malformed line in export file: " + e.getMessage(), e);
+        }
+    }
+
+    private Table findTable(String name) {
+        for (Table table : TABLES) {
+            if (table.name().equals(name)) {
+                return table;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return 表中每一列在文件记录中的下标，文件中没有的列为 -1
+     */
+    private int[] mapColumns(Table table, JsonArray fileColumns) {
+        int[] mapping = new int[table.columns().size()];
+        for (int i = 0; i < mapping.length; i++) {
+            mapping[i] = -1;
+            for (int j = 0; j < fileColumns.size(); j++) {
+                if (table.columns().get(i).name().equals(fileColumns.get(j).getAsString())) {
+                    mapping[i] = j;
+                    break;
+                }
+            }
+        }
+        return mapping;
+    }
+
+    private void clearTable(Table table) throws SQLException {
+        backend.databaseUtil.write("importData", connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("DELETE FROM " + table.name());
+            }
+        });
+    }
+
+    /**
+     * 在一个写入事务中提交一批记录，服务器路径按目标分区分组，并确保记录所在月份的分区存在
+     *
+     * @return 提交的记录数
+     */
+    private int flush(Table table, int[] mapping, List<JsonArray> batch) throws SQLException {
+        if (table == null || batch.isEmpty()) {
+            batch.clear();
+            return 0;
+        }
+
+        Map<String, List<JsonArray>> byTarget = new LinkedHashMap<>();
+        YearMonth firstMonth = null;
+        YearMonth lastMonth = null;
+        boolean serverPaths = table.name().equals(JdbcStorageBackend.SERVER_PATHS);
+        for (JsonArray row : batch) {
+            String target = table.name();
+            if (serverPaths) {
+                // 时间是服务器路径表的第一列
+                JsonElement timeValue = value(row, mapping[0]);
+                if (timeValue == null) {
+                    logger.warn("Skipping server path without time: {}", row);
+                    continue;
+                }
+                long time = timeValue.getAsLong();
+                YearMonth month = YearMonth.parse(TimeUtil.DateTimeConverter.fromTimestamp(time).substring(0, 7));
+                firstMonth = firstMonth == null || month.isBefore(firstMonth) ? month : firstMonth;
+                lastMonth = lastMonth == null || month.isAfter(lastMonth) ? month : lastMonth;
+                target = backend.serverPathTable(time);
+            }
+            byTarget.computeIfAbsent(target, k -> new ArrayList<>()).add(row);
+        }
+
+        List<String> columnNames = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+        for (Column column : table.columns()) {
+            columnNames.add(column.name());
+            placeholders.add("?");
+        }
+        String columnClause = " (" + String.join(", ", columnNames) + ") VALUES (" + String.join(", ", placeholders) + ")";
+
+        YearMonth first = firstMonth;
+        YearMonth last = lastMonth;
+        backend.databaseUtil.write("importData", connection -> {
+            // 整批路径都缺少时间而被跳过时没有需要建立的分区
+            if (serverPaths && first != null) {
+                backend.ensureServerPathPartitions(connection, first, last);
+            }
+            for (Map.Entry<String, List<JsonArray>> entry : byTarget.entrySet()) {
+                try (PreparedStatement statement = connection.prepareStatement(
+                        backend.insertIgnoreSql(entry.getKey() + columnClause))) {
+                    for (JsonArray row : entry.getValue()) {
+                        for (int i = 0; i < mapping.length; i++) {
+                            bindValue(statement, i + 1, table.columns().get(i).type(), value(row, mapping[i]));
+                        }
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                }
+            }
+        });
+
+        int count = 0;
+        for (List<JsonArray> rows : byTarget.values()) {
+            count += rows.size();
+        }
+        batch.clear();
+        return count;
+    }
+
+    private JsonElement value(JsonArray row, int index) {
+        if (index < 0 || index >= row.size() || row.get(index).isJsonNull()) {
+            return null;
+        }
+        return row.get(index);
+    }
+
+    private void bindValue(PreparedStatement statement, int index, ColumnType type, JsonElement value) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, type == ColumnType.INTEGER ? Types.BIGINT : Types.VARCHAR);
+            return;
+        }
+        switch (type) {
+            case INTEGER:
+                statement.setLong(index, value.getAsLong());
+                break;
+            case TIMESTAMP:
+                statement.setString(index, TimeUtil.DateTimeConverter.fromTimestamp(value.getAsLong()));
+                break;
+            case DURATION:
+                statement.setString(index, TimeUtil.TimePeriodConverter.fromSeconds(value.getAsLong()));
+                break;
+            default:
+                statement.setString(index, value.getAsString());
+                break;
+        }
+    }
+
+    private void writeLine(Writer writer, JsonElement element) throws IOException {
+        writer.write(element.toString());
+        writer.write('\n');
+    }
+}
@@ -0,0 +1,781 @@
+package cn.nirvana.vMonitor.storage;
+
+import cn.nirvana.vMonitor.loader.DataLoader.PlayerData;
+import cn.nirvana.vMonitor.loader.DataLoader.PlayerSession;
+import cn.nirvana.vMonitor.loader.DataLoader.PopularServer;
+import cn.nirvana.vMonitor.loader.DataLoader.ServerHealth;
+import cn.nirvana.vMonitor.loader.DataLoader.ServerInfoData;
+import cn.nirvana.vMonitor.loader.DataLoader.ServerLatencyRecord;
+import cn.nirvana.vMonitor.loader.DataLoader.TopPlayerByPlayTime;
+import cn.nirvana.vMonitor.util.DatabaseUtil;
+import cn.nirvana.vMonitor.util.SqlQuery;
+import cn.nirvana.vMonitor.util.TimeUtil;
+
+import org.slf4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/**
+ * 基于 JDBC 的存储后端
+ * 各数据库通用的 SQL 在这里实现，不同数据库的写法差异（忽略重复插入、更新插入、日期函数）由子类提供。
+ * 时间以本地时区的 ISO 8601 字符串存储，字符串以 yyyy-MM-dd 开头，因此日期范围直接按字符串范围过滤，可以使用索引；
+ * 使用原生时间类型的数据库通过 dateExpression、hourExpression 和 readTimestamp 覆盖时间的读取方式。
+ * 服务器路径按月分区，分区的创建和删除由子类实现，查询始终读取 player_daily_server_paths
+ */
+public abstract class JdbcStorageBackend implements StorageBackend {
+    protected static final String SERVER_PATHS = "player_daily_server_paths";
+
+    protected final DatabaseUtil databaseUtil;
+    protected final Logger logger;
+
+    // 已确认有分区可以写入的服务器路径月份，写入其他月份前先建立对应分区
+    private final Set<YearMonth> serverPathMonths = ConcurrentHashMap.newKeySet();
+
+    protected JdbcStorageBackend(DatabaseUtil databaseUtil, Logger logger) {
+        this.databaseUtil = databaseUtil;
+        this.logger = logger;
+    }
+
+    // 数据库写法差异
+
+    /**
+     * @param intoClause 表名、列名与 VALUES 子句，例如 "t (a, b) VALUES (?, ?)"
+     * @return 插入时忽略唯一键冲突的完整语句
+     */
+    protected abstract String insertIgnoreSql(String intoClause);
+
+    /**
+     * @return 写入当日峰值的更新插入语句，参数依次为日期和在线人数，已有记录只在新值更大时更新
+     */
+    protected abstract String upsertDailyPeakSql();
+
+    /**
+     * @return 写入子服务器当日峰值的更新插入语句，参数依次为日期、服务器名称和在线人数，已有记录只在新值更大时更新
+     */
+    protected abstract String upsertSubServerPeakSql();
+
+    /**
+     * @return 当日新玩家数量加一的更新插入语句，参数为日期
+     */
+    protected abstract String incrementNewPlayersSql();
+
+    /**
+     * @param dateExpression yyyy-MM-dd 格式的日期表达式
+     * @return 计算星期的 SQL 表达式
+     */
+    protected abstract String dayOfWeekExpression(String dateExpression);
+
+    /**
+     * 将 dayOfWeekExpression 的结果转换为 1=周一，7=周日
+     */
+    protected abstract int toIsoDayOfWeek(int dayOfWeek);
+
+    /**
+     * @param column HH:mm:ss 格式的游戏时间列
+     * @return 将游戏时间转换为秒数的 SQL 表达式
+     */
+    protected abstract String playTimeSecondsExpression(String column);
+
+    /**
+     * @param column 时间列
+     * @return 取本地日期（yyyy-MM-dd）的 SQL 表达式，默认截取 ISO 8601 字符串的前 10 个字符
+     */
+    protected String dateExpression(String column) {
+        return "SUBSTR(" + column + ", 1, 10)";
+    }
+
+    /**
+     * @param column 时间列
+     * @return 取本地小时（0-23）的 SQL 表达式，默认截取 ISO 8601 字符串的第 12-13 个字符
+     */
+    protected String hourExpression(String column) {
+        return "SUBSTR(" + column + ", 12, 2)";
+    }
+
+    /**
+     * 读取时间列，默认解析 ISO 8601 字符串
+     *
+     * @return UNIX 时间戳（秒）
+     */
+    protected long readTimestamp(ResultSet rs, String column) throws SQLException {
+        return TimeUtil.DateTimeConverter.toTimestamp(rs.getString(column));
+    }
+
+    /**
+     * 准备逐批读取大结果集的语句，结果集只能向前读取，按配置的 fetch-size 提示驱动每次获取的行数；
+     * 驱动需要额外条件才会分批获取时由子类覆盖
+     */
+    protected PreparedStatement prepareStreaming(Connection connection, String sql) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        statement.setFetchSize(databaseUtil.getFetchSize());
+        return statement;
+    }
+
+    // 服务器路径分区
+
+    /**
+     * 确保 [first, last] 中每个月份的服务器路径分区存在，旧版本创建的未分区表在这里转换为分区表
+     *
+     * @return 当前存在的全部分区月份，按时间升序；表不支持分区时返回空列表
+     */
+    protected abstract List<YearMonth> ensureServerPathPartitions(Connection connection, YearMonth first,
+                                                                  YearMonth last) throws SQLException;
+
+    /**
+     * @return 只读取某个月份分区的 FROM 子句
+     */
+    protected abstract String serverPathPartitionSource(YearMonth month);
+
+    /**
+     * 整体删除某个月份的分区
+     */
+    protected abstract void dropServerPathPartition(Connection connection, YearMonth month) throws SQLException;
+
+    /**
+     * @param time UNIX 时间戳（秒）
+     * @return 写入该时间的服务器路径时使用的表，默认写入 player_daily_server_paths，由数据库按分区键分发
+     */
+    protected String serverPathTable(long time) {
+        return SERVER_PATHS;
+    }
+
+    /**
+     * @param time UNIX 时间戳（秒）
+     * @return 该时间的服务器路径所属的月份，与写入的时间字符串取同一个月份
+     */
+    protected static YearMonth serverPathMonth(long time) {
+        return YearMonth.parse(TimeUtil.DateTimeConverter.fromTimestamp(time).substring(0, 7));
+    }
+
+    // 服务器信息
+
+    @Override
+    public void initializeServerInfo(long startupTime) throws SQLException {
+        databaseUtil.write("initializeServerInfo", connection -> {
+            Integer count = SqlQuery.queryFirst(connection, "SELECT COUNT(*) FROM server_info",
+                    SqlQuery.NO_PARAMETERS, rs -> rs.getInt(1));
+            if (count != null && count > 0) {
+                return;
+            }
+            SqlQuery.update(connection, "INSERT INTO server_info (startup_time, last_report_generation_time) VALUES (?, NULL)",
+                    statement -> statement.setString(1, TimeUtil.DateConverter.fromTimestamp(startupTime)));
+        });
+    }
+
+    @Override
+    public void updateLastReportGenerationTime(long time) throws SQLException {
+        databaseUtil.update("updateLastReportGenerationTime", "UPDATE server_info SET last_report_generation_time = ?",
+                statement -> statement.setString(1, TimeUtil.DateConverter.fromTimestamp(time)));
+    }
+
+    @Override
+    public ServerInfoData getServerInfo() throws SQLException {
+        return databaseUtil.queryFirst("getServerInfo",
+                "SELECT startup_time, last_report_generation_time FROM server_info LIMIT 1", SqlQuery.NO_PARAMETERS, rs -> {
+                    ServerInfoData serverInfo = new ServerInfoData();
+                    serverInfo.startupTime = rs.getString("startup_time");
+                    serverInfo.lastReportGenerationTime = rs.getString("last_report_generation_time");
+                    return serverInfo;
+                });
+    }
+
+    // 玩家数据
+
+    @Override
+    public PlayerData getPlayerData(UUID uuid) throws SQLException {
+        return databaseUtil.queryFirst("getPlayerData",
+                "SELECT id, uuid, username, first_join_time, last_login_time, play_time FROM player_data WHERE uuid = ?",
+                statement -> statement.setString(1, uuid.toString()), this::readPlayerData);
+    }
+
+    @Override
+    public PlayerData getPlayerDataByName(String usernameLower) throws SQLException {
+        return databaseUtil.queryFirst("getPlayerDataByName",
+                "SELECT id, uuid, username, first_join_time, last_login_time, play_time FROM player_data " +
+                        "WHERE username_lower = ? ORDER BY last_login_time DESC LIMIT 1",
+                statement -> statement.setString(1, usernameLower), this::readPlayerData);
+    }
+
+    /**
+     * 从结果集的当前行读取玩家数据
+     */
+    private PlayerData readPlayerData(ResultSet rs) throws SQLException {
+        PlayerData playerData = new PlayerData();
+        playerData.id = rs.getInt("id");
+        playerData.uuid = UUID.fromString(rs.getString("uuid"));
+        playerData.username = rs.getString("username");
+        playerData.firstJoinTime = toLocalDateTime(readTimestamp(rs, "first_join_time"));
+        playerData.lastLoginTime = toLocalDateTime(readTimestamp(rs, "last_login_time"));
+        // play_time 为 HH:mm:ss 格式
+        playerData.playTime = TimeUtil.TimePeriodConverter.toSeconds(rs.getString("play_time"));
+        return playerData;
+    }
+
+    @Override
+    public void forEachPlayerServerPath(UUID uuid, ServerPathVisitor visitor) throws SQLException {
+        try (Connection connection = databaseUtil.getConnection("loadPlayerServerPaths");
+             PreparedStatement statement = prepareStreaming(connection,
+                     "SELECT time, from_server, to_server FROM player_daily_server_paths WHERE uuid = ? ORDER BY time")) {
+            statement.setString(1, uuid.toString());
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    visitor.accept(uuid, readTimestamp(rs, "time"), rs.getString("from_server"), rs.getString("to_server"));
+                }
+            }
+        }
+    }
+
+    private LocalDateTime toLocalDateTime(long timestamp) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(timestamp), ZoneId.systemDefault());
+    }
+
+    @Override
+    public void forEachPlayerName(BiConsumer<UUID, String> consumer) throws SQLException {
+        try (Connection connection = databaseUtil.getConnection("forEachPlayerName");
+             PreparedStatement statement = prepareStreaming(connection, "SELECT uuid, username FROM player_data");
+             ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                UUID uuid;
+                try {
+                    uuid = UUID.fromString(rs.getString("uuid"));
+                } catch (IllegalArgumentException e) {
+                    logger.warn("Skipping player with invalid UUID '{}'", rs.getString("uuid"));
+                    continue;
+                }
+                consumer.accept(uuid, rs.getString("username"));
+            }
+        }
+    }
+
+    @Override
+    public void createPlayer(UUID uuid, String playerName, long time) throws SQLException {
+        String dateTimeStr = TimeUtil.DateTimeConverter.fromTimestamp(time);
+        String dateStr = TimeUtil.DateConverter.fromTimestamp(time);
+
+        databaseUtil.write("createPlayerData", connection -> {
+            SqlQuery.update(connection,
+                    "INSERT INTO player_data (uuid, username, username_lower, first_join_time, last_login_time, play_time) VALUES (?, ?, ?, ?, ?, ?)",
+                    statement -> {
+                        statement.setString(1, uuid.toString());
+                        statement.setString(2, playerName);
+                        statement.setString(3, playerName.toLowerCase(Locale.ROOT));
+                        statement.setString(4, dateTimeStr);
+                        statement.setString(5, dateTimeStr);
+                        statement.setString(6, TimeUtil.TimePeriodConverter.fromSeconds(0));
+                    });
+
+            // 计入当日新玩家数量
+            SqlQuery.update(connection, incrementNewPlayersSql(), statement -> statement.setString(1, dateStr));
+
+            SqlQuery.update(connection, insertIgnoreSql("daily_new_players_info (time, uuid, original_username) VALUES (?, ?, ?)"),
+                    statement -> {
+                        statement.setString(1, dateTimeStr);
+                        statement.setString(2, uuid.toString());
+                        statement.setString(3, playerName);
+                    });
+        });
+    }
+
+    @Override
+    public boolean updatePlayerLogin(UUID uuid, String playerName, long time) throws SQLException {
+        return databaseUtil.update("updatePlayerOnLogin",
+                "UPDATE player_data SET username = ?, username_lower = ?, last_login_time = ? WHERE uuid = ?",
+                statement -> {
+                    statement.setString(1, playerName);
+                    statement.setString(2, playerName.toLowerCase(Locale.ROOT));
+                    statement.setString(3, TimeUtil.DateTimeConverter.fromTimestamp(time));
+                    statement.setString(4, uuid.toString());
+                }) > 0;
+    }
+
+    // 会话
+
+    @Override
+    public void openSession(UUID uuid, long time) throws SQLException {
+        databaseUtil.write("openSession", connection -> {
+            int updated = SqlQuery.update(connection,
+                    "UPDATE open_sessions SET start_time = ?, last_checkpoint = ? WHERE uuid = ?", statement -> {
+                        statement.setLong(1, time);
+                        statement.setLong(2, time);
+                        statement.setString(3, uuid.toString());
+                    });
+            if (updated == 0) {
+                SqlQuery.update(connection, "INSERT INTO open_sessions (uuid, start_time, last_checkpoint) VALUES (?, ?, ?)",
+                        statement -> {
+                            statement.setString(1, uuid.toString());
+                            statement.setLong(2, time);
+                            statement.setLong(3, time);
+                        });
+            }
+        });
+    }
+
+    /**
+     * 会话记录只更新不插入，重放活动日志时不会重新建立已经结算的会话；
+     * 结算时间不晚于会话已记录的结算时间时说明这次结算已经计入过（重放中断后重复执行），不再累加游戏时间；
+     * 时间戳精确到秒，同一秒内开始并结束的会话同样不累加，但结束会话时始终删除会话记录
+     */
+    @Override
+    public boolean addSessionPlayTime(UUID uuid, long seconds, long time, boolean endSession) throws SQLException {
+        boolean[] found = new boolean[1];
+        databaseUtil.write("updatePlayerPlayTime", connection -> {
+            Long checkpoint = SqlQuery.queryFirst(connection, "SELECT last_checkpoint FROM open_sessions WHERE uuid = ?",
+                    statement -> statement.setString(1, uuid.toString()), rs -> rs.getLong(1));
+            boolean settled = checkpoint != null && time <= checkpoint;
+            found[0] = settled || addPlayTime(connection, Map.of(uuid, seconds)) > 0;
+            if (endSession) {
+                SqlQuery.update(connection, "DELETE FROM open_sessions WHERE uuid = ?",
+                        statement -> statement.setString(1, uuid.toString()));
+            } else if (!settled) {
+                SqlQuery.update(connection, "UPDATE open_sessions SET last_checkpoint = ? WHERE uuid = ?", statement -> {
+                    statement.setLong(1, time);
+                    statement.setString(2, uuid.toString());
+                });
+            }
+        });
+        return found[0];
+    }
+
+    @Override
+    public int closeSessions(Map<UUID, Long> secondsByPlayer) throws SQLException {
+        int[] updated = new int[1];
+        databaseUtil.write("closeSessions", connection -> {
+            updated[0] = addPlayTime(connection, secondsByPlayer);
+            SqlQuery.batch(connection, "DELETE FROM open_sessions WHERE uuid = ?", secondsByPlayer.keySet(),
+                    (statement, uuid) -> statement.setString(1, uuid.toString()));
+        });
+        return updated[0];
+    }
+
+    @Override
+    public int recoverOpenSessions(long now, long maxCreditSeconds) throws SQLException {
+        int[] recovered = new int[1];
+        databaseUtil.write("recoverOpenSessions", connection -> {
+            Map<UUID, Long> credits = new LinkedHashMap<>();
+            SqlQuery.forEach(connection, "SELECT uuid, last_checkpoint FROM open_sessions", SqlQuery.NO_PARAMETERS, rs -> {
+                UUID uuid;
+                try {
+                    uuid = UUID.fromString(rs.getString("uuid"));
+                } catch (IllegalArgumentException e) {
+                    logger.warn("Skipping open session with invalid UUID '{}'", rs.getString("uuid"));
+                    return;
+                }
+                credits.put(uuid, Math.max(0L, Math.min(maxCreditSeconds, now - rs.getLong("last_checkpoint"))));
+            });
+            addPlayTime(connection, credits);
+            SqlQuery.update(connection, "DELETE FROM open_sessions", SqlQuery.NO_PARAMETERS);
+            recovered[0] = credits.size();
+        });
+        return recovered[0];
+    }
+
+    @Override
+    public void insertPlayerSessions(List<PlayerSession> sessions) throws SQLException {
+        databaseUtil.write("insertPlayerSessions", connection -> SqlQuery.batch(connection,
+                "INSERT INTO player_sessions (uuid, server_name, start_time, duration) VALUES (?, ?, ?, ?)",
+                sessions, (statement, session) -> {
+                    statement.setString(1, session.uuid.toString());
+                    statement.setString(2, session.serverName);
+                    statement.setLong(3, session.startTime);
+                    statement.setLong(4, session.duration);
+                }));
+    }
+
+    @Override
+    public void forEachPlayerSession(LocalDate startDate, LocalDate endDate, PlayerSessionVisitor visitor) throws SQLException {
+        try (Connection connection = databaseUtil.getConnection("forEachPlayerSession");
+             PreparedStatement statement = prepareStreaming(connection,
+                     "SELECT uuid, server_name, start_time, duration FROM player_sessions " +
+                             "WHERE start_time >= ? AND start_time < ? ORDER BY start_time")) {
+            statement.setLong(1, startOfDay(startDate));
+            statement.setLong(2, startOfDay(endDate.plusDays(1)));
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    UUID uuid;
+                    try {
+                        uuid = UUID.fromString(rs.getString("uuid"));
+                    } catch (IllegalArgumentException e) {
+                        logger.warn("Skipping player session with invalid UUID '{}'", rs.getString("uuid"));
+                        continue;
+                    }
+                    visitor.accept(uuid, rs.getString("server_name"), rs.getLong("start_time"), rs.getLong("duration"));
+                }
+            }
+        }
+    }
+
+    /**
+     * 在写入连接上累加多名玩家的游戏时间，先逐个读取当前游戏时间，再以一个批次写回
+     *
+     * @return 实际更新的玩家数量
+     */
+    private int addPlayTime(Connection connection, Map<UUID, Long> secondsByPlayer) throws SQLException {
+        List<Map.Entry<UUID, Long>> totals = new ArrayList<>(secondsByPlayer.size());
+        for (Map.Entry<UUID, Long> entry : secondsByPlayer.entrySet()) {
+            Long playTime = SqlQuery.queryFirst(connection, "SELECT play_time FROM player_data WHERE uuid = ?",
+                    statement -> statement.setString(1, entry.getKey().toString()),
+                    rs -> TimeUtil.TimePeriodConverter.toSeconds(rs.getString(1)));
+            if (playTime != null) {
+                totals.add(Map.entry(entry.getKey(), playTime + entry.getValue()));
+            }
+        }
+        if (!totals.isEmpty()) {
+            SqlQuery.batch(connection, "UPDATE player_data SET play_time = ? WHERE uuid = ?", totals,
+                    (statement, total) -> {
+                        statement.setString(1, TimeUtil.TimePeriodConverter.fromSeconds(total.getValue()));
+                        statement.setString(2, total.getKey().toString());
+                    });
+        }
+        return totals.size();
+    }
+
+    @Override
+    public void insertServerPath(UUID uuid, long time, String fromServer, String toServer) throws SQLException {
+        YearMonth month = serverPathMonth(time);
+        databaseUtil.write("updatePlayerServerLogin", connection -> {
+            // 重放的旧事件或跨月时分区可能还没有建立，先建立该月份的分区，避免写入失败后事件被丢弃
+            if (!serverPathMonths.contains(month)) {
+                ensureServerPathPartitions(connection, month, month);
+            }
+            SqlQuery.update(connection,
+                    insertIgnoreSql(serverPathTable(time) + " (time, uuid, from_server, to_server) VALUES (?, ?, ?, ?)"),
+                    statement -> {
+                        statement.setString(1, TimeUtil.DateTimeConverter.fromTimestamp(time));
+                        statement.setString(2, uuid.toString());
+                        statement.setString(3, fromServer);
+                        statement.setString(4, toServer);
+                    });
+        });
+        // 事务提交后才记录，回滚时分区的建立也一同撤销
+        serverPathMonths.add(month);
+    }
+
+    @Override
+    public void forEachServerPath(LocalDate startDate, LocalDate endDate, ServerPathVisitor visitor) throws SQLException {
+        try (Connection connection = databaseUtil.getConnection("forEachServerPath");
+             PreparedStatement statement = prepareStreaming(connection,
+                     "SELECT time, uuid, from_server, to_server FROM player_daily_server_paths " +
+                             "WHERE time >= ? AND time < ? ORDER BY time")) {
+            bindDateRange(statement, 1, startDate, endDate);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    UUID uuid;
+                    try {
+                        uuid = UUID.fromString(rs.getString("uuid"));
+                    } catch (IllegalArgumentException e) {
+                        logger.warn("Skipping server path with invalid UUID '{}'", rs.getString("uuid"));
+                        continue;
+                    }
+                    visitor.accept(uuid, readTimestamp(rs, "time"), rs.getString("from_server"), rs.getString("to_server"));
+                }
+            }
+        }
+    }
+
+    /**
+     * 过期分区先按（日期, 小时, 目标服务器）汇总切换次数和玩家数量，再整体删除；
+     * 汇总表有唯一键，删除失败后重新执行不会重复汇总
+     */
+    @Override
+    public int maintainServerPathPartitions(YearMonth currentMonth, YearMonth retainFrom) throws SQLException {
+        int[] dropped = new int[1];
+        databaseUtil.write("maintainServerPathPartitions", connection -> {
+            List<YearMonth> months = ensureServerPathPartitions(connection, currentMonth, currentMonth.plusMonths(1));
+            if (retainFrom == null) {
+                return;
+            }
+            String day = dateExpression("time");
+            String hour = hourExpression("time");
+            for (YearMonth month : months) {
+                if (!month.isBefore(retainFrom)) {
+                    continue;
+                }
+                SqlQuery.update(connection,
+                        insertIgnoreSql("server_path_rollup (time, hour, to_server, switches, players) " +
+                                "SELECT " + day + ", " + hour + ", to_server, COUNT(*), COUNT(DISTINCT uuid) " +
+                                "FROM " + serverPathPartitionSource(month) + " " +
+                                "GROUP BY " + day + ", " + hour + ", to_server"),
+                        SqlQuery.NO_PARAMETERS);
+                dropServerPathPartition(connection, month);
+                dropped[0]++;
+            }
+        });
+        // 删除的月份不能再视为已有分区，之后写入时重新确认
+        serverPathMonths.clear();
+        return dropped[0];
+    }
+
+    // 在线峰值
+
+    @Override
+    public void updatePeakOnline(LocalDate date, int onlineCount) throws SQLException {
+        databaseUtil.write("updateHistoricalPeakOnline", connection -> {
+            SqlQuery.update(connection, upsertDailyPeakSql(), statement -> {
+                statement.setString(1, date.toString());
+                statement.setInt(2, onlineCount);
+            });
+
+            // server_tracking 只有一行，先按条件更新，没有任何行时再插入
+            int updated = SqlQuery.update(connection,
+                    "UPDATE server_tracking SET historical_peak_online = ? WHERE historical_peak_online < ?", statement -> {
+                        statement.setInt(1, onlineCount);
+                        statement.setInt(2, onlineCount);
+                    });
+            if (updated > 0) {
+                return;
+            }
+            Integer count = SqlQuery.queryFirst(connection, "SELECT COUNT(*) FROM server_tracking",
+                    SqlQuery.NO_PARAMETERS, rs -> rs.getInt(1));
+            if (count != null && count > 0) {
+                return;
+            }
+            SqlQuery.update(connection, "INSERT INTO server_tracking (historical_peak_online) VALUES (?)",
+                    statement -> statement.setInt(1, onlineCount));
+        });
+    }
+
+    @Override
+    public void updateSubServerPeakOnline(LocalDate date, String serverName, int onlineCount) throws SQLException {
+        databaseUtil.update("updateSubServerPeakOnline", upsertSubServerPeakSql(), statement -> {
+            statement.setString(1, date.toString());
+            statement.setString(2, serverName);
+            statement.setInt(3, onlineCount);
+        });
+    }
+
+    @Override
+    public int getHistoricalPeakOnline() throws SQLException {
+        return queryInt("getHistoricalPeakOnline", "SELECT historical_peak_online FROM server_tracking LIMIT 1");
+    }
+
+    // 报表统计
+
+    @Override
+    public Map<String, Integer> getDailyPeakOnline(LocalDate startDate, LocalDate endDate) throws SQLException {
+        return queryDateCounts("getDailyPeakOnlinePlayers",
+                "SELECT time, overall FROM daily_peak_online WHERE time BETWEEN ? AND ? ORDER BY time",
+                startDate, endDate, -1);
+    }
+
+    @Override
+    public int getTotalPlayerCount() throws SQLException {
+        return queryInt("getTotalPlayerCount", "SELECT COUNT(*) FROM player_data");
+    }
+
+    @Override
+    public int getNewPlayerCount(LocalDate startDate, LocalDate endDate) throws SQLException {
+        return queryInt("getNewPlayerCount", "SELECT SUM(overall) FROM daily_new_players WHERE time BETWEEN ? AND ?",
+                startDate.toString(), endDate.toString());
+    }
+
+    @Override
+    public int countPlayersWithPlayTimeOver(long seconds) throws SQLException {
+        return queryInt("getCorePlayerCount", "SELECT COUNT(*) FROM player_data WHERE play_time > ?",
+                TimeUtil.TimePeriodConverter.fromSeconds(seconds));
+    }
+
+    @Override
+    public int countPlayersLastLoginBefore(LocalDate cutoffDate) throws SQLException {
+        return queryInt("getAtRiskPlayerCount", "SELECT COUNT(*) FROM player_data WHERE last_login_time < ?",
+                cutoffDate.toString());
+    }
+
+    @Override
+    public double getAverageDailyPeak(LocalDate startDate, LocalDate endDate) throws SQLException {
+        Double average = databaseUtil.queryFirst("getAverageDAU",
+                "SELECT AVG(overall) FROM daily_peak_online WHERE time BETWEEN ? AND ?",
+                SqlQuery.strings(startDate.toString(), endDate.toString()), rs -> rs.getDouble(1));
+        return average != null ? average : 0.0;
+    }
+
+    @Override
+    public Map<Integer, Integer> getHourlyDistribution(LocalDate startDate, LocalDate endDate) throws SQLException {
+        Map<Integer, Integer> hourlyData = new LinkedHashMap<>();
+        String hourExpression = hourExpression("time");
+        databaseUtil.forEach("getHourlyPlayerDistribution",
+                "SELECT " + hourExpression + " AS hour, COUNT(*) AS count FROM player_daily_server_paths " +
+                        "WHERE time >= ? AND time < ? GROUP BY " + hourExpression,
+                statement -> bindDateRange(statement, 1, startDate, endDate),
+                rs -> hourlyData.put(Integer.parseInt(rs.getString("hour")), rs.getInt("count")));
+        return hourlyData;
+    }
+
+    @Override
+    public Map<Integer, Integer> getWeeklyDistribution(LocalDate startDate, LocalDate endDate) throws SQLException {
+        Map<Integer, Integer> weeklyData = new LinkedHashMap<>();
+        String dayExpression = dayOfWeekExpression(dateExpression("time"));
+        databaseUtil.forEach("getWeeklyPlayerDistribution",
+                "SELECT " + dayExpression + " AS day, COUNT(*) AS count FROM player_daily_server_paths " +
+                        "WHERE time >= ? AND time < ? GROUP BY " + dayExpression,
+                statement -> bindDateRange(statement, 1, startDate, endDate),
+                rs -> weeklyData.merge(toIsoDayOfWeek(Integer.parseInt(rs.getString("day"))), rs.getInt("count"), Integer::sum));
+        return weeklyData;
+    }
+
+    @Override
+    public Map<String, Integer> getServerDistribution(LocalDate startDate, LocalDate endDate) throws SQLException {
+        Map<String, Integer> serverData = new LinkedHashMap<>();
+        databaseUtil.forEach("getServerDistribution",
+                "SELECT to_server, COUNT(DISTINCT uuid) AS player_count FROM player_daily_server_paths " +
+                        "WHERE time >= ? AND time < ? GROUP BY to_server ORDER BY player_count DESC",
+                statement -> bindDateRange(statement, 1, startDate, endDate),
+                rs -> serverData.put(rs.getString("to_server"), rs.getInt("player_count")));
+        return serverData;
+    }
+
+    @Override
+    public List<TopPlayerByPlayTime> getTopPlayersByPlayTime(int limit) throws SQLException {
+        return databaseUtil.query("getTopPlayersByPlayTime",
+                "SELECT username, play_time FROM player_data ORDER BY play_time DESC LIMIT ?",
+                statement -> statement.setInt(1, limit), JdbcStorageBackend::readTopPlayer);
+    }
+
+    /**
+     * 从结果集的当前行读取游戏时间排行中的玩家
+     */
+    protected static TopPlayerByPlayTime readTopPlayer(ResultSet rs) throws SQLException {
+        TopPlayerByPlayTime player = new TopPlayerByPlayTime();
+        player.username = rs.getString("username");
+        player.playTime = rs.getString("play_time");
+        return player;
+    }
+
+    @Override
+    public Map<String, Integer> getTopPlayerDays(int limit, LocalDate startDate, LocalDate endDate) throws SQLException {
+        return queryDateCounts("getTopPlayerDays",
+                "SELECT time, overall FROM daily_peak_online WHERE time BETWEEN ? AND ? ORDER BY overall DESC LIMIT ?",
+                startDate, endDate, limit);
+    }
+
+    @Override
+    public List<PopularServer> getPopularServers(int limit, LocalDate startDate, LocalDate endDate) throws SQLException {
+        Map<String, Long> dwellTime = getAverageServerDwellTime(startDate, endDate);
+        return databaseUtil.query("getPopularServers",
+                "SELECT to_server, COUNT(DISTINCT uuid) AS player_count " +
+                        "FROM player_daily_server_paths " +
+                        "WHERE time >= ? AND time < ? " +
+                        "GROUP BY to_server " +
+                        "ORDER BY player_count DESC LIMIT ?",
+                statement -> {
+                    bindDateRange(statement, 1, startDate, endDate);
+                    statement.setInt(3, limit);
+                },
+                rs -> {
+                    PopularServer server = new PopularServer();
+                    server.serverName = rs.getString("to_server");
+                    server.playerCount = rs.getInt("player_count");
+                    // 将秒数转换为分钟
+                    server.avgPlayTimeMinutes = (int) (dwellTime.getOrDefault(server.serverName, 0L) / 60);
+                    return server;
+                });
+    }
+
+    @Override
+    public Map<String, Long> getAverageServerDwellTime(LocalDate startDate, LocalDate endDate) throws SQLException {
+        Map<String, Long> result = new LinkedHashMap<>();
+        databaseUtil.forEach("getAverageServerDwellTime",
+                "SELECT server_name, SUM(duration) AS total_seconds, COUNT(DISTINCT uuid) AS player_count " +
+                        "FROM player_sessions WHERE start_time >= ? AND start_time < ? GROUP BY server_name",
+                statement -> {
+                    statement.setLong(1, startOfDay(startDate));
+                    statement.setLong(2, startOfDay(endDate.plusDays(1)));
+                },
+                rs -> result.put(rs.getString("server_name"), rs.getLong("total_seconds") / rs.getLong("player_count")));
+        return result;
+    }
+
+    /**
+     * @return 本地时区中该日期开始时的 UNIX 时间戳（秒）
+     */
+    private static long startOfDay(LocalDate date) {
+        return date.atStartOfDay(ZoneId.systemDefault()).toEpochSecond();
+    }
+
+    // 服务器延迟与可用性
+
+    @Override
+    public void insertServerLatencyHistory(List<ServerLatencyRecord> records) throws SQLException {
+        databaseUtil.write("insertServerLatencyHistory", connection -> SqlQuery.batch(connection,
+                "INSERT INTO server_latency_history (time, server_name, samples, online_samples, " +
+                        "avg_latency, max_latency, avg_players, outages) VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                records, (statement, record) -> {
+                    statement.setString(1, TimeUtil.DateTimeConverter.fromTimestamp(record.time));
+                    statement.setString(2, record.serverName);
+                    statement.setInt(3, record.samples);
+                    statement.setInt(4, record.onlineSamples);
+                    statement.setInt(5, record.avgLatency);
+                    statement.setInt(6, record.maxLatency);
+                    statement.setInt(7, record.avgPlayers);
+                    statement.setInt(8, record.outages);
+                }));
+    }
+
+    @Override
+    public List<ServerHealth> getServerHealth(LocalDate startDate, LocalDate endDate) throws SQLException {
+        return databaseUtil.query("getServerHealth",
+                "SELECT server_name, SUM(samples) AS samples, SUM(online_samples) AS online_samples, " +
+                        "SUM(CASE WHEN avg_latency >= 0 THEN avg_latency * online_samples ELSE 0 END) AS latency_sum, " +
+                        "MAX(max_latency) AS max_latency, SUM(outages) AS outages " +
+                        "FROM server_latency_history " +
+                        "WHERE time >= ? AND time < ? " +
+                        "GROUP BY server_name ORDER BY server_name",
+                statement -> bindDateRange(statement, 1, startDate, endDate),
+                rs -> ServerHealth.of(rs.getString("server_name"), rs.getLong("samples"), rs.getLong("online_samples"),
+                        rs.getLong("latency_sum"), rs.getInt("max_latency"), rs.getInt("outages")));
+    }
+
+    // 通用查询方法
+
+    /**
+     * 绑定 [startDate, endDate] 的日期范围，对 ISO 8601 时间字符串按 [startDate, endDate + 1) 的字符串范围过滤
+     */
+    protected void bindDateRange(PreparedStatement statement, int index, LocalDate startDate, LocalDate endDate) throws SQLException {
+        statement.setString(index, startDate.toString());
+        statement.setString(index + 1, endDate.plusDays(1).toString());
+    }
+
+    /**
+     * 执行只返回一个整数的查询，没有结果时返回 0
+     */
+    protected int queryInt(String queryName, String sql, String... parameters) throws SQLException {
+        Integer value = databaseUtil.queryFirst(queryName, sql, SqlQuery.strings(parameters), rs -> rs.getInt(1));
+        return value != null ? value : 0;
+    }
+
+    /**
+     * 执行返回（日期, 数量）两列的查询，按查询结果的顺序返回
+     *
+     * @param limit 大于 0 时作为第三个参数绑定
+     */
+    private Map<String, Integer> queryDateCounts(String queryName, String sql, LocalDate startDate, LocalDate endDate,
+                                                 int limit) throws SQLException {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        databaseUtil.forEach(queryName, sql, statement -> {
+            statement.setString(1, startDate.toString());
+            statement.setString(2, endDate.toString());
+            if (limit > 0) {
+                statement.setInt(3, limit);
+            }
+        }, rs -> result.put(rs.getString(1), rs.getInt(2)));
+        return result;
+    }
+}
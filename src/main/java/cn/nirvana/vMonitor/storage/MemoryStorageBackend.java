@@ -0,0 +1,500 @@
+package cn.nirvana.vMonitor.storage;
+
+import cn.nirvana.vMonitor.loader.DataLoader.PlayerData;
+import cn.nirvana.vMonitor.loader.DataLoader.PlayerSession;
+import cn.nirvana.vMonitor.loader.DataLoader.PopularServer;
+import cn.nirvana.vMonitor.loader.DataLoader.ServerHealth;
+import cn.nirvana.vMonitor.loader.DataLoader.ServerInfoData;
+import cn.nirvana.vMonitor.loader.DataLoader.ServerLatencyRecord;
+import cn.nirvana.vMonitor.loader.DataLoader.TopPlayerByPlayTime;
+import cn.nirvana.vMonitor.util.TimeUtil;
+
+import java.sql.SQLException;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * 内存存储后端
+ * 所有数据保存在内存中，代理关闭后丢失，用于测试和基准测试，排除数据库本身的开销。
+ * 所有方法在同一个锁上同步，语义与 JDBC 后端一致
+ */
+public class MemoryStorageBackend implements StorageBackend {
+    private ServerInfoData serverInfo;
+    private int historicalPeakOnline;
+    private int nextPlayerId = 1;
+
+    private final Map<UUID, StoredPlayer> players = new LinkedHashMap<>();
+    private final List<StoredPath> paths = new ArrayList<>();
+    // 日期 -> 当日峰值
+    private final Map<LocalDate, Integer> dailyPeakOnline = new TreeMap<>();
+    // 日期 -> 服务器名称 -> 当日峰值
+    private final Map<LocalDate, Map<String, Integer>> subServerPeakOnline = new HashMap<>();
+    // 日期 -> 当日新玩家数量
+    private final Map<LocalDate, Integer> dailyNewPlayers = new HashMap<>();
+    private final List<ServerLatencyRecord> latencyHistory = new ArrayList<>();
+    // 进行中的会话：玩家 UUID -> 最后结算时间（秒）
+    private final Map<UUID, Long> openSessionCheckpoints = new HashMap<>();
+    private final List<PlayerSession> sessions = new ArrayList<>();
+
+    private static final class StoredPlayer {
+        private int id;
+        private UUID uuid;
+        private String username;
+        private long firstJoinTime;
+        private long lastLoginTime;
+        private long playTime;
+    }
+
+    private static final class StoredPath {
+        private long time;
+        private UUID uuid;
+        private String from;
+        private String to;
+    }
+
+    // 服务器信息
+
+    @Override
+    public synchronized void initializeServerInfo(long startupTime) {
+        if (serverInfo == null) {
+            serverInfo = new ServerInfoData();
+            serverInfo.startupTime = TimeUtil.DateConverter.fromTimestamp(startupTime);
+            serverInfo.lastReportGenerationTime = null;
+        }
+    }
+
+    @Override
+    public synchronized void updateLastReportGenerationTime(long time) {
+        if (serverInfo != null) {
+            serverInfo.lastReportGenerationTime = TimeUtil.DateConverter.fromTimestamp(time);
+        }
+    }
+
+    @Override
+    public synchronized ServerInfoData getServerInfo() {
+        if (serverInfo == null) {
+            return null;
+        }
+        ServerInfoData copy = new ServerInfoData();
+        copy.startupTime = serverInfo.startupTime;
+        copy.lastReportGenerationTime = serverInfo.lastReportGenerationTime;
+        return copy;
+    }
+
+    // 玩家数据
+
+    @Override
+    public synchronized PlayerData getPlayerData(UUID uuid) {
+        StoredPlayer player = players.get(uuid);
+        return player != null ? toPlayerData(player) : null;
+    }
+
+    @Override
+    public synchronized PlayerData getPlayerDataByName(String usernameLower) {
+        return players.values().stream()
+                .filter(player -> player.username.toLowerCase(Locale.ROOT).equals(usernameLower))
+                .max(Comparator.comparingLong(player -> player.lastLoginTime))
+                .map(this::toPlayerData)
+                .orElse(null);
+    }
+
+    private PlayerData toPlayerData(StoredPlayer player) {
+        PlayerData playerData = new PlayerData();
+        playerData.id = player.id;
+        playerData.uuid = player.uuid;
+        playerData.username = player.username;
+        playerData.firstJoinTime = toLocalDateTime(player.firstJoinTime);
+        playerData.lastLoginTime = toLocalDateTime(player.lastLoginTime);
+        playerData.playTime = player.playTime;
+        return playerData;
+    }
+
+    @Override
+    public void forEachPlayerServerPath(UUID uuid, ServerPathVisitor visitor) throws SQLException {
+        List<StoredPath> selected = new ArrayList<>();
+        synchronized (this) {
+            for (StoredPath path : paths) {
+                if (path.uuid.equals(uuid)) {
+                    selected.add(path);
+                }
+            }
+        }
+        selected.sort(Comparator.comparingLong(path -> path.time));
+        for (StoredPath path : selected) {
+            visitor.accept(path.uuid, path.time, path.from, path.to);
+        }
+    }
+
+    @Override
+    public void forEachPlayerName(BiConsumer<UUID, String> consumer) {
+        Map<UUID, String> names = new LinkedHashMap<>();
+        synchronized (this) {
+            players.values().forEach(player -> names.put(player.uuid, player.username));
+        }
+        names.forEach(consumer);
+    }
+
+    @Override
+    public synchronized void createPlayer(UUID uuid, String playerName, long time) {
+        if (players.containsKey(uuid)) {
+            return;
+        }
+        StoredPlayer player = new StoredPlayer();
+        player.id = nextPlayerId++;
+        player.uuid = uuid;
+        player.username = playerName;
+        player.firstJoinTime = time;
+        player.lastLoginTime = time;
+        players.put(uuid, player);
+        dailyNewPlayers.merge(toLocalDate(time), 1, Integer::sum);
+    }
+
+    @Override
+    public synchronized boolean updatePlayerLogin(UUID uuid, String playerName, long time) {
+        StoredPlayer player = players.get(uuid);
+        if (player == null) {
+            return false;
+        }
+        player.username = playerName;
+        player.lastLoginTime = time;
+        return true;
+    }
+
+    @Override
+    public synchronized void openSession(UUID uuid, long time) {
+        openSessionCheckpoints.put(uuid, time);
+    }
+
+    @Override
+    public synchronized boolean addSessionPlayTime(UUID uuid, long seconds, long time, boolean endSession) {
+        Long checkpoint = openSessionCheckpoints.get(uuid);
+        boolean settled = checkpoint != null && time <= checkpoint;
+        if (endSession) {
+            openSessionCheckpoints.remove(uuid);
+        } else if (!settled) {
+            openSessionCheckpoints.replace(uuid, time);
+        }
+        StoredPlayer player = players.get(uuid);
+        if (player == null) {
+            return false;
+        }
+        if (!settled) {
+            player.playTime += seconds;
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized int closeSessions(Map<UUID, Long> secondsByPlayer) {
+        int updated = 0;
+        for (Map.Entry<UUID, Long> entry : secondsByPlayer.entrySet()) {
+            openSessionCheckpoints.remove(entry.getKey());
+            StoredPlayer player = players.get(entry.getKey());
+            if (player != null) {
+                player.playTime += entry.getValue();
+                updated++;
+            }
+        }
+        return updated;
+    }
+
+    @Override
+    public synchronized int recoverOpenSessions(long now, long maxCreditSeconds) {
+        Map<UUID, Long> credits = new HashMap<>();
+        for (Map.Entry<UUID, Long> entry : openSessionCheckpoints.entrySet()) {
+            credits.put(entry.getKey(), Math.max(0L, Math.min(maxCreditSeconds, now - entry.getValue())));
+        }
+        return closeSessions(credits);
+    }
+
+    @Override
+    public synchronized void insertPlayerSessions(List<PlayerSession> sessions) {
+        this.sessions.addAll(sessions);
+    }
+
+    @Override
+    public void forEachPlayerSession(LocalDate startDate, LocalDate endDate, PlayerSessionVisitor visitor) throws SQLException {
+        List<PlayerSession> selected = new ArrayList<>();
+        synchronized (this) {
+            for (PlayerSession session : sessions) {
+                if (inRange(toLocalDate(session.startTime), startDate, endDate)) {
+                    selected.add(session);
+                }
+            }
+        }
+        selected.sort(Comparator.comparingLong(session -> session.startTime));
+        for (PlayerSession session : selected) {
+            visitor.accept(session.uuid, session.serverName, session.startTime, session.duration);
+        }
+    }
+
+    @Override
+    public synchronized void insertServerPath(UUID uuid, long time, String fromServer, String toServer) {
+        StoredPath path = new StoredPath();
+        path.time = time;
+        path.uuid = uuid;
+        path.from = fromServer;
+        path.to = toServer;
+        paths.add(path);
+    }
+
+    @Override
+    public void forEachServerPath(LocalDate startDate, LocalDate endDate, ServerPathVisitor visitor) throws SQLException {
+        List<StoredPath> selected = new ArrayList<>();
+        synchronized (this) {
+            for (StoredPath path : paths) {
+                if (inRange(toLocalDate(path.time), startDate, endDate)) {
+                    selected.add(path);
+                }
+            }
+        }
+        selected.sort(Comparator.comparingLong(path -> path.time));
+        for (StoredPath path : selected) {
+            visitor.accept(path.uuid, path.time, path.from, path.to);
+        }
+    }
+
+    /**
+     * 内存中没有分区，过期月份的路径直接移除；内存数据不持久化，也不保留汇总结果
+     */
+    @Override
+    public synchronized int maintainServerPathPartitions(YearMonth currentMonth, YearMonth retainFrom) {
+        if (retainFrom == null) {
+            return 0;
+        }
+        Set<YearMonth> dropped = new HashSet<>();
+        paths.removeIf(path -> {
+            YearMonth month = YearMonth.from(toLocalDate(path.time));
+            if (!month.isBefore(retainFrom)) {
+                return false;
+            }
+            dropped.add(month);
+            return true;
+        });
+        return dropped.size();
+    }
+
+    // 在线峰值
+
+    @Override
+    public synchronized void updatePeakOnline(LocalDate date, int onlineCount) {
+        dailyPeakOnline.merge(date, onlineCount, Math::max);
+        historicalPeakOnline = Math.max(historicalPeakOnline, onlineCount);
+    }
+
+    @Override
+    public synchronized void updateSubServerPeakOnline(LocalDate date, String serverName, int onlineCount) {
+        subServerPeakOnline.computeIfAbsent(date, k -> new HashMap<>()).merge(serverName, onlineCount, Math::max);
+    }
+
+    @Override
+    public synchronized int getHistoricalPeakOnline() {
+        return historicalPeakOnline;
+    }
+
+    // 报表统计
+
+    @Override
+    public synchronized Map<String, Integer> getDailyPeakOnline(LocalDate startDate, LocalDate endDate) {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        dailyPeakOnline.forEach((date, peak) -> {
+            if (inRange(date, startDate, endDate)) {
+                result.put(date.toString(), peak);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public synchronized int getTotalPlayerCount() {
+        return players.size();
+    }
+
+    @Override
+    public synchronized int getNewPlayerCount(LocalDate startDate, LocalDate endDate) {
+        return dailyNewPlayers.entrySet().stream()
+                .filter(entry -> inRange(entry.getKey(), startDate, endDate))
+                .mapToInt(Map.Entry::getValue)
+                .sum();
+    }
+
+    @Override
+    public synchronized int countPlayersWithPlayTimeOver(long seconds) {
+        return (int) players.values().stream().filter(player -> player.playTime > seconds).count();
+    }
+
+    @Override
+    public synchronized int countPlayersLastLoginBefore(LocalDate cutoffDate) {
+        return (int) players.values().stream().filter(player -> toLocalDate(player.lastLoginTime).isBefore(cutoffDate)).count();
+    }
+
+    @Override
+    public synchronized double getAverageDailyPeak(LocalDate startDate, LocalDate endDate) {
+        return dailyPeakOnline.entrySet().stream()
+                .filter(entry -> inRange(entry.getKey(), startDate, endDate))
+                .mapToInt(Map.Entry::getValue)
+                .average()
+                .orElse(0.0);
+    }
+
+    @Override
+    public synchronized Map<Integer, Integer> getHourlyDistribution(LocalDate startDate, LocalDate endDate) {
+        Map<Integer, Integer> result = new TreeMap<>();
+        for (StoredPath path : paths) {
+            LocalDateTime time = toLocalDateTime(path.time);
+            if (inRange(time.toLocalDate(), startDate, endDate)) {
+                result.merge(time.getHour(), 1, Integer::sum);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized Map<Integer, Integer> getWeeklyDistribution(LocalDate startDate, LocalDate endDate) {
+        Map<Integer, Integer> result = new TreeMap<>();
+        for (StoredPath path : paths) {
+            LocalDate date = toLocalDate(path.time);
+            if (inRange(date, startDate, endDate)) {
+                result.merge(date.getDayOfWeek().getValue(), 1, Integer::sum);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized Map<String, Integer> getServerDistribution(LocalDate startDate, LocalDate endDate) {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        distinctPlayersByServer(startDate, endDate).entrySet().stream()
+                .sorted(Map.Entry.<String, Set<UUID>>comparingByValue(Comparator.comparingInt(Set::size)).reversed())
+                .forEach(entry -> result.put(entry.getKey(), entry.getValue().size()));
+        return result;
+    }
+
+    @Override
+    public synchronized List<TopPlayerByPlayTime> getTopPlayersByPlayTime(int limit) {
+        List<TopPlayerByPlayTime> result = new ArrayList<>();
+        players.values().stream()
+                .sorted(Comparator.comparingLong((StoredPlayer player) -> player.playTime).reversed())
+                .limit(limit)
+                .forEach(player -> {
+                    TopPlayerByPlayTime topPlayer = new TopPlayerByPlayTime();
+                    topPlayer.username = player.username;
+                    topPlayer.playTime = TimeUtil.TimePeriodConverter.fromSeconds(player.playTime);
+                    result.add(topPlayer);
+                });
+        return result;
+    }
+
+    @Override
+    public synchronized Map<String, Integer> getTopPlayerDays(int limit, LocalDate startDate, LocalDate endDate) {
+        Map<String, Integer> result = new LinkedHashMap<>();
+        dailyPeakOnline.entrySet().stream()
+                .filter(entry -> inRange(entry.getKey(), startDate, endDate))
+                .sorted(Map.Entry.<LocalDate, Integer>comparingByValue().reversed())
+                .limit(limit)
+                .forEach(entry -> result.put(entry.getKey().toString(), entry.getValue()));
+        return result;
+    }
+
+    @Override
+    public synchronized List<PopularServer> getPopularServers(int limit, LocalDate startDate, LocalDate endDate) {
+        List<PopularServer> result = new ArrayList<>();
+        Map<String, Long> dwellTime = getAverageServerDwellTime(startDate, endDate);
+        distinctPlayersByServer(startDate, endDate).entrySet().stream()
+                .sorted(Map.Entry.<String, Set<UUID>>comparingByValue(Comparator.comparingInt(Set::size)).reversed())
+                .limit(limit)
+                .forEach(entry -> {
+                    PopularServer server = new PopularServer();
+                    server.serverName = entry.getKey();
+                    server.playerCount = entry.getValue().size();
+                    server.avgPlayTimeMinutes = (int) (dwellTime.getOrDefault(entry.getKey(), 0L) / 60);
+                    result.add(server);
+                });
+        return result;
+    }
+
+    @Override
+    public synchronized Map<String, Long> getAverageServerDwellTime(LocalDate startDate, LocalDate endDate) {
+        Map<String, Long> totals = new HashMap<>();
+        Map<String, Set<UUID>> playersByServer = new HashMap<>();
+        for (PlayerSession session : sessions) {
+            if (inRange(toLocalDate(session.startTime), startDate, endDate)) {
+                totals.merge(session.serverName, session.duration, Long::sum);
+                playersByServer.computeIfAbsent(session.serverName, k -> new HashSet<>()).add(session.uuid);
+            }
+        }
+        Map<String, Long> result = new HashMap<>();
+        totals.forEach((serverName, total) -> result.put(serverName, total / playersByServer.get(serverName).size()));
+        return result;
+    }
+
+    private Map<String, Set<UUID>> distinctPlayersByServer(LocalDate startDate, LocalDate endDate) {
+        Map<String, Set<UUID>> result = new HashMap<>();
+        for (StoredPath path : paths) {
+            if (inRange(toLocalDate(path.time), startDate, endDate)) {
+                result.computeIfAbsent(path.to, k -> new HashSet<>()).add(path.uuid);
+            }
+        }
+        return result;
+    }
+
+    // 服务器延迟与可用性
+
+    @Override
+    public synchronized void insertServerLatencyHistory(List<ServerLatencyRecord> records) {
+        latencyHistory.addAll(records);
+    }
+
+    @Override
+    public synchronized List<ServerHealth> getServerHealth(LocalDate startDate, LocalDate endDate) {
+        // 服务器名称 -> {样本数, 在线样本数, 延迟总和, 最大延迟, 离线次数}
+        Map<String, long[]> totals = new TreeMap<>();
+        for (ServerLatencyRecord record : latencyHistory) {
+            if (!inRange(toLocalDate(record.time), startDate, endDate)) {
+                continue;
+            }
+            long[] total = totals.computeIfAbsent(record.serverName, k -> new long[5]);
+            total[0] += record.samples;
+            total[1] += record.onlineSamples;
+            if (record.avgLatency >= 0) {
+                total[2] += (long) record.avgLatency * record.onlineSamples;
+            }
+            total[3] = Math.max(total[3], record.maxLatency);
+            total[4] += record.outages;
+        }
+
+        List<ServerHealth> result = new ArrayList<>();
+        totals.forEach((serverName, total) ->
+                result.add(ServerHealth.of(serverName, total[0], total[1], total[2], (int) total[3], (int) total[4])));
+        return result;
+    }
+
+    private boolean inRange(LocalDate date, LocalDate startDate, LocalDate endDate) {
+        return !date.isBefore(startDate) && !date.isAfter(endDate);
+    }
+
+    private LocalDate toLocalDate(long timestamp) {
+        return toLocalDateTime(timestamp).toLocalDate();
+    }
+
+    private LocalDateTime toLocalDateTime(long timestamp) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(timestamp), ZoneId.systemDefault());
+    }
+}
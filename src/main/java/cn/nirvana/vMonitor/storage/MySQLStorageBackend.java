@@ -0,0 +1,178 @@
+package cn.nirvana.vMonitor.storage;
+
+import cn.nirvana.vMonitor.util.DatabaseUtil;
+
+import org.slf4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * MySQL 存储后端
+ * 峰值与新玩家计数使用 ON DUPLICATE KEY UPDATE 更新插入，一条语句完成原来的先查询再更新。
+ * 服务器路径按时间字符串做 RANGE COLUMNS 分区，每月一个分区，末尾的 p_future 分区接收尚未建立分区的月份；
+ * 新月份的分区从空的 p_future 中拆分，过期月份使用 DROP PARTITION 删除，不需要逐行删除
+ */
+public class MySQLStorageBackend extends JdbcStorageBackend {
+    private static final String FUTURE_PARTITION = "p_future";
+    private static final Pattern MONTH_PARTITION = Pattern.compile("p(\\d{4})(\\d{2})");
+
+    public MySQLStorageBackend(DatabaseUtil databaseUtil, Logger logger) {
+        super(databaseUtil, logger);
+    }
+
+    @Override
+    protected String insertIgnoreSql(String intoClause) {
+        return "INSERT IGNORE INTO " + intoClause;
+    }
+
+    @Override
+    protected String upsertDailyPeakSql() {
+        return "INSERT INTO daily_peak_online (time, overall) VALUES (?, ?) " +
+                "ON DUPLICATE KEY UPDATE overall = GREATEST(overall, VALUES(overall))";
+    }
+
+    @Override
+    protected String upsertSubServerPeakSql() {
+        return "INSERT INTO sub_server_peak_online (time, server_name, peak_online) VALUES (?, ?, ?) " +
+                "ON DUPLICATE KEY UPDATE peak_online = GREATEST(peak_online, VALUES(peak_online))";
+    }
+
+    @Override
+    protected String incrementNewPlayersSql() {
+        return "INSERT INTO daily_new_players (time, overall) VALUES (?, 1) " +
+                "ON DUPLICATE KEY UPDATE overall = overall + 1";
+    }
+
+    @Override
+    protected String dayOfWeekExpression(String dateExpression) {
+        // DAYOFWEEK：1=周日，7=周六
+        return "DAYOFWEEK(" + dateExpression + ")";
+    }
+
+    @Override
+    protected int toIsoDayOfWeek(int dayOfWeek) {
+        return dayOfWeek == 1 ? 7 : dayOfWeek - 1;
+    }
+
+    @Override
+    protected String playTimeSecondsExpression(String column) {
+        return "TIME_TO_SEC(" + column + ")";
+    }
+
+    // 服务器路径分区
+
+    @Override
+    protected List<YearMonth> ensureServerPathPartitions(Connection connection, YearMonth first,
+                                                         YearMonth last) throws SQLException {
+        TreeSet<YearMonth> months = new TreeSet<>();
+        boolean partitioned = false;
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT PARTITION_NAME FROM information_schema.PARTITIONS " +
+                        "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL")) {
+            statement.setString(1, SERVER_PATHS);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    partitioned = true;
+                    Matcher matcher = MONTH_PARTITION.matcher(rs.getString(1));
+                    if (matcher.matches()) {
+                        months.add(YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))));
+                    }
+                }
+            }
+        }
+
+        if (!partitioned) {
+            return partitionLegacyTable(connection, first, last);
+        }
+
+        // 只能从末尾的 p_future 拆分，中间缺少的月份由下一个分区接收
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            if (!months.isEmpty() && !month.isAfter(months.last())) {
+                continue;
+            }
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ALTER TABLE " + SERVER_PATHS + " REORGANIZE PARTITION " + FUTURE_PARTITION +
+                        " INTO (" + monthPartitionDefinition(month) + ", " + futurePartitionDefinition() + ")");
+            }
+            months.add(month);
+        }
+        return new ArrayList<>(months);
+    }
+
+    @Override
+    protected String serverPathPartitionSource(YearMonth month) {
+        return SERVER_PATHS + " PARTITION (" + monthPartition(month) + ")";
+    }
+
+    @Override
+    protected void dropServerPathPartition(Connection connection, YearMonth month) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE " + SERVER_PATHS + " DROP PARTITION " + monthPartition(month));
+        }
+    }
+
+    /**
+     * 将旧版本创建的未分区表转换为按月分区，从已有数据的最早月份开始建立分区；
+     * 分区键必须包含在主键中，主键改为 (id, time)。只在升级后首次维护分区时执行一次，会重建整张表
+     *
+     * @return 建立的分区月份
+     */
+    private List<YearMonth> partitionLegacyTable(Connection connection, YearMonth first, YearMonth last) throws SQLException {
+        YearMonth oldest = first;
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT MIN(time) FROM " + SERVER_PATHS)) {
+            String minTime = rs.next() ? rs.getString(1) : null;
+            if (minTime != null && minTime.length() >= 7) {
+                YearMonth minMonth = YearMonth.parse(minTime.substring(0, 7));
+                if (minMonth.isBefore(oldest)) {
+                    oldest = minMonth;
+                }
+            }
+        } catch (DateTimeParseException e) {
+            logger.warn("Unexpected time format in {}, partitioning from {}: {}", SERVER_PATHS, oldest, e.getMessage());
+        }
+
+        List<YearMonth> months = new ArrayList<>();
+        List<String> definitions = new ArrayList<>();
+        for (YearMonth month = oldest; !month.isAfter(last); month = month.plusMonths(1)) {
+            months.add(month);
+            definitions.add(monthPartitionDefinition(month));
+        }
+        definitions.add(futurePartitionDefinition());
+
+        long start = System.nanoTime();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE " + SERVER_PATHS + " DROP PRIMARY KEY, ADD PRIMARY KEY (id, time) " +
+                    "PARTITION BY RANGE COLUMNS(time) (" + String.join(", ", definitions) + ")");
+        }
+        logger.info("Partitioned {} into {} monthly partitions in {} ms", SERVER_PATHS, months.size(),
+                (System.nanoTime() - start) / 1_000_000L);
+        return months;
+    }
+
+    private static String monthPartitionDefinition(YearMonth month) {
+        // 时间字符串以 yyyy-MM 开头，小于下个月的 yyyy-MM 即属于本月及更早
+        return "PARTITION " + monthPartition(month) + " VALUES LESS THAN ('" + month.plusMonths(1) + "')";
+    }
+
+    private static String futurePartitionDefinition() {
+        return "PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN (MAXVALUE)";
+    }
+
+    private static String monthPartition(YearMonth month) {
+        return String.format("p%04d%02d", month.getYear(), month.getMonthValue());
+    }
+}
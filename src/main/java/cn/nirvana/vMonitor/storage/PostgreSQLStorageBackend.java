@@ -0,0 +1,302 @@
+package cn.nirvana.vMonitor.storage;
+
+import cn.nirvana.vMonitor.loader.DataLoader.ServerLatencyRecord;
+import cn.nirvana.vMonitor.loader.DataLoader.TopPlayerByPlayTime;
+import cn.nirvana.vMonitor.util.DatabaseUtil;
+import cn.nirvana.vMonitor.util.TimeUtil;
+
+import org.postgresql.PGConnection;
+
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import java.time.YearMonth;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * PostgreSQL 存储后端
+ * 时间列使用 timestamptz、日期列使用 date、游戏时间使用 interval，按会话时区（即代理所在时区）换算本地日期和小时；
+ * 连接使用 stringtype=unspecified，字符串参数由服务器按列类型解析，通用 SQL 无需改动。
+ * 峰值与新玩家计数使用 ON CONFLICT 更新插入，延迟记录使用 COPY 批量写入。
+ * 服务器路径表按月声明式分区，每月的分区 player_daily_server_paths_yyyyMM 提前建立，过期月份直接删除分区表；
+ * 默认分区接收没有对应月份分区的路径，建立月份分区时把默认分区中该月的路径移入新分区
+ */
+public class PostgreSQLStorageBackend extends JdbcStorageBackend {
+    private static final Pattern MONTH_PARTITION = Pattern.compile(SERVER_PATHS + "_(\\d{4})(\\d{2})");
+    private static final String DEFAULT_PARTITION = SERVER_PATHS + "_default";
+    // 与部分索引 idx_player_data_play_time 的条件一致，查询带上该条件才能使用部分索引
+    private static final String HAS_PLAY_TIME = "play_time > INTERVAL '0 seconds'";
+
+    public PostgreSQLStorageBackend(DatabaseUtil databaseUtil, Logger logger) {
+        super(databaseUtil, logger);
+    }
+
+    @Override
+    protected String insertIgnoreSql(String intoClause) {
+        return "INSERT INTO " + intoClause + " ON CONFLICT DO NOTHING";
+    }
+
+    @Override
+    protected String upsertDailyPeakSql() {
+        return "INSERT INTO daily_peak_online (time, overall) VALUES (?, ?) " +
+                "ON CONFLICT (time) DO UPDATE SET overall = GREATEST(daily_peak_online.overall, EXCLUDED.overall)";
+    }
+
+    @Override
+    protected String upsertSubServerPeakSql() {
+        return "INSERT INTO sub_server_peak_online (time, server_name, peak_online) VALUES (?, ?, ?) " +
+                "ON CONFLICT (time, server_name) DO UPDATE SET " +
+                "peak_online = GREATEST(sub_server_peak_online.peak_online, EXCLUDED.peak_online)";
+    }
+
+    @Override
+    protected String incrementNewPlayersSql() {
+        return "INSERT INTO daily_new_players (time, overall) VALUES (?, 1) " +
+                "ON CONFLICT (time) DO UPDATE SET overall = daily_new_players.overall + 1";
+    }
+
+    @Override
+    protected String dayOfWeekExpression(String dateExpression) {
+        // ISODOW：1=周一，7=周日
+        return "CAST(EXTRACT(ISODOW FROM " + dateExpression + ") AS INTEGER)";
+    }
+
+    @Override
+    protected int toIsoDayOfWeek(int dayOfWeek) {
+        return dayOfWeek;
+    }
+
+    @Override
+    protected String playTimeSecondsExpression(String column) {
+        return "EXTRACT(EPOCH FROM " + column + ")";
+    }
+
+    @Override
+    protected String dateExpression(String column) {
+        return "CAST(" + column + " AS DATE)";
+    }
+
+    @Override
+    protected String hourExpression(String column) {
+        return "CAST(EXTRACT(HOUR FROM " + column + ") AS INTEGER)";
+    }
+
+    @Override
+    protected long readTimestamp(ResultSet rs, String column) throws SQLException {
+        return rs.getTimestamp(column).getTime() / 1000L;
+    }
+
+    @Override
+    public int countPlayersWithPlayTimeOver(long seconds) throws SQLException {
+        return queryInt("getCorePlayerCount",
+                "SELECT COUNT(*) FROM player_data WHERE " + HAS_PLAY_TIME + " AND play_time > ?",
+                TimeUtil.TimePeriodConverter.fromSeconds(seconds));
+    }
+
+    /**
+     * 没有游戏时间的玩家不参与排名，查询只扫描部分索引
+     */
+    @Override
+    public List<TopPlayerByPlayTime> getTopPlayersByPlayTime(int limit) throws SQLException {
+        return databaseUtil.query("getTopPlayersByPlayTime",
+                "SELECT username, play_time FROM player_data WHERE " + HAS_PLAY_TIME + " ORDER BY play_time DESC LIMIT ?",
+                statement -> statement.setInt(1, limit), JdbcStorageBackend::readTopPlayer);
+    }
+
+    /**
+     * 使用 COPY 写入整批延迟记录，整批只需一次往返
+     */
+    @Override
+    public void insertServerLatencyHistory(List<ServerLatencyRecord> records) throws SQLException {
+        StringBuilder csv = new StringBuilder(records.size() * 64);
+        for (ServerLatencyRecord record : records) {
+            csv.append(TimeUtil.DateTimeConverter.fromTimestamp(record.time)).append(',')
+                    .append(quoteCsv(record.serverName)).append(',')
+                    .append(record.samples).append(',')
+                    .append(record.onlineSamples).append(',')
+                    .append(record.avgLatency).append(',')
+                    .append(record.maxLatency).append(',')
+                    .append(record.avgPlayers).append(',')
+                    .append(record.outages).append('\n');
+        }
+
+        databaseUtil.write("insertServerLatencyHistory", connection -> {
+            try {
+                connection.unwrap(PGConnection.class).getCopyAPI().copyIn(
+                        "COPY server_latency_history (time, server_name, samples, online_samples, " +
+                                "avg_latency, max_latency, avg_players, outages) FROM STDIN WITH (FORMAT csv)",
+                        new StringReader(csv.toString()));
+            } catch (IOException e) {
+                throw new SQLException("Failed to copy server latency history", e);
+            }
+        });
+    }
+
+    /**
+     * PostgreSQL 驱动只在事务中使用游标分批获取，自动提交在连接归还连接池时恢复
+     */
+    @Override
+    protected PreparedStatement prepareStreaming(Connection connection, String sql) throws SQLException {
+        connection.setAutoCommit(false);
+        return super.prepareStreaming(connection, sql);
+    }
+
+    // 服务器路径分区
+
+    @Override
+    protected List<YearMonth> ensureServerPathPartitions(Connection connection, YearMonth first,
+                                                         YearMonth last) throws SQLException {
+        if (!isPartitioned(connection)) {
+            return partitionLegacyTable(connection, first, last);
+        }
+        createDefaultPartition(connection);
+
+        TreeSet<YearMonth> months = new TreeSet<>();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "WHERE i.inhparent = to_regclass(?)")) {
+            statement.setString(1, SERVER_PATHS);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    Matcher matcher = MONTH_PARTITION.matcher(rs.getString(1));
+                    if (matcher.matches()) {
+                        months.add(YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))));
+                    }
+                }
+            }
+        }
+
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            if (months.add(month)) {
+                createMonthPartition(connection, month);
+            }
+        }
+        return new ArrayList<>(months);
+    }
+
+    private boolean isPartitioned(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass(?)")) {
+            statement.setString(1, SERVER_PATHS);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /**
+     * 将旧版本创建的普通表转换为按月分区表：旧表改名后建立分区表和覆盖已有数据的各月分区，按插入顺序复制后删除旧表。
+     * 只在升级后首次维护分区时执行一次，与分区维护在同一事务中完成
+     *
+     * @return 建立的分区月份
+     */
+    private List<YearMonth> partitionLegacyTable(Connection connection, YearMonth first, YearMonth last) throws SQLException {
+        String legacy = SERVER_PATHS + "_legacy";
+        YearMonth oldest = first;
+        YearMonth newest = last;
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT to_char(MIN(time), 'YYYY-MM'), to_char(MAX(time), 'YYYY-MM') " +
+                     "FROM " + SERVER_PATHS)) {
+            if (rs.next() && rs.getString(1) != null) {
+                YearMonth minMonth = YearMonth.parse(rs.getString(1));
+                YearMonth maxMonth = YearMonth.parse(rs.getString(2));
+                oldest = minMonth.isBefore(oldest) ? minMonth : oldest;
+                newest = maxMonth.isAfter(newest) ? maxMonth : newest;
+            }
+        }
+
+        long start = System.nanoTime();
+        try (Statement statement = connection.createStatement()) {
+            // 旧表的序列和索引改名或删除，新表才能使用原来的名称
+            statement.execute("ALTER TABLE " + SERVER_PATHS + " RENAME TO " + legacy);
+            statement.execute("ALTER SEQUENCE IF EXISTS " + SERVER_PATHS + "_id_seq RENAME TO " + legacy + "_id_seq");
+            statement.execute("DROP INDEX IF EXISTS idx_" + SERVER_PATHS + "_time");
+            statement.execute("DROP INDEX IF EXISTS idx_" + SERVER_PATHS + "_uuid_time");
+            statement.execute("CREATE TABLE " + SERVER_PATHS + " (" +
+                    "id BIGSERIAL, " +
+                    "time TIMESTAMPTZ NOT NULL, " +
+                    "uuid UUID NOT NULL, " +
+                    "from_server VARCHAR(255), " +
+                    "to_server VARCHAR(255) NOT NULL" +
+                    ") PARTITION BY RANGE (time)");
+            statement.execute("CREATE INDEX idx_" + SERVER_PATHS + "_time ON " + SERVER_PATHS + " USING BRIN (time)");
+            statement.execute("CREATE INDEX idx_" + SERVER_PATHS + "_uuid_time ON " + SERVER_PATHS + " (uuid, time)");
+        }
+        createDefaultPartition(connection);
+
+        List<YearMonth> months = new ArrayList<>();
+        for (YearMonth month = oldest; !month.isAfter(newest); month = month.plusMonths(1)) {
+            createMonthPartition(connection, month);
+            months.add(month);
+        }
+
+        int copied;
+        try (Statement statement = connection.createStatement()) {
+            copied = statement.executeUpdate("INSERT INTO " + SERVER_PATHS + " (time, uuid, from_server, to_server) " +
+                    "SELECT time, uuid, from_server, to_server FROM " + legacy + " ORDER BY id");
+            statement.execute("DROP TABLE " + legacy);
+        }
+        logger.info("Partitioned {} server paths into {} monthly partitions in {} ms", copied, months.size(),
+                (System.nanoTime() - start) / 1_000_000L);
+        return months;
+    }
+
+    private void createDefaultPartition(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS " + DEFAULT_PARTITION + " PARTITION OF " + SERVER_PATHS + " DEFAULT");
+        }
+    }
+
+    /**
+     * 建立月份分区：默认分区中已有该月的路径时不能直接建立分区，因此先建立独立的表，
+     * 把默认分区中该月的路径移入后再挂载为分区
+     */
+    private void createMonthPartition(Connection connection, YearMonth month) throws SQLException {
+        String partition = monthPartition(month);
+        // 分区边界按会话时区（即代理所在时区）解析为本地月初
+        String from = "'" + month.atDay(1) + "'";
+        String to = "'" + month.plusMonths(1).atDay(1) + "'";
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS " + partition + " (LIKE " + SERVER_PATHS + " INCLUDING DEFAULTS)");
+            statement.execute("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION +
+                    " WHERE time >= " + from + " AND time < " + to +
+                    " RETURNING id, time, uuid, from_server, to_server) " +
+                    "INSERT INTO " + partition + " (id, time, uuid, from_server, to_server) SELECT * FROM moved");
+            statement.execute("ALTER TABLE " + SERVER_PATHS + " ATTACH PARTITION " + partition +
+                    " FOR VALUES FROM (" + from + ") TO (" + to + ")");
+        }
+    }
+
+    @Override
+    protected String serverPathPartitionSource(YearMonth month) {
+        return monthPartition(month);
+    }
+
+    @Override
+    protected void dropServerPathPartition(Connection connection, YearMonth month) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS " + monthPartition(month));
+        }
+    }
+
+    private static String monthPartition(YearMonth month) {
+        return String.format("%s_%04d%02d", SERVER_PATHS, month.getYear(), month.getMonthValue());
+    }
+
+    private static String quoteCsv(String value) {
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
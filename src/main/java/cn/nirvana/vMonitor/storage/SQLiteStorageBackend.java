@@ -0,0 +1,217 @@
+package cn.nirvana.vMonitor.storage;
+
+import cn.nirvana.vMonitor.util.DatabaseUtil;
+
+import org.slf4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * SQLite 存储后端
+ * 峰值与新玩家计数使用 ON CONFLICT 更新插入，一条语句完成原来的先查询再更新。
+ * SQLite 不支持表分区，服务器路径按月写入 player_daily_server_paths_yyyyMM 分表，
+ * 同名视图 player_daily_server_paths 以 UNION ALL 合并各分表供查询使用，过期月份直接删除对应分表
+ */
+public class SQLiteStorageBackend extends JdbcStorageBackend {
+    private static final Pattern MONTH_TABLE = Pattern.compile(SERVER_PATHS + "_(\\d{4})(\\d{2})");
+
+    public SQLiteStorageBackend(DatabaseUtil databaseUtil, Logger logger) {
+        super(databaseUtil, logger);
+    }
+
+    @Override
+    protected String insertIgnoreSql(String intoClause) {
+        return "INSERT OR IGNORE INTO " + intoClause;
+    }
+
+    @Override
+    protected String upsertDailyPeakSql() {
+        return "INSERT INTO daily_peak_online (time, overall) VALUES (?, ?) " +
+                "ON CONFLICT(time) DO UPDATE SET overall = MAX(overall, excluded.overall)";
+    }
+
+    @Override
+    protected String upsertSubServerPeakSql() {
+        return "INSERT INTO sub_server_peak_online (time, server_name, peak_online) VALUES (?, ?, ?) " +
+                "ON CONFLICT(time, server_name) DO UPDATE SET peak_online = MAX(peak_online, excluded.peak_online)";
+    }
+
+    @Override
+    protected String incrementNewPlayersSql() {
+        return "INSERT INTO daily_new_players (time, overall) VALUES (?, 1) " +
+                "ON CONFLICT(time) DO UPDATE SET overall = overall + 1";
+    }
+
+    @Override
+    protected String dayOfWeekExpression(String dateExpression) {
+        // %w：0=周日，6=周六
+        return "strftime('%w', " + dateExpression + ")";
+    }
+
+    @Override
+    protected int toIsoDayOfWeek(int dayOfWeek) {
+        return dayOfWeek == 0 ? 7 : dayOfWeek;
+    }
+
+    @Override
+    protected String playTimeSecondsExpression(String column) {
+        return "CAST(SUBSTR(" + column + ", 1, 2) AS INTEGER) * 3600 + " +
+                "CAST(SUBSTR(" + column + ", 4, 2) AS INTEGER) * 60 + " +
+                "CAST(SUBSTR(" + column + ", 7, 2) AS INTEGER)";
+    }
+
+    // 服务器路径按月分表
+
+    @Override
+    protected String serverPathTable(long time) {
+        // 迁移旧数据时同样按时间字符串的前 7 个字符分表
+        return monthTable(serverPathMonth(time));
+    }
+
+    @Override
+    protected List<YearMonth> ensureServerPathPartitions(Connection connection, YearMonth first,
+                                                         YearMonth last) throws SQLException {
+        if ("table".equals(objectType(connection, SERVER_PATHS))) {
+            splitLegacyTable(connection);
+        }
+
+        TreeSet<YearMonth> months = listMonthTables(connection);
+        boolean changed = !"view".equals(objectType(connection, SERVER_PATHS));
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            if (months.add(month)) {
+                createMonthTable(connection, month);
+                changed = true;
+            }
+        }
+        if (changed) {
+            recreateView(connection, months);
+        }
+        return new ArrayList<>(months);
+    }
+
+    @Override
+    protected String serverPathPartitionSource(YearMonth month) {
+        return monthTable(month);
+    }
+
+    @Override
+    protected void dropServerPathPartition(Connection connection, YearMonth month) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP VIEW IF EXISTS " + SERVER_PATHS);
+            statement.execute("DROP TABLE IF EXISTS " + monthTable(month));
+        }
+        recreateView(connection, listMonthTables(connection));
+    }
+
+    /**
+     * 将旧版本的单表按月拆分到各分表后删除，只在升级后首次维护分区时执行一次
+     */
+    private void splitLegacyTable(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            // 临时索引随旧表一起删除，避免每个月份都扫描整张旧表
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_" + SERVER_PATHS + "_legacy_time ON " + SERVER_PATHS + " (time)");
+        }
+
+        List<YearMonth> months = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT DISTINCT SUBSTR(time, 1, 7) FROM " + SERVER_PATHS)) {
+            while (rs.next()) {
+                try {
+                    months.add(YearMonth.parse(rs.getString(1)));
+                } catch (DateTimeParseException e) {
+                    logger.warn("Dropping server paths with invalid time prefix '{}'", rs.getString(1));
+                }
+            }
+        }
+
+        int copied = 0;
+        for (YearMonth month : months) {
+            createMonthTable(connection, month);
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO " + monthTable(month) + " (time, uuid, from_server, to_server) " +
+                            "SELECT time, uuid, from_server, to_server FROM " + SERVER_PATHS + " " +
+                            "WHERE time >= ? AND time < ? ORDER BY id")) {
+                statement.setString(1, month.toString());
+                statement.setString(2, month.plusMonths(1).toString());
+                copied += statement.executeUpdate();
+            }
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE " + SERVER_PATHS);
+        }
+        logger.info("Split {} server paths into {} monthly tables", copied, months.size());
+    }
+
+    private void createMonthTable(Connection connection, YearMonth month) throws SQLException {
+        String table = monthTable(month);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS " + table + " (" +
+                    "id INTEGER PRIMARY KEY, " +
+                    "time TEXT NOT NULL, " +  // yyyy-mm-ddThh:mm:ssXXX格式
+                    "uuid VARCHAR(36) NOT NULL, " +
+                    "from_server VARCHAR(255), " +
+                    "to_server VARCHAR(255) NOT NULL" +
+                    ")");
+            // 视图上的时间范围条件会下推到每个分表，不在范围内的分表只需一次索引查找
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_" + table + "_time ON " + table + " (time)");
+            statement.execute("CREATE INDEX IF NOT EXISTS idx_" + table + "_uuid_time ON " + table + " (uuid, time)");
+        }
+    }
+
+    private void recreateView(Connection connection, TreeSet<YearMonth> months) throws SQLException {
+        List<String> selects = new ArrayList<>();
+        for (YearMonth month : months) {
+            selects.add("SELECT id, time, uuid, from_server, to_server FROM " + monthTable(month));
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP VIEW IF EXISTS " + SERVER_PATHS);
+            if (!selects.isEmpty()) {
+                statement.execute("CREATE VIEW " + SERVER_PATHS + " AS " + String.join(" UNION ALL ", selects));
+            }
+        }
+    }
+
+    private TreeSet<YearMonth> listMonthTables(Connection connection) throws SQLException {
+        TreeSet<YearMonth> months = new TreeSet<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT name FROM sqlite_master WHERE type = 'table'")) {
+            while (rs.next()) {
+                Matcher matcher = MONTH_TABLE.matcher(rs.getString(1));
+                if (matcher.matches()) {
+                    months.add(YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))));
+                }
+            }
+        }
+        return months;
+    }
+
+    /**
+     * @return 对象类型（table、view 等），不存在时返回 null
+     */
+    private String objectType(Connection connection, String name) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT type FROM sqlite_master WHERE name = ?")) {
+            statement.setString(1, name);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+
+    private static String monthTable(YearMonth month) {
+        return String.format("%s_%04d%02d", SERVER_PATHS, month.getYear(), month.getMonthValue());
+    }
+}
@@ -0,0 +1,279 @@
+package cn.nirvana.vMonitor.storage;
+
+import cn.nirvana.vMonitor.loader.DataLoader.PlayerData;
+import cn.nirvana.vMonitor.loader.DataLoader.PlayerSession;
+import cn.nirvana.vMonitor.loader.DataLoader.PopularServer;
+import cn.nirvana.vMonitor.loader.DataLoader.ServerHealth;
+import cn.nirvana.vMonitor.loader.DataLoader.ServerInfoData;
+import cn.nirvana.vMonitor.loader.DataLoader.ServerLatencyRecord;
+import cn.nirvana.vMonitor.loader.DataLoader.TopPlayerByPlayTime;
+import cn.nirvana.vMonitor.util.DatabaseUtil;
+
+import org.slf4j.Logger;
+
+import java.sql.SQLException;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * 存储后端接口
+ * DataLoader 负责缓存、加锁、指标与错误日志，所有数据的读写都通过该接口完成；
+ * 每种数据库实现各自的 SQL，写入方法中的所有修改作为一个整体提交。
+ * 时间参数均为 UNIX 时间戳（秒），日期参数均为本地日期
+ */
+public interface StorageBackend {
+
+    /**
+     * 根据数据库类型创建存储后端
+     *
+     * @param databaseUtil 已初始化的数据库工具
+     * @param logger       日志记录器
+     * @return 存储后端
+     */
+    static StorageBackend create(DatabaseUtil databaseUtil, Logger logger) {
+        switch (databaseUtil.getDatabaseType()) {
+            case SQLITE:
+                return new SQLiteStorageBackend(databaseUtil, logger);
+            case MYSQL:
+                return new MySQLStorageBackend(databaseUtil, logger);
+            case POSTGRESQL:
+                return new PostgreSQLStorageBackend(databaseUtil, logger);
+            case MEMORY:
+                return new MemoryStorageBackend();
+            default:
+                throw new IllegalArgumentException("Unsupported database type: " + databaseUtil.getDatabaseType());
+        }
+    }
+
+    // 服务器信息
+
+    /**
+     * 服务器信息不存在时写入初始记录
+     *
+     * @param startupTime 首次启动时间
+     */
+    void initializeServerInfo(long startupTime) throws SQLException;
+
+    void updateLastReportGenerationTime(long time) throws SQLException;
+
+    /**
+     * @return 服务器信息，尚未初始化时返回 null
+     */
+    ServerInfoData getServerInfo() throws SQLException;
+
+    // 玩家数据
+
+    /**
+     * @return 玩家数据，不存在时返回 null；服务器路径不随玩家数据加载，使用 forEachPlayerServerPath 逐条读取
+     */
+    PlayerData getPlayerData(UUID uuid) throws SQLException;
+
+    /**
+     * 按小写名称查找玩家，同一名称对应多个玩家时返回最近登录的玩家
+     *
+     * @return 玩家数据，不存在时返回 null
+     */
+    PlayerData getPlayerDataByName(String usernameLower) throws SQLException;
+
+    /**
+     * 按时间顺序逐条读取一名玩家的服务器路径
+     */
+    void forEachPlayerServerPath(UUID uuid, ServerPathVisitor visitor) throws SQLException;
+
+    /**
+     * 逐条读取所有玩家的 UUID 和名称，UUID 无法解析的记录被跳过
+     */
+    void forEachPlayerName(BiConsumer<UUID, String> consumer) throws SQLException;
+
+    /**
+     * 创建玩家数据，并计入当天的新玩家统计
+     */
+    void createPlayer(UUID uuid, String playerName, long time) throws SQLException;
+
+    /**
+     * 更新玩家名称与最后登录时间
+     *
+     * @return 是否找到并更新了该玩家
+     */
+    boolean updatePlayerLogin(UUID uuid, String playerName, long time) throws SQLException;
+
+    // 会话
+
+    /**
+     * 记录玩家开始一个会话，覆盖该玩家已有的会话记录
+     *
+     * @param time 会话开始时间，UNIX 时间戳（秒）
+     */
+    void openSession(UUID uuid, long time) throws SQLException;
+
+    /**
+     * 累加玩家自上次结算以来的游戏时间，并在同一次写入中将会话的结算时间推进到 time；结束会话时删除会话记录。
+     * time 不晚于会话已记录的结算时间时不累加游戏时间，重放活动日志时重复的结算不会重复计入；结束会话时始终删除会话记录
+     *
+     * @param seconds    自上次结算以来的游戏时间（秒）
+     * @param time       本次结算的时间，UNIX 时间戳（秒）
+     * @param endSession 是否结束会话
+     * @return 是否找到并更新了该玩家
+     */
+    boolean addSessionPlayTime(UUID uuid, long seconds, long time, boolean endSession) throws SQLException;
+
+    /**
+     * 在一次写入中累加多名玩家的游戏时间并结束他们的会话，不存在的玩家跳过
+     *
+     * @param secondsByPlayer 玩家 UUID 到需要累加的秒数
+     * @return 实际更新的玩家数量
+     */
+    int closeSessions(Map<UUID, Long> secondsByPlayer) throws SQLException;
+
+    /**
+     * 结算上次运行未正常结束的全部会话，每个会话计入从最后结算时间到 now 的游戏时间，最多计入 maxCreditSeconds 秒，
+     * 然后删除会话记录
+     *
+     * @param now              当前时间，UNIX 时间戳（秒）
+     * @param maxCreditSeconds 每个会话最多计入的秒数
+     * @return 结算的会话数量
+     */
+    int recoverOpenSessions(long now, long maxCreditSeconds) throws SQLException;
+
+    /**
+     * 在一次写入中追加多条已结束的会话
+     */
+    void insertPlayerSessions(List<PlayerSession> sessions) throws SQLException;
+
+    /**
+     * 按开始时间顺序逐条读取开始于日期范围内的会话，UUID 无法解析的记录被跳过
+     */
+    void forEachPlayerSession(LocalDate startDate, LocalDate endDate, PlayerSessionVisitor visitor) throws SQLException;
+
+    /**
+     * 记录玩家在服务器之间的切换
+     */
+    void insertServerPath(UUID uuid, long time, String fromServer, String toServer) throws SQLException;
+
+    /**
+     * 按时间顺序逐条读取日期范围内的服务器路径，UUID 无法解析的记录被跳过
+     */
+    void forEachServerPath(LocalDate startDate, LocalDate endDate, ServerPathVisitor visitor) throws SQLException;
+
+    /**
+     * 维护服务器路径的按月分区：确保 currentMonth 与下个月的分区存在；
+     * retainFrom 不为 null 时，早于该月份的分区先汇总到 server_path_rollup，再整体删除
+     *
+     * @param currentMonth 当前月份
+     * @param retainFrom   保留的第一个月份，null 表示不删除任何分区
+     * @return 删除的分区数量
+     */
+    int maintainServerPathPartitions(YearMonth currentMonth, YearMonth retainFrom) throws SQLException;
+
+    // 在线峰值
+
+    /**
+     * 当前在线人数超过当日峰值或历史峰值时更新对应峰值
+     */
+    void updatePeakOnline(LocalDate date, int onlineCount) throws SQLException;
+
+    /**
+     * 当前在线人数超过子服务器当日峰值时更新峰值
+     */
+    void updateSubServerPeakOnline(LocalDate date, String serverName, int onlineCount) throws SQLException;
+
+    int getHistoricalPeakOnline() throws SQLException;
+
+    // 报表统计
+
+    /**
+     * @return 日期（yyyy-MM-dd）到当日峰值的映射，按日期排序
+     */
+    Map<String, Integer> getDailyPeakOnline(LocalDate startDate, LocalDate endDate) throws SQLException;
+
+    int getTotalPlayerCount() throws SQLException;
+
+    int getNewPlayerCount(LocalDate startDate, LocalDate endDate) throws SQLException;
+
+    /**
+     * @return 累计游戏时间超过指定秒数的玩家数量
+     */
+    int countPlayersWithPlayTimeOver(long seconds) throws SQLException;
+
+    /**
+     * @return 最后登录时间早于指定日期的玩家数量
+     */
+    int countPlayersLastLoginBefore(LocalDate cutoffDate) throws SQLException;
+
+    /**
+     * @return 日期范围内每日峰值的平均值
+     */
+    double getAverageDailyPeak(LocalDate startDate, LocalDate endDate) throws SQLException;
+
+    /**
+     * @return 小时（0-23）到服务器切换次数的映射，没有记录的小时不包含在内
+     */
+    Map<Integer, Integer> getHourlyDistribution(LocalDate startDate, LocalDate endDate) throws SQLException;
+
+    /**
+     * @return 星期（1=周一，7=周日）到服务器切换次数的映射，没有记录的星期不包含在内
+     */
+    Map<Integer, Integer> getWeeklyDistribution(LocalDate startDate, LocalDate endDate) throws SQLException;
+
+    /**
+     * @return 服务器名称到进入过该服务器的玩家数量的映射，按玩家数量从高到低排序
+     */
+    Map<String, Integer> getServerDistribution(LocalDate startDate, LocalDate endDate) throws SQLException;
+
+    List<TopPlayerByPlayTime> getTopPlayersByPlayTime(int limit) throws SQLException;
+
+    /**
+     * @return 日期到当日峰值的映射，按峰值从高到低排序
+     */
+    Map<String, Integer> getTopPlayerDays(int limit, LocalDate startDate, LocalDate endDate) throws SQLException;
+
+    /**
+     * 热门服务器，平均游戏时间为玩家在该服务器上的平均停留时间
+     */
+    List<PopularServer> getPopularServers(int limit, LocalDate startDate, LocalDate endDate) throws SQLException;
+
+    /**
+     * 统计开始于日期范围内的会话
+     *
+     * @return 服务器名称到每名玩家在该服务器上的平均停留时间（秒）
+     */
+    Map<String, Long> getAverageServerDwellTime(LocalDate startDate, LocalDate endDate) throws SQLException;
+
+    // 服务器延迟与可用性
+
+    void insertServerLatencyHistory(List<ServerLatencyRecord> records) throws SQLException;
+
+    /**
+     * @return 每个服务器的延迟与可用性汇总，按服务器名称排序
+     */
+    List<ServerHealth> getServerHealth(LocalDate startDate, LocalDate endDate) throws SQLException;
+
+    /**
+     * 服务器路径的逐条读取回调
+     */
+    @FunctionalInterface
+    interface ServerPathVisitor {
+        /**
+         * @param time UNIX 时间戳（秒）
+         */
+        void accept(UUID uuid, long time, String fromServer, String toServer) throws SQLException;
+    }
+
+    /**
+     * 会话的逐条读取回调
+     */
+    @FunctionalInterface
+    interface PlayerSessionVisitor {
+        /**
+         * @param startTime 进入服务器的时间，UNIX 时间戳（秒）
+         * @param duration  停留时长（秒）
+         */
+        void accept(UUID uuid, String serverName, long startTime, long duration) throws SQLException;
+    }
+}
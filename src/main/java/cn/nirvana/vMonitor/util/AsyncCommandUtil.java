@@ -0,0 +1,96 @@
+package cn.nirvana.vMonitor.util;
+
+import cn.nirvana.vMonitor.loader.ConfigLoader;
+import cn.nirvana.vMonitor.loader.LanguageLoader;
+
+import com.velocitypowered.api.command.CommandSource;
+import com.velocitypowered.api.proxy.Player;
+
+import net.kyori.adventure.text.minimessage.tag.resolver.Placeholder;
+
+import org.slf4j.Logger;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 异步命令工具类，用于在命令线程之外执行需要查询数据库的命令
+ * 每个命令发送者同时进行的查询数量受限，超时后向发送者返回提示
+ */
+public class AsyncCommandUtil {
+    private final Logger logger;
+    private final ConfigLoader configLoader;
+    private final LanguageLoader languageLoader;
+    private final ExecutorUtil executorUtil;
+
+    // 每个命令发送者正在进行的查询数量
+    private final Map<Object, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+    public AsyncCommandUtil(Logger logger, ConfigLoader configLoader, LanguageLoader languageLoader, ExecutorUtil executorUtil) {
+        this.logger = logger;
+        this.configLoader = configLoader;
+        this.languageLoader = languageLoader;
+        this.executorUtil = executorUtil;
+    }
+
+    /**
+     * 异步执行查询，并在完成后将结果交给回调处理
+     *
+     * @param source   命令发送者
+     * @param query    阻塞的查询任务
+     * @param onResult 查询完成后的回调
+     * @param <T>      查询结果类型
+     */
+    public <T> void run(CommandSource source, Supplier<T> query, Consumer<T> onResult) {
+        Object key = sourceKey(source);
+        AtomicInteger counter = inFlight.computeIfAbsent(key, k -> new AtomicInteger());
+        if (counter.incrementAndGet() > configLoader.getCommandMaxConcurrentPerSource()) {
+            release(key, counter);
+            source.sendMessage(languageLoader.render("global.command_busy"));
+            return;
+        }
+
+        CompletableFuture<T> task = executorUtil.supplyAsync(query);
+        // 名额在查询真正结束时才释放，超时的查询仍然计入并发数量，防止反复重试堆积查询
+        task.whenComplete((result, throwable) -> release(key, counter));
+
+        task.copy()
+                .orTimeout(configLoader.getCommandTimeout(), TimeUnit.MILLISECONDS)
+                .thenAccept(onResult)
+                .exceptionally(throwable -> {
+                    Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                            ? throwable.getCause() : throwable;
+                    if (cause instanceof TimeoutException) {
+                        source.sendMessage(languageLoader.render("global.command_timeout"));
+                    } else {
+                        logger.error("Asynchronous command failed: {}", cause.getMessage());
+                        source.sendMessage(languageLoader.render("global.command_failed",
+                                Placeholder.unparsed("error", String.valueOf(cause.getMessage()))));
+                    }
+                    return null;
+                });
+    }
+
+    private void release(Object key, AtomicInteger counter) {
+        if (counter.decrementAndGet() <= 0) {
+            inFlight.remove(key, counter);
+        }
+    }
+
+    /**
+     * 玩家按 UUID 区分，控制台等其他发送者按实例区分
+     */
+    private Object sourceKey(CommandSource source) {
+        if (source instanceof Player) {
+            return ((Player) source).getUniqueId();
+        }
+        return source;
+    }
+}
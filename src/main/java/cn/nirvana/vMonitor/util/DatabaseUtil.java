@@ -4,32 +4,54 @@ import cn.nirvana.vMonitor.loader.ConfigLoader;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
 
 import org.slf4j.Logger;
 
+import java.io.IOException;
+
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
 import java.sql.Connection;
-import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 数据库工具类，用于管理数据库连接和基本操作
  */
 public class DatabaseUtil {
+    // sqlite-jdbc 的 open_mode 标志位：只读打开
+    private static final int SQLITE_OPEN_READONLY = 0x00000001;
+
     private final Logger logger;
     private final ConfigLoader configLoader;
+    private final MetricsRegistry metricsRegistry;
     private final Path dataDirectory;
+    // 读取（MySQL 与 PostgreSQL 下也用于写入）使用的连接池
     private HikariDataSource dataSource;
+    // SQLite 专用的单连接写入池，MySQL 与 PostgreSQL 下为 null
+    private HikariDataSource writeDataSource;
+    // SQLite 单线程写入器，MySQL 与 PostgreSQL 下为 null
+    private SQLiteWriter sqliteWriter;
+    // SQLite 数据库文件路径，MySQL 与 PostgreSQL 下为 null
+    private Path sqlitePath;
+    // 连接池名称 -> 连接池，用于指标导出和关闭
+    private final Map<String, HikariDataSource> pools = new LinkedHashMap<>();
     private DatabaseType databaseType;
 
-    public DatabaseUtil(Logger logger, ConfigLoader configLoader, Path dataDirectory) {
+    public DatabaseUtil(Logger logger, ConfigLoader configLoader, MetricsRegistry metricsRegistry, Path dataDirectory) {
         this.logger = logger;
         this.configLoader = configLoader;
+        this.metricsRegistry = metricsRegistry;
         this.dataDirectory = dataDirectory;
     }
 
@@ -42,38 +64,76 @@ public class DatabaseUtil {
         String type = configLoader.getDatabaseType();
         databaseType = DatabaseType.fromString(type);
 
-        HikariConfig hikariConfig = new HikariConfig();
-
-        // 设置连接池基本配置
-        hikariConfig.setMaximumPoolSize(configLoader.getHikariMaximumPoolSize());
-        hikariConfig.setMinimumIdle(configLoader.getHikariMinimumIdle());
-        hikariConfig.setConnectionTimeout(configLoader.getHikariConnectionTimeout());
-        hikariConfig.setIdleTimeout(configLoader.getHikariIdleTimeout());
-        hikariConfig.setMaxLifetime(configLoader.getHikariMaxLifetime());
-
         switch (databaseType) {
             case SQLITE:
-                initializeSQLite(hikariConfig);
+                initializeSQLite();
                 break;
             case MYSQL:
-                initializeMySQL(hikariConfig);
+                initializeMySQL();
+                break;
+            case POSTGRESQL:
+                initializePostgreSQL();
                 break;
+            case MEMORY:
+                // 内存存储不使用数据库，不创建连接池和表结构
+                logger.warn("Using in-memory storage, data will NOT be persisted");
+                return;
             default:
                 throw new SQLException("Unsupported database type: " + type);
         }
 
-        dataSource = new HikariDataSource(hikariConfig);
         initializeTables();
-        logger.info("Database connection pool initialized successfully with {} connections",
-                dataSource.getMaximumPoolSize());
+
+        if (writeDataSource != null) {
+            sqliteWriter = new SQLiteWriter(logger, writeDataSource, metricsRegistry,
+                    configLoader.getSlowQueryThreshold(), configLoader.getSQLiteWriteBatchSize());
+            sqliteWriter.start();
+        }
     }
 
     /**
-     * 初始化 SQLite 数据库配置
+     * 创建连接池的通用配置，并将连接获取等待时间、占用时间和超时次数记录到指标中
      *
-     * @param hikariConfig HikariCP 配置对象
+     * @param poolName    连接池名称
+     * @param maximumSize 最大连接数
+     * @param minimumIdle 最小空闲连接数
+     * @return HikariCP 配置对象
      */
-    private void initializeSQLite(HikariConfig hikariConfig) {
+    private HikariConfig createPoolConfig(String poolName, int maximumSize, int minimumIdle) {
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setPoolName("V-Monitor-" + poolName);
+        hikariConfig.setMaximumPoolSize(maximumSize);
+        hikariConfig.setMinimumIdle(minimumIdle);
+        hikariConfig.setConnectionTimeout(configLoader.getHikariConnectionTimeout());
+        hikariConfig.setIdleTimeout(configLoader.getHikariIdleTimeout());
+        hikariConfig.setMaxLifetime(configLoader.getHikariMaxLifetime());
+
+        MetricsRegistry.PoolMetrics poolMetrics = metricsRegistry.getPoolMetrics(poolName);
+        hikariConfig.setMetricsTrackerFactory((name, poolStats) -> new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                poolMetrics.getAcquireWait().record(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                poolMetrics.getUsage().record(TimeUnit.MILLISECONDS.toNanos(elapsedBorrowedMillis));
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                poolMetrics.recordTimeout();
+            }
+        });
+        return hikariConfig;
+    }
+
+    /**
+     * 初始化 SQLite 连接池
+     * SQLite 同一时间只允许一个写入者，因此写入只使用一个连接，由单线程写入器串行执行并合并提交；
+     * 读取使用另一个只读连接池，在 WAL 模式下读取各自的快照，不会阻塞写入
+     */
+    private void initializeSQLite() {
         String path = configLoader.getSQLitePath();
         String absolutePath;
 
@@ -85,25 +145,73 @@ public class DatabaseUtil {
             Path resolvedPath = dataDirectory.resolve(path);
             absolutePath = resolvedPath.toString();
         }
+        sqlitePath = Paths.get(absolutePath);
+
+        String jdbcUrl = "jdbc:sqlite:" + absolutePath;
 
-        hikariConfig.setJdbcUrl("jdbc:sqlite:" + absolutePath);
+        // 先创建写入池，由它将数据库切换到 WAL 模式；页大小只在创建新数据库时生效
+        HikariConfig writerConfig = createPoolConfig("sqlite-write", 1, 1);
+        configureSQLite(writerConfig, jdbcUrl);
+        writerConfig.addDataSourceProperty("journal_mode", "WAL");
+        writerConfig.addDataSourceProperty("page_size", String.valueOf(configLoader.getSQLitePageSize()));
+        writeDataSource = new HikariDataSource(writerConfig);
+        pools.put("sqlite-write", writeDataSource);
+
+        int readPoolSize = configLoader.getSQLiteReadPoolSize();
+        HikariConfig readerConfig = createPoolConfig("sqlite-read", readPoolSize, readPoolSize);
+        configureSQLite(readerConfig, jdbcUrl);
+        // 以 SQLITE_OPEN_READONLY 打开读取连接，误用读取连接写入会直接失败而不是争抢写锁
+        readerConfig.addDataSourceProperty("open_mode", String.valueOf(SQLITE_OPEN_READONLY));
+        // 连接池的只读标记必须与打开模式一致，否则 HikariCP 初始化连接时调用 setReadOnly 会被 sqlite-jdbc 拒绝
+        readerConfig.setReadOnly(true);
+        dataSource = new HikariDataSource(readerConfig);
+        pools.put("sqlite-read", dataSource);
+
+        logger.info("SQLite database configured with path: {} (1 writer connection, {} reader connections)",
+                absolutePath, readPoolSize);
+    }
+
+    /**
+     * 设置 SQLite 连接的通用参数，sqlite-jdbc 在打开每个连接时执行对应的 PRAGMA
+     * 读取主要依赖内存映射和页缓存，大数据库上的报表查询不再受磁盘读取限制
+     */
+    private void configureSQLite(HikariConfig hikariConfig, String jdbcUrl) {
+        hikariConfig.setJdbcUrl(jdbcUrl);
         hikariConfig.setDriverClassName("org.sqlite.JDBC");
 
-        hikariConfig.addDataSourceProperty("cachePrepStmts", "true");
-        hikariConfig.addDataSourceProperty("prepStmtCacheSize", "250");
-        hikariConfig.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
-        hikariConfig.addDataSourceProperty("journalMode", "WAL");
+        // sqlite-jdbc 没有语句缓存，写入语句由写入线程的 StatementCache 复用
         hikariConfig.addDataSourceProperty("synchronous", "NORMAL");
+        hikariConfig.addDataSourceProperty("mmap_size", String.valueOf(configLoader.getSQLiteMmapSize()));
+        // cache_size 为负数时单位为 KiB
+        hikariConfig.addDataSourceProperty("cache_size", String.valueOf(-configLoader.getSQLiteCacheSize()));
+        hikariConfig.addDataSourceProperty("temp_store", configLoader.getSQLiteTempStore());
+        hikariConfig.addDataSourceProperty("busy_timeout", String.valueOf(configLoader.getSQLiteBusyTimeout()));
+    }
 
-        logger.info("SQLite database configured with path: {}", absolutePath);
+    /**
+     * 创建数据库服务器（MySQL、PostgreSQL）的连接池配置，连接池大小经过校验后使用配置值
+     */
+    private HikariConfig createServerPoolConfig(String poolName) {
+        int maximumPoolSize = configLoader.getHikariMaximumPoolSize();
+        if (maximumPoolSize <= 0) {
+            logger.warn("Invalid hikari.maximum-pool-size {}, using 10 instead", maximumPoolSize);
+            maximumPoolSize = 10;
+        }
+        int minimumIdle = configLoader.getHikariMinimumIdle();
+        if (minimumIdle < 0 || minimumIdle > maximumPoolSize) {
+            logger.warn("hikari.minimum-idle {} is outside 0..{}, using {} instead", minimumIdle, maximumPoolSize, maximumPoolSize);
+            minimumIdle = maximumPoolSize;
+        }
+        return createPoolConfig(poolName, maximumPoolSize, minimumIdle);
     }
 
     /**
-     * 初始化 MySQL 数据库配置
-     *
-     * @param hikariConfig HikariCP 配置对象
+     * 初始化 MySQL 连接池
      */
-    private void initializeMySQL(HikariConfig hikariConfig) {
+    private void initializeMySQL() throws SQLException {
+        HikariConfig hikariConfig = createServerPoolConfig("mysql");
+        int maximumPoolSize = hikariConfig.getMaximumPoolSize();
+
         String host = configLoader.getMySQLHost();
         int port = configLoader.getMySQLPort();
         String database = configLoader.getMySQLDatabase();
@@ -148,8 +256,83 @@ public class DatabaseUtil {
         hikariConfig.addDataSourceProperty("cacheServerConfiguration", "true");
         hikariConfig.addDataSourceProperty("elideSetAutoCommits", "true");
         hikariConfig.addDataSourceProperty("maintainTimeStats", "false");
+        // 设置了 fetchSize 的语句使用服务器端游标分批读取，其余语句不受影响
+        hikariConfig.addDataSourceProperty("useCursorFetch", "true");
+
+        dataSource = new HikariDataSource(hikariConfig);
+        pools.put("mysql", dataSource);
+        logger.info("MySQL database configured with URL: {} ({} connections)", jdbcUrl, maximumPoolSize);
+
+        checkConnectionLimit(maximumPoolSize, "SELECT @@max_connections");
+    }
+
+    /**
+     * 初始化 PostgreSQL 连接池
+     * 时间、日期和游戏时间使用原生类型存储，连接设置 stringtype=unspecified，
+     * 以字符串绑定的参数由服务器按列类型解析，与其他数据库共用同一套 SQL
+     */
+    private void initializePostgreSQL() throws SQLException {
+        HikariConfig hikariConfig = createServerPoolConfig("postgresql");
+        int maximumPoolSize = hikariConfig.getMaximumPoolSize();
+
+        StringBuilder jdbcUrl = new StringBuilder();
+        jdbcUrl.append("jdbc:postgresql://")
+                .append(configLoader.getPostgreSQLHost())
+                .append(":")
+                .append(configLoader.getPostgreSQLPort())
+                .append("/")
+                .append(configLoader.getPostgreSQLDatabase());
+
+        Map<String, String> parameters = configLoader.getPostgreSQLParameters();
+        if (!parameters.isEmpty()) {
+            jdbcUrl.append("?");
+            boolean first = true;
+            for (Map.Entry<String, String> entry : parameters.entrySet()) {
+                if (!first) {
+                    jdbcUrl.append("&");
+                }
+                jdbcUrl.append(entry.getKey())
+                        .append("=")
+                        .append(entry.getValue());
+                first = false;
+            }
+        }
+
+        hikariConfig.setJdbcUrl(jdbcUrl.toString());
+        hikariConfig.setUsername(configLoader.getPostgreSQLUsername());
+        hikariConfig.setPassword(configLoader.getPostgreSQLPassword());
+        hikariConfig.setDriverClassName("org.postgresql.Driver");
+
+        hikariConfig.addDataSourceProperty("stringtype", "unspecified");
+        hikariConfig.addDataSourceProperty("reWriteBatchedInserts", "true");
+        hikariConfig.addDataSourceProperty("prepareThreshold", "3");
+        hikariConfig.addDataSourceProperty("preparedStatementCacheQueries", "256");
+        hikariConfig.addDataSourceProperty("ApplicationName", "V-Monitor");
 
-        logger.info("MySQL database configured with URL: {}", jdbcUrl);
+        dataSource = new HikariDataSource(hikariConfig);
+        pools.put("postgresql", dataSource);
+        logger.info("PostgreSQL database configured with URL: {} ({} connections)", jdbcUrl, maximumPoolSize);
+
+        checkConnectionLimit(maximumPoolSize, "SHOW max_connections");
+    }
+
+    /**
+     * 连接池占用服务器连接上限的大部分时发出警告，避免与同一数据库上的其他服务争抢连接
+     *
+     * @param limitQuery 查询服务器最大连接数的语句
+     */
+    private void checkConnectionLimit(int maximumPoolSize, String limitQuery) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(limitQuery)) {
+            if (rs.next()) {
+                int serverLimit = Integer.parseInt(rs.getString(1));
+                if (maximumPoolSize > serverLimit * 0.8) {
+                    logger.warn("hikari.maximum-pool-size {} uses more than 80% of the {} max_connections limit {}",
+                            maximumPoolSize, databaseType, serverLimit);
+                }
+            }
+        }
     }
 
     /**
@@ -158,7 +341,7 @@ public class DatabaseUtil {
      * @throws SQLException SQL执行异常
      */
     private void initializeTables() throws SQLException {
-        try (Connection connection = getConnection()) {
+        try (Connection connection = getWriteConnection()) {
             switch (databaseType) {
                 case SQLITE:
                     initializeSQLiteTables(connection);
@@ -166,12 +349,71 @@ public class DatabaseUtil {
                 case MYSQL:
                     initializeMySQLTables(connection);
                     break;
+                case POSTGRESQL:
+                    initializePostgreSQLTables(connection);
+                    break;
                 default:
                     throw new SQLException("Unsupported database type: " + databaseType);
             }
+            migrateUsernameLower(connection);
         }
     }
 
+    /**
+     * 为旧版本创建的 player_data 表补充 username_lower 列并回填数据，同时确保存在对应索引
+     *
+     * @param connection 数据库连接
+     * @throws SQLException SQL执行异常
+     */
+    private void migrateUsernameLower(Connection connection) throws SQLException {
+        if (!columnExists(connection, "player_data", "username_lower")) {
+            executeStatement(connection, "ALTER TABLE player_data ADD COLUMN username_lower VARCHAR(16)");
+            logger.info("Added username_lower column to player_data");
+        }
+
+        // 回填尚未设置小写用户名的记录
+        try (Statement statement = connection.createStatement()) {
+            int updated = statement.executeUpdate(
+                    "UPDATE player_data SET username_lower = LOWER(username) WHERE username_lower IS NULL");
+            if (updated > 0) {
+                logger.info("Backfilled username_lower for {} players", updated);
+            }
+        }
+
+        if (!indexExists(connection, "player_data", "idx_player_data_username_lower")) {
+            executeStatement(connection, "CREATE INDEX idx_player_data_username_lower ON player_data (username_lower)");
+            logger.info("Created index idx_player_data_username_lower on player_data");
+        }
+    }
+
+    /**
+     * 检查表中是否存在指定列
+     */
+    private boolean columnExists(Connection connection, String table, String column) throws SQLException {
+        try (ResultSet rs = connection.getMetaData().getColumns(connection.getCatalog(), null, table, null)) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("COLUMN_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 检查表中是否存在指定索引
+     */
+    private boolean indexExists(Connection connection, String table, String index) throws SQLException {
+        try (ResultSet rs = connection.getMetaData().getIndexInfo(connection.getCatalog(), null, table, false, false)) {
+            while (rs.next()) {
+                if (index.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
     /**
      * 初始化 SQLite 数据库表结构
      *
@@ -228,12 +470,13 @@ public class DatabaseUtil {
                 "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
                 "uuid VARCHAR(36) NOT NULL UNIQUE, " +
                 "username VARCHAR(16) NOT NULL, " +
+                "username_lower VARCHAR(16), " +  // 小写用户名，用于不区分大小写的索引查询
                 "first_join_time TEXT NOT NULL, " +  // yyyy-mm-ddThh:mm:ssXXX格式
                 "last_login_time TEXT NOT NULL, " +  // yyyy-mm-ddThh:mm:ssXXX格式
                 "play_time TEXT NOT NULL" +  // HH:mm:ss格式（时间段）
                 ")");
 
-        // player_daily_server_paths 表 - 存储玩家服务器路径记录
+        // player_daily_server_paths 表 - 存储玩家服务器路径记录，首次维护分区时转换为按月分表与同名视图
         executeStatement(connection, "CREATE TABLE IF NOT EXISTS player_daily_server_paths (" +
                 "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
                 "time TEXT NOT NULL, " +  // yyyy-mm-ddThh:mm:ssXXX格式
@@ -242,6 +485,49 @@ public class DatabaseUtil {
                 "to_server VARCHAR(255) NOT NULL" +
                 ")");
 
+        // server_path_rollup 表 - 过期的服务器路径分区删除前按日期、小时和目标服务器汇总的结果
+        executeStatement(connection, "CREATE TABLE IF NOT EXISTS server_path_rollup (" +
+                "time TEXT NOT NULL, " +  // yyyy-mm-dd格式
+                "hour INTEGER NOT NULL, " +  // 本地小时（0-23）
+                "to_server VARCHAR(255) NOT NULL, " +
+                "switches INTEGER NOT NULL, " +  // 切换到该服务器的次数
+                "players INTEGER NOT NULL, " +  // 该小时内切换到该服务器的不同玩家数量
+                "PRIMARY KEY (time, hour, to_server)" +
+                ")");
+
+        // open_sessions 表 - 进行中的会话，启动时结算上次异常退出遗留的会话
+        executeStatement(connection, "CREATE TABLE IF NOT EXISTS open_sessions (" +
+                "uuid VARCHAR(36) NOT NULL PRIMARY KEY, " +
+                "start_time INTEGER NOT NULL, " +  // 会话开始时间，UNIX 时间戳（秒）
+                "last_checkpoint INTEGER NOT NULL" +  // 游戏时间已计入到的时间，UNIX 时间戳（秒）
+                ")");
+
+        // player_sessions 表 - 已结束的会话，每条记录是玩家在一个子服务器上连续停留的一段时间
+        executeStatement(connection, "CREATE TABLE IF NOT EXISTS player_sessions (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "uuid VARCHAR(36) NOT NULL, " +
+                "server_name VARCHAR(255) NOT NULL, " +
+                "start_time INTEGER NOT NULL, " +  // 进入服务器的时间，UNIX 时间戳（秒）
+                "duration INTEGER NOT NULL" +  // 停留时长（秒）
+                ")");
+        executeStatement(connection, "CREATE INDEX IF NOT EXISTS idx_player_sessions_start_time " +
+                "ON player_sessions (start_time)");
+
+        // server_latency_history 表 - 存储后端服务器降采样后的延迟与可用性记录
+        executeStatement(connection, "CREATE TABLE IF NOT EXISTS server_latency_history (" +
+                "id INTEGER PRIMARY KEY AUTOINCREMENT, " +
+                "time TEXT NOT NULL, " +  // yyyy-mm-ddThh:mm:ssXXX格式，降采样窗口结束时间
+                "server_name VARCHAR(255) NOT NULL, " +
+                "samples INTEGER NOT NULL, " +
+                "online_samples INTEGER NOT NULL, " +
+                "avg_latency INTEGER NOT NULL, " +  // 毫秒，仅统计在线样本，无在线样本时为 -1
+                "max_latency INTEGER NOT NULL, " +
+                "avg_players INTEGER NOT NULL, " +
+                "outages INTEGER NOT NULL" +  // 窗口内由在线变为离线的次数
+                ")");
+        executeStatement(connection, "CREATE INDEX IF NOT EXISTS idx_server_latency_history_time " +
+                "ON server_latency_history (time)");
+
         logger.info("SQLite database tables initialized successfully");
     }
 
@@ -301,12 +587,13 @@ public class DatabaseUtil {
                 "id INTEGER PRIMARY KEY AUTO_INCREMENT, " +
                 "uuid VARCHAR(36) NOT NULL UNIQUE, " +
                 "username VARCHAR(16) NOT NULL, " +
+                "username_lower VARCHAR(16), " +  // 小写用户名，用于不区分大小写的索引查询
                 "first_join_time VARCHAR(255) NOT NULL, " +  // yyyy-mm-ddThh:mm:ssXXX格式
                 "last_login_time VARCHAR(255) NOT NULL, " +  // yyyy-mm-ddThh:mm:ssXXX格式
                 "play_time TIME NOT NULL" +  // HH:mm:ss格式（时间段）
                 ")");
 
-        // player_daily_server_paths 表 - 存储玩家服务器路径记录
+        // player_daily_server_paths 表 - 存储玩家服务器路径记录，首次维护分区时转换为按月 RANGE COLUMNS 分区
         executeStatement(connection, "CREATE TABLE IF NOT EXISTS player_daily_server_paths (" +
                 "id INTEGER PRIMARY KEY AUTO_INCREMENT, " +
                 "time VARCHAR(255) NOT NULL, " +  // yyyy-mm-ddThh:mm:ssXXX格式
@@ -315,9 +602,183 @@ public class DatabaseUtil {
                 "to_server VARCHAR(255) NOT NULL" +
                 ")");
 
+        // server_path_rollup 表 - 过期的服务器路径分区删除前按日期、小时和目标服务器汇总的结果
+        executeStatement(connection, "CREATE TABLE IF NOT EXISTS server_path_rollup (" +
+                "time DATE NOT NULL, " +
+                "hour INTEGER NOT NULL, " +  // 本地小时（0-23）
+                "to_server VARCHAR(255) NOT NULL, " +
+                "switches INTEGER NOT NULL, " +  // 切换到该服务器的次数
+                "players INTEGER NOT NULL, " +  // 该小时内切换到该服务器的不同玩家数量
+                "PRIMARY KEY (time, hour, to_server)" +
+                ")");
+
+        // open_sessions 表 - 进行中的会话，启动时结算上次异常退出遗留的会话
+        executeStatement(connection, "CREATE TABLE IF NOT EXISTS open_sessions (" +
+                "uuid VARCHAR(36) NOT NULL PRIMARY KEY, " +
+                "start_time BIGINT NOT NULL, " +  // 会话开始时间，UNIX 时间戳（秒）
+                "last_checkpoint BIGINT NOT NULL" +  // 游戏时间已计入到的时间，UNIX 时间戳（秒）
+                ")");
+
+        // player_sessions 表 - 已结束的会话，每条记录是玩家在一个子服务器上连续停留的一段时间
+        executeStatement(connection, "CREATE TABLE IF NOT EXISTS player_sessions (" +
+                "id BIGINT PRIMARY KEY AUTO_INCREMENT, " +
+                "uuid VARCHAR(36) NOT NULL, " +
+                "server_name VARCHAR(255) NOT NULL, " +
+                "start_time BIGINT NOT NULL, " +  // 进入服务器的时间，UNIX 时间戳（秒）
+                "duration BIGINT NOT NULL, " +  // 停留时长（秒）
+                "INDEX idx_player_sessions_start_time (start_time)" +
+                ")");
+
+        // server_latency_history 表 - 存储后端服务器降采样后的延迟与可用性记录
+        executeStatement(connection, "CREATE TABLE IF NOT EXISTS server_latency_history (" +
+                "id INTEGER PRIMARY KEY AUTO_INCREMENT, " +
+                "time VARCHAR(255) NOT NULL, " +  // yyyy-mm-ddThh:mm:ssXXX格式，降采样窗口结束时间
+                "server_name VARCHAR(255) NOT NULL, " +
+                "samples INTEGER NOT NULL, " +
+                "online_samples INTEGER NOT NULL, " +
+                "avg_latency INTEGER NOT NULL, " +  // 毫秒，仅统计在线样本，无在线样本时为 -1
+                "max_latency INTEGER NOT NULL, " +
+                "avg_players INTEGER NOT NULL, " +
+                "outages INTEGER NOT NULL, " +  // 窗口内由在线变为离线的次数
+                "INDEX idx_server_latency_history_time (time)" +
+                ")");
+        // 早期版本创建的表没有时间索引
+        if (!indexExists(connection, "server_latency_history", "idx_server_latency_history_time")) {
+            executeStatement(connection, "CREATE INDEX idx_server_latency_history_time ON server_latency_history (time)");
+            logger.info("Created index idx_server_latency_history_time on server_latency_history");
+        }
+
         logger.info("MySQL database tables initialized successfully");
     }
 
+    /**
+     * 初始化 PostgreSQL 数据库表结构
+     * 路径与延迟记录按时间顺序追加，时间列使用 BRIN 索引，体积只有 B-tree 的极小部分，分区表上的索引需要 PostgreSQL 11 及以上；
+     * 游戏时间排名只关心有游戏时间的玩家，使用部分索引
+     *
+     * @param connection 数据库连接
+     * @throws SQLException SQL执行异常
+     */
+    private void initializePostgreSQLTables(Connection connection) throws SQLException {
+        // server_info 表 - 存储服务器基本信息
+        executeStatement(connection, "CREATE TABLE IF NOT EXISTS server_info (" +
+                "id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                "startup_time DATE NOT NULL, " +
+                "last_report_generation_time DATE" +  // 允许为NULL
+                ")");
+
+        // server_tracking 表 - 存储历史峰值在线数据
+        executeStatement(connection, "CREATE TABLE IF NOT EXISTS server_tracking (" +
+                "id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                "historical_peak_online INTEGER NOT NULL" +
+                ")");
+
+        // daily_peak_online 表 - 存储每日总峰值在线数据
+        executeStatement(connection, "CREATE TABLE IF NOT EXISTS daily_peak_online (" +
+                "id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                "time DATE NOT NULL UNIQUE, " +
+                "overall INTEGER NOT NULL" +
+                ")");
+
+        // sub_server_peak_online 表 - 存储子服务器每日峰值在线数据
+        executeStatement(connection, "CREATE TABLE IF NOT EXISTS sub_server_peak_online (" +
+                "id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                "time DATE NOT NULL, " +
+                "server_name VARCHAR(255) NOT NULL, " +
+                "peak_online INTEGER NOT NULL, " +
+                "UNIQUE(time, server_name)" +
+                ")");
+
+        // daily_new_players 表 - 存储每日新玩家统计数据
+        executeStatement(connection, "CREATE TABLE IF NOT EXISTS daily_new_players (" +
+                "id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                "time DATE NOT NULL UNIQUE, " +
+                "overall INTEGER NOT NULL" +
+                ")");
+
+        // daily_new_players_info 表 - 存储每日新玩家详细信息
+        executeStatement(connection, "CREATE TABLE IF NOT EXISTS daily_new_players_info (" +
+                "id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                "time TIMESTAMPTZ NOT NULL, " +
+                "uuid UUID NOT NULL, " +
+                "original_username VARCHAR(16) NOT NULL" +
+                ")");
+
+        // player_data 表 - 存储玩家基本信息和游戏时间统计
+        executeStatement(connection, "CREATE TABLE IF NOT EXISTS player_data (" +
+                "id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                "uuid UUID NOT NULL UNIQUE, " +
+                "username VARCHAR(16) NOT NULL, " +
+                "username_lower VARCHAR(16), " +  // 小写用户名，用于不区分大小写的索引查询
+                "first_join_time TIMESTAMPTZ NOT NULL, " +
+                "last_login_time TIMESTAMPTZ NOT NULL, " +
+                "play_time INTERVAL NOT NULL" +  // 时间段
+                ")");
+        executeStatement(connection, "CREATE INDEX IF NOT EXISTS idx_player_data_last_login_time " +
+                "ON player_data (last_login_time)");
+        executeStatement(connection, "CREATE INDEX IF NOT EXISTS idx_player_data_play_time " +
+                "ON player_data (play_time) WHERE play_time > INTERVAL '0 seconds'");
+
+        // player_daily_server_paths 表 - 存储玩家服务器路径记录，按月声明式分区，各月分区由存储后端创建；
+        // 分区表的主键必须包含分区键，id 只用于保持插入顺序，不设主键；旧版本创建的普通表在首次维护分区时转换
+        executeStatement(connection, "CREATE TABLE IF NOT EXISTS player_daily_server_paths (" +
+                "id BIGSERIAL, " +
+                "time TIMESTAMPTZ NOT NULL, " +
+                "uuid UUID NOT NULL, " +
+                "from_server VARCHAR(255), " +
+                "to_server VARCHAR(255) NOT NULL" +
+                ") PARTITION BY RANGE (time)");
+        executeStatement(connection, "CREATE INDEX IF NOT EXISTS idx_player_daily_server_paths_time " +
+                "ON player_daily_server_paths USING BRIN (time)");
+        executeStatement(connection, "CREATE INDEX IF NOT EXISTS idx_player_daily_server_paths_uuid_time " +
+                "ON player_daily_server_paths (uuid, time)");
+
+        // server_path_rollup 表 - 过期的服务器路径分区删除前按日期、小时和目标服务器汇总的结果
+        executeStatement(connection, "CREATE TABLE IF NOT EXISTS server_path_rollup (" +
+                "time DATE NOT NULL, " +
+                "hour INTEGER NOT NULL, " +  // 本地小时（0-23）
+                "to_server VARCHAR(255) NOT NULL, " +
+                "switches INTEGER NOT NULL, " +  // 切换到该服务器的次数
+                "players INTEGER NOT NULL, " +  // 该小时内切换到该服务器的不同玩家数量
+                "PRIMARY KEY (time, hour, to_server)" +
+                ")");
+
+        // open_sessions 表 - 进行中的会话，启动时结算上次异常退出遗留的会话
+        executeStatement(connection, "CREATE TABLE IF NOT EXISTS open_sessions (" +
+                "uuid UUID NOT NULL PRIMARY KEY, " +
+                "start_time BIGINT NOT NULL, " +  // 会话开始时间，UNIX 时间戳（秒）
+                "last_checkpoint BIGINT NOT NULL" +  // 游戏时间已计入到的时间，UNIX 时间戳（秒）
+                ")");
+
+        // player_sessions 表 - 已结束的会话，每条记录是玩家在一个子服务器上连续停留的一段时间
+        executeStatement(connection, "CREATE TABLE IF NOT EXISTS player_sessions (" +
+                "id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                "uuid UUID NOT NULL, " +
+                "server_name VARCHAR(255) NOT NULL, " +
+                "start_time BIGINT NOT NULL, " +  // 进入服务器的时间，UNIX 时间戳（秒）
+                "duration BIGINT NOT NULL" +  // 停留时长（秒）
+                ")");
+        executeStatement(connection, "CREATE INDEX IF NOT EXISTS idx_player_sessions_start_time " +
+                "ON player_sessions (start_time)");
+
+        // server_latency_history 表 - 存储后端服务器降采样后的延迟与可用性记录
+        executeStatement(connection, "CREATE TABLE IF NOT EXISTS server_latency_history (" +
+                "id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, " +
+                "time TIMESTAMPTZ NOT NULL, " +  // 降采样窗口结束时间
+                "server_name VARCHAR(255) NOT NULL, " +
+                "samples INTEGER NOT NULL, " +
+                "online_samples INTEGER NOT NULL, " +
+                "avg_latency INTEGER NOT NULL, " +  // 毫秒，仅统计在线样本，无在线样本时为 -1
+                "max_latency INTEGER NOT NULL, " +
+                "avg_players INTEGER NOT NULL, " +
+                "outages INTEGER NOT NULL" +  // 窗口内由在线变为离线的次数
+                ")");
+        executeStatement(connection, "CREATE INDEX IF NOT EXISTS idx_server_latency_history_time " +
+                "ON server_latency_history USING BRIN (time)");
+
+        logger.info("PostgreSQL database tables initialized successfully");
+    }
+
     /**
      * 执行DDL语句
      *
@@ -345,33 +806,203 @@ public class DatabaseUtil {
     }
 
     /**
-     * 执行更新操作（INSERT, UPDATE, DELETE）
+     * 执行一次写入，写入中的所有语句作为一个整体提交，失败时全部回滚
+     * SQLite 下交给单线程写入器，与同时排队的其他写入合并到同一个事务中提交；
+     * MySQL 与 PostgreSQL 下直接在连接池的连接上以独立事务执行。方法在写入提交后才返回
      *
-     * @param sql    SQL 语句
-     * @param params 参数
-     * @return 受影响的行数
-     * @throws SQLException SQL 执行异常
+     * @param queryName 查询名称，用于耗时统计
+     * @param work      写入操作，不能自行提交、回滚或关闭连接
+     * @throws SQLException 写入或提交失败
      */
-    public int executeUpdate(String sql, Object... params) throws SQLException {
-        try (Connection connection = getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql)) {
+    public void write(String queryName, SqlWork work) throws SQLException {
+        if (sqliteWriter != null) {
+            sqliteWriter.write(queryName, work);
+            return;
+        }
 
-            for (int i = 0; i < params.length; i++) {
-                statement.setObject(i + 1, params[i]);
+        try (Connection connection = getConnection(queryName)) {
+            connection.setAutoCommit(false);
+            try {
+                work.accept(connection);
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
             }
+        }
+    }
+
+    /**
+     * 执行 WAL 检查点，将 WAL 中的内容写回数据库文件
+     * WAL 文件小于阈值时使用 PASSIVE 模式，不等待读取；超过阈值时使用 TRUNCATE 模式，等待读取结束后将 WAL 文件截断为零，
+     * 保证持续写入时 WAL 文件不会无限增长。其他数据库下不执行任何操作
+     */
+    public void checkpoint() {
+        if (sqliteWriter == null) {
+            return;
+        }
+        long walSize = getWalSize();
+        String mode = walSize >= configLoader.getSQLiteCheckpointTruncateThreshold() * 1024L * 1024L ? "TRUNCATE" : "PASSIVE";
+        try {
+            sqliteWriter.maintain("walCheckpoint", connection -> {
+                try (Statement statement = connection.createStatement();
+                     ResultSet rs = statement.executeQuery("PRAGMA wal_checkpoint(" + mode + ")")) {
+                    if (rs.next()) {
+                        // 返回值依次为：是否因锁冲突未完成、WAL 中的页数、已写回的页数
+                        boolean busy = rs.getInt(1) != 0;
+                        int logFrames = rs.getInt(2);
+                        int checkpointedFrames = rs.getInt(3);
+                        if (busy) {
+                            logger.debug("WAL checkpoint ({}) could not finish, {} of {} frames written back",
+                                    mode, checkpointedFrames, logFrames);
+                        }
+                    }
+                }
+            });
+            metricsRegistry.recordCheckpoint(mode);
+        } catch (SQLException e) {
+            logger.error("Failed to checkpoint SQLite WAL ({}): {}", mode, e.getMessage());
+        }
+    }
+
+    /**
+     * 执行 PRAGMA optimize，让 SQLite 根据近期查询更新查询规划器使用的统计信息。其他数据库下不执行任何操作
+     */
+    public void optimize() {
+        if (sqliteWriter == null) {
+            return;
+        }
+        try {
+            sqliteWriter.maintain("optimize", connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("PRAGMA optimize");
+                }
+            });
+        } catch (SQLException e) {
+            logger.error("Failed to optimize SQLite database: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 获取 SQLite WAL 文件的大小
+     *
+     * @return WAL 文件字节数，其他数据库下或文件不存在时返回 0
+     */
+    public long getWalSize() {
+        if (sqlitePath == null) {
+            return 0L;
+        }
+        try {
+            Path walPath = sqlitePath.resolveSibling(sqlitePath.getFileName() + "-wal");
+            return Files.exists(walPath) ? Files.size(walPath) : 0L;
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
 
-            return statement.executeUpdate();
+    /**
+     * 获取用于写入的数据库连接；SQLite 下来自单连接写入池，MySQL 与 PostgreSQL 下与读取共用连接池
+     *
+     * @return 数据库连接对象
+     * @throws SQLException 数据库连接异常
+     */
+    private Connection getWriteConnection() throws SQLException {
+        if (writeDataSource == null) {
+            return getConnection();
         }
+        return writeDataSource.getConnection();
+    }
+
+    /**
+     * 获取带计时的数据库连接，通过该连接执行的语句都计入指定查询名称的耗时统计
+     *
+     * @param queryName 查询名称
+     * @return 数据库连接对象
+     * @throws SQLException 数据库连接异常
+     */
+    public Connection getConnection(String queryName) throws SQLException {
+        return TimedConnection.wrap(getConnection(), queryName, metricsRegistry.getQueryStats(queryName),
+                configLoader.getSlowQueryThreshold(), logger);
+    }
+
+    /**
+     * 在读取连接上执行查询并将每一行映射为对象
+     *
+     * @param queryName 查询名称，用于耗时统计
+     * @return 按结果顺序排列的对象
+     * @throws SQLException SQL 执行异常
+     */
+    public <T> List<T> query(String queryName, String sql, SqlQuery.Binder binder,
+                             SqlQuery.RowMapper<T> mapper) throws SQLException {
+        try (Connection connection = getConnection(queryName)) {
+            return SqlQuery.query(connection, sql, binder, mapper);
+        }
+    }
+
+    /**
+     * 在读取连接上执行查询并映射第一行
+     *
+     * @param queryName 查询名称，用于耗时统计
+     * @return 第一行映射的对象，没有结果时返回 null
+     * @throws SQLException SQL 执行异常
+     */
+    public <T> T queryFirst(String queryName, String sql, SqlQuery.Binder binder,
+                            SqlQuery.RowMapper<T> mapper) throws SQLException {
+        try (Connection connection = getConnection(queryName)) {
+            return SqlQuery.queryFirst(connection, sql, binder, mapper);
+        }
+    }
+
+    /**
+     * 在读取连接上执行查询并逐行处理结果
+     *
+     * @param queryName 查询名称，用于耗时统计
+     * @throws SQLException SQL 执行异常
+     */
+    public void forEach(String queryName, String sql, SqlQuery.Binder binder,
+                        SqlQuery.RowHandler handler) throws SQLException {
+        try (Connection connection = getConnection(queryName)) {
+            SqlQuery.forEach(connection, sql, binder, handler);
+        }
+    }
+
+    /**
+     * 作为一次写入执行单条更新语句（INSERT, UPDATE, DELETE）
+     *
+     * @param queryName 查询名称，用于耗时统计
+     * @return 受影响的行数
+     * @throws SQLException SQL 执行异常
+     */
+    public int update(String queryName, String sql, SqlQuery.Binder binder) throws SQLException {
+        int[] updated = new int[1];
+        write(queryName, connection -> updated[0] = SqlQuery.update(connection, sql, binder));
+        return updated[0];
     }
 
     /**
      * 关闭数据库连接池
      */
     public void close() {
-        if (dataSource != null && !dataSource.isClosed()) {
-            dataSource.close();
-            logger.info("Database connection pool closed");
+        if (sqliteWriter != null) {
+            sqliteWriter.stop(configLoader.getHikariConnectionTimeout());
+        }
+        for (HikariDataSource pool : pools.values()) {
+            if (!pool.isClosed()) {
+                pool.close();
+            }
         }
+        logger.info("Database connection pool closed");
+    }
+
+    /**
+     * 获取所有连接池，用于导出连接池状态
+     *
+     * @return 连接池名称到连接池的映射
+     */
+    public Map<String, HikariDataSource> getPools() {
+        return Collections.unmodifiableMap(pools);
     }
 
     /**
@@ -383,12 +1014,32 @@ public class DatabaseUtil {
         return databaseType;
     }
 
+    /**
+     * 获取逐批读取大结果集时每次从数据库获取的行数
+     *
+     * @return 行数
+     */
+    public int getFetchSize() {
+        return configLoader.getFetchSize();
+    }
+
+    /**
+     * 在写入连接上执行的数据库操作
+     */
+    @FunctionalInterface
+    public interface SqlWork {
+        void accept(Connection connection) throws SQLException;
+    }
+
     /**
      * 数据库类型枚举
      */
     public enum DatabaseType {
         SQLITE,
-        MYSQL;
+        MYSQL,
+        POSTGRESQL,
+        // 内存存储，数据不会持久化，仅用于测试和基准测试
+        MEMORY;
 
         public static DatabaseType fromString(String type) {
             for (DatabaseType databaseType : values()) {
@@ -0,0 +1,316 @@
+package cn.nirvana.vMonitor.util;
+
+import cn.nirvana.vMonitor.loader.ConfigLoader;
+
+import org.slf4j.Logger;
+
+import java.lang.reflect.Method;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 执行器工具类，用于将阻塞的数据库操作分发到虚拟线程上执行
+ * 虚拟线程模式为可选功能，仅在 Java 21 及以上版本生效；未启用时任务在调用线程上同步执行，
+ * 只有通过 supplyAsync 提交的任务会在平台线程池上异步执行
+ */
+public class ExecutorUtil {
+    private static final int VIRTUAL_THREAD_MIN_VERSION = 21;
+
+    private final Logger logger;
+    private final ConfigLoader configLoader;
+    private final MetricsRegistry metricsRegistry;
+
+    private ExecutorService virtualExecutor;
+    private Semaphore permits;
+
+    // 未启用虚拟线程时，必须异步执行的任务（例如命令查询）使用的平台线程池
+    private ExecutorService platformExecutor;
+
+    // 按键串行执行的任务链（例如同一玩家的事件需要按顺序写入）
+    private final Map<Object, CompletableFuture<Void>> orderedTails = new ConcurrentHashMap<>();
+
+    public ExecutorUtil(Logger logger, ConfigLoader configLoader, MetricsRegistry metricsRegistry) {
+        this.logger = logger;
+        this.configLoader = configLoader;
+        this.metricsRegistry = metricsRegistry;
+    }
+
+    /**
+     * 根据配置和运行时版本初始化执行模式
+     */
+    public void initialize() {
+        if (!configLoader.isVirtualThreadsEnabled()) {
+            logger.info("Virtual-thread execution mode is disabled, database work runs on the calling thread.");
+            initializePlatformExecutor();
+            return;
+        }
+
+        int javaVersion = Runtime.version().feature();
+        if (javaVersion < VIRTUAL_THREAD_MIN_VERSION) {
+            logger.warn("Virtual-thread execution mode requires Java {}+, but the proxy is running on Java {}. Falling back to the calling thread.",
+                    VIRTUAL_THREAD_MIN_VERSION, javaVersion);
+            initializePlatformExecutor();
+            return;
+        }
+
+        try {
+            // 插件以 Java 17 为编译目标，因此通过反射获取虚拟线程执行器
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            virtualExecutor = (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            logger.error("Failed to create virtual thread executor, falling back to the calling thread: {}", e.getMessage());
+            initializePlatformExecutor();
+            return;
+        }
+
+        // 并发数量与连接池大小保持一致，避免虚拟线程在连接池上无意义地排队
+        int maxConcurrency = configLoader.getDatabasePoolSize();
+        permits = new Semaphore(maxConcurrency, true);
+        logger.info("Virtual-thread execution mode enabled with a concurrency limit of {}", maxConcurrency);
+    }
+
+    /**
+     * 创建固定大小的守护线程池，线程数与连接池大小一致
+     */
+    private void initializePlatformExecutor() {
+        int poolSize = Math.max(2, configLoader.getDatabasePoolSize());
+        AtomicInteger threadCounter = new AtomicInteger();
+        platformExecutor = Executors.newFixedThreadPool(poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "V-Monitor-Async-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 是否正在使用虚拟线程执行模式
+     *
+     * @return 启用虚拟线程时返回 true
+     */
+    public boolean isVirtualThreadsEnabled() {
+        return virtualExecutor != null;
+    }
+
+    /**
+     * 执行一个阻塞任务，不关心返回结果
+     *
+     * @param task 任务
+     */
+    public void execute(Runnable task) {
+        Runnable tracked = tracked(task);
+        if (virtualExecutor == null) {
+            runSafely(tracked);
+            return;
+        }
+        virtualExecutor.execute(() -> runWithPermit(tracked));
+    }
+
+    /**
+     * 执行一个带返回值的阻塞任务
+     *
+     * @param task 任务
+     * @param <T>  返回值类型
+     * @return 任务结果的 CompletableFuture；未启用虚拟线程时返回已完成的 Future
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        if (virtualExecutor == null) {
+            try {
+                return CompletableFuture.completedFuture(timed(task));
+            } catch (Exception e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return CompletableFuture.supplyAsync(() -> callWithPermit(task), virtualExecutor);
+    }
+
+    /**
+     * 始终异步执行一个带返回值的阻塞任务，不会占用调用线程
+     * 启用虚拟线程时在虚拟线程上执行，否则在平台线程池上执行
+     *
+     * @param task 任务
+     * @param <T>  返回值类型
+     * @return 任务结果的 CompletableFuture
+     */
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> task) {
+        if (virtualExecutor != null) {
+            return CompletableFuture.supplyAsync(() -> callWithPermit(task), virtualExecutor);
+        }
+        if (platformExecutor != null) {
+            return CompletableFuture.supplyAsync(() -> timed(task), platformExecutor);
+        }
+        return submit(task);
+    }
+
+    /**
+     * 按键顺序执行任务，同一个键的任务严格按照提交顺序依次执行
+     *
+     * @param key  排序键（例如玩家 UUID）
+     * @param task 任务
+     */
+    public void executeOrdered(Object key, Runnable task) {
+        Runnable tracked = tracked(task);
+        if (virtualExecutor == null) {
+            runSafely(tracked);
+            return;
+        }
+
+        CompletableFuture<Void> next = orderedTails.compute(key, (k, tail) -> {
+            CompletableFuture<Void> base = tail != null ? tail : CompletableFuture.completedFuture(null);
+            return base.thenRunAsync(() -> runWithPermit(tracked), virtualExecutor);
+        });
+        // 链尾完成后清理，防止长期占用内存
+        next.whenComplete((result, throwable) -> orderedTails.remove(key, next));
+    }
+
+    /**
+     * 创建一个长期运行的线程；启用虚拟线程时创建虚拟线程，否则创建守护平台线程
+     *
+     * @param name     线程名称
+     * @param runnable 线程任务
+     * @return 未启动的线程
+     */
+    public Thread newThread(String name, Runnable runnable) {
+        if (virtualExecutor != null) {
+            try {
+                Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+                Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+                builder = builderClass.getMethod("name", String.class).invoke(builder, name);
+                return (Thread) builderClass.getMethod("unstarted", Runnable.class).invoke(builder, runnable);
+            } catch (ReflectiveOperationException e) {
+                logger.warn("Failed to create virtual thread '{}', using a platform thread instead: {}", name, e.getMessage());
+            }
+        }
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * 关闭执行器并等待已提交的任务完成
+     * 按键排序的任务链中尚未开始的任务在链上前一个任务完成后才提交给执行器，因此先等待所有任务链执行完毕再关闭执行器
+     *
+     * @param timeout 最长等待时间
+     * @param unit    时间单位
+     */
+    public void shutdown(long timeout, TimeUnit unit) {
+        if (platformExecutor != null) {
+            platformExecutor.shutdown();
+        }
+        if (virtualExecutor == null) {
+            return;
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        awaitOrdered(deadline);
+        virtualExecutor.shutdown();
+        try {
+            if (!virtualExecutor.awaitTermination(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                logger.warn("Virtual thread executor did not terminate in time, {} ordered chains still pending", orderedTails.size());
+                virtualExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            virtualExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 等待所有按键排序的任务链执行完毕，等待期间新增的任务链同样等待
+     *
+     * @param deadline System.nanoTime() 表示的截止时间
+     */
+    private void awaitOrdered(long deadline) {
+        while (!orderedTails.isEmpty()) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            CompletableFuture<?>[] tails = orderedTails.values().toArray(new CompletableFuture<?>[0]);
+            try {
+                CompletableFuture.allOf(tails).get(remaining, TimeUnit.NANOSECONDS);
+            } catch (ExecutionException e) {
+                // 任务中的异常已在 runWithPermit 中记录
+            } catch (TimeoutException e) {
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * 将任务计入待执行的数据库写入任务数量，任务结束（无论成功与否）时扣除
+     */
+    private Runnable tracked(Runnable task) {
+        metricsRegistry.incrementPendingDatabaseTasks();
+        return () -> {
+            try {
+                task.run();
+            } finally {
+                metricsRegistry.decrementPendingDatabaseTasks();
+            }
+        };
+    }
+
+    /**
+     * 执行任务并记录耗时，抛出异常的任务计入失败次数
+     */
+    private <T> T timed(Supplier<T> task) {
+        long start = System.nanoTime();
+        try {
+            return task.get();
+        } catch (RuntimeException e) {
+            metricsRegistry.recordDatabaseTaskError();
+            throw e;
+        } finally {
+            metricsRegistry.getDatabaseTaskLatency().record(System.nanoTime() - start);
+        }
+    }
+
+    private void runWithPermit(Runnable task) {
+        // 吞掉异常，保证同一键后续的任务链不会因为前一个任务失败而被跳过
+        try {
+            callWithPermit(() -> {
+                task.run();
+                return null;
+            });
+        } catch (RuntimeException e) {
+            logger.error("Asynchronous database task failed: {}", e.getMessage());
+        }
+    }
+
+    private <T> T callWithPermit(Supplier<T> task) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a database permit", e);
+        }
+        try {
+            return timed(task);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void runSafely(Runnable task) {
+        try {
+            timed(() -> {
+                task.run();
+                return null;
+            });
+        } catch (RuntimeException e) {
+            logger.error("Database task failed: {}", e.getMessage());
+        }
+    }
+}
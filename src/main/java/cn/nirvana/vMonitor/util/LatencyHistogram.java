@@ -0,0 +1,128 @@
+package cn.nirvana.vMonitor.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁延迟直方图
+ * 以微秒为单位按对数线性分桶：每个 2 的幂区间再均分为 8 个子桶，相对误差不超过 12.5%，
+ * 记录只是一次数组元素的原子自增，可以在任意线程上高频调用
+ */
+public class LatencyHistogram {
+    // 每个 2 的幂区间的子桶数量（2^3）
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    // 可记录的最大值为 2^36 微秒（约 19 小时），超出部分计入最后一个桶
+    private static final int MAX_EXPONENT = 36;
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumMicros = new LongAdder();
+
+    /**
+     * 记录一次耗时
+     *
+     * @param nanos 耗时（纳秒）
+     */
+    public void record(long nanos) {
+        long micros = Math.max(0L, TimeUnit.NANOSECONDS.toMicros(nanos));
+        buckets.incrementAndGet(bucketIndex(micros));
+        count.increment();
+        sumMicros.add(micros);
+    }
+
+    /**
+     * 获取记录总数
+     *
+     * @return 记录总数
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * 获取所有记录的耗时总和
+     *
+     * @return 耗时总和（微秒）
+     */
+    public long getSumMicros() {
+        return sumMicros.sum();
+    }
+
+    /**
+     * 估算分位数，返回目标记录所在桶的上界
+     *
+     * @param quantile 分位数，取值 0 到 1
+     * @return 耗时（微秒），没有记录时返回 0
+     */
+    public long getQuantileMicros(double quantile) {
+        long[] snapshot = snapshot();
+        long total = 0L;
+        for (long bucket : snapshot) {
+            total += bucket;
+        }
+        if (total == 0L) {
+            return 0L;
+        }
+        long target = Math.max(1L, (long) Math.ceil(quantile * total));
+        long cumulative = 0L;
+        for (int i = 0; i < snapshot.length; i++) {
+            cumulative += snapshot[i];
+            if (cumulative >= target) {
+                return bucketUpperBound(i);
+            }
+        }
+        return bucketUpperBound(snapshot.length - 1);
+    }
+
+    /**
+     * 统计耗时小于 2^exponent 微秒的记录数量，2 的幂恰好是桶边界，因此结果是精确的
+     *
+     * @param exponent 2 的幂指数
+     * @return 记录数量
+     */
+    public long countBelowPowerOfTwo(int exponent) {
+        int limit = exponent < SUB_BUCKET_BITS
+                ? (1 << exponent)
+                : Math.min(BUCKET_COUNT, (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT);
+        long result = 0L;
+        for (int i = 0; i < limit; i++) {
+            result += buckets.get(i);
+        }
+        return result;
+    }
+
+    private long[] snapshot() {
+        long[] snapshot = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = buckets.get(i);
+        }
+        return snapshot;
+    }
+
+    /**
+     * 小于 8 微秒的值各占一个桶，其余按最高位所在的 2 的幂区间和紧随其后的 3 位确定子桶
+     */
+    private static int bucketIndex(long micros) {
+        if (micros < SUB_BUCKET_COUNT) {
+            return (int) micros;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int subBucket = (int) ((micros >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1));
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    private static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index + 1L;
+        }
+        int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        int subBucket = index % SUB_BUCKET_COUNT;
+        return (long) (SUB_BUCKET_COUNT + subBucket + 1) << (exponent - SUB_BUCKET_BITS);
+    }
+}
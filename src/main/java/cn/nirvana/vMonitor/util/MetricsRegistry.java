@@ -0,0 +1,222 @@
+package cn.nirvana.vMonitor.util;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 插件运行指标的内存注册表
+ * 所有计数器在事件线程或数据库线程上无锁更新，指标导出时只读取这些计数器，不查询数据库
+ */
+public class MetricsRegistry {
+    // 数据库任务耗时与失败次数
+    private final LatencyHistogram databaseTaskLatency = new LatencyHistogram();
+    private final LongAdder databaseTaskErrors = new LongAdder();
+    // 已提交但尚未执行完成的数据库写入任务数量
+    private final LongAdder pendingDatabaseTasks = new LongAdder();
+
+    // SQLite 单线程写入器：排队中的写入数量、已提交的事务数、事务中包含的写入总数与提交耗时
+    private final LongAdder pendingWrites = new LongAdder();
+    private final LongAdder writeBatches = new LongAdder();
+    private final LongAdder writeBatchTasks = new LongAdder();
+    private final LatencyHistogram writeBatchLatency = new LatencyHistogram();
+    // 检查点模式 -> 已执行的 WAL 检查点次数
+    private final Map<String, LongAdder> checkpoints = new ConcurrentHashMap<>();
+
+    // 查询名称 -> 该查询的耗时与失败统计
+    private final Map<String, QueryStats> queryStats = new ConcurrentHashMap<>();
+
+    // 连接池名称 -> 连接获取等待时间、连接占用时间与获取超时次数
+    private final Map<String, PoolMetrics> poolMetrics = new ConcurrentHashMap<>();
+
+    // 报告生成耗时
+    private final LatencyHistogram reportDuration = new LatencyHistogram();
+
+    // 峰值在线人数：总峰值以数据库中的历史峰值为初始值，子服务器峰值从插件启动开始统计
+    private final LongAccumulator peakOnline = new LongAccumulator(Long::max, 0L);
+    private final Map<String, LongAccumulator> backendPeakOnline = new ConcurrentHashMap<>();
+
+    public LatencyHistogram getDatabaseTaskLatency() {
+        return databaseTaskLatency;
+    }
+
+    public void recordDatabaseTaskError() {
+        databaseTaskErrors.increment();
+    }
+
+    public long getDatabaseTaskErrors() {
+        return databaseTaskErrors.sum();
+    }
+
+    public void incrementPendingDatabaseTasks() {
+        pendingDatabaseTasks.increment();
+    }
+
+    public void decrementPendingDatabaseTasks() {
+        pendingDatabaseTasks.decrement();
+    }
+
+    public long getPendingDatabaseTasks() {
+        return pendingDatabaseTasks.sum();
+    }
+
+    public void incrementPendingWrites() {
+        pendingWrites.increment();
+    }
+
+    public void decrementPendingWrites(int count) {
+        pendingWrites.add(-count);
+    }
+
+    public long getPendingWrites() {
+        return pendingWrites.sum();
+    }
+
+    /**
+     * 记录一次组提交
+     *
+     * @param taskCount    事务中包含的写入数量
+     * @param elapsedNanos 执行并提交该事务的耗时
+     */
+    public void recordWriteBatch(int taskCount, long elapsedNanos) {
+        writeBatches.increment();
+        writeBatchTasks.add(taskCount);
+        writeBatchLatency.record(elapsedNanos);
+    }
+
+    public long getWriteBatches() {
+        return writeBatches.sum();
+    }
+
+    public long getWriteBatchTasks() {
+        return writeBatchTasks.sum();
+    }
+
+    public LatencyHistogram getWriteBatchLatency() {
+        return writeBatchLatency;
+    }
+
+    public void recordCheckpoint(String mode) {
+        checkpoints.computeIfAbsent(mode, key -> new LongAdder()).increment();
+    }
+
+    public Map<String, LongAdder> getCheckpoints() {
+        return Collections.unmodifiableMap(checkpoints);
+    }
+
+    /**
+     * 获取指定查询的统计，不存在时创建
+     *
+     * @param queryName 查询名称
+     * @return 查询统计
+     */
+    public QueryStats getQueryStats(String queryName) {
+        return queryStats.computeIfAbsent(queryName, name -> new QueryStats());
+    }
+
+    public Map<String, QueryStats> getAllQueryStats() {
+        return Collections.unmodifiableMap(queryStats);
+    }
+
+    /**
+     * 获取指定连接池的统计，不存在时创建
+     *
+     * @param poolName 连接池名称
+     * @return 连接池统计
+     */
+    public PoolMetrics getPoolMetrics(String poolName) {
+        return poolMetrics.computeIfAbsent(poolName, name -> new PoolMetrics());
+    }
+
+    public Map<String, PoolMetrics> getAllPoolMetrics() {
+        return Collections.unmodifiableMap(poolMetrics);
+    }
+
+    public LatencyHistogram getReportDuration() {
+        return reportDuration;
+    }
+
+    /**
+     * 记录当前在线人数，只保留最大值
+     *
+     * @param onlineCount 当前在线人数
+     */
+    public void observeOnline(int onlineCount) {
+        peakOnline.accumulate(onlineCount);
+    }
+
+    /**
+     * 记录子服务器当前在线人数，只保留最大值
+     *
+     * @param serverName  服务器名称
+     * @param onlineCount 当前在线人数
+     */
+    public void observeBackendOnline(String serverName, int onlineCount) {
+        backendPeakOnline.computeIfAbsent(serverName, name -> new LongAccumulator(Long::max, 0L))
+                .accumulate(onlineCount);
+    }
+
+    public long getPeakOnline() {
+        return peakOnline.get();
+    }
+
+    public Map<String, LongAccumulator> getBackendPeakOnline() {
+        return Collections.unmodifiableMap(backendPeakOnline);
+    }
+
+    /**
+     * 单个查询的耗时、失败次数与慢查询次数
+     */
+    public static class QueryStats {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder slowQueries = new LongAdder();
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        public void recordError() {
+            errors.increment();
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public void recordSlowQuery() {
+            slowQueries.increment();
+        }
+
+        public long getSlowQueries() {
+            return slowQueries.sum();
+        }
+    }
+
+    /**
+     * 单个连接池的连接获取等待时间、连接占用时间与获取超时次数
+     */
+    public static class PoolMetrics {
+        private final LatencyHistogram acquireWait = new LatencyHistogram();
+        private final LatencyHistogram usage = new LatencyHistogram();
+        private final LongAdder timeouts = new LongAdder();
+
+        public LatencyHistogram getAcquireWait() {
+            return acquireWait;
+        }
+
+        public LatencyHistogram getUsage() {
+            return usage;
+        }
+
+        public void recordTimeout() {
+            timeouts.increment();
+        }
+
+        public long getTimeouts() {
+            return timeouts.sum();
+        }
+    }
+}
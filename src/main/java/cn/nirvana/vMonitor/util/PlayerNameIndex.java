@@ -0,0 +1,135 @@
+package cn.nirvana.vMonitor.util;
+
+import cn.nirvana.vMonitor.loader.DataLoader;
+
+import com.velocitypowered.api.proxy.Player;
+import com.velocitypowered.api.proxy.ProxyServer;
+
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 玩家名称前缀索引，用于玩家命令的自动补全
+ * 启动时从数据库加载所有已知玩家名称，之后随玩家登录（新建或改名）增量维护，补全时不再访问数据库
+ */
+public class PlayerNameIndex {
+    // 键为 "小写名称\0UUID"，同名的不同玩家各占一条，便于按前缀做范围查询
+    private static final char KEY_SEPARATOR = '\0';
+
+    private final Logger logger;
+    private final ProxyServer proxyServer;
+    private final DataLoader dataLoader;
+
+    private final NavigableMap<String, String> namesByKey = new ConcurrentSkipListMap<>();
+    private final Map<UUID, String> keysByUuid = new ConcurrentHashMap<>();
+
+    public PlayerNameIndex(Logger logger, ProxyServer proxyServer, DataLoader dataLoader) {
+        this.logger = logger;
+        this.proxyServer = proxyServer;
+        this.dataLoader = dataLoader;
+    }
+
+    /**
+     * 从数据库加载所有已知玩家名称
+     */
+    public void load() {
+        long start = System.currentTimeMillis();
+        dataLoader.forEachPlayerName((uuid, playerName) -> {
+            // 加载期间登录的玩家已经写入了最新名称，不能被数据库中的旧名称覆盖
+            update(uuid, playerName, false);
+        });
+        logger.info("Loaded {} player names into the completion index in {} ms",
+                keysByUuid.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 记录玩家当前的名称，玩家改名时替换旧名称
+     *
+     * @param uuid       玩家UUID
+     * @param playerName 玩家名称
+     */
+    public void put(UUID uuid, String playerName) {
+        update(uuid, playerName, true);
+    }
+
+    /**
+     * 更新玩家名称
+     * 两个映射的修改都在 UUID 映射的 compute 中完成，同一玩家的并发更新不会留下旧名称或丢失新名称
+     *
+     * @param uuid       玩家UUID
+     * @param playerName 玩家名称
+     * @param replace    是否替换已存在的名称
+     */
+    private void update(UUID uuid, String playerName, boolean replace) {
+        if (uuid == null || playerName == null || playerName.isEmpty()) {
+            return;
+        }
+        String key = playerName.toLowerCase(Locale.ROOT) + KEY_SEPARATOR + uuid;
+        keysByUuid.compute(uuid, (id, previousKey) -> {
+            if (previousKey != null && !replace) {
+                return previousKey;
+            }
+            if (previousKey != null && !previousKey.equals(key)) {
+                namesByKey.remove(previousKey);
+            }
+            namesByKey.put(key, playerName);
+            return key;
+        });
+    }
+
+    /**
+     * 按前缀查找玩家名称，在线玩家排在前面，结果数量不超过上限
+     *
+     * @param prefix 名称前缀（不区分大小写）
+     * @param limit  最大返回数量
+     * @return 匹配的玩家名称
+     */
+    public List<String> suggest(String prefix, int limit) {
+        String lowerPrefix = prefix.toLowerCase(Locale.ROOT);
+        Set<String> result = new LinkedHashSet<>();
+
+        // 在线玩家优先
+        List<String> onlineNames = new ArrayList<>();
+        for (Player player : proxyServer.getAllPlayers()) {
+            String username = player.getUsername();
+            if (username.toLowerCase(Locale.ROOT).startsWith(lowerPrefix)) {
+                onlineNames.add(username);
+            }
+        }
+        onlineNames.sort(String.CASE_INSENSITIVE_ORDER);
+        for (String name : onlineNames) {
+            if (result.size() >= limit) {
+                return new ArrayList<>(result);
+            }
+            result.add(name);
+        }
+
+        // 其余按字母顺序从索引中取出
+        for (String name : namesByKey.subMap(lowerPrefix, true, lowerPrefix + Character.MAX_VALUE, true).values()) {
+            if (result.size() >= limit) {
+                break;
+            }
+            result.add(name);
+        }
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * 获取索引中的玩家数量
+     *
+     * @return 玩家数量
+     */
+    public int size() {
+        return keysByUuid.size();
+    }
+}
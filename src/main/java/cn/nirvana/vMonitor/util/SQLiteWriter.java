@@ -0,0 +1,288 @@
+package cn.nirvana.vMonitor.util;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import org.slf4j.Logger;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.Savepoint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * SQLite 单线程写入器
+ * 所有写入在同一个线程、同一个连接上串行执行，排队中的多个写入合并到一个事务中提交（组提交），
+ * 每个写入在各自的保存点中执行，单个写入失败只回滚它自己的修改。
+ * 检查点等维护操作不能在事务中执行，它们同样由写入线程执行，但在事务之外单独运行。
+ * 写入线程在整个生命周期内持有写入池中唯一的连接，语句缓存绑定在该连接上跨批次复用，重复的写入语句只编译一次
+ */
+public class SQLiteWriter {
+    // 停止写入线程的标记任务
+    private static final WriteTask STOP = new WriteTask(null, null, false);
+    // 写入连接缓存的语句数量上限
+    private static final int STATEMENT_CACHE_SIZE = 64;
+
+    private final Logger logger;
+    private final HikariDataSource dataSource;
+    private final MetricsRegistry metricsRegistry;
+    private final long slowThresholdMs;
+    private final int maxBatchSize;
+
+    private final BlockingQueue<WriteTask> queue = new LinkedBlockingQueue<>();
+    private final Thread thread;
+    private volatile boolean running = true;
+    // 写入线程持有的连接及其语句缓存，只在写入线程上使用，写入线程结束后由 stop() 关闭
+    private Connection connection;
+    private StatementCache statementCache;
+
+    public SQLiteWriter(Logger logger, HikariDataSource dataSource, MetricsRegistry metricsRegistry,
+                        long slowThresholdMs, int maxBatchSize) {
+        this.logger = logger;
+        this.dataSource = dataSource;
+        this.metricsRegistry = metricsRegistry;
+        this.slowThresholdMs = slowThresholdMs;
+        this.maxBatchSize = maxBatchSize;
+        this.thread = new Thread(this::run, "V-Monitor-SQLite-Writer");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * 提交写入并等待其所在的事务提交完成
+     *
+     * @param queryName 查询名称，用于耗时统计
+     * @param work      写入操作，不能自行提交或回滚事务
+     * @throws SQLException 写入失败、事务提交失败或写入器已停止
+     */
+    public void write(String queryName, DatabaseUtil.SqlWork work) throws SQLException {
+        if (Thread.currentThread() == thread) {
+            // 已在写入线程中（写入中嵌套写入），直接在当前事务中执行，避免等待自己造成死锁
+            work.accept(timed(connection, queryName, statementCache));
+            return;
+        }
+        submit(new WriteTask(queryName, work, false));
+    }
+
+    /**
+     * 提交维护操作并等待其执行完成，维护操作在写入线程上以自动提交模式执行，不与其他写入合并
+     *
+     * @param queryName 查询名称，用于耗时统计
+     * @param work      维护操作
+     * @throws SQLException 执行失败或写入器已停止
+     */
+    public void maintain(String queryName, DatabaseUtil.SqlWork work) throws SQLException {
+        submit(new WriteTask(queryName, work, true));
+    }
+
+    private void submit(WriteTask task) throws SQLException {
+        // 与 stop() 互斥，保证 STOP 标记之后不会再有任务入队
+        synchronized (queue) {
+            if (!running) {
+                throw new SQLNonTransientConnectionException("SQLite writer has been stopped");
+            }
+            metricsRegistry.incrementPendingWrites();
+            queue.add(task);
+        }
+        try {
+            task.future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for SQLite write " + task.queryName, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                throw (SQLException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new SQLException(cause);
+        }
+    }
+
+    /**
+     * 停止写入线程，已排队的写入会在停止前全部提交
+     *
+     * @param timeoutMillis 等待写入线程结束的最长时间
+     */
+    public void stop(long timeoutMillis) {
+        synchronized (queue) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            queue.add(STOP);
+        }
+        try {
+            thread.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            logger.warn("SQLite writer did not finish within {} ms, {} writes may be lost", timeoutMillis, queue.size());
+            return;
+        }
+        closeConnection();
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    private void run() {
+        List<WriteTask> batch = new ArrayList<>(maxBatchSize);
+        List<WriteTask> transaction = new ArrayList<>(maxBatchSize);
+        boolean stopping = false;
+        while (!stopping) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                // 写入线程只通过 STOP 标记退出，忽略中断
+                continue;
+            }
+            queue.drainTo(batch, maxBatchSize - 1);
+
+            if (batch.remove(STOP)) {
+                // STOP 之后不会再有新任务入队，把剩余任务一并处理
+                queue.drainTo(batch);
+                stopping = true;
+            }
+            if (!batch.isEmpty()) {
+                metricsRegistry.decrementPendingWrites(batch.size());
+                for (WriteTask task : batch) {
+                    if (task.standalone) {
+                        runStandalone(task);
+                    } else {
+                        transaction.add(task);
+                    }
+                }
+                if (!transaction.isEmpty()) {
+                    commitBatch(transaction);
+                }
+            }
+            batch.clear();
+            transaction.clear();
+        }
+    }
+
+    /**
+     * 在一个事务中执行一批写入
+     */
+    private void commitBatch(List<WriteTask> batch) {
+        List<WriteTask> succeeded = new ArrayList<>(batch.size());
+        long start = System.nanoTime();
+        try {
+            Connection connection = acquireConnection();
+            connection.setAutoCommit(false);
+            try {
+                for (WriteTask task : batch) {
+                    Savepoint savepoint = connection.setSavepoint();
+                    try {
+                        task.work.accept(timed(connection, task.queryName, statementCache));
+                        connection.releaseSavepoint(savepoint);
+                        succeeded.add(task);
+                    } catch (SQLException | RuntimeException e) {
+                        connection.rollback(savepoint);
+                        task.future.completeExceptionally(e);
+                    }
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                rollbackQuietly(connection);
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            logger.error("Failed to commit {} SQLite writes: {}", batch.size(), e.getMessage());
+            for (WriteTask task : batch) {
+                task.future.completeExceptionally(e);
+            }
+            return;
+        }
+
+        metricsRegistry.recordWriteBatch(batch.size(), System.nanoTime() - start);
+        for (WriteTask task : succeeded) {
+            task.future.complete(null);
+        }
+    }
+
+    /**
+     * 在事务之外执行维护操作
+     */
+    private void runStandalone(WriteTask task) {
+        try {
+            task.work.accept(timed(acquireConnection(), task.queryName, null));
+            task.future.complete(null);
+        } catch (SQLException | RuntimeException e) {
+            task.future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * 获取写入线程持有的连接，首次使用或连接已关闭时从写入池重新获取并新建语句缓存
+     */
+    private Connection acquireConnection() throws SQLException {
+        if (connection == null || connection.isClosed()) {
+            closeConnection();
+            connection = dataSource.getConnection();
+            statementCache = new StatementCache(connection, STATEMENT_CACHE_SIZE, logger);
+        }
+        return connection;
+    }
+
+    /**
+     * 关闭语句缓存并将连接归还写入池
+     */
+    private void closeConnection() {
+        if (statementCache != null) {
+            statementCache.close();
+            statementCache = null;
+        }
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                logger.error("Failed to close SQLite writer connection: {}", e.getMessage());
+            }
+            connection = null;
+        }
+    }
+
+    private void rollbackQuietly(Connection connection) {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            logger.error("Failed to roll back SQLite write batch: {}", e.getMessage());
+        }
+    }
+
+    private Connection timed(Connection connection, String queryName, StatementCache statementCache) {
+        return TimedConnection.wrap(connection, queryName, metricsRegistry.getQueryStats(queryName), slowThresholdMs,
+                logger, statementCache);
+    }
+
+    private static final class WriteTask {
+        private final String queryName;
+        private final DatabaseUtil.SqlWork work;
+        // 是否在事务之外单独执行
+        private final boolean standalone;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        private WriteTask(String queryName, DatabaseUtil.SqlWork work, boolean standalone) {
+            this.queryName = queryName;
+            this.work = work;
+            this.standalone = standalone;
+        }
+    }
+}
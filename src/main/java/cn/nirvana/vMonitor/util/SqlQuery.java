@@ -0,0 +1,134 @@
+package cn.nirvana.vMonitor.util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 类型化的 SQL 执行方法
+ * 参数由调用方通过 setString、setInt 等类型化方法绑定，语句和结果集在方法返回前全部关闭。
+ * 方法只使用传入的连接，不负责获取、提交或关闭连接；在 SQLite 写入线程的连接上，相同 SQL 的语句会被复用
+ */
+public final class SqlQuery {
+    /**
+     * 不绑定任何参数
+     */
+    public static final Binder NO_PARAMETERS = statement -> {
+    };
+
+    private SqlQuery() {
+    }
+
+    /**
+     * 执行查询并将每一行映射为对象
+     *
+     * @return 按结果顺序排列的对象
+     */
+    public static <T> List<T> query(Connection connection, String sql, Binder binder, RowMapper<T> mapper) throws SQLException {
+        List<T> result = new ArrayList<>();
+        forEach(connection, sql, binder, rs -> result.add(mapper.map(rs)));
+        return result;
+    }
+
+    /**
+     * 执行查询并映射第一行
+     *
+     * @return 第一行映射的对象，没有结果时返回 null
+     */
+    public static <T> T queryFirst(Connection connection, String sql, Binder binder, RowMapper<T> mapper) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            binder.bind(statement);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? mapper.map(rs) : null;
+            }
+        }
+    }
+
+    /**
+     * 执行查询并逐行处理结果
+     */
+    public static void forEach(Connection connection, String sql, Binder binder, RowHandler handler) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            binder.bind(statement);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    handler.accept(rs);
+                }
+            }
+        }
+    }
+
+    /**
+     * 执行更新语句（INSERT, UPDATE, DELETE）
+     *
+     * @return 受影响的行数
+     */
+    public static int update(Connection connection, String sql, Binder binder) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            binder.bind(statement);
+            return statement.executeUpdate();
+        }
+    }
+
+    /**
+     * 对每个元素绑定一组参数，作为一个批次执行
+     *
+     * @return 每组参数的更新计数，驱动不返回计数时为 Statement.SUCCESS_NO_INFO
+     */
+    public static <T> int[] batch(Connection connection, String sql, Iterable<T> items, BatchBinder<T> binder) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (T item : items) {
+                binder.bind(statement, item);
+                statement.addBatch();
+            }
+            return statement.executeBatch();
+        }
+    }
+
+    /**
+     * 依次绑定字符串参数
+     */
+    public static Binder strings(String... values) {
+        return statement -> {
+            for (int i = 0; i < values.length; i++) {
+                statement.setString(i + 1, values[i]);
+            }
+        };
+    }
+
+    /**
+     * 绑定语句参数
+     */
+    @FunctionalInterface
+    public interface Binder {
+        void bind(PreparedStatement statement) throws SQLException;
+    }
+
+    /**
+     * 为批次中的一个元素绑定语句参数
+     */
+    @FunctionalInterface
+    public interface BatchBinder<T> {
+        void bind(PreparedStatement statement, T item) throws SQLException;
+    }
+
+    /**
+     * 将结果集的当前行映射为对象，不能移动结果集
+     */
+    @FunctionalInterface
+    public interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * 处理结果集的当前行，不能移动结果集
+     */
+    @FunctionalInterface
+    public interface RowHandler {
+        void accept(ResultSet rs) throws SQLException;
+    }
+}
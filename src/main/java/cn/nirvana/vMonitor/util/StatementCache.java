@@ -0,0 +1,75 @@
+package cn.nirvana.vMonitor.util;
+
+import org.slf4j.Logger;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 单个连接上的预编译语句缓存
+ * 相同 SQL 的语句只编译一次，调用方关闭语句时只清除参数和批次，语句在缓存关闭或被淘汰时才真正关闭。
+ * 缓存按最近使用淘汰，只能在持有连接的线程上使用
+ */
+public class StatementCache implements AutoCloseable {
+    private final Connection connection;
+    private final Logger logger;
+    private final Map<String, PreparedStatement> statements;
+
+    public StatementCache(Connection connection, int maxSize, Logger logger) {
+        this.connection = connection;
+        this.logger = logger;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() <= maxSize) {
+                    return false;
+                }
+                closeQuietly(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * 获取 SQL 对应的语句，缓存中没有时在连接上编译
+     */
+    public PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+        if (statement == null || statement.isClosed()) {
+            statement = connection.prepareStatement(sql);
+            statements.put(sql, statement);
+        }
+        return statement;
+    }
+
+    /**
+     * 语句使用完毕，清除参数和未执行的批次以便下次复用
+     */
+    public void release(PreparedStatement statement) throws SQLException {
+        statement.clearParameters();
+        statement.clearBatch();
+    }
+
+    /**
+     * 关闭缓存中的全部语句，连接本身不关闭
+     */
+    @Override
+    public void close() {
+        for (PreparedStatement statement : statements.values()) {
+            closeQuietly(statement);
+        }
+        statements.clear();
+    }
+
+    private void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            logger.error("Failed to close cached statement: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package cn.nirvana.vMonitor.util;
+
+import org.slf4j.Logger;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 带计时的数据库连接包装
+ * 通过该连接创建的语句在执行时记录耗时到对应查询名称的统计中，执行失败计入失败次数，
+ * 超过慢查询阈值的语句会连同 SQL 一起记录到日志。
+ * 传入语句缓存时，相同 SQL 的预编译语句在原始连接上复用
+ */
+public final class TimedConnection {
+
+    private TimedConnection() {
+    }
+
+    /**
+     * 包装数据库连接
+     *
+     * @param connection      原始连接
+     * @param queryName       查询名称，同一个连接上执行的所有语句都计入该名称
+     * @param stats           查询统计
+     * @param slowThresholdMs 慢查询阈值（毫秒）
+     * @param logger          日志记录器
+     * @return 包装后的连接，关闭它会关闭原始连接
+     */
+    public static Connection wrap(Connection connection, String queryName, MetricsRegistry.QueryStats stats,
+                                  long slowThresholdMs, Logger logger) {
+        return wrap(connection, queryName, stats, slowThresholdMs, logger, null);
+    }
+
+    /**
+     * 包装数据库连接，只带 SQL 参数的 prepareStatement 从语句缓存中获取，关闭这些语句只会将其归还缓存
+     *
+     * @param cache 原始连接上的语句缓存，为 null 时不缓存语句
+     * @see #wrap(Connection, String, MetricsRegistry.QueryStats, long, Logger)
+     */
+    public static Connection wrap(Connection connection, String queryName, MetricsRegistry.QueryStats stats,
+                                  long slowThresholdMs, Logger logger, StatementCache cache) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (cache != null && method.getName().equals("prepareStatement")
+                            && args != null && args.length == 1 && args[0] instanceof String) {
+                        String sql = (String) args[0];
+                        return wrapStatement(cache.prepare(sql), sql, queryName, stats, slowThresholdMs, logger, cache);
+                    }
+                    Object result = invoke(connection, method, args);
+                    if (result instanceof Statement) {
+                        // prepareStatement/prepareCall 的第一个参数就是 SQL，createStatement 的 SQL 在执行时传入
+                        String sql = method.getName().startsWith("prepare") && args != null && args[0] instanceof String
+                                ? (String) args[0] : null;
+                        return wrapStatement((Statement) result, sql, queryName, stats, slowThresholdMs, logger, null);
+                    }
+                    return result;
+                });
+    }
+
+    private static Statement wrapStatement(Statement statement, String preparedSql, String queryName,
+                                           MetricsRegistry.QueryStats stats, long slowThresholdMs, Logger logger,
+                                           StatementCache cache) {
+        Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class
+                : Statement.class;
+
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (cache != null && method.getName().equals("close")) {
+                // 缓存中的语句由缓存关闭
+                cache.release((PreparedStatement) statement);
+                return null;
+            }
+            if (!method.getName().startsWith("execute")) {
+                return invoke(statement, method, args);
+            }
+
+            long start = System.nanoTime();
+            try {
+                return invoke(statement, method, args);
+            } catch (SQLException e) {
+                stats.recordError();
+                throw e;
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                stats.getLatency().record(elapsed);
+
+                long elapsedMs = TimeUnit.NANOSECONDS.toMillis(elapsed);
+                if (elapsedMs >= slowThresholdMs) {
+                    stats.recordSlowQuery();
+                    String sql = preparedSql != null ? preparedSql
+                            : args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : "<batch>";
+                    logger.warn("Slow query {} took {} ms: {}", queryName, elapsedMs, sql);
+                }
+            }
+        };
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    /**
+     * 调用原始对象的方法，并将反射异常还原为原始异常
+     */
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}